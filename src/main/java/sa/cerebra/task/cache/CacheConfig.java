@@ -0,0 +1,18 @@
+package sa.cerebra.task.cache;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class CacheConfig {
+
+    @Bean
+    public CacheMetrics cacheMetrics(ObjectProvider<MeterRegistry> meterRegistry,
+                                     @Value("${cerebra.cache.metrics.enabled:true}") boolean enabled,
+                                     @Value("${cerebra.cache.trace.sample-rate:0.01}") double traceSampleRate) {
+        return new CacheMetrics(enabled ? meterRegistry.getIfAvailable() : null, traceSampleRate);
+    }
+}
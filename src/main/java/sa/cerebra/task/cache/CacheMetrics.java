@@ -0,0 +1,127 @@
+package sa.cerebra.task.cache;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-cacheName timers and counters for {@link CacheStore} implementations, plus sampled debug tracing.
+ * When metrics are disabled every recording call is a no-op on a shared instance.
+ */
+@Slf4j
+public class CacheMetrics {
+
+    private static final CacheMeters NOOP_METERS = new CacheMeters(null, null);
+
+    private final MeterRegistry registry;
+    private final double traceSampleRate;
+    private final ConcurrentHashMap<String, CacheMeters> meters = new ConcurrentHashMap<>();
+
+    /**
+     * @param registry        registry to publish to, or {@code null} to disable metrics
+     * @param traceSampleRate fraction (0..1) of operations logged at debug level
+     */
+    public CacheMetrics(MeterRegistry registry, double traceSampleRate) {
+        this.registry = registry;
+        this.traceSampleRate = traceSampleRate;
+    }
+
+    public static CacheMetrics noop() {
+        return new CacheMetrics(null, 0);
+    }
+
+    public CacheMeters of(String cacheName) {
+        if (registry == null) {
+            return NOOP_METERS;
+        }
+        // fromCacheKey renders a null cacheName as "null", so tag it the same way
+        String name = String.valueOf(cacheName);
+        CacheMeters cacheMeters = meters.get(name);
+        if (cacheMeters == null) {
+            cacheMeters = meters.computeIfAbsent(name, n -> new CacheMeters(registry, n));
+        }
+        return cacheMeters;
+    }
+
+    /**
+     * Logs a sampled debug line for a cache operation. Neither keys nor values are logged: values hold OTPs and
+     * paths, and some keys are secrets or personal data themselves (share tokens, phone numbers).
+     */
+    public void trace(String operation, String cacheName, String result, long startNanos) {
+        if (traceSampleRate <= 0 || !log.isDebugEnabled()) {
+            return;
+        }
+        if (traceSampleRate < 1 && ThreadLocalRandom.current().nextDouble() >= traceSampleRate) {
+            return;
+        }
+        log.debug("cache {} {} -> {} in {}us", operation, cacheName, result,
+                TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - startNanos));
+    }
+
+    public static final class CacheMeters {
+        private final Timer getTimer;
+        private final Timer putTimer;
+        private final Counter hits;
+        private final Counter misses;
+        private final Counter expired;
+
+        private CacheMeters(MeterRegistry registry, String cacheName) {
+            if (registry == null) {
+                getTimer = null;
+                putTimer = null;
+                hits = null;
+                misses = null;
+                expired = null;
+                return;
+            }
+            getTimer = Timer.builder("cerebra.cache.get")
+                    .description("Cache get latency")
+                    .tag("cache", cacheName)
+                    .register(registry);
+            putTimer = Timer.builder("cerebra.cache.put")
+                    .description("Cache put latency")
+                    .tag("cache", cacheName)
+                    .register(registry);
+            hits = Counter.builder("cerebra.cache.gets")
+                    .tag("cache", cacheName)
+                    .tag("result", "hit")
+                    .register(registry);
+            misses = Counter.builder("cerebra.cache.gets")
+                    .tag("cache", cacheName)
+                    .tag("result", "miss")
+                    .register(registry);
+            expired = Counter.builder("cerebra.cache.expired")
+                    .description("Entries found expired on read")
+                    .tag("cache", cacheName)
+                    .register(registry);
+        }
+
+        public void recordHit(long startNanos) {
+            if (getTimer == null) return;
+            hits.increment();
+            getTimer.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+        }
+
+        public void recordMiss(long startNanos) {
+            if (getTimer == null) return;
+            misses.increment();
+            getTimer.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+        }
+
+        public void recordExpired(long startNanos) {
+            if (getTimer == null) return;
+            expired.increment();
+            recordMiss(startNanos);
+        }
+
+        public void recordPut(long startNanos) {
+            if (putTimer == null) return;
+            putTimer.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+        }
+    }
+}
@@ -1,13 +1,91 @@
 package sa.cerebra.task.cache;
 
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
 public interface CacheStore {
     void put(String cacheName, String key, Object data, long timeoutInMinutes);
 
     Object get(String cacheName, String key);
 
+    /**
+     * Stores the value only if the key has no live entry, atomically with respect to other callers.
+     *
+     * @return true if the value was stored
+     */
+    boolean putIfAbsent(String cacheName, String key, Object data, long timeoutInMinutes);
+
+    /**
+     * Atomically decrements a counter stored as a number and keeps its expiry. Concurrent callers, on this
+     * node or others sharing the store, each see a distinct value.
+     *
+     * @return the value after the decrement (negative once the counter is used up), or null if there is no live
+     * counter; an absent counter is never created
+     */
+    Long decrement(String cacheName, String key);
+
+    /**
+     * Stores several entries with the same timeout. Network-backed stores send them in one round trip
+     * instead of one per entry.
+     */
+    default void putAll(String cacheName, Map<String, ?> entries, long timeoutInMinutes) {
+        entries.forEach((key, data) -> put(cacheName, key, data, timeoutInMinutes));
+    }
+
+    // --- Fields: small values grouped under one key, e.g. one Redis hash instead of a key per value. ---
+    // Local stores keep each field as an entry of its own.
+
+    default Object getField(String cacheName, String key, String field) {
+        return get(cacheName, key + "#" + field);
+    }
+
+    /**
+     * Stores fields under {@code key}. The timeout applies to the whole key in stores that group fields, so
+     * every field gets at least {@code timeoutInMinutes} from this call.
+     */
+    default void putFields(String cacheName, String key, Map<String, ?> fields, long timeoutInMinutes) {
+        Map<String, Object> entries = new HashMap<>();
+        fields.forEach((field, data) -> entries.put(key + "#" + field, data));
+        putAll(cacheName, entries, timeoutInMinutes);
+    }
+
+    default void removeField(String cacheName, String key, String field) {
+        remove(cacheName, key + "#" + field);
+    }
+
     //    // --- DELETE Operation ---
     void remove(String cacheName, String key);
 
+    // --- Async variants: let callers overlap cache I/O with other work. ---
+    // Stores without non-blocking I/O run the blocking operation and return an already completed future.
+
+    default CompletableFuture<Void> putAsync(String cacheName, String key, Object data, long timeoutInMinutes) {
+        try {
+            put(cacheName, key, data, timeoutInMinutes);
+            return CompletableFuture.completedFuture(null);
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    default CompletableFuture<Object> getAsync(String cacheName, String key) {
+        try {
+            return CompletableFuture.completedFuture(get(cacheName, key));
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    default CompletableFuture<Void> removeAsync(String cacheName, String key) {
+        try {
+            remove(cacheName, key);
+            return CompletableFuture.completedFuture(null);
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
     default String fromCacheKey(String cacheName, String key) {
         return cacheName + ":" + key;
     }
@@ -0,0 +1,556 @@
+package sa.cerebra.task.cache.impl.disk;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import sa.cerebra.task.cache.CacheMetrics;
+import sa.cerebra.task.cache.CacheStore;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.zip.CRC32C;
+
+/**
+ * CacheStore for the local profile that survives restarts, so share links and pending OTPs are still
+ * there after a deploy. Selected with {@code cerebra.cache.local.store=disk}.
+ * <p>
+ * Every put/remove is appended to a single log file; an in-memory index maps each key to the position of
+ * its latest value, and a get is one positional read (served from the OS page cache in practice).
+ * On startup the index is rebuilt by a background scan of the log while requests are already served, and
+ * keys written since startup are answered immediately. Loading is not lazy: until the scan finishes, a lookup
+ * of any key written before startup blocks, since a record the scan has not reached yet may supersede the one
+ * it has. The scheduled job drops expired keys and rewrites the log once most of it is garbage.
+ * <p>
+ * Record layout: {@code int bodyLength | int crc32c(body) | body}, body =
+ * {@code byte type | long expiresAt | int keyLength | key | value}. A torn or corrupt record ends the scan,
+ * and the log is compacted right after so new appends never sit behind it.
+ */
+@Slf4j
+@Profile("local")
+@ConditionalOnProperty(name = "cerebra.cache.local.store", havingValue = "disk")
+@Service
+public class DiskCacheStore implements CacheStore, DisposableBean {
+
+    private static final String LOG_FILE = "cache.log";
+    private static final String COMPACT_FILE = "cache.log.compacting";
+    private static final byte PUT = 1;
+    private static final byte REMOVE = 2;
+    private static final int HEADER_BYTES = 8;
+    private static final int BODY_PREFIX_BYTES = 1 + 8 + 4;
+
+    private final Path directory;
+    private final boolean syncWrites;
+    private final long compactMinBytes;
+    private final CacheMetrics cacheMetrics;
+    private final RedisSerializer<Object> serializer = new GenericJackson2JsonRedisSerializer();
+
+    private final ConcurrentHashMap<String, IndexEntry> index = new ConcurrentHashMap<>();
+    // appends take the read side (they share the channel), compaction swaps the file under the write side
+    private final ReentrantReadWriteLock fileLock = new ReentrantReadWriteLock();
+    // orders appends so the index always points at the newest record of a key
+    private final ReentrantLock appendLock = new ReentrantLock();
+    private final CompletableFuture<Void> indexLoaded = new CompletableFuture<>();
+
+    private FileChannel channel;
+    private long writePosition;
+    // records from here on were appended since startup
+    private final long loadEnd;
+    private volatile boolean loading = true;
+
+    public DiskCacheStore(CacheMetrics cacheMetrics,
+                          @Value("${cerebra.cache.disk.directory:target/tmp/cerebra-cache}") String directory,
+                          @Value("${cerebra.cache.disk.sync-writes:false}") boolean syncWrites,
+                          @Value("${cerebra.cache.disk.compact-min-bytes:67108864}") long compactMinBytes) {
+        this.cacheMetrics = cacheMetrics;
+        this.directory = Path.of(directory);
+        this.syncWrites = syncWrites;
+        this.compactMinBytes = compactMinBytes;
+        try {
+            Files.createDirectories(this.directory);
+            Files.deleteIfExists(this.directory.resolve(COMPACT_FILE));
+            this.channel = FileChannel.open(this.directory.resolve(LOG_FILE),
+                    StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            this.writePosition = channel.size();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not open cache log in " + directory, e);
+        }
+        this.loadEnd = writePosition;
+        Thread.ofPlatform().daemon().name("disk-cache-loader").start(() -> loadIndex(loadEnd));
+    }
+
+    @Override
+    public void put(String cacheName, String key, Object data, long timeoutInMinutes) {
+        long start = System.nanoTime();
+        append(PUT, fromCacheKey(cacheName, key), serializer.serialize(data), expiresAt(timeoutInMinutes));
+        cacheMetrics.of(cacheName).recordPut(start);
+        cacheMetrics.trace("put", cacheName, "stored", start);
+    }
+
+    @Override
+    public boolean putIfAbsent(String cacheName, String key, Object data, long timeoutInMinutes) {
+        long start = System.nanoTime();
+        String fullKey = fromCacheKey(cacheName, key);
+        awaitUnlessWrittenSinceStartup(fullKey);
+        boolean stored = append(PUT, fullKey, serializer.serialize(data), expiresAt(timeoutInMinutes), true);
+        if (stored) {
+            cacheMetrics.of(cacheName).recordPut(start);
+        }
+        cacheMetrics.trace("putIfAbsent", cacheName, stored ? "stored" : "present", start);
+        return stored;
+    }
+
+    /**
+     * Appends all records with one write (and one fsync when {@code sync-writes} is on).
+     */
+    @Override
+    public void putAll(String cacheName, Map<String, ?> entries, long timeoutInMinutes) {
+        long start = System.nanoTime();
+        long expiresAt = expiresAt(timeoutInMinutes);
+        String[] keys = new String[entries.size()];
+        byte[][] records = new byte[entries.size()][];
+        int[] valueLengths = new int[entries.size()];
+        int total = 0;
+        int i = 0;
+        for (Map.Entry<String, ?> entry : entries.entrySet()) {
+            byte[] value = serializer.serialize(entry.getValue());
+            keys[i] = fromCacheKey(cacheName, entry.getKey());
+            records[i] = encode(PUT, keys[i].getBytes(StandardCharsets.UTF_8), value, expiresAt);
+            valueLengths[i] = value.length;
+            total += records[i].length;
+            i++;
+        }
+        ByteBuffer batch = ByteBuffer.allocate(total);
+        for (byte[] record : records) {
+            batch.put(record);
+        }
+
+        fileLock.readLock().lock();
+        try {
+            appendLock.lock();
+            try {
+                long position = writePosition;
+                write(batch.array(), position);
+                writePosition = position + total;
+                for (int k = 0; k < keys.length; k++) {
+                    index.put(keys[k], entryAt(position, records[k].length, valueLengths[k], expiresAt));
+                    position += records[k].length;
+                }
+            } finally {
+                appendLock.unlock();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not append to cache log", e);
+        } finally {
+            fileLock.readLock().unlock();
+        }
+        CacheMetrics.CacheMeters meters = cacheMetrics.of(cacheName);
+        for (int k = 0; k < keys.length; k++) {
+            meters.recordPut(start);
+        }
+        cacheMetrics.trace("putAll", cacheName, keys.length + " keys stored", start);
+    }
+
+    /**
+     * Reads the counter and appends its new value under the append lock, so concurrent decrements queue up
+     * behind each other like appends do.
+     */
+    @Override
+    public Long decrement(String cacheName, String key) {
+        long start = System.nanoTime();
+        String fullKey = fromCacheKey(cacheName, key);
+        awaitUnlessWrittenSinceStartup(fullKey);
+        fileLock.readLock().lock();
+        try {
+            appendLock.lock();
+            try {
+                IndexEntry entry = index.get(fullKey);
+                if (entry == null || entry.removed() || entry.expiresAt() <= System.currentTimeMillis()) {
+                    cacheMetrics.trace("decrement", cacheName, "miss", start);
+                    return null;
+                }
+                long value = ((Number) serializer.deserialize(read(entry))).longValue() - 1;
+                byte[] bytes = serializer.serialize(value);
+                byte[] record = encode(PUT, fullKey.getBytes(StandardCharsets.UTF_8), bytes, entry.expiresAt());
+                long position = writePosition;
+                write(record, position);
+                writePosition = position + record.length;
+                index.put(fullKey, entryAt(position, record.length, bytes.length, entry.expiresAt()));
+                cacheMetrics.trace("decrement", cacheName, "stored", start);
+                return value;
+            } finally {
+                appendLock.unlock();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not append to cache log", e);
+        } finally {
+            fileLock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public Object get(String cacheName, String key) {
+        long start = System.nanoTime();
+        String fullKey = fromCacheKey(cacheName, key);
+        awaitUnlessWrittenSinceStartup(fullKey);
+
+        byte[] value;
+        fileLock.readLock().lock();
+        try {
+            IndexEntry entry = index.get(fullKey);
+            if (entry == null || entry.removed()) {
+                cacheMetrics.of(cacheName).recordMiss(start);
+                cacheMetrics.trace("get", cacheName, "miss", start);
+                return null;
+            }
+            if (entry.expiresAt() <= System.currentTimeMillis()) {
+                // nothing to append: the record is just as expired when the log is replayed
+                index.remove(fullKey, entry);
+                cacheMetrics.of(cacheName).recordExpired(start);
+                cacheMetrics.trace("get", cacheName, "expired", start);
+                return null;
+            }
+            value = read(entry);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read cache log", e);
+        } finally {
+            fileLock.readLock().unlock();
+        }
+
+        cacheMetrics.of(cacheName).recordHit(start);
+        cacheMetrics.trace("get", cacheName, "hit", start);
+        return serializer.deserialize(value);
+    }
+
+    @Override
+    public void remove(String cacheName, String key) {
+        String fullKey = fromCacheKey(cacheName, key);
+        // while loading, the log may still hold a value the scan has not reached, so always write the tombstone
+        if (loading || index.containsKey(fullKey)) {
+            append(REMOVE, fullKey, new byte[0], 0);
+        }
+    }
+
+    public int size() {
+        int size = 0;
+        for (IndexEntry entry : index.values()) {
+            if (!entry.removed()) {
+                size++;
+            }
+        }
+        return size;
+    }
+
+    public long logBytes() {
+        fileLock.readLock().lock();
+        try {
+            appendLock.lock();
+            try {
+                return writePosition;
+            } finally {
+                appendLock.unlock();
+            }
+        } finally {
+            fileLock.readLock().unlock();
+        }
+    }
+
+    public void awaitIndexLoaded() {
+        indexLoaded.join();
+    }
+
+    /**
+     * While the scan runs, only entries appended since startup are final: a loaded entry may still be
+     * superseded by a put or remove further along the log, e.g. a consumed OTP challenge or a revoked link.
+     */
+    private void awaitUnlessWrittenSinceStartup(String fullKey) {
+        if (loading) {
+            IndexEntry entry = index.get(fullKey);
+            if (entry == null || entry.recordOffset() < loadEnd) {
+                awaitIndexLoaded();
+            }
+        }
+    }
+
+    @Scheduled(fixedRate = 5, timeUnit = TimeUnit.MINUTES)
+    public void evictExpiredCacheEntries() {
+        if (loading) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        long liveBytes = 0;
+        int evicted = 0;
+        for (Map.Entry<String, IndexEntry> e : index.entrySet()) {
+            IndexEntry entry = e.getValue();
+            if (entry.expiresAt() <= now) {
+                if (index.remove(e.getKey(), entry)) {
+                    evicted++;
+                }
+            } else {
+                liveBytes += entry.recordLength();
+            }
+        }
+        long logBytes = logBytes();
+        log.debug("Disk cache cleanup evicted {} entries, {} live bytes in a {} byte log", evicted, liveBytes, logBytes);
+        if (logBytes >= compactMinBytes && liveBytes * 2 < logBytes) {
+            compact();
+        }
+    }
+
+    /**
+     * Rewrites the log with only the live, unexpired records and atomically replaces the old file.
+     */
+    public void compact() {
+        awaitIndexLoaded();
+        rewriteLog();
+    }
+
+    private void rewriteLog() {
+        fileLock.writeLock().lock();
+        try {
+            long before = writePosition;
+            Path compactPath = directory.resolve(COMPACT_FILE);
+            long now = System.currentTimeMillis();
+            Map<String, IndexEntry> compacted = new HashMap<>();
+            long position = 0;
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                    Files.newOutputStream(compactPath), 1 << 16))) {
+                for (Map.Entry<String, IndexEntry> e : index.entrySet()) {
+                    IndexEntry entry = e.getValue();
+                    if (entry.removed() || entry.expiresAt() <= now) {
+                        continue;
+                    }
+                    byte[] record = encode(PUT, e.getKey().getBytes(StandardCharsets.UTF_8), read(entry), entry.expiresAt());
+                    out.write(record);
+                    compacted.put(e.getKey(), entryAt(position, record.length, entry.valueLength(), entry.expiresAt()));
+                    position += record.length;
+                }
+            }
+            try (FileChannel compactChannel = FileChannel.open(compactPath, StandardOpenOption.WRITE)) {
+                compactChannel.force(true);
+            }
+            channel.close();
+            Files.move(compactPath, directory.resolve(LOG_FILE),
+                    StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            channel = FileChannel.open(directory.resolve(LOG_FILE), StandardOpenOption.READ, StandardOpenOption.WRITE);
+            writePosition = position;
+            index.clear();
+            index.putAll(compacted);
+            log.info("Compacted cache log from {} to {} bytes ({} entries)", before, position, compacted.size());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not compact cache log", e);
+        } finally {
+            fileLock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void destroy() throws IOException {
+        fileLock.writeLock().lock();
+        try {
+            channel.force(true);
+            channel.close();
+        } finally {
+            fileLock.writeLock().unlock();
+        }
+    }
+
+    private void append(byte type, String fullKey, byte[] value, long expiresAt) {
+        append(type, fullKey, value, expiresAt, false);
+    }
+
+    /**
+     * @param onlyIfAbsent skip the append if the key has a live entry; checked under the append lock
+     * @return false if the append was skipped
+     */
+    private boolean append(byte type, String fullKey, byte[] value, long expiresAt, boolean onlyIfAbsent) {
+        byte[] record = encode(type, fullKey.getBytes(StandardCharsets.UTF_8), value, expiresAt);
+        fileLock.readLock().lock();
+        try {
+            appendLock.lock();
+            try {
+                if (onlyIfAbsent) {
+                    IndexEntry existing = index.get(fullKey);
+                    if (existing != null && !existing.removed() && existing.expiresAt() > System.currentTimeMillis()) {
+                        return false;
+                    }
+                }
+                long position = writePosition;
+                write(record, position);
+                writePosition = position + record.length;
+                if (type == PUT) {
+                    index.put(fullKey, entryAt(position, record.length, value.length, expiresAt));
+                } else if (loading) {
+                    // keeps the background scan from resurrecting an older value of this key
+                    index.put(fullKey, IndexEntry.removedAt(position, record.length));
+                } else {
+                    index.remove(fullKey);
+                }
+                return true;
+            } finally {
+                appendLock.unlock();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not append to cache log", e);
+        } finally {
+            fileLock.readLock().unlock();
+        }
+    }
+
+    private void write(byte[] record, long position) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(record);
+        while (buffer.hasRemaining()) {
+            position += channel.write(buffer, position);
+        }
+        if (syncWrites) {
+            channel.force(false);
+        }
+    }
+
+    private byte[] read(IndexEntry entry) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(entry.valueLength());
+        long position = entry.valueOffset();
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position);
+            if (read < 0) {
+                throw new EOFException("Cache log ended inside a record");
+            }
+            position += read;
+        }
+        return buffer.array();
+    }
+
+    private void loadIndex(long loadEnd) {
+        long start = System.nanoTime();
+        long position = 0;
+        int records = 0;
+        boolean corrupt = false;
+        long now = System.currentTimeMillis();
+        try (FileChannel reader = FileChannel.open(directory.resolve(LOG_FILE), StandardOpenOption.READ);
+             DataInputStream in = new DataInputStream(new BufferedInputStream(Channels.newInputStream(reader), 1 << 16))) {
+            CRC32C crc = new CRC32C();
+            while (position < loadEnd) {
+                if (loadEnd - position < HEADER_BYTES) {
+                    corrupt = true;
+                    break;
+                }
+                int bodyLength = in.readInt();
+                int checksum = in.readInt();
+                if (bodyLength < BODY_PREFIX_BYTES || bodyLength > loadEnd - position - HEADER_BYTES) {
+                    corrupt = true;
+                    break;
+                }
+                byte[] body = new byte[bodyLength];
+                in.readFully(body);
+                crc.reset();
+                crc.update(body);
+                if ((int) crc.getValue() != checksum) {
+                    corrupt = true;
+                    break;
+                }
+                apply(body, position, loadEnd, now);
+                position += HEADER_BYTES + bodyLength;
+                records++;
+            }
+        } catch (IOException e) {
+            log.error("Could not read cache log, continuing with {} records", records, e);
+            corrupt = true;
+        }
+        index.values().removeIf(IndexEntry::removed);
+        loading = false;
+        if (corrupt) {
+            // rewrite before anything is appended behind the bad record, or the next scan would stop there again
+            log.warn("Cache log is truncated or corrupt at byte {} of {}, compacting", position, loadEnd);
+            try {
+                rewriteLog();
+            } catch (UncheckedIOException e) {
+                log.error("Could not compact corrupt cache log", e);
+            }
+        }
+        indexLoaded.complete(null);
+        log.info("Loaded {} cache entries from {} log records in {} ms",
+                index.size(), records, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+    }
+
+    private void apply(byte[] body, long position, long loadEnd, long now) {
+        ByteBuffer buffer = ByteBuffer.wrap(body);
+        byte type = buffer.get();
+        long expiresAt = buffer.getLong();
+        int keyLength = buffer.getInt();
+        String fullKey = new String(body, BODY_PREFIX_BYTES, keyLength, StandardCharsets.UTF_8);
+        int valueLength = body.length - BODY_PREFIX_BYTES - keyLength;
+        index.compute(fullKey, (k, existing) -> {
+            if (existing != null && existing.recordOffset() >= loadEnd) {
+                // written after startup, newer than anything in the scanned part of the log
+                return existing;
+            }
+            if (type != PUT || expiresAt <= now) {
+                return null;
+            }
+            return entryAt(position, HEADER_BYTES + body.length, valueLength, expiresAt);
+        });
+    }
+
+    private static byte[] encode(byte type, byte[] key, byte[] value, long expiresAt) {
+        int bodyLength = BODY_PREFIX_BYTES + key.length + value.length;
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_BYTES + bodyLength);
+        buffer.putInt(bodyLength).putInt(0)
+                .put(type).putLong(expiresAt).putInt(key.length).put(key).put(value);
+        CRC32C crc = new CRC32C();
+        crc.update(buffer.array(), HEADER_BYTES, bodyLength);
+        buffer.putInt(4, (int) crc.getValue());
+        return buffer.array();
+    }
+
+    private static IndexEntry entryAt(long recordOffset, int recordLength, int valueLength, long expiresAt) {
+        return new IndexEntry(recordOffset, recordLength, valueLength, expiresAt);
+    }
+
+    private static long expiresAt(long timeoutInMinutes) {
+        long now = System.currentTimeMillis();
+        if (timeoutInMinutes > (Long.MAX_VALUE - now) / 60_000) {
+            return Long.MAX_VALUE;
+        }
+        return now + timeoutInMinutes * 60_000;
+    }
+
+    private record IndexEntry(long recordOffset, int recordLength, int valueLength, long expiresAt) {
+
+        static IndexEntry removedAt(long recordOffset, int recordLength) {
+            return new IndexEntry(recordOffset, recordLength, -1, 0);
+        }
+
+        boolean removed() {
+            return valueLength < 0;
+        }
+
+        long valueOffset() {
+            return recordOffset + recordLength - valueLength;
+        }
+    }
+}
@@ -14,6 +14,18 @@ class CacheEntry {
         this.expiryTime = Instant.now().plusSeconds(timeoutInMinutes * 60);
     }
 
+    CacheEntry(Object data, Instant expiryTime) {
+        this.data = data;
+        this.expiryTime = expiryTime;
+    }
+
+    /**
+     * The same entry holding {@code data}, expiring at the same time.
+     */
+    CacheEntry withData(Object data) {
+        return new CacheEntry(data, expiryTime);
+    }
+
     public boolean isExpired() {
         return Instant.now().isAfter(expiryTime);
     }
@@ -1,10 +1,13 @@
 package sa.cerebra.task.cache.impl.map;
 
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Profile;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 import org.springframework.stereotype.Service;
+import sa.cerebra.task.cache.CacheMetrics;
 import sa.cerebra.task.cache.CacheStore;
 
 import java.util.Iterator;
@@ -15,35 +18,87 @@ import java.util.concurrent.TimeUnit;
 
 @Slf4j
 @Profile("local")
+@ConditionalOnProperty(name = "cerebra.cache.local.store", havingValue = "memory", matchIfMissing = true)
 @Service
+@RequiredArgsConstructor
 public class InMemoryCacheStore implements CacheStore {
 
     // Using ConcurrentHashMap for thread-safe access
     private final ConcurrentHashMap<String, CacheEntry> cache = new ConcurrentHashMap<>();
+    private final CacheMetrics cacheMetrics;
 
     @Override
     public void put(String cacheName, String key, Object data, long timeoutInMinutes) {
+        long start = System.nanoTime();
         String fullKey = fromCacheKey(cacheName, key);
         CacheEntry entry = new CacheEntry(data, timeoutInMinutes);
         cache.put(fullKey, entry);
-        System.out.println("Cached: " + fullKey + " with timeout: " + timeoutInMinutes + " min");
+        cacheMetrics.of(cacheName).recordPut(start);
+        cacheMetrics.trace("put", cacheName, "stored", start);
+    }
+
+    @Override
+    public boolean putIfAbsent(String cacheName, String key, Object data, long timeoutInMinutes) {
+        long start = System.nanoTime();
+        String fullKey = fromCacheKey(cacheName, key);
+        CacheEntry entry = new CacheEntry(data, timeoutInMinutes);
+        CacheEntry existing = cache.putIfAbsent(fullKey, entry);
+        while (existing != null) {
+            if (!existing.isExpired()) {
+                cacheMetrics.trace("putIfAbsent", cacheName, "present", start);
+                return false;
+            }
+            // an expired entry the cleanup job has not reached yet counts as absent
+            if (cache.replace(fullKey, existing, entry)) {
+                break;
+            }
+            existing = cache.putIfAbsent(fullKey, entry);
+        }
+        cacheMetrics.of(cacheName).recordPut(start);
+        cacheMetrics.trace("putIfAbsent", cacheName, "stored", start);
+        return true;
+    }
+
+    @Override
+    public Long decrement(String cacheName, String key) {
+        long start = System.nanoTime();
+        String fullKey = fromCacheKey(cacheName, key);
+        while (true) {
+            CacheEntry entry = cache.get(fullKey);
+            if (entry == null || entry.isExpired()) {
+                cacheMetrics.trace("decrement", cacheName, "miss", start);
+                return null;
+            }
+            long value = ((Number) entry.getData()).longValue() - 1;
+            // compare-and-set on the entry: a concurrent decrement makes this one retry on the new value
+            if (cache.replace(fullKey, entry, entry.withData(value))) {
+                cacheMetrics.trace("decrement", cacheName, "stored", start);
+                return value;
+            }
+        }
     }
 
     @Override
     public Object get(String cacheName, String key) {
+        long start = System.nanoTime();
         String fullKey = fromCacheKey(cacheName, key);
         CacheEntry entry = cache.get(fullKey);
 
         if (entry == null) {
+            cacheMetrics.of(cacheName).recordMiss(start);
+            cacheMetrics.trace("get", cacheName, "miss", start);
             return null; // Cache miss
         }
 
         if (entry.isExpired()) {
-            System.out.println("Cache Expired: " + fullKey + ". Removing entry.");
-            cache.remove(fullKey); // Eagerly remove expired entry on access
+            cache.remove(fullKey, entry); // Eagerly remove expired entry on access
+            cacheMetrics.of(cacheName).recordExpired(start);
+            cacheMetrics.trace("get", cacheName, "expired", start);
             return null;
         }
 
+        cacheMetrics.of(cacheName).recordHit(start);
+        cacheMetrics.trace("get", cacheName, "hit", start);
         return entry.getData();
     }
 
@@ -0,0 +1,164 @@
+package sa.cerebra.task.cache.impl.offheap;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import sa.cerebra.task.cache.CacheMetrics;
+import sa.cerebra.task.cache.CacheStore;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * CacheStore for the local profile that keeps keys and values outside the Java heap, so millions of
+ * long-lived entries (share links) add no GC work. Selected with {@code cerebra.cache.local.store=offheap}.
+ * <p>
+ * Values are serialized with the same JSON serializer RedisStore uses, so they come back with the type
+ * they were stored with. Entries are spread over lock-striped {@link OffHeapSegment}s by key hash.
+ * Direct memory is bounded by {@code -XX:MaxDirectMemorySize} (defaults to the max heap size).
+ */
+@Slf4j
+@Profile("local")
+@ConditionalOnProperty(name = "cerebra.cache.local.store", havingValue = "offheap")
+@Service
+public class OffHeapCacheStore implements CacheStore {
+
+    private final OffHeapSegment[] segments;
+    private final int segmentShift;
+    private final RedisSerializer<Object> serializer = new GenericJackson2JsonRedisSerializer();
+    private final CacheMetrics cacheMetrics;
+
+    public OffHeapCacheStore(CacheMetrics cacheMetrics,
+                             @Value("${cerebra.cache.offheap.max-bytes:268435456}") long maxBytes,
+                             @Value("${cerebra.cache.offheap.chunk-bytes:4194304}") int chunkBytes,
+                             @Value("${cerebra.cache.offheap.initial-entries:65536}") int initialEntries,
+                             @Value("${cerebra.cache.offheap.segments:16}") int segmentCount) {
+        if (Integer.bitCount(segmentCount) != 1) {
+            throw new IllegalArgumentException("cerebra.cache.offheap.segments must be a power of two");
+        }
+        this.cacheMetrics = cacheMetrics;
+        this.segments = new OffHeapSegment[segmentCount];
+        this.segmentShift = 32 - Integer.numberOfTrailingZeros(segmentCount);
+        long segmentBytes = maxBytes / segmentCount;
+        int segmentChunkBytes = (int) Math.min(chunkBytes, segmentBytes);
+        for (int i = 0; i < segmentCount; i++) {
+            segments[i] = new OffHeapSegment(initialEntries / segmentCount, segmentBytes, segmentChunkBytes);
+        }
+    }
+
+    @Override
+    public void put(String cacheName, String key, Object data, long timeoutInMinutes) {
+        long start = System.nanoTime();
+        byte[] fullKey = fromCacheKey(cacheName, key).getBytes(StandardCharsets.UTF_8);
+        int hash = hash(fullKey);
+        segmentFor(hash).put(fullKey, hash, serializer.serialize(data), expiresAt(timeoutInMinutes));
+        cacheMetrics.of(cacheName).recordPut(start);
+        cacheMetrics.trace("put", cacheName, "stored", start);
+    }
+
+    @Override
+    public boolean putIfAbsent(String cacheName, String key, Object data, long timeoutInMinutes) {
+        long start = System.nanoTime();
+        byte[] fullKey = fromCacheKey(cacheName, key).getBytes(StandardCharsets.UTF_8);
+        int hash = hash(fullKey);
+        boolean stored = segmentFor(hash).putIfAbsent(fullKey, hash, serializer.serialize(data),
+                expiresAt(timeoutInMinutes), System.currentTimeMillis());
+        if (stored) {
+            cacheMetrics.of(cacheName).recordPut(start);
+        }
+        cacheMetrics.trace("putIfAbsent", cacheName, stored ? "stored" : "present", start);
+        return stored;
+    }
+
+    @Override
+    public Long decrement(String cacheName, String key) {
+        long start = System.nanoTime();
+        byte[] fullKey = fromCacheKey(cacheName, key).getBytes(StandardCharsets.UTF_8);
+        int hash = hash(fullKey);
+        byte[] value = segmentFor(hash).update(fullKey, hash, System.currentTimeMillis(),
+                current -> serializer.serialize(((Number) serializer.deserialize(current)).longValue() - 1));
+        cacheMetrics.trace("decrement", cacheName, value == null ? "miss" : "stored", start);
+        return value == null ? null : ((Number) serializer.deserialize(value)).longValue();
+    }
+
+    @Override
+    public Object get(String cacheName, String key) {
+        long start = System.nanoTime();
+        byte[] fullKey = fromCacheKey(cacheName, key).getBytes(StandardCharsets.UTF_8);
+        int hash = hash(fullKey);
+        byte[] value = segmentFor(hash).get(fullKey, hash, System.currentTimeMillis());
+
+        if (value == null) {
+            cacheMetrics.of(cacheName).recordMiss(start);
+            cacheMetrics.trace("get", cacheName, "miss", start);
+            return null;
+        }
+        if (value == OffHeapSegment.EXPIRED) {
+            // left for the eviction job, which reclaims it under the segment's write lock
+            cacheMetrics.of(cacheName).recordExpired(start);
+            cacheMetrics.trace("get", cacheName, "expired", start);
+            return null;
+        }
+
+        cacheMetrics.of(cacheName).recordHit(start);
+        cacheMetrics.trace("get", cacheName, "hit", start);
+        return serializer.deserialize(value);
+    }
+
+    @Override
+    public void remove(String cacheName, String key) {
+        byte[] fullKey = fromCacheKey(cacheName, key).getBytes(StandardCharsets.UTF_8);
+        int hash = hash(fullKey);
+        segmentFor(hash).remove(fullKey, hash);
+    }
+
+    public int size() {
+        int size = 0;
+        for (OffHeapSegment segment : segments) {
+            size += segment.size();
+        }
+        return size;
+    }
+
+    public long allocatedBytes() {
+        long bytes = 0;
+        for (OffHeapSegment segment : segments) {
+            bytes += segment.allocatedBytes();
+        }
+        return bytes;
+    }
+
+    @Scheduled(fixedRate = 5, timeUnit = TimeUnit.MINUTES)
+    public void evictExpiredCacheEntries() {
+        long now = System.currentTimeMillis();
+        int evicted = 0;
+        for (OffHeapSegment segment : segments) {
+            evicted += segment.evictExpired(now);
+        }
+        log.debug("Off-heap cache cleanup evicted {} entries, {} live, {} bytes allocated", evicted, size(), allocatedBytes());
+    }
+
+    private OffHeapSegment segmentFor(int hash) {
+        // top bits pick the segment, low bits the slot inside it
+        return segments.length == 1 ? segments[0] : segments[hash >>> segmentShift];
+    }
+
+    private static int hash(byte[] key) {
+        int h = Arrays.hashCode(key) * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    private static long expiresAt(long timeoutInMinutes) {
+        long now = System.currentTimeMillis();
+        if (timeoutInMinutes > (Long.MAX_VALUE - now) / 60_000) {
+            return Long.MAX_VALUE;
+        }
+        return now + timeoutInMinutes * 60_000;
+    }
+}
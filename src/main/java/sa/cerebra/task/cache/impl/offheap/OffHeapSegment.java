@@ -0,0 +1,413 @@
+package sa.cerebra.task.cache.impl.offheap;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.UnaryOperator;
+
+/**
+ * One lock-striped partition of {@link OffHeapCacheStore}.
+ * <p>
+ * Index: open-addressing table (linear probing) in a direct buffer, one 24-byte slot per entry:
+ * {@code long address | long expiresAtMillis | int hash | int recordSize}. Address 0 is an empty slot,
+ * -1 a tombstone; live addresses are {@code (chunk << 32 | offset) + 1}.
+ * <p>
+ * Arena: append-only direct-buffer chunks holding {@code int keyLen | int valueLen | int hash | key | value}.
+ * Overwritten and removed records become garbage that {@link #compact(long)} reclaims in place.
+ */
+class OffHeapSegment {
+
+    private static final int SLOT_BYTES = 24;
+    private static final int EXPIRY_OFFSET = 8;
+    private static final int HASH_OFFSET = 16;
+    private static final int SIZE_OFFSET = 20;
+    private static final long EMPTY = 0;
+    private static final long TOMBSTONE = -1;
+    static final int RECORD_HEADER_BYTES = 12;
+
+    /**
+     * Marker returned by {@link #get} for an entry that is present but past its expiry.
+     */
+    static final byte[] EXPIRED = new byte[0];
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final long maxBytes;
+    private final int chunkBytes;
+
+    private ByteBuffer index;
+    private int slotCount;
+    private int liveEntries;
+    private int tombstones;
+
+    private final List<ByteBuffer> chunks = new ArrayList<>();
+    private int tailChunk;
+    private int tailOffset;
+    private long liveBytes;
+    private long garbageBytes;
+
+    OffHeapSegment(int initialSlots, long maxBytes, int chunkBytes) {
+        this.maxBytes = maxBytes;
+        this.chunkBytes = chunkBytes;
+        int slots = 16;
+        while (slots < initialSlots) {
+            slots <<= 1;
+        }
+        this.slotCount = slots;
+        this.index = ByteBuffer.allocateDirect(slotCount * SLOT_BYTES);
+    }
+
+    byte[] get(byte[] key, int hash, long now) {
+        lock.readLock().lock();
+        try {
+            int slot = find(key, hash);
+            if (slot < 0) {
+                return null;
+            }
+            if (index.getLong(slot * SLOT_BYTES + EXPIRY_OFFSET) < now) {
+                return EXPIRED;
+            }
+            long address = index.getLong(slot * SLOT_BYTES) - 1;
+            ByteBuffer chunk = chunks.get(chunkOf(address));
+            int offset = offsetOf(address);
+            byte[] value = new byte[chunk.getInt(offset + 4)];
+            chunk.get(offset + RECORD_HEADER_BYTES + key.length, value);
+            return value;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    void put(byte[] key, int hash, byte[] value, long expiresAt) {
+        int recordSize = RECORD_HEADER_BYTES + key.length + value.length;
+        if (recordSize > chunkBytes) {
+            throw new IllegalArgumentException("Entry of " + recordSize + " bytes exceeds off-heap chunk size " + chunkBytes);
+        }
+        lock.writeLock().lock();
+        try {
+            long address = append(key, hash, value, recordSize);
+            if ((liveEntries + tombstones + 1) * 4L > slotCount * 3L) {
+                // grow when mostly live, otherwise rehash at the same size to drop tombstones
+                rehash(liveEntries * 2L > slotCount ? slotCount * 2 : slotCount);
+            }
+            int slot = find(key, hash);
+            if (slot >= 0) {
+                garbageBytes += index.getInt(slot * SLOT_BYTES + SIZE_OFFSET);
+                liveBytes -= index.getInt(slot * SLOT_BYTES + SIZE_OFFSET);
+            } else {
+                slot = insertionSlot(hash);
+                if (index.getLong(slot * SLOT_BYTES) == TOMBSTONE) {
+                    tombstones--;
+                }
+                liveEntries++;
+            }
+            writeSlot(index, slot, address + 1, expiresAt, hash, recordSize);
+            liveBytes += recordSize;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    boolean putIfAbsent(byte[] key, int hash, byte[] value, long expiresAt, long now) {
+        lock.writeLock().lock();
+        try {
+            int slot = find(key, hash);
+            if (slot >= 0 && index.getLong(slot * SLOT_BYTES + EXPIRY_OFFSET) >= now) {
+                return false;
+            }
+            // the write lock is reentrant
+            put(key, hash, value, expiresAt);
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Replaces a live value with {@code update} applied to it, keeping its expiry.
+     *
+     * @return the new value, or null if the key has no live entry
+     */
+    byte[] update(byte[] key, int hash, long now, UnaryOperator<byte[]> update) {
+        lock.writeLock().lock();
+        try {
+            int slot = find(key, hash);
+            if (slot < 0) {
+                return null;
+            }
+            long expiresAt = index.getLong(slot * SLOT_BYTES + EXPIRY_OFFSET);
+            if (expiresAt < now) {
+                return null;
+            }
+            // the write lock is reentrant
+            byte[] value = update.apply(get(key, hash, now));
+            put(key, hash, value, expiresAt);
+            return value;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    void remove(byte[] key, int hash) {
+        lock.writeLock().lock();
+        try {
+            int slot = find(key, hash);
+            if (slot >= 0) {
+                tombstone(slot);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Drops expired entries and compacts the arena when at least half of it is garbage.
+     *
+     * @return number of expired entries removed
+     */
+    int evictExpired(long now) {
+        lock.writeLock().lock();
+        try {
+            int evicted = 0;
+            for (int slot = 0; slot < slotCount; slot++) {
+                long address = index.getLong(slot * SLOT_BYTES);
+                if (address > 0 && index.getLong(slot * SLOT_BYTES + EXPIRY_OFFSET) < now) {
+                    tombstone(slot);
+                    evicted++;
+                }
+            }
+            if (garbageBytes > 0 && garbageBytes >= liveBytes) {
+                compact(now);
+            }
+            return evicted;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    int size() {
+        lock.readLock().lock();
+        try {
+            return liveEntries;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    long allocatedBytes() {
+        lock.readLock().lock();
+        try {
+            return (long) chunks.size() * chunkBytes + (long) slotCount * SLOT_BYTES;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // --- arena ---
+
+    private long append(byte[] key, int hash, byte[] value, int recordSize) {
+        if (!ensureTailRoom(recordSize)) {
+            compact(System.currentTimeMillis());
+            if (!ensureTailRoom(recordSize)) {
+                throw new IllegalStateException("Off-heap cache segment is full (" + maxBytes + " bytes)");
+            }
+        }
+        ByteBuffer chunk = chunks.get(tailChunk);
+        int offset = tailOffset;
+        chunk.putInt(offset, key.length);
+        chunk.putInt(offset + 4, value.length);
+        chunk.putInt(offset + 8, hash);
+        chunk.put(offset + RECORD_HEADER_BYTES, key);
+        chunk.put(offset + RECORD_HEADER_BYTES + key.length, value);
+        tailOffset += recordSize;
+        return ((long) tailChunk << 32) | offset;
+    }
+
+    private boolean ensureTailRoom(int recordSize) {
+        if (!chunks.isEmpty() && chunkBytes - tailOffset >= recordSize) {
+            return true;
+        }
+        if (!chunks.isEmpty() && tailChunk + 1 < chunks.size()) {
+            // reuse a chunk freed by an earlier compaction
+            clearTail(chunks.get(tailChunk), tailOffset);
+            tailChunk++;
+            tailOffset = 0;
+            return true;
+        }
+        if ((long) (chunks.size() + 1) * chunkBytes > maxBytes) {
+            return false;
+        }
+        if (!chunks.isEmpty()) {
+            clearTail(chunks.get(tailChunk), tailOffset);
+        }
+        chunks.add(ByteBuffer.allocateDirect(chunkBytes));
+        tailChunk = chunks.size() - 1;
+        tailOffset = 0;
+        return true;
+    }
+
+    /**
+     * Slides live records towards the start of the arena, in place, and repoints their slots.
+     * Records whose slot no longer references them (overwritten, removed) or that expired are dropped.
+     */
+    private void compact(long now) {
+        if (chunks.isEmpty()) {
+            return;
+        }
+        int writeChunk = 0;
+        int writeOffset = 0;
+        byte[] buffer = new byte[0];
+        for (int readChunk = 0; readChunk <= tailChunk; readChunk++) {
+            ByteBuffer chunk = chunks.get(readChunk);
+            int end = readChunk == tailChunk ? tailOffset : chunkBytes;
+            int readOffset = 0;
+            while (readOffset + RECORD_HEADER_BYTES <= end) {
+                int keyLength = chunk.getInt(readOffset);
+                int valueLength = chunk.getInt(readOffset + 4);
+                if (keyLength == 0 && valueLength == 0 && chunk.getInt(readOffset + 8) == 0) {
+                    break; // unused tail of a chunk
+                }
+                int recordSize = RECORD_HEADER_BYTES + keyLength + valueLength;
+                long oldAddress = ((long) readChunk << 32) | readOffset;
+                int slot = slotOf(chunk.getInt(readOffset + 8), oldAddress + 1);
+                if (slot >= 0 && index.getLong(slot * SLOT_BYTES + EXPIRY_OFFSET) < now) {
+                    tombstone(slot);
+                    slot = -1;
+                }
+                if (slot >= 0) {
+                    if (chunkBytes - writeOffset < recordSize) {
+                        clearTail(chunks.get(writeChunk), writeOffset);
+                        writeChunk++;
+                        writeOffset = 0;
+                    }
+                    if (writeChunk != readChunk || writeOffset != readOffset) {
+                        if (buffer.length < recordSize) {
+                            buffer = new byte[recordSize];
+                        }
+                        chunk.get(readOffset, buffer, 0, recordSize);
+                        chunks.get(writeChunk).put(writeOffset, buffer, 0, recordSize);
+                        index.putLong(slot * SLOT_BYTES, (((long) writeChunk << 32) | writeOffset) + 1);
+                    }
+                    writeOffset += recordSize;
+                }
+                readOffset += recordSize;
+            }
+        }
+        clearTail(chunks.get(writeChunk), writeOffset);
+        for (int i = writeChunk + 1; i <= tailChunk; i++) {
+            clearTail(chunks.get(i), 0);
+        }
+        tailChunk = writeChunk;
+        tailOffset = writeOffset;
+        garbageBytes = 0;
+    }
+
+    private void clearTail(ByteBuffer chunk, int from) {
+        // a zeroed header marks the end of a chunk's records for the next compaction
+        if (from + RECORD_HEADER_BYTES <= chunkBytes) {
+            chunk.putInt(from, 0);
+            chunk.putInt(from + 4, 0);
+            chunk.putInt(from + 8, 0);
+        }
+    }
+
+    // --- index ---
+
+    private int find(byte[] key, int hash) {
+        int mask = slotCount - 1;
+        for (int slot = hash & mask; ; slot = (slot + 1) & mask) {
+            long address = index.getLong(slot * SLOT_BYTES);
+            if (address == EMPTY) {
+                return -1;
+            }
+            if (address != TOMBSTONE && index.getInt(slot * SLOT_BYTES + HASH_OFFSET) == hash
+                    && keyEquals(address - 1, key)) {
+                return slot;
+            }
+        }
+    }
+
+    private int slotOf(int hash, long storedAddress) {
+        int mask = slotCount - 1;
+        for (int slot = hash & mask; ; slot = (slot + 1) & mask) {
+            long address = index.getLong(slot * SLOT_BYTES);
+            if (address == EMPTY) {
+                return -1;
+            }
+            if (address == storedAddress) {
+                return slot;
+            }
+        }
+    }
+
+    private int insertionSlot(int hash) {
+        int mask = slotCount - 1;
+        for (int slot = hash & mask; ; slot = (slot + 1) & mask) {
+            long address = index.getLong(slot * SLOT_BYTES);
+            if (address == EMPTY || address == TOMBSTONE) {
+                return slot;
+            }
+        }
+    }
+
+    private boolean keyEquals(long address, byte[] key) {
+        ByteBuffer chunk = chunks.get(chunkOf(address));
+        int offset = offsetOf(address);
+        if (chunk.getInt(offset) != key.length) {
+            return false;
+        }
+        int keyStart = offset + RECORD_HEADER_BYTES;
+        for (int i = 0; i < key.length; i++) {
+            if (chunk.get(keyStart + i) != key[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void tombstone(int slot) {
+        int recordSize = index.getInt(slot * SLOT_BYTES + SIZE_OFFSET);
+        index.putLong(slot * SLOT_BYTES, TOMBSTONE);
+        liveEntries--;
+        tombstones++;
+        liveBytes -= recordSize;
+        garbageBytes += recordSize;
+    }
+
+    private void rehash(int newSlotCount) {
+        ByteBuffer newIndex = ByteBuffer.allocateDirect(newSlotCount * SLOT_BYTES);
+        int mask = newSlotCount - 1;
+        for (int slot = 0; slot < slotCount; slot++) {
+            long address = index.getLong(slot * SLOT_BYTES);
+            if (address <= 0) {
+                continue;
+            }
+            int hash = index.getInt(slot * SLOT_BYTES + HASH_OFFSET);
+            int target = hash & mask;
+            while (newIndex.getLong(target * SLOT_BYTES) != EMPTY) {
+                target = (target + 1) & mask;
+            }
+            writeSlot(newIndex, target, address, index.getLong(slot * SLOT_BYTES + EXPIRY_OFFSET), hash,
+                    index.getInt(slot * SLOT_BYTES + SIZE_OFFSET));
+        }
+        index = newIndex;
+        slotCount = newSlotCount;
+        tombstones = 0;
+    }
+
+    private static void writeSlot(ByteBuffer index, int slot, long storedAddress, long expiresAt, int hash, int recordSize) {
+        int base = slot * SLOT_BYTES;
+        index.putLong(base + EXPIRY_OFFSET, expiresAt);
+        index.putInt(base + HASH_OFFSET, hash);
+        index.putInt(base + SIZE_OFFSET, recordSize);
+        index.putLong(base, storedAddress);
+    }
+
+    private static int chunkOf(long address) {
+        return (int) (address >>> 32);
+    }
+
+    private static int offsetOf(long address) {
+        return (int) address;
+    }
+}
@@ -1,19 +1,35 @@
 package sa.cerebra.task.cache.impl.redis;
 
+import io.lettuce.core.ReadFrom;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Profile;
+import org.springframework.data.redis.connection.ReactiveRedisConnectionFactory;
+import org.springframework.data.redis.connection.RedisConfiguration;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.connection.lettuce.LettuceClientConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
 import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+import org.springframework.data.redis.serializer.RedisSerializationContext;
 import org.springframework.data.redis.serializer.StringRedisSerializer;
 
+import java.util.Set;
+
+@Slf4j
 @Profile("default")
 @Configuration
 public class RedisConfig {
 
     @Bean
     public RedisTemplate<String, Object> redisTemplate(RedisConnectionFactory connectionFactory) {
+        return createTemplate(connectionFactory);
+    }
+
+    private RedisTemplate<String, Object> createTemplate(RedisConnectionFactory connectionFactory) {
         RedisTemplate<String, Object> template = new RedisTemplate<>();
         template.setConnectionFactory(connectionFactory);
 
@@ -30,4 +46,77 @@ public class RedisConfig {
         template.afterPropertiesSet();
         return template;
     }
-}
\ No newline at end of file
+
+    // Same key/value serialization as redisTemplate, over Lettuce's reactive (non-blocking) commands
+    @Bean
+    public ReactiveRedisTemplate<String, Object> reactiveRedisTemplate(ReactiveRedisConnectionFactory connectionFactory) {
+        return createReactiveTemplate(connectionFactory);
+    }
+
+    private ReactiveRedisTemplate<String, Object> createReactiveTemplate(ReactiveRedisConnectionFactory connectionFactory) {
+        StringRedisSerializer stringSerializer = new StringRedisSerializer();
+        GenericJackson2JsonRedisSerializer jsonSerializer = new GenericJackson2JsonRedisSerializer();
+
+        RedisSerializationContext<String, Object> serializationContext = RedisSerializationContext
+                .<String, Object>newSerializationContext(stringSerializer)
+                .value(jsonSerializer)
+                .hashKey(stringSerializer)
+                .hashValue(jsonSerializer)
+                .build();
+        return new ReactiveRedisTemplate<>(connectionFactory, serializationContext);
+    }
+
+    /**
+     * Cluster mode itself is Spring Boot's ({@code spring.data.redis.cluster.nodes}); this adds hash-tagged keys
+     * for co-located caches and a replica-reading connection for caches that accept slightly stale reads.
+     */
+    @Bean
+    public RedisTopology redisTopology(RedisConnectionFactory connectionFactory,
+                                       @Value("${cerebra.cache.redis.colocated-caches:}") Set<String> colocatedCaches,
+                                       @Value("${cerebra.cache.redis.replica-read-caches:}") Set<String> replicaReadCaches,
+                                       @Value("${cerebra.cache.redis.replica-read-from:replicaPreferred}") String replicaReadFrom) {
+        if (replicaReadCaches.isEmpty()) {
+            return new RedisTopology(colocatedCaches, Set.of(), null, null, null);
+        }
+        if (!(connectionFactory instanceof LettuceConnectionFactory primary)) {
+            log.warn("Replica reads need a Lettuce connection factory; reading {} from the primary", replicaReadCaches);
+            return new RedisTopology(colocatedCaches, Set.of(), null, null, null);
+        }
+
+        LettuceConnectionFactory replicaFactory = new LettuceConnectionFactory(
+                primaryConfiguration(primary), replicaClientConfiguration(primary, ReadFrom.valueOf(replicaReadFrom)));
+        replicaFactory.afterPropertiesSet();
+        replicaFactory.start();
+        log.info("Reading caches {} from replicas ({})", replicaReadCaches, replicaReadFrom);
+
+        return new RedisTopology(colocatedCaches, replicaReadCaches, replicaFactory,
+                createTemplate(replicaFactory), createReactiveTemplate(replicaFactory));
+    }
+
+    private static RedisConfiguration primaryConfiguration(LettuceConnectionFactory primary) {
+        if (primary.getClusterConfiguration() != null) {
+            return primary.getClusterConfiguration();
+        }
+        if (primary.getSentinelConfiguration() != null) {
+            return primary.getSentinelConfiguration();
+        }
+        // standalone + readFrom makes Lettuce discover the primary's replicas (MasterReplica)
+        return primary.getStandaloneConfiguration();
+    }
+
+    private static LettuceClientConfiguration replicaClientConfiguration(LettuceConnectionFactory primary, ReadFrom readFrom) {
+        LettuceClientConfiguration primaryClient = primary.getClientConfiguration();
+        LettuceClientConfiguration.LettuceClientConfigurationBuilder builder = LettuceClientConfiguration.builder()
+                .readFrom(readFrom)
+                .commandTimeout(primaryClient.getCommandTimeout())
+                .shutdownTimeout(primaryClient.getShutdownTimeout());
+        primaryClient.getClientOptions().ifPresent(builder::clientOptions);
+        // share the primary's event loops instead of starting a second set
+        primaryClient.getClientResources().ifPresent(builder::clientResources);
+        primaryClient.getClientName().ifPresent(builder::clientName);
+        if (primaryClient.isUseSsl()) {
+            builder.useSsl();
+        }
+        return builder.build();
+    }
+}
@@ -2,10 +2,19 @@ package sa.cerebra.task.cache.impl.redis;
 
 import lombok.RequiredArgsConstructor;
 import org.springframework.context.annotation.Profile;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
 import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import sa.cerebra.task.cache.CacheMetrics;
 import sa.cerebra.task.cache.CacheStore;
 
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.TimeUnit;
 
 @Service
@@ -13,19 +22,113 @@ import java.util.concurrent.TimeUnit;
 @RequiredArgsConstructor
 public class RedisStore implements CacheStore {
 
+    // DECR would create a missing key at -1; the counter must only exist while the link it counts for does
+    static final RedisScript<Long> DECREMENT_EXISTING = RedisScript.of("""
+            if redis.call('EXISTS', KEYS[1]) == 0 then
+                return nil
+            end
+            return redis.call('DECR', KEYS[1])
+            """, Long.class);
+
     private final RedisTemplate<String, Object> redisTemplate;
+    private final ReactiveRedisTemplate<String, Object> reactiveRedisTemplate;
+    private final CacheMetrics cacheMetrics;
+    private final RedisTopology redisTopology;
 
     @Override
     public void put(String cacheName, String key, Object data, long timeoutInMinutes) {
+        long start = System.nanoTime();
         redisTemplate.opsForValue().set(fromCacheKey(cacheName, key), data, timeoutInMinutes, TimeUnit.MINUTES);
-        System.out.println("Set key: " + key);
+        cacheMetrics.of(cacheName).recordPut(start);
+        cacheMetrics.trace("put", cacheName, "stored", start);
+    }
+
+    @Override
+    public boolean putIfAbsent(String cacheName, String key, Object data, long timeoutInMinutes) {
+        long start = System.nanoTime();
+        // SET NX with the expiry in one command
+        Boolean stored = redisTemplate.opsForValue()
+                .setIfAbsent(fromCacheKey(cacheName, key), data, timeoutInMinutes, TimeUnit.MINUTES);
+        boolean result = Boolean.TRUE.equals(stored);
+        if (result) {
+            cacheMetrics.of(cacheName).recordPut(start);
+        }
+        cacheMetrics.trace("putIfAbsent", cacheName, result ? "stored" : "present", start);
+        return result;
+    }
+
+    @Override
+    public Long decrement(String cacheName, String key) {
+        long start = System.nanoTime();
+        // one round trip; Redis runs the script atomically, so concurrent downloads on any node never share a value
+        Long value = redisTemplate.execute(DECREMENT_EXISTING, List.of(fromCacheKey(cacheName, key)));
+        cacheMetrics.trace("decrement", cacheName, value == null ? "miss" : "stored", start);
+        return value;
+    }
+
+    @Override
+    public void putAll(String cacheName, Map<String, ?> entries, long timeoutInMinutes) {
+        long start = System.nanoTime();
+        Duration timeout = Duration.ofMinutes(timeoutInMinutes);
+        // all SETs are written to the shared connection before any reply is awaited, so the batch costs about
+        // one round trip; unlike a MULTI pipeline this also works when the keys span cluster slots
+        Flux.fromIterable(entries.entrySet())
+                .flatMap(entry -> reactiveRedisTemplate.opsForValue()
+                        .set(fromCacheKey(cacheName, entry.getKey()), entry.getValue(), timeout), entries.size() + 1)
+                .then()
+                .toFuture()
+                .join();
+        CacheMetrics.CacheMeters meters = cacheMetrics.of(cacheName);
+        for (int i = 0; i < entries.size(); i++) {
+            meters.recordPut(start);
+        }
+        cacheMetrics.trace("putAll", cacheName, entries.size() + " keys stored", start);
+    }
+
+    @Override
+    public Object getField(String cacheName, String key, String field) {
+        long start = System.nanoTime();
+        Object value = readTemplate(cacheName).opsForHash().get(fromCacheKey(cacheName, key), field);
+        if (value == null) {
+            cacheMetrics.of(cacheName).recordMiss(start);
+            cacheMetrics.trace("getField", cacheName, "miss", start);
+        } else {
+            cacheMetrics.of(cacheName).recordHit(start);
+            cacheMetrics.trace("getField", cacheName, "hit", start);
+        }
+        return value;
+    }
+
+    @Override
+    public void putFields(String cacheName, String key, Map<String, ?> fields, long timeoutInMinutes) {
+        long start = System.nanoTime();
+        String cacheKey = fromCacheKey(cacheName, key);
+        // HSET and EXPIRE go out together on the shared connection, so the pair costs one round trip
+        Mono.when(reactiveRedisTemplate.opsForHash().putAll(cacheKey, fields),
+                        reactiveRedisTemplate.expire(cacheKey, Duration.ofMinutes(timeoutInMinutes)))
+                .toFuture()
+                .join();
+        cacheMetrics.of(cacheName).recordPut(start);
+        cacheMetrics.trace("putFields", cacheName, fields.size() + " fields stored", start);
+    }
+
+    @Override
+    public void removeField(String cacheName, String key, String field) {
+        redisTemplate.opsForHash().delete(fromCacheKey(cacheName, key), field);
     }
 
     @Override
     public Object get(String cacheName, String key) {
+        long start = System.nanoTime();
         // 'opsForValue().get(key)' retrieves the value
-        Object value = redisTemplate.opsForValue().get(fromCacheKey(cacheName, key));
-        System.out.println("Retrieved key: " + key + ", value: " + value);
+        Object value = readTemplate(cacheName).opsForValue().get(fromCacheKey(cacheName, key));
+        if (value == null) {
+            cacheMetrics.of(cacheName).recordMiss(start);
+            cacheMetrics.trace("get", cacheName, "miss", start);
+        } else {
+            cacheMetrics.of(cacheName).recordHit(start);
+            cacheMetrics.trace("get", cacheName, "hit", start);
+        }
         return value;
     }
 
@@ -34,4 +137,55 @@ public class RedisStore implements CacheStore {
         redisTemplate.delete(fromCacheKey(cacheName, key));
     }
 
-}
\ No newline at end of file
+    @Override
+    public CompletableFuture<Void> putAsync(String cacheName, String key, Object data, long timeoutInMinutes) {
+        long start = System.nanoTime();
+        return reactiveRedisTemplate.opsForValue()
+                .set(fromCacheKey(cacheName, key), data, Duration.ofMinutes(timeoutInMinutes))
+                .toFuture()
+                .thenApply(ignored -> {
+                    cacheMetrics.of(cacheName).recordPut(start);
+                    cacheMetrics.trace("putAsync", cacheName, "stored", start);
+                    return null;
+                });
+    }
+
+    @Override
+    public CompletableFuture<Object> getAsync(String cacheName, String key) {
+        long start = System.nanoTime();
+        return reactiveReadTemplate(cacheName).opsForValue()
+                .get(fromCacheKey(cacheName, key))
+                .toFuture()
+                .thenApply(value -> {
+                    if (value == null) {
+                        cacheMetrics.of(cacheName).recordMiss(start);
+                        cacheMetrics.trace("getAsync", cacheName, "miss", start);
+                    } else {
+                        cacheMetrics.of(cacheName).recordHit(start);
+                        cacheMetrics.trace("getAsync", cacheName, "hit", start);
+                    }
+                    return value;
+                });
+    }
+
+    @Override
+    public CompletableFuture<Void> removeAsync(String cacheName, String key) {
+        return reactiveRedisTemplate.delete(fromCacheKey(cacheName, key))
+                .then()
+                .toFuture();
+    }
+
+    @Override
+    public String fromCacheKey(String cacheName, String key) {
+        return redisTopology.cacheKey(cacheName, key);
+    }
+
+    private RedisTemplate<String, Object> readTemplate(String cacheName) {
+        return redisTopology.readsFromReplica(cacheName) ? redisTopology.replicaTemplate() : redisTemplate;
+    }
+
+    private ReactiveRedisTemplate<String, Object> reactiveReadTemplate(String cacheName) {
+        return redisTopology.readsFromReplica(cacheName) ? redisTopology.reactiveReplicaTemplate() : reactiveRedisTemplate;
+    }
+
+}
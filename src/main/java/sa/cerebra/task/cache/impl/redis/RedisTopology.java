@@ -0,0 +1,75 @@
+package sa.cerebra.task.cache.impl.redis;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import org.springframework.data.redis.core.RedisTemplate;
+
+import java.util.Set;
+
+/**
+ * Key layout and read routing for RedisStore in cluster and replicated deployments.
+ * <ul>
+ *     <li>Keys of a <em>co-located</em> cacheName are written as {@code {cacheName}:key}, so Redis Cluster
+ *     hashes only the cacheName and keeps every key of that cache in one slot (multi-key ops, pipelines).
+ *     Co-location trades write spread for locality, so it is opt-in per cacheName.</li>
+ *     <li>Reads of a <em>replica-read</em> cacheName go through a second connection that reads from replicas.
+ *     Only caches that tolerate replication lag belong here; read-after-write data (OTPs) should not.</li>
+ * </ul>
+ */
+@Slf4j
+public class RedisTopology implements DisposableBean {
+
+    private final Set<String> colocatedCaches;
+    private final Set<String> replicaReadCaches;
+    private final LettuceConnectionFactory replicaConnectionFactory;
+    private final RedisTemplate<String, Object> replicaTemplate;
+    private final ReactiveRedisTemplate<String, Object> reactiveReplicaTemplate;
+
+    public RedisTopology(Set<String> colocatedCaches,
+                         Set<String> replicaReadCaches,
+                         LettuceConnectionFactory replicaConnectionFactory,
+                         RedisTemplate<String, Object> replicaTemplate,
+                         ReactiveRedisTemplate<String, Object> reactiveReplicaTemplate) {
+        this.colocatedCaches = Set.copyOf(colocatedCaches);
+        this.replicaConnectionFactory = replicaConnectionFactory;
+        this.replicaTemplate = replicaTemplate;
+        this.reactiveReplicaTemplate = reactiveReplicaTemplate;
+        // without a replica connection every read stays on the primary
+        this.replicaReadCaches = replicaTemplate == null ? Set.of() : Set.copyOf(replicaReadCaches);
+    }
+
+    /**
+     * Single-node layout: plain keys, all reads on the primary.
+     */
+    public static RedisTopology standalone() {
+        return new RedisTopology(Set.of(), Set.of(), null, null, null);
+    }
+
+    public String cacheKey(String cacheName, String key) {
+        if (cacheName != null && colocatedCaches.contains(cacheName)) {
+            return "{" + cacheName + "}:" + key;
+        }
+        return cacheName + ":" + key;
+    }
+
+    public boolean readsFromReplica(String cacheName) {
+        return cacheName != null && replicaReadCaches.contains(cacheName);
+    }
+
+    public RedisTemplate<String, Object> replicaTemplate() {
+        return replicaTemplate;
+    }
+
+    public ReactiveRedisTemplate<String, Object> reactiveReplicaTemplate() {
+        return reactiveReplicaTemplate;
+    }
+
+    @Override
+    public void destroy() {
+        if (replicaConnectionFactory != null) {
+            replicaConnectionFactory.destroy();
+        }
+    }
+}
@@ -109,6 +109,8 @@ public class OpenApiConfig {
                         .addSchemas("AccessDeniedErrorResponse", createAccessDeniedErrorResponseSchema())
                         .addSchemas("FileSizeExceededErrorResponse", createFileSizeExceededErrorResponseSchema())
                         .addSchemas("InvalidOtpErrorResponse", createInvalidOtpErrorResponseSchema())
+                        .addSchemas("InvalidRefreshTokenErrorResponse", createInvalidRefreshTokenErrorResponseSchema())
+                        .addSchemas("TooManyRequestsErrorResponse", createTooManyRequestsErrorResponseSchema())
                         .addSchemas("ShareLinkExpiredErrorResponse", createShareLinkExpiredErrorResponseSchema())
                         .addSchemas("BadRequestErrorResponse", createBadRequestErrorResponseSchema()));
     }
@@ -191,6 +193,26 @@ public class OpenApiConfig {
                         .description("OTP validation error code"));
     }
 
+    private Schema<?> createInvalidRefreshTokenErrorResponseSchema() {
+        return new ObjectSchema()
+                .addProperty("message", new StringSchema()
+                        .example("Invalid or expired refresh token")
+                        .description("Refresh token is unknown, expired, or was already used"))
+                .addProperty("errorCode", new StringSchema()
+                        .example("INVALID_REFRESH_TOKEN")
+                        .description("Refresh token error code"));
+    }
+
+    private Schema<?> createTooManyRequestsErrorResponseSchema() {
+        return new ObjectSchema()
+                .addProperty("message", new StringSchema()
+                        .example("Too many requests, try again later")
+                        .description("Rate limit for this phone number, client or the whole service was reached"))
+                .addProperty("errorCode", new StringSchema()
+                        .example("TOO_MANY_REQUESTS")
+                        .description("Rate limit error code"));
+    }
+
     private Schema<?> createShareLinkExpiredErrorResponseSchema() {
         return new ObjectSchema()
                 .addProperty("message", new StringSchema()
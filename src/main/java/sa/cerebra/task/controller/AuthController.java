@@ -14,7 +14,9 @@ import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 import sa.cerebra.task.dto.request.LoginRequest;
+import sa.cerebra.task.dto.request.RefreshTokenRequest;
 import sa.cerebra.task.dto.request.ValidateOtpRequest;
+import sa.cerebra.task.dto.response.LoginResponse;
 import sa.cerebra.task.dto.response.TokenResponse;
 import sa.cerebra.task.service.AuthService;
 
@@ -31,16 +33,19 @@ public class AuthController {
             description = "Send OTP to the provided phone number for authentication"
     )
     @ApiResponses(value = {
-            @ApiResponse(responseCode = "200", description = "OTP sent successfully"),
+            @ApiResponse(responseCode = "200", description = "OTP sent successfully; in stateless OTP mode the body carries the challenge",
+                    content = @Content(mediaType = "application/json", schema = @Schema(implementation = LoginResponse.class))),
             @ApiResponse(responseCode = "400", description = "Invalid phone number format", 
                     content = @Content(schema = @Schema(ref = "#/components/schemas/ValidationErrorResponse"))),
+            @ApiResponse(responseCode = "429", description = "Too many login attempts for this phone number or client",
+                    content = @Content(schema = @Schema(ref = "#/components/schemas/TooManyRequestsErrorResponse"))),
             @ApiResponse(responseCode = "500", description = "Internal server error",
                     content = @Content(schema = @Schema(ref = "#/components/schemas/InternalErrorResponse")))
     })
     @PostMapping("/login")
     public ResponseEntity<?> login(@Valid @RequestBody LoginRequest request){
-        authService.login(request.getPhone());
-        return ResponseEntity.ok().build();
+        LoginResponse response = authService.login(request.getPhone());
+        return response == null ? ResponseEntity.ok().build() : ResponseEntity.ok(response);
     }
 
     @Operation(
@@ -65,7 +70,32 @@ public class AuthController {
     })
     @PostMapping("/validate-otp")
     public ResponseEntity<?> validateOtp(@Valid @RequestBody ValidateOtpRequest request){
-        TokenResponse response =  authService.validate(request.getPhone(), request.getOtp());
+        TokenResponse response =  authService.validate(request.getPhone(), request.getOtp(), request.getChallenge());
+        return ResponseEntity.ok(response);
+    }
+
+    @Operation(
+            summary = "Refresh access token",
+            description = "Exchange a refresh token for a new access token and a new refresh token, without an OTP. "
+                    + "Each refresh token is single-use; reusing one revokes every token issued from the same login"
+    )
+    @ApiResponses(value = {
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "Tokens refreshed successfully",
+                    content = @Content(
+                            mediaType = "application/json",
+                            schema = @Schema(implementation = TokenResponse.class)
+                    )
+            ),
+            @ApiResponse(responseCode = "400", description = "Invalid, expired or reused refresh token",
+                    content = @Content(schema = @Schema(ref = "#/components/schemas/InvalidRefreshTokenErrorResponse"))),
+            @ApiResponse(responseCode = "500", description = "Internal server error",
+                    content = @Content(schema = @Schema(ref = "#/components/schemas/InternalErrorResponse")))
+    })
+    @PostMapping("/refresh")
+    public ResponseEntity<?> refresh(@Valid @RequestBody RefreshTokenRequest request){
+        TokenResponse response = authService.refresh(request.getRefreshToken());
         return ResponseEntity.ok(response);
     }
 
@@ -21,6 +21,7 @@ import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 import sa.cerebra.task.entity.User;
 import sa.cerebra.task.model.FileModel;
+import sa.cerebra.task.ratelimit.DownloadBandwidth;
 import sa.cerebra.task.security.AuthHelper;
 import sa.cerebra.task.service.FileService;
 import sa.cerebra.task.validation.SafePath;
@@ -37,6 +38,7 @@ import java.util.List;
 public class FileController {
 
     private final FileService fileService;
+    private final DownloadBandwidth downloadBandwidth;
 
     @Operation(
             summary = "List files",
@@ -124,7 +126,8 @@ public class FileController {
             @Parameter(description = "Preview mode - if true, file will be displayed inline instead of downloaded")
             @RequestParam(required = false) boolean preview) {
         User user = AuthHelper.getCurrentUser();
-        Resource resource = fileService.downloadFile(user, path);
+        Resource resource = downloadBandwidth.throttle(fileService.downloadFile(user, path),
+                DownloadBandwidth.Traffic.FILE, user.getId(), null);
 
         if (preview) {
             return ResponseEntity.ok()
@@ -0,0 +1,38 @@
+package sa.cerebra.task.controller;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+import sa.cerebra.task.helper.JwtKeyRing;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+@RestController
+@RequiredArgsConstructor
+@Tag(name = "Authentication", description = "Authentication management APIs")
+public class JwksController {
+
+    final JwtKeyRing jwtKeyRing;
+
+    @Operation(
+            summary = "Access token verification keys",
+            description = "Public keys (JWK set) that verify access tokens by their kid header. Empty when tokens are HS256-signed"
+    )
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "JWK set returned successfully")
+    })
+    @GetMapping(value = "/.well-known/jwks.json", produces = "application/jwk-set+json")
+    public ResponseEntity<Map<String, Object>> jwks() {
+        // short enough that verifiers pick up a rotated key well within a token lifetime
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.maxAge(5, TimeUnit.MINUTES).cachePublic())
+                .body(jwtKeyRing.jwks());
+    }
+}
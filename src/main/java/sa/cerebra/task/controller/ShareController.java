@@ -2,36 +2,57 @@ package sa.cerebra.task.controller;
 
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.ArraySchema;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.core.io.Resource;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.ServletWebRequest;
+import sa.cerebra.task.dto.request.BulkShareLinkRequest;
 import sa.cerebra.task.dto.request.CreateShareLinkRequest;
+import sa.cerebra.task.dto.response.BulkShareLinkResponse;
+import sa.cerebra.task.dto.response.ShareLinkPageResponse;
 import sa.cerebra.task.dto.response.ShareLinkResponse;
+import sa.cerebra.task.dto.response.ShareStatsResponse;
 import sa.cerebra.task.entity.User;
+import sa.cerebra.task.helper.PathHelper;
+import sa.cerebra.task.model.FileModel;
+import sa.cerebra.task.ratelimit.DownloadBandwidth;
 import sa.cerebra.task.security.AuthHelper;
+import sa.cerebra.task.service.ShareContent.SharedFile;
 import sa.cerebra.task.service.ShareService;
 import sa.cerebra.task.storage.StorageService;
+import sa.cerebra.task.validation.SafePath;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.List;
 
 @Slf4j
 @RestController
 @RequestMapping("/api/v1/share")
 @RequiredArgsConstructor
+@Validated
 @Tag(name = "File Sharing", description = "File sharing and link generation APIs")
 @SecurityRequirement(name = "bearerAuth")
 public class ShareController {
     
     private final ShareService shareService;
+    private final DownloadBandwidth downloadBandwidth;
 
     @Operation(
             summary = "Create share link",
@@ -62,6 +83,30 @@ public class ShareController {
         return ResponseEntity.ok(response);
     }
 
+    @Operation(
+            summary = "Create share links in bulk",
+            description = "Share up to 100 files with up to 1000 recipients in one call. Every recipient gets their own "
+                    + "link to every file and one SMS listing them; at most cerebra.share.bulk.max-links links per call"
+    )
+    @ApiResponses(value = {
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "Share links created successfully",
+                    content = @Content(
+                            mediaType = "application/json",
+                            schema = @Schema(implementation = BulkShareLinkResponse.class)
+                    )
+            ),
+            @ApiResponse(responseCode = "401", description = "Unauthorized",
+                    content = @Content(schema = @Schema(ref = "#/components/schemas/UnauthorizedErrorResponse"))),
+            @ApiResponse(responseCode = "400", description = "Invalid request data or too many links",
+                    content = @Content(schema = @Schema(ref = "#/components/schemas/ValidationErrorResponse")))
+    })
+    @PostMapping("/bulk")
+    public ResponseEntity<BulkShareLinkResponse> createShareLinks(@Valid @RequestBody BulkShareLinkRequest request) {
+        return ResponseEntity.ok(shareService.shareLinks(AuthHelper.getCurrentUser(), request));
+    }
+
     @Operation(
             summary = "Access shared file",
             description = "Download a file using a share token (no authentication required)"
@@ -72,25 +117,276 @@ public class ShareController {
                     description = "File downloaded successfully",
                     content = @Content(mediaType = "application/octet-stream")
             ),
+            @ApiResponse(responseCode = "302", description = "Redirect to the immutable content URL, when "
+                    + "cerebra.share.content.redirect is enabled"),
+            @ApiResponse(responseCode = "304", description = "Not modified (If-None-Match or If-Modified-Since "
+                    + "matched); not counted as a download"),
             @ApiResponse(responseCode = "404", description = "Share link not found or expired",
                     content = @Content(schema = @Schema(ref = "#/components/schemas/ShareLinkExpiredErrorResponse"))),
             @ApiResponse(responseCode = "500", description = "Internal server error",
                     content = @Content(schema = @Schema(ref = "#/components/schemas/InternalErrorResponse")))
     })
     @GetMapping("/{shareToken}")
-    public ResponseEntity<?> getShareLink(
+    public ResponseEntity<Resource> getShareLink(
             @Parameter(description = "Share token to access the file", required = true, example = "abc123def456")
-            @PathVariable String shareToken) {
+            @PathVariable String shareToken,
+            HttpServletRequest httpRequest) {
         // Download the file using the original user's context
-        Resource resource = shareService.download(shareToken);
+        return sharedFileResponse(shareService.open(shareToken), shareToken, httpRequest);
+    }
+
+    /**
+     * Answers a conditional request before the download is counted: a 304 hands nothing out. A redirect counts,
+     * as the recipient gets the file from the content URL.
+     */
+    private ResponseEntity<Resource> sharedFileResponse(SharedFile file, String shareToken,
+                                                        HttpServletRequest httpRequest) {
+        if (file.contentUrl() == null && new ServletWebRequest(httpRequest)
+                .checkNotModified(file.etag(), file.lastModified().toEpochMilli())) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                    .cacheControl(CacheControl.noCache())
+                    .eTag(file.etag())
+                    .lastModified(file.lastModified())
+                    .build();
+        }
+        shareService.countDownload(shareToken, file, httpRequest.getRemoteAddr());
+        if (file.contentUrl() != null) {
+            return ResponseEntity.status(HttpStatus.FOUND)
+                    .location(URI.create(file.contentUrl()))
+                    .cacheControl(CacheControl.noCache().cachePrivate())
+                    .build();
+        }
+        // caches may keep the file but must revalidate through the token, so revoked links stop working
+        return fileResponse(file, shareToken, CacheControl.noCache());
+    }
+
+    @Operation(
+            summary = "List shared folder",
+            description = "List a folder shared with a share token, or one of its subfolders (no authentication required)"
+    )
+    @ApiResponses(value = {
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "Files listed successfully",
+                    content = @Content(
+                            mediaType = "application/json",
+                            array = @ArraySchema(schema = @Schema(implementation = FileModel.class))
+                    )
+            ),
+            @ApiResponse(responseCode = "400", description = "Share link not found or expired, invalid path format, "
+                    + "or path outside the shared folder",
+                    content = @Content(schema = @Schema(ref = "#/components/schemas/ShareLinkExpiredErrorResponse")))
+    })
+    @GetMapping("/{shareToken}/files")
+    public ResponseEntity<List<FileModel>> listSharedFolder(
+            @Parameter(description = "Share token of the folder", required = true, example = "abc123def456")
+            @PathVariable String shareToken,
+            @Parameter(description = "Subfolder, relative to the shared folder", example = "2025/reports")
+            @SafePath @RequestParam(required = false) String path) {
+        return ResponseEntity.ok(shareService.listShared(shareToken, path));
+    }
 
+    @Operation(
+            summary = "Download from shared folder",
+            description = "Download any file under a folder shared with a share token (no authentication required)"
+    )
+    @ApiResponses(value = {
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "File downloaded successfully",
+                    content = @Content(mediaType = "application/octet-stream")
+            ),
+            @ApiResponse(responseCode = "302", description = "Redirect to the immutable content URL, when "
+                    + "cerebra.share.content.redirect is enabled"),
+            @ApiResponse(responseCode = "304", description = "Not modified (If-None-Match matched the ETag)"),
+            @ApiResponse(responseCode = "400", description = "Share link not found or expired, invalid path format, "
+                    + "or path outside the shared folder",
+                    content = @Content(schema = @Schema(ref = "#/components/schemas/ShareLinkExpiredErrorResponse"))),
+            @ApiResponse(responseCode = "404", description = "File not found",
+                    content = @Content(schema = @Schema(ref = "#/components/schemas/FileNotFoundErrorResponse")))
+    })
+    @GetMapping("/{shareToken}/files/download")
+    public ResponseEntity<Resource> downloadFromSharedFolder(
+            @Parameter(description = "Share token of the folder", required = true, example = "abc123def456")
+            @PathVariable String shareToken,
+            @Parameter(description = "File path, relative to the shared folder", required = true, example = "2025/jan.pdf")
+            @SafePath @RequestParam String path,
+            HttpServletRequest httpRequest) {
+        return sharedFileResponse(shareService.open(shareToken, path), shareToken, httpRequest);
+    }
+
+    @Operation(
+            summary = "Access shared file content",
+            description = "Immutable URL of one version of a shared file, which share links redirect to when "
+                    + "cerebra.share.content.redirect is enabled. Cacheable by any proxy or CDN"
+    )
+    @ApiResponses(value = {
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "File downloaded successfully",
+                    content = @Content(mediaType = "application/octet-stream")
+            ),
+            @ApiResponse(responseCode = "304", description = "Not modified (If-None-Match matched the ETag)"),
+            @ApiResponse(responseCode = "400", description = "Unknown content key, or the file changed since",
+                    content = @Content(schema = @Schema(ref = "#/components/schemas/ShareLinkExpiredErrorResponse")))
+    })
+    @GetMapping("/content/{contentKey}")
+    public ResponseEntity<Resource> getSharedContent(@PathVariable String contentKey) {
+        return fileResponse(shareService.openContent(contentKey), contentKey,
+                CacheControl.maxAge(Duration.ofDays(365)).cachePublic().immutable());
+    }
+
+    /**
+     * Answers If-None-Match and If-Modified-Since with 304 through the ETag and Last-Modified headers, and
+     * shapes the body as share traffic of the file's owner and {@code link}.
+     */
+    private ResponseEntity<Resource> fileResponse(SharedFile file, String link, CacheControl cacheControl) {
         HttpHeaders headers = new HttpHeaders();
+        headers.setContentDispositionFormData("attachment", file.resource().getFilename());
+        // a proxy that compresses responses must keep compressed and plain copies apart
+        headers.setVary(List.of(HttpHeaders.ACCEPT_ENCODING));
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_OCTET_STREAM)
+                .headers(headers)
+                .cacheControl(cacheControl)
+                .eTag(file.etag())
+                .lastModified(file.lastModified())
+                .body(downloadBandwidth.throttle(file.resource(), DownloadBandwidth.Traffic.SHARE,
+                        PathHelper.getOwnerId(file.path()), link));
+    }
 
-            headers.setContentDispositionFormData("attachment", resource.getFilename());
-            return ResponseEntity.ok()
-                    .contentType(MediaType.APPLICATION_OCTET_STREAM)
-                    .headers(headers)
-                    .body(resource);
+    @Operation(
+            summary = "Revoke share link",
+            description = "End one of your share links before it expires. Revoked signed links stop working on every "
+                    + "node within cerebra.share.revocation-sync-interval"
+    )
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "204", description = "Share link revoked"),
+            @ApiResponse(responseCode = "400", description = "Share link not found, expired, or owned by another user",
+                    content = @Content(schema = @Schema(ref = "#/components/schemas/ShareLinkExpiredErrorResponse"))),
+            @ApiResponse(responseCode = "401", description = "Unauthorized",
+                    content = @Content(schema = @Schema(ref = "#/components/schemas/UnauthorizedErrorResponse")))
+    })
+    @DeleteMapping("/{shareToken}")
+    public ResponseEntity<?> revokeShareLink(
+            @Parameter(description = "Share token to revoke", required = true, example = "abc123def456")
+            @PathVariable String shareToken) {
+        shareService.revoke(AuthHelper.getCurrentUser(), shareToken);
+        return ResponseEntity.noContent().build();
+    }
+
+    @Operation(
+            summary = "List share links",
+            description = "List your live share links, newest first. Pass nextCursor from the previous page to get the next one"
+    )
+    @ApiResponses(value = {
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "Share links listed successfully",
+                    content = @Content(
+                            mediaType = "application/json",
+                            schema = @Schema(implementation = ShareLinkPageResponse.class)
+                    )
+            ),
+            @ApiResponse(responseCode = "401", description = "Unauthorized",
+                    content = @Content(schema = @Schema(ref = "#/components/schemas/UnauthorizedErrorResponse")))
+    })
+    @GetMapping
+    public ResponseEntity<ShareLinkPageResponse> listShareLinks(
+            @Parameter(description = "nextCursor of the previous page", example = "41")
+            @RequestParam(required = false) Long cursor,
+            @Parameter(description = "Page size, at most 200", example = "50")
+            @RequestParam(defaultValue = "50") int limit) {
+        return ResponseEntity.ok(shareService.list(AuthHelper.getCurrentUser(), cursor, limit));
+    }
+
+    @Operation(
+            summary = "Revoke share link by id",
+            description = "End one of your share links, as listed by GET /api/v1/share, before it expires"
+    )
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "204", description = "Share link revoked"),
+            @ApiResponse(responseCode = "400", description = "Share link not found, expired, or owned by another user",
+                    content = @Content(schema = @Schema(ref = "#/components/schemas/ShareLinkExpiredErrorResponse"))),
+            @ApiResponse(responseCode = "401", description = "Unauthorized",
+                    content = @Content(schema = @Schema(ref = "#/components/schemas/UnauthorizedErrorResponse")))
+    })
+    @DeleteMapping("/links/{id}")
+    public ResponseEntity<?> revokeShareLinkById(
+            @Parameter(description = "Share link id", required = true, example = "42")
+            @PathVariable Long id) {
+        shareService.revoke(AuthHelper.getCurrentUser(), id);
+        return ResponseEntity.noContent().build();
+    }
+
+    @Operation(
+            summary = "Revoke share links of a file",
+            description = "End every share link to one of your files"
+    )
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "204", description = "Share links revoked"),
+            @ApiResponse(responseCode = "400", description = "Invalid path format",
+                    content = @Content(schema = @Schema(ref = "#/components/schemas/ValidationErrorResponse"))),
+            @ApiResponse(responseCode = "401", description = "Unauthorized",
+                    content = @Content(schema = @Schema(ref = "#/components/schemas/UnauthorizedErrorResponse")))
+    })
+    @DeleteMapping
+    public ResponseEntity<?> revokeShareLinksOfFile(
+            @Parameter(description = "Path of the shared file", required = true, example = "/documents/file.pdf")
+            @SafePath @RequestParam String path) {
+        int revoked = shareService.revokeByPath(AuthHelper.getCurrentUser(), path);
+        log.info("Revoked {} share links of {}", revoked, path);
+        return ResponseEntity.noContent().build();
+    }
+
+    @Operation(
+            summary = "Share link statistics",
+            description = "Downloads, bytes served and approximate unique recipients of one of your share links"
+    )
+    @ApiResponses(value = {
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "Statistics returned successfully",
+                    content = @Content(
+                            mediaType = "application/json",
+                            schema = @Schema(implementation = ShareStatsResponse.class)
+                    )
+            ),
+            @ApiResponse(responseCode = "400", description = "Share link not found, expired, or owned by another user",
+                    content = @Content(schema = @Schema(ref = "#/components/schemas/ShareLinkExpiredErrorResponse"))),
+            @ApiResponse(responseCode = "401", description = "Unauthorized",
+                    content = @Content(schema = @Schema(ref = "#/components/schemas/UnauthorizedErrorResponse")))
+    })
+    @GetMapping("/links/{id}/stats")
+    public ResponseEntity<ShareStatsResponse> getShareLinkStats(
+            @Parameter(description = "Share link id", required = true, example = "42")
+            @PathVariable Long id) {
+        return ResponseEntity.ok(shareService.linkStats(AuthHelper.getCurrentUser(), id));
+    }
+
+    @Operation(
+            summary = "Shared file statistics",
+            description = "Downloads, bytes served and approximate unique recipients of one of your files, over all its share links"
+    )
+    @ApiResponses(value = {
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "Statistics returned successfully",
+                    content = @Content(
+                            mediaType = "application/json",
+                            schema = @Schema(implementation = ShareStatsResponse.class)
+                    )
+            ),
+            @ApiResponse(responseCode = "400", description = "Invalid path format",
+                    content = @Content(schema = @Schema(ref = "#/components/schemas/ValidationErrorResponse"))),
+            @ApiResponse(responseCode = "401", description = "Unauthorized",
+                    content = @Content(schema = @Schema(ref = "#/components/schemas/UnauthorizedErrorResponse")))
+    })
+    @GetMapping("/files/stats")
+    public ResponseEntity<ShareStatsResponse> getSharedFileStats(
+            @Parameter(description = "Path of the shared file", required = true, example = "/documents/file.pdf")
+            @SafePath @RequestParam String path) {
+        return ResponseEntity.ok(shareService.fileStats(AuthHelper.getCurrentUser(), path));
     }
 
 }
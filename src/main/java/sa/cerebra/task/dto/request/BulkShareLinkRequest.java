@@ -0,0 +1,35 @@
+package sa.cerebra.task.dto.request;
+
+import io.swagger.v3.oas.annotations.media.ArraySchema;
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Pattern;
+import jakarta.validation.constraints.Positive;
+import jakarta.validation.constraints.Size;
+import lombok.Data;
+import sa.cerebra.task.validation.SafePath;
+
+import java.util.List;
+
+@Data
+@Schema(description = "Request to share files with many recipients at once. Every recipient gets their own link "
+        + "to every path and one SMS listing them")
+public class BulkShareLinkRequest {
+
+    @NotEmpty
+    @Size(max = 100)
+    @ArraySchema(schema = @Schema(description = "Path to a file to share", example = "/documents/file.pdf"))
+    private List<@NotBlank @SafePath String> paths;
+
+    @Size(max = 1000)
+    @ArraySchema(schema = @Schema(description = "Phone number of a recipient", example = "+1234567890"))
+    private List<@Pattern(regexp = "^\\+?[1-9]\\d{1,14}$", message = "Invalid phone number format") String> recipientPhones;
+
+    @Schema(description = "Number of days until the share links expire", example = "7", defaultValue = "7")
+    private Integer expirationDays = 7;
+
+    @Positive
+    @Schema(description = "How many times each link can be downloaded; unlimited until it expires when absent", example = "1")
+    private Integer maxDownloads;
+}
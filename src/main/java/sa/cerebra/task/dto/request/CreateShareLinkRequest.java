@@ -3,6 +3,7 @@ package sa.cerebra.task.dto.request;
 import io.swagger.v3.oas.annotations.media.Schema;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.Pattern;
+import jakarta.validation.constraints.Positive;
 import lombok.Data;
 import sa.cerebra.task.validation.SafePath;
 
@@ -12,7 +13,7 @@ public class CreateShareLinkRequest {
     
     @NotBlank
     @SafePath
-    @Schema(description = "Path to the file to share", example = "/documents/file.pdf", required = true)
+    @Schema(description = "Path to the file or folder to share; a folder link grants every file under it", example = "/documents/file.pdf", required = true)
     private String path;
     
     @Pattern(regexp = "^\\+?[1-9]\\d{1,14}$", message = "Invalid phone number format")
@@ -21,4 +22,8 @@ public class CreateShareLinkRequest {
     
     @Schema(description = "Number of days until the share link expires", example = "7", defaultValue = "7")
     private Integer expirationDays = 7; // Default to 7 days
+
+    @Positive
+    @Schema(description = "How many times the link can be downloaded; unlimited until it expires when absent", example = "1")
+    private Integer maxDownloads;
 }
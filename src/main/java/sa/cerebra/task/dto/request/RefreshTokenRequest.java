@@ -0,0 +1,14 @@
+package sa.cerebra.task.dto.request;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.NotBlank;
+import lombok.Data;
+
+@Data
+@Schema(description = "Access token refresh request")
+public class RefreshTokenRequest {
+    @NotBlank
+    @Schema(description = "Refresh token from the last token response", example = "q3R0b2tlbi1mYW1pbHk.c2VjcmV0LXBhcnQ",
+            requiredMode = Schema.RequiredMode.REQUIRED)
+    String refreshToken;
+}
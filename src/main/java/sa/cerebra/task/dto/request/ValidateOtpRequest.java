@@ -13,4 +13,6 @@ public class ValidateOtpRequest {
     @NotBlank
     @Schema(description = "OTP code received via SMS", example = "123456", required = true)
     String otp;
+    @Schema(description = "Challenge returned by login, required in stateless OTP mode", example = "1767225600.bm9uY2U.c2lnbmF0dXJl")
+    String challenge;
 }
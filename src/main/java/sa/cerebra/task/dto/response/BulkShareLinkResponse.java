@@ -0,0 +1,28 @@
+package sa.cerebra.task.dto.response;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@Builder
+@Schema(description = "Share links created by a bulk share, one per path and recipient")
+public class BulkShareLinkResponse {
+
+    @Schema(description = "Created share links")
+    private List<Link> links;
+
+    @Data
+    @Builder
+    @Schema(description = "One created share link")
+    public static class Link {
+        @Schema(description = "Path of the shared file", example = "/documents/file.pdf")
+        private String path;
+        @Schema(description = "Recipient the link was sent to, absent when no recipients were given", example = "+1234567890")
+        private String recipientPhone;
+        @Schema(description = "Shareable link URL", example = "https://api.example.com/api/v1/share/abc123def456")
+        private String link;
+    }
+}
@@ -0,0 +1,15 @@
+package sa.cerebra.task.dto.response;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Builder;
+import lombok.Data;
+
+@Data
+@Builder
+@Schema(description = "Login response in stateless OTP mode")
+public class LoginResponse {
+    @Schema(description = "Signed OTP challenge to send back with validate-otp", example = "1767225600.bm9uY2U.c2lnbmF0dXJl")
+    private String challenge;
+    @Schema(description = "Seconds until the challenge and its OTP expire", example = "60")
+    private long expiresIn;
+}
@@ -0,0 +1,17 @@
+package sa.cerebra.task.dto.response;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@Builder
+@Schema(description = "One page of the user's live share links, newest first")
+public class ShareLinkPageResponse {
+    @Schema(description = "Share links on this page")
+    private List<ShareLinkSummaryResponse> links;
+    @Schema(description = "Cursor for the next page, absent on the last page", example = "41")
+    private Long nextCursor;
+}
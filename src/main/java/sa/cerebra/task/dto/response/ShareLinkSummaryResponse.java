@@ -0,0 +1,25 @@
+package sa.cerebra.task.dto.response;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Builder;
+import lombok.Data;
+
+import java.time.Instant;
+
+@Data
+@Builder
+@Schema(description = "A live share link; the token itself is not stored and cannot be listed")
+public class ShareLinkSummaryResponse {
+    @Schema(description = "Share link id, used to revoke it", example = "42")
+    private Long id;
+    @Schema(description = "Path of the shared file", example = "documents/file.pdf")
+    private String path;
+    @Schema(description = "When the link expires", example = "2026-01-08T10:00:00Z")
+    private Instant expiresAt;
+    @Schema(description = "When the link was created", example = "2026-01-01T10:00:00Z")
+    private Instant createdAt;
+    @Schema(description = "Downloads through this link", example = "3")
+    private long downloadCount;
+    @Schema(description = "Downloads the link allows, absent when unlimited", example = "5")
+    private Integer maxDownloads;
+}
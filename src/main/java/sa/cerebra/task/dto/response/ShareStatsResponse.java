@@ -0,0 +1,17 @@
+package sa.cerebra.task.dto.response;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Builder;
+import lombok.Data;
+
+@Data
+@Builder
+@Schema(description = "Download statistics of a share link or a shared file, updated every few seconds")
+public class ShareStatsResponse {
+    @Schema(description = "Number of downloads", example = "12")
+    private long downloads;
+    @Schema(description = "Bytes served by those downloads", example = "1048576")
+    private long bytesServed;
+    @Schema(description = "Approximate number of distinct recipients (client addresses), within about 3%", example = "4")
+    private long uniqueRecipients;
+}
@@ -12,4 +12,6 @@ import lombok.experimental.Accessors;
 public class TokenResponse {
     @Schema(description = "JWT access token for API authentication", example = "eyJhbGciOiJIUzI1NiIsInR5cCI6IkpXVCJ9...")
     private String accessToken;
+    @Schema(description = "Single-use refresh token for POST /api/v1/auth/refresh", example = "q3R0b2tlbi1mYW1pbHk.c2VjcmV0LXBhcnQ")
+    private String refreshToken;
 }
@@ -0,0 +1,27 @@
+package sa.cerebra.task.entity;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.Instant;
+
+/**
+ * A signed share link revoked before its expiry. Kept until the link would have expired.
+ */
+@Entity
+@Table(name = "revoked_share_links")
+@Getter
+@Setter
+public class RevokedShareLink {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    private String tokenId;
+
+    private Instant expiresAt;
+
+    private Instant revokedAt;
+}
@@ -0,0 +1,38 @@
+package sa.cerebra.task.entity;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.Instant;
+
+/**
+ * Downloads of one file through any of its share links, including links that were revoked or have expired.
+ */
+@Entity
+@Table(name = "share_file_stats")
+@Getter
+@Setter
+public class ShareFileStats {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    private Long ownerId;
+
+    /**
+     * SHA-256 of the storage path, so the unique key does not depend on the path length.
+     */
+    private String pathHash;
+
+    private String path;
+
+    private long downloadCount;
+
+    private long bytesServed;
+
+    private byte[] recipientsSketch;
+
+    private Instant updatedAt;
+}
@@ -0,0 +1,56 @@
+package sa.cerebra.task.entity;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.Instant;
+
+/**
+ * A live share link. Only the SHA-256 of the token is stored, so the table cannot be used to download files.
+ */
+@Entity
+@Table(name = "share_links")
+@Getter
+@Setter
+public class ShareLink {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    private String tokenHash;
+
+    /**
+     * Id encoded at the start of a short token, see {@link sa.cerebra.task.service.ShortLinkIds}. Null for other links.
+     */
+    private Long shortId;
+
+    /**
+     * Token id of a signed link, recorded in {@code revoked_share_links} when the link is revoked. Null for cached links.
+     */
+    private String revocationId;
+
+    private Long ownerId;
+
+    private String path;
+
+    private Instant expiresAt;
+
+    private long downloadCount;
+
+    /**
+     * Downloads the link allows, null for no limit. Enforced through a counter in the cache, see
+     * {@link sa.cerebra.task.service.ShareLinkRegistry#takeDownload}.
+     */
+    private Integer maxDownloads;
+
+    private long bytesServed;
+
+    /**
+     * {@link sa.cerebra.task.helper.HyperLogLog} registers of the recipients that downloaded through the link.
+     */
+    private byte[] recipientsSketch;
+
+    private Instant createdAt;
+}
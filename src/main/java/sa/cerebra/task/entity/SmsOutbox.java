@@ -0,0 +1,48 @@
+package sa.cerebra.task.entity;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.Instant;
+
+/**
+ * One SMS in the outbox and its delivery status.
+ */
+@Entity
+@Table(name = "sms_outbox")
+@Getter
+@Setter
+public class SmsOutbox {
+
+    public enum Status {
+        // waiting for its next attempt
+        PENDING,
+        // handed to a dispatch worker; re-claimable once nextAttemptAt (the lease) has passed
+        QUEUED,
+        SENT,
+        // gave up after the configured number of attempts
+        FAILED
+    }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    private String phone;
+
+    private String message;
+
+    @Enumerated(EnumType.STRING)
+    private Status status;
+
+    private int attempts;
+
+    private Instant nextAttemptAt;
+
+    private String lastError;
+
+    private Instant createdAt;
+
+    private Instant sentAt;
+}
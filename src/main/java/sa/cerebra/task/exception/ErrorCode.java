@@ -11,6 +11,8 @@ public enum ErrorCode {
     
     // Authentication related errors
     INVALID_OTP("INVALID_OTP", "Invalid or expired OTP"),
+    INVALID_REFRESH_TOKEN("INVALID_REFRESH_TOKEN", "Invalid or expired refresh token"),
+    TOO_MANY_REQUESTS("TOO_MANY_REQUESTS", "Too many requests, try again later"),
     
     SHARE_LINK_EXPIRED("SHARE_LINK_EXPIRED", "Share link has expired"),
     
@@ -14,6 +14,7 @@ import org.springframework.web.multipart.support.MissingServletRequestPartExcept
 
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.CompletionException;
 import java.util.stream.Collectors;
 
 @ControllerAdvice
@@ -25,7 +26,19 @@ public class GlobalExceptionHandler {
         Map<String, Object> body = new HashMap<>();
         body.put("message", e.getMessage());
         body.put("errorCode", e.getErrorCode().getCode());
-        return new ResponseEntity<>(body, HttpStatus.BAD_REQUEST);
+        HttpStatus status = e.getErrorCode() == ErrorCode.TOO_MANY_REQUESTS ? HttpStatus.TOO_MANY_REQUESTS : HttpStatus.BAD_REQUEST;
+        return new ResponseEntity<>(body, status);
+    }
+
+    /**
+     * Failures of joined cache futures arrive wrapped; answer them as the exception they wrap.
+     */
+    @ExceptionHandler(CompletionException.class)
+    public ResponseEntity<Object> handleCompletionException(CompletionException e) {
+        if (e.getCause() instanceof CerebraException cause) {
+            return handleCerebraException(cause);
+        }
+        return handleGenericException(e);
     }
 
     @ExceptionHandler(MethodArgumentNotValidException.class)
@@ -2,6 +2,7 @@ package sa.cerebra.task.filter;
 
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.jsonwebtoken.Claims;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -13,8 +14,10 @@ import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Component;
 import org.springframework.util.StringUtils;
 import org.springframework.web.filter.OncePerRequestFilter;
+import sa.cerebra.task.entity.User;
 import sa.cerebra.task.repository.UserRepository;
 import sa.cerebra.task.helper.JwtHelper;
+import sa.cerebra.task.helper.JwtVerification;
 
 import java.io.IOException;
 
@@ -33,14 +36,19 @@ public class JwtFilter extends OncePerRequestFilter {
 
         String token = extractToken(request);
         if (token != null) {
-            if(jwtHelper.isTokenExpired(token)) {
+            JwtVerification verification = jwtHelper.verify(token);
+            if (verification.status() == JwtVerification.Status.EXPIRED) {
                 sendErrorResponse(response, HttpServletResponse.SC_UNAUTHORIZED, "Token expired", "The access token provided has expired.");
                 return;
             }
+            if (!verification.isValid()) {
+                sendErrorResponse(response, HttpServletResponse.SC_UNAUTHORIZED, "Invalid token", "The access token provided is invalid.");
+                return;
+            }
 
-            String userId = jwtHelper.extractUsername(token);
+            String userId = verification.subject();
             if (userId != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-                UserDetails userDetails = userRepository.findById(Long.parseLong(userId)).orElseThrow(()-> new RuntimeException("User Not Found"));
+                UserDetails userDetails = toPrincipal(userId, verification.claims());
                 UsernamePasswordAuthenticationToken auth = new UsernamePasswordAuthenticationToken(
                         userDetails, null, userDetails.getAuthorities());
                 SecurityContextHolder.getContext().setAuthentication(auth);
@@ -49,6 +57,18 @@ public class JwtFilter extends OncePerRequestFilter {
         chain.doFilter(request, response);
     }
 
+    private UserDetails toPrincipal(String userId, Claims claims) {
+        String phone = claims.get(JwtHelper.PHONE_CLAIM, String.class);
+        if (phone == null) {
+            // tokens issued before the phone claim was added
+            return userRepository.findById(Long.parseLong(userId)).orElseThrow(()-> new RuntimeException("User Not Found"));
+        }
+        User user = new User();
+        user.setId(Long.parseLong(userId));
+        user.setPhone(phone);
+        return user;
+    }
+
     private String extractToken(HttpServletRequest request) {
         String header = request.getHeader("Authorization");
         if (StringUtils.hasText(header) && header.startsWith("Bearer ")) {
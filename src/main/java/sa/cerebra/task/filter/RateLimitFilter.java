@@ -0,0 +1,52 @@
+package sa.cerebra.task.filter;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import sa.cerebra.task.exception.ErrorCode;
+import sa.cerebra.task.ratelimit.LoginRateLimiter;
+
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * Rejects login floods by client IP and globally before the request body is read or any OTP work is done.
+ * The client IP is the remote address; behind a proxy set {@code server.forward-headers-strategy}.
+ */
+@Component
+@RequiredArgsConstructor
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    static final String LOGIN_PATH = "/api/v1/auth/login";
+
+    final LoginRateLimiter loginRateLimiter;
+    final ObjectMapper objectMapper;
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !"POST".equals(request.getMethod()) || !LOGIN_PATH.equals(request.getServletPath());
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        if (!loginRateLimiter.tryAcquireForClient(request.getRemoteAddr())) {
+            response.setStatus(429);
+            response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(loginRateLimiter.clientWindow().toSeconds()));
+            response.setContentType("application/json");
+            response.setCharacterEncoding("UTF-8");
+            ErrorCode errorCode = ErrorCode.TOO_MANY_REQUESTS;
+            response.getWriter().write(objectMapper.writeValueAsString(
+                    Map.of("message", errorCode.getMessage(), "errorCode", errorCode.getCode())));
+            response.getWriter().flush();
+            return;
+        }
+        chain.doFilter(request, response);
+    }
+}
@@ -0,0 +1,94 @@
+package sa.cerebra.task.helper;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * HyperLogLog sketch estimating the number of distinct strings added, within about 3% with
+ * {@value #REGISTERS} registers. {@link #add} is lock-free and safe to call concurrently. Sketches merge by
+ * taking the larger register, so merging the same sketch twice changes nothing, and {@link #toBytes} can be
+ * stored and merged again later.
+ */
+public class HyperLogLog {
+
+    public static final int PRECISION = 10;
+    public static final int REGISTERS = 1 << PRECISION;
+
+    // eight one-byte registers per word
+    private final AtomicLongArray words = new AtomicLongArray(REGISTERS / 8);
+
+    public static HyperLogLog fromBytes(byte[] registers) {
+        HyperLogLog sketch = new HyperLogLog();
+        sketch.merge(registers);
+        return sketch;
+    }
+
+    /**
+     * @return true if the sketch changed
+     */
+    public boolean add(String value) {
+        long hash = BloomFilter.hash(value);
+        int index = (int) (hash >>> (64 - PRECISION));
+        // the marker bit caps the rank at 64 - PRECISION + 1 when the remaining bits are all zero
+        int rank = Long.numberOfLeadingZeros((hash << PRECISION) | (1L << (PRECISION - 1))) + 1;
+        return raise(index, rank);
+    }
+
+    /**
+     * Merges registers produced by {@link #toBytes}; null or wrongly sized input is ignored.
+     */
+    public void merge(byte[] registers) {
+        if (registers == null || registers.length != REGISTERS) {
+            return;
+        }
+        for (int i = 0; i < REGISTERS; i++) {
+            if (registers[i] > 0) {
+                raise(i, registers[i]);
+            }
+        }
+    }
+
+    public byte[] toBytes() {
+        byte[] registers = new byte[REGISTERS];
+        for (int i = 0; i < REGISTERS; i++) {
+            registers[i] = (byte) register(i);
+        }
+        return registers;
+    }
+
+    public long estimate() {
+        double sum = 0;
+        int zeros = 0;
+        for (int i = 0; i < REGISTERS; i++) {
+            int register = register(i);
+            sum += 1.0 / (1L << register);
+            if (register == 0) {
+                zeros++;
+            }
+        }
+        double alpha = 0.7213 / (1 + 1.079 / REGISTERS);
+        double estimate = alpha * REGISTERS * REGISTERS / sum;
+        if (estimate <= 2.5 * REGISTERS && zeros > 0) {
+            // linear counting is more accurate while many registers are still empty
+            estimate = REGISTERS * Math.log((double) REGISTERS / zeros);
+        }
+        return Math.round(estimate);
+    }
+
+    private int register(int index) {
+        return (int) (words.get(index >>> 3) >>> ((index & 7) * 8)) & 0xFF;
+    }
+
+    private boolean raise(int index, int rank) {
+        int word = index >>> 3;
+        int shift = (index & 7) * 8;
+        long current = words.get(word);
+        while (((current >>> shift) & 0xFF) < rank) {
+            long next = (current & ~(0xFFL << shift)) | ((long) rank << shift);
+            if (words.compareAndSet(word, current, next)) {
+                return true;
+            }
+            current = words.get(word);
+        }
+        return false;
+    }
+}
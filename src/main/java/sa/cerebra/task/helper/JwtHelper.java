@@ -1,26 +1,66 @@
 package sa.cerebra.task.helper;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
 import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
-import io.jsonwebtoken.SignatureAlgorithm;
-import io.jsonwebtoken.security.Keys;
-import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 import sa.cerebra.task.config.Configs;
+import sa.cerebra.task.entity.User;
 
-import java.security.Key;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.Base64;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
 
+@Slf4j
 @Component
-@RequiredArgsConstructor
 public class JwtHelper {
+    // carried in the token so JwtFilter can build the principal without loading the user
+    public static final String PHONE_CLAIM = "phone";
+
     final Configs configs;
+    private final JwtKeyRing keyRing;
+    // immutable and thread-safe, so it is built once instead of per token
+    private final JwtParser parser;
+    // SHA-256 of the token -> its verified claims, so bearer tokens themselves are not kept in memory
+    private final Cache<String, JwtVerification> verifiedTokens;
+
+    public JwtHelper(Configs configs) {
+        this(configs, 0);
+    }
 
+    public JwtHelper(Configs configs, long verifiedCacheMaxSize) {
+        this(configs, JwtKeyRing.hmac(configs), verifiedCacheMaxSize);
+    }
 
-    private Key getSigningKey() {
-        return Keys.hmacShaKeyFor(configs.getSigningKey().getBytes());
+    @Autowired
+    public JwtHelper(Configs configs, JwtKeyRing keyRing,
+                     @Value("${cerebra.jwt.verified-cache.max-size:10000}") long verifiedCacheMaxSize) {
+        this.configs = configs;
+        this.keyRing = keyRing;
+        this.parser = Jwts.parser()
+                .keyLocator(keyRing.locator())
+                .build();
+        this.verifiedTokens = verifiedCacheMaxSize > 0 ? Caffeine.newBuilder()
+                .maximumSize(verifiedCacheMaxSize)
+                .expireAfter(Expiry.creating((String digest, JwtVerification verification) ->
+                        Duration.ofMillis(verification.claims().getExpiration().getTime() - System.currentTimeMillis())))
+                .build() : null;
+    }
+
+    public String generateToken(User user) {
+        return generateToken(user.getId(), Map.of(PHONE_CLAIM, user.getPhone()), configs.getAccessTokenExpiration());
     }
 
     public String generateToken(Long userId) {
@@ -28,40 +68,66 @@ public class JwtHelper {
     }
 
     public String generateToken(Long userId, long accessTokenExpiration) {
-        Map<String, Object> claims = new HashMap<>();
-
-        return Jwts.builder()
-                .setClaims(claims)
-                .setSubject(userId.toString())
-                .setIssuedAt(new Date())
-                .setExpiration(new Date(System.currentTimeMillis() + accessTokenExpiration))
-                .signWith(getSigningKey(), SignatureAlgorithm.HS256)
-                .compact();
+        return generateToken(userId, new HashMap<>(), accessTokenExpiration);
     }
 
+    private String generateToken(Long userId, Map<String, Object> claims, long accessTokenExpiration) {
+        return keyRing.sign(Jwts.builder()
+                        .claims(claims)
+                        .subject(userId.toString())
+                        .issuedAt(new Date())
+                        .expiration(new Date(System.currentTimeMillis() + accessTokenExpiration)))
+                .compact();
+    }
 
-    public String extractUsername(String token) {
-        return Jwts.parser()
-                .setSigningKey(getSigningKey())
-                .build()
-                .parseClaimsJws(token)
-                .getBody()
-                .getSubject();
+    /**
+     * Verifies signature and expiry in a single parse. Valid results are cached until the token's exp,
+     * so a token presented again skips the parse and signature check.
+     */
+    public JwtVerification verify(String token) {
+        if (verifiedTokens == null) {
+            return parse(token);
+        }
+        String digest = digest(token);
+        JwtVerification cached = verifiedTokens.getIfPresent(digest);
+        if (cached != null && cached.claims().getExpiration().getTime() > System.currentTimeMillis()) {
+            return cached;
+        }
+        JwtVerification verification = parse(token);
+        if (verification.isValid() && verification.claims().getExpiration() != null) {
+            verifiedTokens.put(digest, verification);
+        }
+        return verification;
     }
-    public boolean isTokenExpired(String token) {
+
+    private JwtVerification parse(String token) {
         try {
-            Jwts.parser()
-                    .setSigningKey(getSigningKey())
-                    .build()
-                    .parseClaimsJws(token);
-            return false;
+            return JwtVerification.valid(parser.parseSignedClaims(token).getPayload());
         } catch (ExpiredJwtException e) {
-            return true;
+            return JwtVerification.expired();
+        } catch (JwtException | IllegalArgumentException e) {
+            log.debug("Token validation failed: {}", e.getMessage());
+            return JwtVerification.invalid();
+        }
+    }
 
-        } catch (Exception e) {
-            // Handle invalid signature or malformed token errors (return true, or log and throw)
-            System.err.println("Token validation failed: " + e.getMessage());
-            return true; // Treat an invalid/unverifiable token as "expired" or unusable
+    private static String digest(String token) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return Base64.getEncoder().encodeToString(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
         }
     }
+
+    public String extractUsername(String token) {
+        return parser.parseSignedClaims(token)
+                .getPayload()
+                .getSubject();
+    }
+
+    public boolean isTokenExpired(String token) {
+        // an invalid/unverifiable token is treated as "expired" or unusable
+        return !verify(token).isValid();
+    }
 }
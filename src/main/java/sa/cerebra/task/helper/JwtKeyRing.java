@@ -0,0 +1,260 @@
+package sa.cerebra.task.helper;
+
+import io.jsonwebtoken.JwsHeader;
+import io.jsonwebtoken.JwtBuilder;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.Locator;
+import io.jsonwebtoken.LocatorAdapter;
+import io.jsonwebtoken.security.Jwk;
+import io.jsonwebtoken.security.Jwks;
+import io.jsonwebtoken.security.Keys;
+import io.jsonwebtoken.security.PrivateJwk;
+import io.jsonwebtoken.security.PublicJwk;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import sa.cerebra.task.config.Configs;
+
+import javax.crypto.SecretKey;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.GeneralSecurityException;
+import java.security.Key;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.PrivateKey;
+import java.security.spec.ECGenParameterSpec;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Keys used to sign and verify access tokens.
+ * <ul>
+ *     <li>{@code HS256} (default): the shared {@code cerebra.signing-key}; tokens carry no kid and only
+ *     this service can verify them.</li>
+ *     <li>{@code ES256} / {@code EdDSA}: tokens carry a kid header and the public keys are published at
+ *     {@code /.well-known/jwks.json}, so gateways can verify tokens without calling back. Keys come from the
+ *     private JWK set at {@code cerebra.jwt.key-set-path} (re-read when the file changes, signing with
+ *     {@code cerebra.jwt.active-kid} or the first private key), or, if no file is configured, are generated
+ *     in memory and rotated every {@code cerebra.jwt.rotation-period}. A retired key keeps verifying for one
+ *     access token lifetime, so rotation never invalidates issued tokens. Generated keys are per instance:
+ *     multi-node deployments should use a key set file.</li>
+ * </ul>
+ */
+@Slf4j
+@Component
+public class JwtKeyRing {
+
+    public enum Algorithm {
+        HS256, ES256, EdDSA
+    }
+
+    private record Snapshot(String signingKid, Key signingKey, Instant signingSince,
+                            Map<String, Key> verificationKeys, Map<String, Instant> retiredUntil,
+                            List<Map<String, Object>> publicJwks) {
+    }
+
+    private final Algorithm algorithm;
+    private final SecretKey hmacKey;
+    private final Path keySetPath;
+    private final String activeKid;
+    private final Duration rotationPeriod;
+    private final Duration retention;
+    private volatile Snapshot snapshot;
+    private long keySetModified;
+
+    public JwtKeyRing(Configs configs,
+                      @Value("${cerebra.jwt.algorithm:HS256}") Algorithm algorithm,
+                      @Value("${cerebra.jwt.key-set-path:}") String keySetPath,
+                      @Value("${cerebra.jwt.active-kid:}") String activeKid,
+                      @Value("${cerebra.jwt.rotation-period:P1D}") Duration rotationPeriod) {
+        this.algorithm = algorithm;
+        this.hmacKey = algorithm == Algorithm.HS256 ? Keys.hmacShaKeyFor(configs.getSigningKey().getBytes()) : null;
+        this.keySetPath = keySetPath.isBlank() ? null : Path.of(keySetPath);
+        this.activeKid = activeKid.isBlank() ? null : activeKid;
+        this.rotationPeriod = rotationPeriod;
+        // a retired key must outlive every token it signed
+        this.retention = Duration.ofMillis(configs.getAccessTokenExpiration()).plusMinutes(1);
+
+        if (algorithm == Algorithm.HS256) {
+            this.snapshot = new Snapshot(null, hmacKey, Instant.now(), Map.of(), Map.of(), List.of());
+        } else if (this.keySetPath != null) {
+            reloadKeySet();
+        } else {
+            log.warn("No cerebra.jwt.key-set-path configured, generating {} signing keys in memory", algorithm);
+            rotate();
+        }
+    }
+
+    /**
+     * HS256 key ring over the configured shared secret.
+     */
+    public static JwtKeyRing hmac(Configs configs) {
+        return new JwtKeyRing(configs, Algorithm.HS256, "", "", Duration.ofDays(1));
+    }
+
+    public Algorithm getAlgorithm() {
+        return algorithm;
+    }
+
+    public String signingKid() {
+        return snapshot.signingKid();
+    }
+
+    public JwtBuilder sign(JwtBuilder builder) {
+        if (algorithm == Algorithm.HS256) {
+            return builder.signWith(hmacKey, Jwts.SIG.HS256);
+        }
+        Snapshot current = snapshot;
+        // the algorithm (ES256 / EdDSA) follows from the key type
+        return builder.header().keyId(current.signingKid()).and()
+                .signWith((PrivateKey) current.signingKey());
+    }
+
+    /**
+     * Resolves the verification key from the token's kid header; unknown kids resolve to no key and fail.
+     */
+    public Locator<Key> locator() {
+        return new LocatorAdapter<>() {
+            @Override
+            protected Key locate(JwsHeader header) {
+                if (algorithm == Algorithm.HS256) {
+                    return header.getKeyId() == null ? hmacKey : null;
+                }
+                return header.getKeyId() == null ? null : snapshot.verificationKeys().get(header.getKeyId());
+            }
+        };
+    }
+
+    /**
+     * Public keys of the current and not yet expired retired keys, as a JWK set. Empty for HS256.
+     */
+    public Map<String, Object> jwks() {
+        return Map.of("keys", snapshot.publicJwks());
+    }
+
+    @Scheduled(fixedDelayString = "${cerebra.jwt.key-check-interval:PT1M}")
+    public void refresh() {
+        if (algorithm == Algorithm.HS256) {
+            return;
+        }
+        if (keySetPath != null) {
+            reloadKeySet();
+        } else if (!Instant.now().isBefore(snapshot.signingSince().plus(rotationPeriod))) {
+            rotate();
+        } else {
+            dropExpiredKeys();
+        }
+    }
+
+    synchronized void rotate() {
+        KeyPair keyPair = generateKeyPair();
+        PublicJwk<?> jwk = Jwks.builder().key(keyPair.getPublic()).idFromThumbprint().build();
+        Instant now = Instant.now();
+        Snapshot previous = snapshot;
+
+        Map<String, Key> verificationKeys = new LinkedHashMap<>();
+        Map<String, Instant> retiredUntil = new LinkedHashMap<>();
+        List<Map<String, Object>> publicJwks = new ArrayList<>();
+        verificationKeys.put(jwk.getId(), keyPair.getPublic());
+        publicJwks.add(new LinkedHashMap<>(jwk));
+        if (previous != null) {
+            retiredUntil.putAll(previous.retiredUntil());
+            retiredUntil.put(previous.signingKid(), now.plus(retention));
+            verificationKeys.putAll(previous.verificationKeys());
+            publicJwks.addAll(previous.publicJwks());
+        }
+        snapshot = withoutExpired(new Snapshot(jwk.getId(), keyPair.getPrivate(), now,
+                verificationKeys, retiredUntil, publicJwks), now);
+        log.info("Rotated JWT signing key to kid {}", jwk.getId());
+    }
+
+    private synchronized void dropExpiredKeys() {
+        snapshot = withoutExpired(snapshot, Instant.now());
+    }
+
+    private static Snapshot withoutExpired(Snapshot snapshot, Instant now) {
+        Map<String, Key> verificationKeys = new LinkedHashMap<>(snapshot.verificationKeys());
+        Map<String, Instant> retiredUntil = new LinkedHashMap<>(snapshot.retiredUntil());
+        retiredUntil.entrySet().removeIf(retired -> {
+            boolean expired = !now.isBefore(retired.getValue());
+            if (expired) {
+                verificationKeys.remove(retired.getKey());
+            }
+            return expired;
+        });
+        List<Map<String, Object>> publicJwks = snapshot.publicJwks().stream()
+                .filter(jwk -> verificationKeys.containsKey((String) jwk.get("kid")))
+                .toList();
+        return new Snapshot(snapshot.signingKid(), snapshot.signingKey(), snapshot.signingSince(),
+                Map.copyOf(verificationKeys), Map.copyOf(retiredUntil), publicJwks);
+    }
+
+    private synchronized void reloadKeySet() {
+        try {
+            long modified = Files.getLastModifiedTime(keySetPath).toMillis();
+            if (snapshot != null && modified == keySetModified) {
+                return;
+            }
+            String signingKid = null;
+            Key signingKey = null;
+            Map<String, Key> verificationKeys = new LinkedHashMap<>();
+            List<Map<String, Object>> publicJwks = new ArrayList<>();
+            try (Reader reader = Files.newBufferedReader(keySetPath)) {
+                for (Jwk<?> jwk : Jwks.setParser().build().parse(reader)) {
+                    PublicJwk<?> publicJwk;
+                    if (jwk instanceof PrivateJwk<?, ?, ?> privateJwk) {
+                        publicJwk = privateJwk.toPublicJwk();
+                        if (signingKey == null && (activeKid == null || activeKid.equals(jwk.getId()))) {
+                            signingKid = jwk.getId();
+                            signingKey = privateJwk.toKey();
+                        }
+                    } else if (jwk instanceof PublicJwk<?> onlyPublic) {
+                        // published so tokens signed by a retired key still verify
+                        publicJwk = onlyPublic;
+                    } else {
+                        continue;
+                    }
+                    if (jwk.getId() == null) {
+                        throw new IllegalStateException("Every key in " + keySetPath + " needs a kid");
+                    }
+                    verificationKeys.put(jwk.getId(), publicJwk.toKey());
+                    publicJwks.add(new LinkedHashMap<>(publicJwk));
+                }
+            }
+            if (signingKey == null) {
+                throw new IllegalStateException("No private signing key" + (activeKid == null ? "" : " with kid " + activeKid)
+                        + " in " + keySetPath);
+            }
+            snapshot = new Snapshot(signingKid, signingKey, Instant.now(), Map.copyOf(verificationKeys), Map.of(), publicJwks);
+            keySetModified = modified;
+            log.info("Loaded {} JWT keys from {}, signing with kid {}", verificationKeys.size(), keySetPath, signingKid);
+        } catch (IOException e) {
+            if (snapshot == null) {
+                throw new UncheckedIOException("Could not read JWT key set " + keySetPath, e);
+            }
+            log.error("Could not reload JWT key set {}, keeping the current keys", keySetPath, e);
+        }
+    }
+
+    private KeyPair generateKeyPair() {
+        try {
+            if (algorithm == Algorithm.ES256) {
+                KeyPairGenerator generator = KeyPairGenerator.getInstance("EC");
+                generator.initialize(new ECGenParameterSpec("secp256r1"));
+                return generator.generateKeyPair();
+            }
+            return KeyPairGenerator.getInstance("Ed25519").generateKeyPair();
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Could not generate " + algorithm + " key", e);
+        }
+    }
+}
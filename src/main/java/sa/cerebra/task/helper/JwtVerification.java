@@ -0,0 +1,33 @@
+package sa.cerebra.task.helper;
+
+import io.jsonwebtoken.Claims;
+
+/**
+ * Outcome of verifying an access token once: the verified claims, or why the token was rejected.
+ */
+public record JwtVerification(Status status, Claims claims) {
+
+    public enum Status {
+        VALID, EXPIRED, INVALID
+    }
+
+    public static JwtVerification valid(Claims claims) {
+        return new JwtVerification(Status.VALID, claims);
+    }
+
+    public static JwtVerification expired() {
+        return new JwtVerification(Status.EXPIRED, null);
+    }
+
+    public static JwtVerification invalid() {
+        return new JwtVerification(Status.INVALID, null);
+    }
+
+    public boolean isValid() {
+        return status == Status.VALID;
+    }
+
+    public String subject() {
+        return claims == null ? null : claims.getSubject();
+    }
+}
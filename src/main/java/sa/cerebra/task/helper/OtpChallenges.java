@@ -0,0 +1,109 @@
+package sa.cerebra.task.helper;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import sa.cerebra.task.config.Configs;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.Instant;
+import java.util.Base64;
+
+/**
+ * Signed OTP challenges for {@code cerebra.otp.mode=stateless}.
+ * <p>
+ * Login returns {@code expiresAt.nonce.mac}, where the mac is an HMAC-SHA256 over the phone, the OTP, the expiry
+ * and the nonce. validate-otp recomputes it from the submitted phone and OTP, so it needs no cache read; the
+ * OTP itself is never stored or sent back. The nonce identifies the challenge for replay tracking.
+ * The HMAC key is derived from {@code cerebra.signing-key}, separately from the access token key.
+ */
+@Component
+public class OtpChallenges {
+
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+    private static final int NONCE_BYTES = 16;
+
+    private final boolean enabled;
+    private final long expirySeconds;
+    private final Mac prototype;
+    private final ThreadLocal<Mac> mac;
+    private final SecureRandom secureRandom = new SecureRandom();
+
+    public OtpChallenges(Configs configs, OtpGenerator otpGenerator,
+                         @Value("${cerebra.otp.mode:cache}") String mode) {
+        this.enabled = "stateless".equalsIgnoreCase(mode);
+        this.expirySeconds = otpGenerator.expiryMinutes() * 60;
+        try {
+            Mac derive = Mac.getInstance("HmacSHA256");
+            derive.init(new SecretKeySpec(configs.getSigningKey().getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
+            byte[] key = derive.doFinal("otp-challenge".getBytes(StandardCharsets.UTF_8));
+            this.prototype = Mac.getInstance("HmacSHA256");
+            this.prototype.init(new SecretKeySpec(key, "HmacSHA256"));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HmacSHA256 is not available", e);
+        }
+        // Mac is not thread-safe; clone the initialized prototype once per thread
+        this.mac = ThreadLocal.withInitial(() -> {
+            try {
+                return (Mac) prototype.clone();
+            } catch (CloneNotSupportedException e) {
+                throw new IllegalStateException("HmacSHA256 cannot be cloned", e);
+            }
+        });
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public long expirySeconds() {
+        return expirySeconds;
+    }
+
+    public String issue(String phone, String otp) {
+        byte[] nonceBytes = new byte[NONCE_BYTES];
+        secureRandom.nextBytes(nonceBytes);
+        String nonce = ENCODER.encodeToString(nonceBytes);
+        long expiresAt = Instant.now().getEpochSecond() + expirySeconds;
+        return expiresAt + "." + nonce + "." + ENCODER.encodeToString(sign(phone, otp, expiresAt, nonce));
+    }
+
+    /**
+     * @return the challenge nonce if the OTP matches and the challenge has not expired, otherwise null
+     */
+    public String verify(String phone, String otp, String challenge) {
+        if (challenge == null || otp.isEmpty() || !otp.chars().allMatch(c -> c >= '0' && c <= '9')) {
+            return null;
+        }
+        String[] parts = challenge.split("\\.", -1);
+        if (parts.length != 3) {
+            return null;
+        }
+        long expiresAt;
+        byte[] submittedMac;
+        try {
+            expiresAt = Long.parseLong(parts[0]);
+            submittedMac = DECODER.decode(parts[2]);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+        if (expiresAt <= Instant.now().getEpochSecond()) {
+            return null;
+        }
+        if (!MessageDigest.isEqual(sign(phone, otp, expiresAt, parts[1]), submittedMac)) {
+            return null;
+        }
+        return parts[1];
+    }
+
+    private byte[] sign(String phone, String otp, long expiresAt, String nonce) {
+        // every field but the phone is free of the delimiter, and the phone goes last
+        String payload = expiresAt + "|" + nonce + "|" + otp + "|" + phone;
+        return mac.get().doFinal(payload.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,94 @@
+package sa.cerebra.task.helper;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.ByteBuffer;
+import java.security.SecureRandom;
+import java.util.function.Supplier;
+import java.util.random.RandomGenerator;
+
+/**
+ * Generates numeric one-time passwords of {@code cerebra.otp.length} digits, valid for
+ * {@code cerebra.otp.expiry-minutes}.
+ * <p>
+ * Each thread draws from its own buffer of {@link SecureRandom} output (or the configured source), so concurrent
+ * logins neither reseed nor contend on a shared generator. The code is a single uniform draw below 10^length, written
+ * straight into a char array, so there is no modulo bias and no per-digit append.
+ */
+@Component
+public class OtpGenerator {
+
+    private static final int MAX_LENGTH = 18;
+
+    private final int length;
+    private final long expiryMinutes;
+    private final long bound;
+    private final ThreadLocal<RandomGenerator> random;
+
+    @Autowired
+    public OtpGenerator(@Value("${cerebra.otp.length:6}") int length,
+                        @Value("${cerebra.otp.expiry-minutes:1}") long expiryMinutes) {
+        this(length, expiryMinutes, () -> new BufferedSecureRandom(SecureRandoms.drbg(), 1024));
+    }
+
+    /**
+     * @param source creates the random source of each thread; it must be cryptographically secure outside tests
+     */
+    public OtpGenerator(int length, long expiryMinutes, Supplier<? extends RandomGenerator> source) {
+        if (length < 1 || length > MAX_LENGTH) {
+            throw new IllegalArgumentException("OTP length must be between 1 and " + MAX_LENGTH + ": " + length);
+        }
+        this.length = length;
+        this.expiryMinutes = expiryMinutes;
+        long bound = 1;
+        for (int i = 0; i < length; i++) {
+            bound *= 10;
+        }
+        this.bound = bound;
+        this.random = ThreadLocal.withInitial(source::get);
+    }
+
+    /**
+     * Serves random longs from a buffer refilled with one {@link SecureRandom#nextBytes} call, so the fixed
+     * per-call cost of the secure source is paid once per 128 OTPs.
+     */
+    static final class BufferedSecureRandom implements RandomGenerator {
+        private final SecureRandom source;
+        private final ByteBuffer buffer;
+
+        BufferedSecureRandom(SecureRandom source, int bufferBytes) {
+            this.source = source;
+            this.buffer = ByteBuffer.allocate(bufferBytes);
+            this.buffer.position(bufferBytes);
+        }
+
+        @Override
+        public long nextLong() {
+            if (buffer.remaining() < Long.BYTES) {
+                source.nextBytes(buffer.array());
+                buffer.clear();
+            }
+            return buffer.getLong();
+        }
+    }
+
+    public String generate() {
+        long value = random.get().nextLong(bound);
+        char[] digits = new char[length];
+        for (int i = length - 1; i >= 0; i--) {
+            digits[i] = (char) ('0' + value % 10);
+            value /= 10;
+        }
+        return new String(digits);
+    }
+
+    public int length() {
+        return length;
+    }
+
+    public long expiryMinutes() {
+        return expiryMinutes;
+    }
+}
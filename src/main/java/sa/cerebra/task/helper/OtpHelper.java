@@ -1,20 +1,15 @@
 package sa.cerebra.task.helper;
 
-import java.util.Random;
-
 
+/**
+ * Static access to a default {@link OtpGenerator}; services should inject the configured bean instead.
+ */
 public class OtpHelper {
     private static final int OTP_LENGTH = 6;
     public static final int OTP_EXPIRY_MINUTES = 1;
+    private static final OtpGenerator DEFAULT = new OtpGenerator(OTP_LENGTH, OTP_EXPIRY_MINUTES);
 
     static public String generateRandomOtp() {
-        Random random = new Random();
-        StringBuilder sb = new StringBuilder(OTP_LENGTH);
-
-        for (int i = 0; i < OTP_LENGTH; i++) {
-            sb.append(random.nextInt(10));
-        }
-
-        return sb.toString();
+        return DEFAULT.generate();
     }
 }
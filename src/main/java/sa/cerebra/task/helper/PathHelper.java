@@ -12,6 +12,35 @@ public class PathHelper {
         return getActualPath(userStoragePath, relativeUserPath);
     }
 
+    /**
+     * Storage paths start with the owner's id.
+     *
+     * @return the owner of a storage path, or null if it does not start with an id
+     */
+    public static Long getOwnerId(String userStoragePath) {
+        int slash = userStoragePath.indexOf('/');
+        try {
+            return Long.parseLong(slash < 0 ? userStoragePath : userStoragePath.substring(0, slash));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Resolves {@code relativePath} against a shared directory. Both are normalized, so containment is a plain
+     * prefix comparison; no per-file lookup is needed.
+     *
+     * @return the storage path, or null if {@code relativePath} leaves {@code sharedPath}
+     */
+    public static String resolveWithin(String sharedPath, String relativePath) {
+        String root = Paths.get(sharedPath).normalize().toString();
+        String resolved = getActualPath(root, relativePath);
+        if (resolved.equals(root) || resolved.startsWith(root + "/")) {
+            return resolved;
+        }
+        return null;
+    }
+
     private static String getUserStoragePath(User user) {
         return user.getId().toString();
     }
@@ -0,0 +1,25 @@
+package sa.cerebra.task.helper;
+
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+
+/**
+ * Factory for the {@link SecureRandom} instances behind OTPs and share tokens.
+ */
+public final class SecureRandoms {
+
+    private SecureRandoms() {
+    }
+
+    /**
+     * DRBG keeps its state per instance; the platform default (NativePRNG on Linux) serializes every thread
+     * on one lock around /dev/urandom.
+     */
+    public static SecureRandom drbg() {
+        try {
+            return SecureRandom.getInstance("DRBG");
+        } catch (NoSuchAlgorithmException e) {
+            return new SecureRandom();
+        }
+    }
+}
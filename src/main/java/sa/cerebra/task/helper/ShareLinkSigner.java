@@ -0,0 +1,184 @@
+package sa.cerebra.task.helper;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import sa.cerebra.task.config.Configs;
+
+import javax.crypto.Cipher;
+import javax.crypto.Mac;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Self-contained share tokens for {@code cerebra.share.link-mode=signed}.
+ * <p>
+ * A token is {@code kid.body}: the body is the expiry, owner id, download limit if any and storage path sealed
+ * with AES-256-GCM under the key {@code kid}, so a download is verified locally with no cache or database lookup,
+ * and the path stays hidden from the recipient. The random GCM nonce doubles as the token id used for revocation.
+ * <p>
+ * Keys come from {@code cerebra.share.keys} ({@code kid:base64-key} pairs, comma separated) and new links are
+ * sealed with {@code cerebra.share.active-kid}; keep retired keys listed until their links expire. Without
+ * configured keys a single key is derived from {@code cerebra.signing-key}.
+ */
+@Component
+public class ShareLinkSigner {
+
+    /**
+     * {@code maxDownloads} is null for links without a download limit.
+     */
+    public record SignedShareLink(String tokenId, long ownerId, String path, Instant expiresAt, Integer maxDownloads) {
+    }
+
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+    private static final int NONCE_BYTES = 12;
+    private static final int TAG_BITS = 128;
+    // set on the expiry of tokens that carry a download limit; tokens without one read as before
+    private static final long LIMITED = Long.MIN_VALUE;
+
+    private final boolean enabled;
+    private final Map<String, SecretKey> keys;
+    private final String activeKid;
+    private final SecureRandom secureRandom = new SecureRandom();
+    private final ThreadLocal<Cipher> cipher = ThreadLocal.withInitial(() -> {
+        try {
+            return Cipher.getInstance("AES/GCM/NoPadding");
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("AES/GCM is not available", e);
+        }
+    });
+
+    public ShareLinkSigner(Configs configs,
+                           @Value("${cerebra.share.link-mode:cache}") String mode,
+                           @Value("${cerebra.share.keys:}") String keys,
+                           @Value("${cerebra.share.active-kid:}") String activeKid) {
+        this.enabled = "signed".equalsIgnoreCase(mode);
+        this.keys = keys.isBlank() ? Map.of("k0", derive(configs.getSigningKey())) : parse(keys);
+        this.activeKid = activeKid.isBlank() ? this.keys.keySet().iterator().next() : activeKid;
+        if (!this.keys.containsKey(this.activeKid)) {
+            throw new IllegalStateException("cerebra.share.active-kid " + activeKid + " is not in cerebra.share.keys");
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Tokens issued by this signer contain a '.', which random cache-mode tokens never do.
+     */
+    public static boolean isSigned(String token) {
+        return token.indexOf('.') > 0;
+    }
+
+    public String sign(long ownerId, String path, Instant expiresAt) {
+        return sign(ownerId, path, expiresAt, null);
+    }
+
+    /**
+     * @param maxDownloads download limit of the link, or null for none
+     */
+    public String sign(long ownerId, String path, Instant expiresAt, Integer maxDownloads) {
+        byte[] pathBytes = path.getBytes(StandardCharsets.UTF_8);
+        int limitBytes = maxDownloads == null ? 0 : Integer.BYTES;
+        ByteBuffer plain = ByteBuffer.allocate(2 * Long.BYTES + limitBytes + pathBytes.length)
+                .putLong(maxDownloads == null ? expiresAt.getEpochSecond() : expiresAt.getEpochSecond() | LIMITED)
+                .putLong(ownerId);
+        if (maxDownloads != null) {
+            plain.putInt(maxDownloads);
+        }
+        plain.put(pathBytes);
+        byte[] nonce = new byte[NONCE_BYTES];
+        secureRandom.nextBytes(nonce);
+        try {
+            Cipher gcm = cipher.get();
+            gcm.init(Cipher.ENCRYPT_MODE, keys.get(activeKid), new GCMParameterSpec(TAG_BITS, nonce));
+            gcm.updateAAD(activeKid.getBytes(StandardCharsets.UTF_8));
+            byte[] sealed = gcm.doFinal(plain.array());
+            byte[] body = ByteBuffer.allocate(NONCE_BYTES + sealed.length).put(nonce).put(sealed).array();
+            return activeKid + "." + ENCODER.encodeToString(body);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Could not seal share link", e);
+        }
+    }
+
+    /**
+     * @return the link, or null if the token is malformed, was not sealed by a known key, or has expired
+     */
+    public SignedShareLink verify(String token) {
+        int dot = token.indexOf('.');
+        if (dot <= 0) {
+            return null;
+        }
+        String kid = token.substring(0, dot);
+        SecretKey key = keys.get(kid);
+        if (key == null) {
+            return null;
+        }
+        byte[] body;
+        try {
+            body = DECODER.decode(token.substring(dot + 1));
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+        if (body.length < NONCE_BYTES + TAG_BITS / 8 + 2 * Long.BYTES) {
+            return null;
+        }
+        byte[] plain;
+        try {
+            Cipher gcm = cipher.get();
+            gcm.init(Cipher.DECRYPT_MODE, key, new GCMParameterSpec(TAG_BITS, body, 0, NONCE_BYTES));
+            gcm.updateAAD(kid.getBytes(StandardCharsets.UTF_8));
+            plain = gcm.doFinal(body, NONCE_BYTES, body.length - NONCE_BYTES);
+        } catch (GeneralSecurityException e) {
+            return null;
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(plain);
+        long expiry = buffer.getLong();
+        Instant expiresAt = Instant.ofEpochSecond(expiry & ~LIMITED);
+        if (!expiresAt.isAfter(Instant.now())) {
+            return null;
+        }
+        long ownerId = buffer.getLong();
+        Integer maxDownloads = (expiry & LIMITED) != 0 ? buffer.getInt() : null;
+        String path = new String(plain, buffer.position(), buffer.remaining(), StandardCharsets.UTF_8);
+        return new SignedShareLink(ENCODER.encodeToString(Arrays.copyOf(body, NONCE_BYTES)), ownerId, path, expiresAt,
+                maxDownloads);
+    }
+
+    private static SecretKey derive(String signingKey) {
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(new SecretKeySpec(signingKey.getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
+            return new SecretKeySpec(mac.doFinal("share-link".getBytes(StandardCharsets.UTF_8)), "AES");
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HmacSHA256 is not available", e);
+        }
+    }
+
+    private static Map<String, SecretKey> parse(String keys) {
+        Map<String, SecretKey> parsed = new LinkedHashMap<>();
+        for (String entry : keys.split(",")) {
+            String[] parts = entry.trim().split(":", 2);
+            if (parts.length != 2 || parts[0].isEmpty() || parts[0].contains(".")) {
+                throw new IllegalStateException("cerebra.share.keys entries must be kid:base64-key, got " + entry.trim());
+            }
+            byte[] key = Base64.getDecoder().decode(parts[1].trim());
+            if (key.length != 32) {
+                throw new IllegalStateException("Share link key " + parts[0] + " must be 32 bytes, was " + key.length);
+            }
+            parsed.put(parts[0], new SecretKeySpec(key, "AES"));
+        }
+        return parsed;
+    }
+}
@@ -0,0 +1,187 @@
+package sa.cerebra.task.helper;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.Supplier;
+
+/**
+ * Generates random share tokens of {@code cerebra.share.token.bytes} bytes of entropy, written as unpadded
+ * Base64URL or as base62 ({@code cerebra.share.token.format}).
+ * <p>
+ * Each thread draws from its own buffer of DRBG {@link SecureRandom} output, so concurrent shares neither reseed
+ * nor contend on one generator, and a single token rarely pays for a {@code nextBytes} call. Tokens are encoded
+ * straight from the buffer into a char array without an intermediate copy or encoder.
+ */
+@Component
+public class TokenGenerator {
+
+    public enum Format {
+        BASE64URL, BASE62
+    }
+
+    private static final int MIN_BYTES = 16;
+    private static final int MAX_BYTES = 256;
+    private static final int BUFFER_BYTES = 4096;
+    private static final char[] BASE64URL =
+            "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789-_".toCharArray();
+    private static final char[] BASE62 =
+            "0123456789ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz".toCharArray();
+
+    private final int bytes;
+    private final Format format;
+    private final int tokenLength;
+    private final ThreadLocal<RandomBuffer> random;
+
+    @Autowired
+    public TokenGenerator(@Value("${cerebra.share.token.bytes:32}") int bytes,
+                          @Value("${cerebra.share.token.format:base64url}") String format) {
+        this(bytes, Format.valueOf(format.trim().toUpperCase(Locale.ROOT)), SecureRandoms::drbg);
+    }
+
+    public TokenGenerator(int bytes, Format format) {
+        this(bytes, format, SecureRandoms::drbg);
+    }
+
+    /**
+     * @param source creates the random source of each thread; it must be cryptographically secure outside tests
+     */
+    public TokenGenerator(int bytes, Format format, Supplier<? extends SecureRandom> source) {
+        if (bytes < MIN_BYTES || bytes > MAX_BYTES) {
+            throw new IllegalArgumentException("Token bytes must be between " + MIN_BYTES + " and " + MAX_BYTES + ": " + bytes);
+        }
+        this.bytes = bytes;
+        this.format = format;
+        this.tokenLength = format == Format.BASE64URL
+                ? (bytes * 4 + 2) / 3
+                // enough base62 digits to carry as many bits as the raw bytes
+                : (int) Math.ceil(bytes * 8 / (Math.log(62) / Math.log(2)));
+        this.random = ThreadLocal.withInitial(() -> new RandomBuffer(source.get()));
+    }
+
+    /**
+     * Per-thread {@link SecureRandom} output, refilled {@value #BUFFER_BYTES} bytes at a time so the fixed
+     * per-call cost of the DRBG is shared by many tokens.
+     */
+    private static final class RandomBuffer {
+        final SecureRandom source;
+        final byte[] bytes = new byte[BUFFER_BYTES];
+        int position = BUFFER_BYTES;
+
+        RandomBuffer(SecureRandom source) {
+            this.source = source;
+        }
+
+        /**
+         * @return the offset of {@code length} unused bytes in {@link #bytes}
+         */
+        int take(int length) {
+            if (BUFFER_BYTES - position < length) {
+                source.nextBytes(bytes);
+                position = 0;
+            }
+            position += length;
+            return position - length;
+        }
+    }
+
+    public String generate() {
+        RandomBuffer buffer = random.get();
+        char[] token = new char[tokenLength];
+        if (format == Format.BASE64URL) {
+            encodeBase64Url(buffer.bytes, buffer.take(bytes), token);
+        } else {
+            encodeBase62(buffer, token);
+        }
+        return new String(token);
+    }
+
+    /**
+     * Generates {@code count} tokens. Batches larger than the per-thread buffer are drawn with one
+     * {@link SecureRandom#nextBytes} call of their own.
+     */
+    public List<String> generate(int count) {
+        List<String> tokens = new ArrayList<>(Math.max(count, 0));
+        if (count <= 0) {
+            return tokens;
+        }
+        RandomBuffer buffer = random.get();
+        char[] token = new char[tokenLength];
+        if (format == Format.BASE64URL && (long) bytes * count > BUFFER_BYTES) {
+            byte[] batch = new byte[bytes * count];
+            buffer.source.nextBytes(batch);
+            for (int i = 0; i < count; i++) {
+                encodeBase64Url(batch, i * bytes, token);
+                tokens.add(new String(token));
+            }
+            return tokens;
+        }
+        for (int i = 0; i < count; i++) {
+            if (format == Format.BASE64URL) {
+                encodeBase64Url(buffer.bytes, buffer.take(bytes), token);
+            } else {
+                encodeBase62(buffer, token);
+            }
+            tokens.add(new String(token));
+        }
+        return tokens;
+    }
+
+    /**
+     * {@code length} uniform base62 digits from the same per-thread buffer, whatever the configured format; for
+     * secrets that are only part of a token.
+     */
+    public String base62(int length) {
+        char[] digits = new char[length];
+        encodeBase62(random.get(), digits);
+        return new String(digits);
+    }
+
+    public int tokenLength() {
+        return tokenLength;
+    }
+
+    public Format format() {
+        return format;
+    }
+
+    /**
+     * One byte per digit, keeping its low six bits and rejecting 62 and 63 so every digit is uniform.
+     */
+    private static void encodeBase62(RandomBuffer buffer, char[] out) {
+        for (int i = 0; i < out.length; ) {
+            int digit = buffer.bytes[buffer.take(1)] & 0x3F;
+            if (digit < 62) {
+                out[i++] = BASE62[digit];
+            }
+        }
+    }
+
+    private void encodeBase64Url(byte[] source, int offset, char[] out) {
+        int end = offset + bytes;
+        int i = offset;
+        int o = 0;
+        while (end - i >= 3) {
+            int bits = (source[i++] & 0xFF) << 16 | (source[i++] & 0xFF) << 8 | (source[i++] & 0xFF);
+            out[o++] = BASE64URL[bits >>> 18];
+            out[o++] = BASE64URL[(bits >>> 12) & 0x3F];
+            out[o++] = BASE64URL[(bits >>> 6) & 0x3F];
+            out[o++] = BASE64URL[bits & 0x3F];
+        }
+        if (end - i == 1) {
+            int bits = source[i] & 0xFF;
+            out[o++] = BASE64URL[bits >>> 2];
+            out[o] = BASE64URL[(bits << 4) & 0x3F];
+        } else if (end - i == 2) {
+            int bits = (source[i] & 0xFF) << 8 | (source[i + 1] & 0xFF);
+            out[o++] = BASE64URL[bits >>> 10];
+            out[o++] = BASE64URL[(bits >>> 4) & 0x3F];
+            out[o] = BASE64URL[(bits << 2) & 0x3F];
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package sa.cerebra.task.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * One login's chain of refresh tokens. Only the hash of the newest token is kept; presenting an older one
+ * means it was stolen or replayed, and the whole family is revoked.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class RefreshTokenFamily {
+    private Long userId;
+    private String phone;
+    private String tokenHash;
+    private long expiresAt;
+}
@@ -0,0 +1,367 @@
+package sa.cerebra.task.ratelimit;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.AbstractResource;
+import org.springframework.core.io.Resource;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Shapes download streams to a node-wide rate ({@code cerebra.download.bandwidth.global}), a rate per file
+ * owner ({@code per-user}) and a rate per share link ({@code per-share-token}), in bytes per second; 0 leaves
+ * that level unlimited, and every level defaults to 0, so shaping is opt-in. Each bucket may run {@code burst}
+ * ahead of its rate before streams wait.
+ * <p>
+ * Streams reserve bandwidth a chunk at a time with one compare-and-set per bucket and then sleep until their
+ * chunk is due, so there is no lock and no per-byte accounting. A chunk is {@code quantum} times the weight of
+ * the stream's traffic class ({@code weight.file}, {@code weight.share}). Contending streams queue on the
+ * global bucket in the order they reserve, each holding one reservation at a time, so every round serves one
+ * chunk per stream: bandwidth is split in proportion to the weights, as in deficit round robin, and a lone
+ * stream still gets the whole rate.
+ * <p>
+ * Publishes {@code cerebra.download.bytes}, {@code cerebra.download.throttled} (time spent waiting),
+ * {@code cerebra.download.active} (open streams) per traffic class, and {@code cerebra.download.backlog}
+ * (seconds the global bucket is booked ahead).
+ */
+@Slf4j
+@Component
+public class DownloadBandwidth {
+
+    public enum Traffic {
+        FILE, SHARE
+    }
+
+    private final boolean enabled;
+    private final long burstNanos;
+    private final Bucket global;
+    private final long perUserRate;
+    private final long perTokenRate;
+    private final Map<Traffic, Integer> chunks = new EnumMap<>(Traffic.class);
+    private final Map<Traffic, TrafficMeters> meters = new EnumMap<>(Traffic.class);
+    private final ConcurrentHashMap<String, Bucket> users = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, Bucket> tokens = new ConcurrentHashMap<>();
+
+    @Autowired
+    public DownloadBandwidth(ObjectProvider<MeterRegistry> meterRegistry,
+                             @Value("${cerebra.download.bandwidth.enabled:true}") boolean enabled,
+                             @Value("${cerebra.download.bandwidth.global:0}") DataSize global,
+                             @Value("${cerebra.download.bandwidth.per-user:0}") DataSize perUser,
+                             @Value("${cerebra.download.bandwidth.per-share-token:0}") DataSize perShareToken,
+                             @Value("${cerebra.download.bandwidth.burst:PT0.5S}") Duration burst,
+                             @Value("${cerebra.download.bandwidth.quantum:64KB}") DataSize quantum,
+                             @Value("${cerebra.download.bandwidth.weight.file:4}") int fileWeight,
+                             @Value("${cerebra.download.bandwidth.weight.share:1}") int shareWeight) {
+        this(meterRegistry.getIfAvailable(), enabled, global.toBytes(), perUser.toBytes(), perShareToken.toBytes(),
+                burst, (int) quantum.toBytes(), fileWeight, shareWeight);
+    }
+
+    /**
+     * @param registry registry to publish to, or {@code null} to disable metrics
+     */
+    public DownloadBandwidth(MeterRegistry registry, boolean enabled, long globalRate, long perUserRate,
+                             long perTokenRate, Duration burst, int quantum, int fileWeight, int shareWeight) {
+        if (quantum < 1 || fileWeight < 1 || shareWeight < 1) {
+            throw new IllegalArgumentException("Download bandwidth quantum and weights must be positive");
+        }
+        this.enabled = enabled;
+        this.burstNanos = burst.toNanos();
+        this.global = globalRate > 0 ? new Bucket(globalRate, burstNanos) : null;
+        this.perUserRate = perUserRate;
+        this.perTokenRate = perTokenRate;
+        chunks.put(Traffic.FILE, quantum * fileWeight);
+        chunks.put(Traffic.SHARE, quantum * shareWeight);
+        for (Traffic traffic : Traffic.values()) {
+            meters.put(traffic, new TrafficMeters(registry, traffic));
+        }
+        if (registry != null && global != null) {
+            Gauge.builder("cerebra.download.backlog", global, bucket -> bucket.backlogNanos(System.nanoTime()) / 1e9)
+                    .baseUnit("seconds")
+                    .register(registry);
+        }
+    }
+
+    /**
+     * Wraps a resource so that reading it is shaped for its traffic class, owner and share token.
+     *
+     * @param owner      the user whose file is read, or null
+     * @param shareToken the share link it is read through, or null
+     */
+    public Resource throttle(Resource resource, Traffic traffic, Long owner, String shareToken) {
+        if (!enabled) {
+            return resource;
+        }
+        return new ThrottledResource(resource, traffic, owner == null ? null : owner.toString(), shareToken);
+    }
+
+    int trackedCount() {
+        return users.size() + tokens.size();
+    }
+
+    @Scheduled(fixedRate = 1, timeUnit = TimeUnit.MINUTES)
+    public void evictIdleBuckets() {
+        long now = System.nanoTime();
+        // an idle bucket without streams is refilled, so a new one behaves the same
+        users.keySet().forEach(key -> users.computeIfPresent(key, (k, bucket) -> bucket.isIdle(now) ? null : bucket));
+        tokens.keySet().forEach(key -> tokens.computeIfPresent(key, (k, bucket) -> bucket.isIdle(now) ? null : bucket));
+        log.debug("Download bandwidth tracks {} user and {} share link buckets", users.size(), tokens.size());
+    }
+
+    private Bucket attach(ConcurrentHashMap<String, Bucket> buckets, String key, long rate) {
+        // compute runs under the map's bin lock, so eviction cannot drop a bucket a stream is joining
+        return buckets.compute(key, (k, bucket) -> {
+            Bucket attached = bucket != null ? bucket : new Bucket(rate, burstNanos);
+            attached.streams.incrementAndGet();
+            return attached;
+        });
+    }
+
+    /**
+     * GCRA token bucket: {@code due} is when everything reserved so far will have been sent at {@code rate}.
+     * A reservation may start while {@code due} is at most {@code burst} ahead of now.
+     */
+    static final class Bucket {
+        private final long rate;
+        private final long burstNanos;
+        private final AtomicLong due = new AtomicLong(Long.MIN_VALUE / 2);
+        final AtomicInteger streams = new AtomicInteger();
+
+        Bucket(long rate, long burstNanos) {
+            this.rate = rate;
+            this.burstNanos = burstNanos;
+        }
+
+        /**
+         * Books {@code bytes}, which always succeeds.
+         *
+         * @return nanoseconds to wait before sending them
+         */
+        long reserve(long bytes, long now) {
+            long cost = cost(bytes);
+            while (true) {
+                long seen = due.get();
+                long start = Math.max(seen, now);
+                if (due.compareAndSet(seen, start + cost)) {
+                    return Math.max(0, start - now - burstNanos);
+                }
+            }
+        }
+
+        /**
+         * Returns bytes that were booked but not sent.
+         */
+        void refund(long bytes) {
+            due.addAndGet(-cost(bytes));
+        }
+
+        long backlogNanos(long now) {
+            return Math.max(0, due.get() - now);
+        }
+
+        boolean isIdle(long now) {
+            return streams.get() == 0 && due.get() <= now;
+        }
+
+        private long cost(long bytes) {
+            return bytes * 1_000_000_000L / rate;
+        }
+    }
+
+    private final class ThrottledResource extends AbstractResource {
+        private final Resource delegate;
+        private final Traffic traffic;
+        private final String owner;
+        private final String shareToken;
+
+        ThrottledResource(Resource delegate, Traffic traffic, String owner, String shareToken) {
+            this.delegate = delegate;
+            this.traffic = traffic;
+            this.owner = owner;
+            this.shareToken = shareToken;
+        }
+
+        @Override
+        public InputStream getInputStream() throws IOException {
+            InputStream in = delegate.getInputStream();
+            List<Bucket> buckets = new ArrayList<>(3);
+            List<Bucket> attached = new ArrayList<>(2);
+            if (global != null) {
+                buckets.add(global);
+            }
+            if (perUserRate > 0 && owner != null) {
+                attached.add(attach(users, owner, perUserRate));
+            }
+            if (perTokenRate > 0 && shareToken != null) {
+                attached.add(attach(tokens, shareToken, perTokenRate));
+            }
+            buckets.addAll(attached);
+            return new ThrottledInputStream(in, buckets.toArray(Bucket[]::new), attached, chunks.get(traffic),
+                    meters.get(traffic));
+        }
+
+        @Override
+        public boolean exists() {
+            return delegate.exists();
+        }
+
+        @Override
+        public long contentLength() throws IOException {
+            return delegate.contentLength();
+        }
+
+        @Override
+        public long lastModified() throws IOException {
+            return delegate.lastModified();
+        }
+
+        @Override
+        public String getFilename() {
+            return delegate.getFilename();
+        }
+
+        @Override
+        public String getDescription() {
+            return delegate.getDescription();
+        }
+    }
+
+    private static final class ThrottledInputStream extends FilterInputStream {
+        private final Bucket[] buckets;
+        private final List<Bucket> attached;
+        private final int chunk;
+        private final TrafficMeters meters;
+        private long credit;
+        private boolean closed;
+
+        ThrottledInputStream(InputStream in, Bucket[] buckets, List<Bucket> attached, int chunk, TrafficMeters meters) {
+            super(in);
+            this.buckets = buckets;
+            this.attached = attached;
+            this.chunk = chunk;
+            this.meters = meters;
+            // nothing to shape: one unbounded chunk
+            this.credit = buckets.length == 0 ? Long.MAX_VALUE : 0;
+            meters.active.incrementAndGet();
+        }
+
+        @Override
+        public int read() throws IOException {
+            acquire();
+            int b = super.read();
+            if (b >= 0) {
+                credit--;
+                meters.bytes(1);
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (len == 0) {
+                return 0;
+            }
+            acquire();
+            int read = super.read(b, off, (int) Math.min(len, credit));
+            if (read > 0) {
+                credit -= read;
+                meters.bytes(read);
+            }
+            return read;
+        }
+
+        /**
+         * Books the next chunk once the current one is used up, and waits until it is due.
+         */
+        private void acquire() throws InterruptedIOException {
+            if (credit > 0) {
+                return;
+            }
+            long now = System.nanoTime();
+            long wait = 0;
+            for (Bucket bucket : buckets) {
+                wait = Math.max(wait, bucket.reserve(chunk, now));
+            }
+            credit = chunk;
+            if (wait <= 0) {
+                return;
+            }
+            meters.throttled(wait);
+            long deadline = now + wait;
+            for (long remaining = wait; remaining > 0; remaining = deadline - System.nanoTime()) {
+                LockSupport.parkNanos(this, remaining);
+                if (Thread.interrupted()) {
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException("Interrupted while throttling a download");
+                }
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (!closed) {
+                closed = true;
+                if (credit > 0) {
+                    for (Bucket bucket : buckets) {
+                        bucket.refund(credit);
+                    }
+                }
+                attached.forEach(bucket -> bucket.streams.decrementAndGet());
+                meters.active.decrementAndGet();
+            }
+            super.close();
+        }
+    }
+
+    private static final class TrafficMeters {
+        final AtomicInteger active = new AtomicInteger();
+        private final Counter bytes;
+        private final Timer throttled;
+
+        TrafficMeters(MeterRegistry registry, Traffic traffic) {
+            if (registry == null) {
+                bytes = null;
+                throttled = null;
+                return;
+            }
+            String tag = traffic.name().toLowerCase(Locale.ROOT);
+            bytes = Counter.builder("cerebra.download.bytes").tag("traffic", tag).baseUnit("bytes").register(registry);
+            throttled = Timer.builder("cerebra.download.throttled").tag("traffic", tag).register(registry);
+            Gauge.builder("cerebra.download.active", active, AtomicInteger::get).tag("traffic", tag).register(registry);
+        }
+
+        void bytes(long count) {
+            if (bytes != null) {
+                bytes.increment(count);
+            }
+        }
+
+        void throttled(long nanos) {
+            if (throttled != null) {
+                throttled.record(nanos, TimeUnit.NANOSECONDS);
+            }
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package sa.cerebra.task.ratelimit;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Limits on POST /api/v1/auth/login, where every accepted request costs an OTP cache write and an SMS.
+ * The client IP and global limits are checked by RateLimitFilter before the request is read; the per-phone
+ * limit by AuthService before an OTP is generated.
+ */
+@Slf4j
+@Component
+public class LoginRateLimiter {
+
+    private final RateLimiter rateLimiter;
+    private final boolean enabled;
+    private final int phoneLimit;
+    private final Duration phoneWindow;
+    private final int ipLimit;
+    private final Duration ipWindow;
+    private final int globalLimit;
+    private final Duration globalWindow;
+
+    public LoginRateLimiter(RateLimiter rateLimiter,
+                            @Value("${cerebra.rate-limit.enabled:true}") boolean enabled,
+                            @Value("${cerebra.rate-limit.login.phone-limit:3}") int phoneLimit,
+                            @Value("${cerebra.rate-limit.login.phone-window:PT10M}") Duration phoneWindow,
+                            @Value("${cerebra.rate-limit.login.ip-limit:20}") int ipLimit,
+                            @Value("${cerebra.rate-limit.login.ip-window:PT10M}") Duration ipWindow,
+                            @Value("${cerebra.rate-limit.login.global-limit:1000}") int globalLimit,
+                            @Value("${cerebra.rate-limit.login.global-window:PT1M}") Duration globalWindow) {
+        this.rateLimiter = rateLimiter;
+        this.enabled = enabled;
+        this.phoneLimit = phoneLimit;
+        this.phoneWindow = phoneWindow;
+        this.ipLimit = ipLimit;
+        this.ipWindow = ipWindow;
+        this.globalLimit = globalLimit;
+        this.globalWindow = globalWindow;
+    }
+
+    public boolean tryAcquireForPhone(String phone) {
+        return tryAcquire("login:phone:" + phone, phoneLimit, phoneWindow);
+    }
+
+    /**
+     * Checks the client IP limit first, so a single flooding client does not use up the global budget. A request
+     * the global limit turns away is given back to the client's budget.
+     */
+    public boolean tryAcquireForClient(String ip) {
+        String ipKey = "login:ip:" + ip;
+        if (!tryAcquire(ipKey, ipLimit, ipWindow)) {
+            return false;
+        }
+        if (tryAcquire("login:global", globalLimit, globalWindow)) {
+            return true;
+        }
+        rateLimiter.release(ipKey, ipWindow);
+        return false;
+    }
+
+    public Duration phoneWindow() {
+        return phoneWindow;
+    }
+
+    public Duration clientWindow() {
+        return ipWindow.compareTo(globalWindow) > 0 ? ipWindow : globalWindow;
+    }
+
+    private boolean tryAcquire(String key, int limit, Duration window) {
+        if (!enabled) {
+            return true;
+        }
+        boolean allowed = rateLimiter.tryAcquire(key, limit, window);
+        if (!allowed) {
+            log.debug("Rate limit {} per {} reached for {}", limit, window, key);
+        }
+        return allowed;
+    }
+}
@@ -0,0 +1,25 @@
+package sa.cerebra.task.ratelimit;
+
+import java.time.Duration;
+
+/**
+ * Sliding-window rate limiter: at most {@code limit} acquisitions per key in any {@code window}.
+ * <p>
+ * The window is approximated from two fixed windows (the current one plus the previous one weighted by how
+ * much of it still overlaps), which needs two counters per key instead of a log of every request.
+ */
+public interface RateLimiter {
+
+    /**
+     * Counts one request for {@code key} if it is under the limit.
+     *
+     * @return false when the request must be rejected; rejected requests are not counted
+     */
+    boolean tryAcquire(String key, int limit, Duration window);
+
+    /**
+     * Gives back a request counted by {@link #tryAcquire} in the current window, when a later check turned the
+     * request away after all. Does nothing once the window has moved on or the key has no requests.
+     */
+    void release(String key, Duration window);
+}
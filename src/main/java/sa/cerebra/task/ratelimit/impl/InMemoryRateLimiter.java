@@ -0,0 +1,99 @@
+package sa.cerebra.task.ratelimit.impl;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Profile;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import sa.cerebra.task.ratelimit.RateLimiter;
+
+import java.time.Duration;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.LongSupplier;
+
+/**
+ * Single-node {@link RateLimiter} for the local profile. Each key's counters live in an immutable snapshot
+ * swapped with compare-and-set, so concurrent requests never block each other.
+ */
+@Slf4j
+@Profile("local")
+@Service
+public class InMemoryRateLimiter implements RateLimiter {
+
+    private record Window(long windowMillis, long index, long current, long previous) {
+    }
+
+    private final ConcurrentHashMap<String, AtomicReference<Window>> windows = new ConcurrentHashMap<>();
+    private final LongSupplier clock;
+
+    public InMemoryRateLimiter() {
+        this(System::currentTimeMillis);
+    }
+
+    InMemoryRateLimiter(LongSupplier clock) {
+        this.clock = clock;
+    }
+
+    @Override
+    public boolean tryAcquire(String key, int limit, Duration window) {
+        long windowMillis = window.toMillis();
+        long now = clock.getAsLong();
+        long index = now / windowMillis;
+        double previousWeight = (double) (windowMillis - now % windowMillis) / windowMillis;
+
+        AtomicReference<Window> ref = windows.computeIfAbsent(key,
+                k -> new AtomicReference<>(new Window(windowMillis, index, 0, 0)));
+        while (true) {
+            Window seen = ref.get();
+            Window rolled = roll(seen, index);
+            if (rolled.previous() * previousWeight + rolled.current() >= limit) {
+                return false;
+            }
+            if (ref.compareAndSet(seen, new Window(windowMillis, index, rolled.current() + 1, rolled.previous()))) {
+                return true;
+            }
+        }
+    }
+
+    @Override
+    public void release(String key, Duration window) {
+        AtomicReference<Window> ref = windows.get(key);
+        if (ref == null) {
+            return;
+        }
+        long index = clock.getAsLong() / window.toMillis();
+        while (true) {
+            Window seen = ref.get();
+            if (seen.index() != index || seen.current() == 0) {
+                return;
+            }
+            if (ref.compareAndSet(seen, new Window(seen.windowMillis(), index, seen.current() - 1, seen.previous()))) {
+                return;
+            }
+        }
+    }
+
+    private static Window roll(Window window, long index) {
+        if (window.index() == index) {
+            return window;
+        }
+        long previous = window.index() == index - 1 ? window.current() : 0;
+        return new Window(window.windowMillis(), index, 0, previous);
+    }
+
+    int size() {
+        return windows.size();
+    }
+
+    @Scheduled(fixedRate = 5, timeUnit = TimeUnit.MINUTES)
+    public void evictIdleKeys() {
+        long now = clock.getAsLong();
+        // a key whose last request is two windows old has no effect on any future decision
+        windows.values().removeIf(ref -> {
+            Window window = ref.get();
+            return now / window.windowMillis() - window.index() > 1;
+        });
+        log.debug("Rate limiter tracks {} keys", windows.size());
+    }
+}
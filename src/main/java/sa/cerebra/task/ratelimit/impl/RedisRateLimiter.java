@@ -0,0 +1,74 @@
+package sa.cerebra.task.ratelimit.impl;
+
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Service;
+import sa.cerebra.task.ratelimit.RateLimiter;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.function.LongSupplier;
+
+/**
+ * {@link RateLimiter} shared by every node through Redis. The check and the increment run in one Lua
+ * script, so one round trip per check and no race between nodes.
+ * <p>
+ * Both counters of a key carry the key as a hash tag, so they share a Redis Cluster slot.
+ */
+@Profile("default")
+@Service
+public class RedisRateLimiter implements RateLimiter {
+
+    static final RedisScript<Long> SLIDING_WINDOW = RedisScript.of("""
+            local current = tonumber(redis.call('GET', KEYS[1]) or '0')
+            local previous = tonumber(redis.call('GET', KEYS[2]) or '0')
+            local limit = tonumber(ARGV[1])
+            local window = tonumber(ARGV[2])
+            local elapsed = tonumber(ARGV[3])
+            if previous * (window - elapsed) / window + current >= limit then
+                return 0
+            end
+            redis.call('INCR', KEYS[1])
+            redis.call('PEXPIRE', KEYS[1], window * 2)
+            return 1
+            """, Long.class);
+
+    static final RedisScript<Long> RELEASE = RedisScript.of("""
+            local current = tonumber(redis.call('GET', KEYS[1]) or '0')
+            if current > 0 then
+                redis.call('DECR', KEYS[1])
+            end
+            return current
+            """, Long.class);
+
+    private final StringRedisTemplate stringRedisTemplate;
+    private final LongSupplier clock;
+
+    public RedisRateLimiter(StringRedisTemplate stringRedisTemplate) {
+        this(stringRedisTemplate, System::currentTimeMillis);
+    }
+
+    RedisRateLimiter(StringRedisTemplate stringRedisTemplate, LongSupplier clock) {
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.clock = clock;
+    }
+
+    @Override
+    public boolean tryAcquire(String key, int limit, Duration window) {
+        long windowMillis = window.toMillis();
+        long now = clock.getAsLong();
+        long index = now / windowMillis;
+        String prefix = "rate-limit:{" + key + "}:";
+        Long allowed = stringRedisTemplate.execute(SLIDING_WINDOW,
+                List.of(prefix + index, prefix + (index - 1)),
+                String.valueOf(limit), String.valueOf(windowMillis), String.valueOf(now % windowMillis));
+        return allowed != null && allowed == 1L;
+    }
+
+    @Override
+    public void release(String key, Duration window) {
+        long index = clock.getAsLong() / window.toMillis();
+        stringRedisTemplate.execute(RELEASE, List.of("rate-limit:{" + key + "}:" + index));
+    }
+}
@@ -0,0 +1,38 @@
+package sa.cerebra.task.repository;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Blocks of ids from the named sequences in {@code id_segments}. Each block is taken in a transaction of its own,
+ * so it is never handed out twice, even when the caller's transaction rolls back after taking it.
+ */
+@Repository
+public class IdSegmentRepository {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    public IdSegmentRepository(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    /**
+     * Takes the next {@code size} ids of {@code sequence}.
+     *
+     * @return the first id of the block
+     */
+    public long allocate(String sequence, int size) {
+        return transactionTemplate.execute(status -> {
+            Long next = jdbcTemplate.queryForObject("SELECT next_id FROM id_segments WHERE name = ? FOR UPDATE",
+                    Long.class, sequence);
+            jdbcTemplate.update("UPDATE id_segments SET next_id = ? WHERE name = ?", next + size, sequence);
+            return next;
+        });
+    }
+}
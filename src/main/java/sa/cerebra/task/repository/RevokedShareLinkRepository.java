@@ -0,0 +1,28 @@
+package sa.cerebra.task.repository;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+import sa.cerebra.task.entity.RevokedShareLink;
+
+import java.time.Instant;
+import java.util.List;
+
+public interface RevokedShareLinkRepository extends JpaRepository<RevokedShareLink, Long> {
+
+    /**
+     * Revocations recorded since {@code since}, paged by id ({@code afterId} is the last id of the previous page).
+     */
+    @Query("select r from RevokedShareLink r where r.revokedAt >= :since and r.id > :afterId order by r.id")
+    List<RevokedShareLink> findRevokedSince(@Param("since") Instant since, @Param("afterId") long afterId, Pageable page);
+
+    boolean existsByTokenId(String tokenId);
+
+    @Transactional
+    @Modifying
+    @Query("delete from RevokedShareLink r where r.expiresAt <= :now")
+    int deleteExpired(@Param("now") Instant now);
+}
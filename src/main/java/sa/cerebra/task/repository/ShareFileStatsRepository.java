@@ -0,0 +1,35 @@
+package sa.cerebra.task.repository;
+
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+import sa.cerebra.task.entity.ShareFileStats;
+
+import java.time.Instant;
+import java.util.Optional;
+
+public interface ShareFileStatsRepository extends JpaRepository<ShareFileStats, Long> {
+
+    Optional<ShareFileStats> findByOwnerIdAndPathHash(Long ownerId, String pathHash);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select s from ShareFileStats s where s.ownerId = :ownerId and s.pathHash = :pathHash")
+    Optional<ShareFileStats> findForUpdate(@Param("ownerId") Long ownerId, @Param("pathHash") String pathHash);
+
+    /**
+     * Adds downloads to the file's row, creating it on the first download. Nodes flushing the same file at
+     * once both land their counts.
+     */
+    @Transactional
+    @Modifying
+    @Query(value = "INSERT INTO share_file_stats (owner_id, path_hash, path, download_count, bytes_served, updated_at) "
+            + "VALUES (:ownerId, :pathHash, :path, :count, :bytes, :now) "
+            + "ON DUPLICATE KEY UPDATE download_count = download_count + :count, bytes_served = bytes_served + :bytes, "
+            + "updated_at = :now", nativeQuery = true)
+    int addDownloads(@Param("ownerId") Long ownerId, @Param("pathHash") String pathHash, @Param("path") String path,
+                     @Param("count") long count, @Param("bytes") long bytes, @Param("now") Instant now);
+}
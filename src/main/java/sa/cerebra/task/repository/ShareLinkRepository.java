@@ -0,0 +1,49 @@
+package sa.cerebra.task.repository;
+
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+import sa.cerebra.task.entity.ShareLink;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+public interface ShareLinkRepository extends JpaRepository<ShareLink, Long>, ShareLinkRepositoryCustom {
+
+    Optional<ShareLink> findByTokenHash(String tokenHash);
+
+    Optional<ShareLink> findByShortId(Long shortId);
+
+    Optional<ShareLink> findByIdAndOwnerId(Long id, Long ownerId);
+
+    List<ShareLink> findByOwnerIdAndPath(Long ownerId, String path);
+
+    /**
+     * Live links of an owner, newest first, paged by id ({@code beforeId} is the last id of the previous page).
+     * Seeks on (owner_id, id) instead of skipping rows, so every page costs the same however many links exist.
+     */
+    @Query("select l from ShareLink l where l.ownerId = :ownerId and l.id < :beforeId and l.expiresAt > :now order by l.id desc")
+    List<ShareLink> findLivePage(@Param("ownerId") Long ownerId, @Param("beforeId") long beforeId,
+                                 @Param("now") Instant now, Pageable page);
+
+    @Transactional
+    @Modifying
+    @Query("update ShareLink l set l.downloadCount = l.downloadCount + :count, l.bytesServed = l.bytesServed + :bytes "
+            + "where l.tokenHash = :tokenHash")
+    int addDownloads(@Param("tokenHash") String tokenHash, @Param("count") long count, @Param("bytes") long bytes);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select l from ShareLink l where l.tokenHash = :tokenHash")
+    Optional<ShareLink> findForUpdate(@Param("tokenHash") String tokenHash);
+
+    @Transactional
+    @Modifying
+    @Query("delete from ShareLink l where l.expiresAt <= :now")
+    int deleteExpired(@Param("now") Instant now);
+}
@@ -0,0 +1,14 @@
+package sa.cerebra.task.repository;
+
+import sa.cerebra.task.entity.ShareLink;
+
+import java.util.List;
+
+public interface ShareLinkRepositoryCustom {
+
+    /**
+     * Inserts new links as one JDBC batch, which the MySQL driver sends as a single multi-row INSERT
+     * ({@code rewriteBatchedStatements}). Ids are not read back.
+     */
+    void insertAll(List<ShareLink> links);
+}
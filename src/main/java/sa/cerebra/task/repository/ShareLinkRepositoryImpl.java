@@ -0,0 +1,33 @@
+package sa.cerebra.task.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import sa.cerebra.task.entity.ShareLink;
+
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.List;
+
+@RequiredArgsConstructor
+class ShareLinkRepositoryImpl implements ShareLinkRepositoryCustom {
+
+    private static final String INSERT = "INSERT INTO share_links "
+            + "(token_hash, revocation_id, owner_id, path, expires_at, created_at, max_downloads, short_id) "
+            + "VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public void insertAll(List<ShareLink> links) {
+        jdbcTemplate.batchUpdate(INSERT, links, links.size(), (statement, link) -> {
+            statement.setString(1, link.getTokenHash());
+            statement.setString(2, link.getRevocationId());
+            statement.setLong(3, link.getOwnerId());
+            statement.setString(4, link.getPath());
+            statement.setTimestamp(5, Timestamp.from(link.getExpiresAt()));
+            statement.setTimestamp(6, Timestamp.from(link.getCreatedAt()));
+            statement.setObject(7, link.getMaxDownloads(), Types.INTEGER);
+            statement.setObject(8, link.getShortId(), Types.BIGINT);
+        });
+    }
+}
@@ -0,0 +1,60 @@
+package sa.cerebra.task.repository;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+import sa.cerebra.task.entity.SmsOutbox;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+
+public interface SmsOutboxRepository extends JpaRepository<SmsOutbox, Long>, SmsOutboxRepositoryCustom {
+
+    @Query("select s from SmsOutbox s where s.status in :statuses and s.nextAttemptAt <= :now order by s.nextAttemptAt")
+    List<SmsOutbox> findDue(@Param("statuses") Collection<SmsOutbox.Status> statuses, @Param("now") Instant now, Pageable page);
+
+    /**
+     * Hands a due message to this node until {@code leaseUntil}. Returns 0 if another node claimed it first.
+     */
+    @Transactional
+    @Modifying
+    @Query("update SmsOutbox s set s.status = :queued, s.nextAttemptAt = :leaseUntil "
+            + "where s.id = :id and s.status in :claimable and s.nextAttemptAt <= :now")
+    int claim(@Param("id") Long id, @Param("claimable") Collection<SmsOutbox.Status> claimable,
+              @Param("queued") SmsOutbox.Status queued, @Param("now") Instant now, @Param("leaseUntil") Instant leaseUntil);
+
+    /**
+     * Also clears the message: once delivered, the OTP or share link it carries must not outlive it in the table.
+     */
+    @Transactional
+    @Modifying
+    @Query("update SmsOutbox s set s.status = :sent, s.attempts = s.attempts + 1, s.sentAt = :sentAt, s.message = '' "
+            + "where s.id in :ids")
+    int markSent(@Param("ids") Collection<Long> ids, @Param("sent") SmsOutbox.Status sent, @Param("sentAt") Instant sentAt);
+
+    @Transactional
+    @Modifying
+    @Query("update SmsOutbox s set s.status = :status, s.attempts = :attempts, s.nextAttemptAt = :nextAttemptAt, "
+            + "s.lastError = :lastError where s.id = :id")
+    int markAttemptFailed(@Param("id") Long id, @Param("status") SmsOutbox.Status status, @Param("attempts") int attempts,
+                          @Param("nextAttemptAt") Instant nextAttemptAt, @Param("lastError") String lastError);
+
+    /**
+     * Gives up on a message and clears it, like {@link #markSent}.
+     */
+    @Transactional
+    @Modifying
+    @Query("update SmsOutbox s set s.status = :failed, s.attempts = :attempts, s.lastError = :lastError, s.message = '' "
+            + "where s.id = :id")
+    int markFailed(@Param("id") Long id, @Param("failed") SmsOutbox.Status failed, @Param("attempts") int attempts,
+                   @Param("lastError") String lastError);
+
+    @Transactional
+    @Modifying
+    @Query("delete from SmsOutbox s where s.status in :finished and s.createdAt <= :before")
+    int deleteFinished(@Param("finished") Collection<SmsOutbox.Status> finished, @Param("before") Instant before);
+}
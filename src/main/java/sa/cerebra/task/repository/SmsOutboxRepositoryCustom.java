@@ -0,0 +1,14 @@
+package sa.cerebra.task.repository;
+
+import sa.cerebra.task.entity.SmsOutbox;
+
+import java.util.List;
+
+public interface SmsOutboxRepositoryCustom {
+
+    /**
+     * Inserts the messages as one JDBC batch (a single multi-row INSERT with {@code rewriteBatchedStatements})
+     * and sets their generated ids.
+     */
+    void insertAll(List<SmsOutbox> messages);
+}
@@ -0,0 +1,54 @@
+package sa.cerebra.task.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import sa.cerebra.task.entity.SmsOutbox;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.List;
+import java.util.Map;
+
+@RequiredArgsConstructor
+class SmsOutboxRepositoryImpl implements SmsOutboxRepositoryCustom {
+
+    private static final String INSERT = "INSERT INTO sms_outbox "
+            + "(phone, message, status, attempts, next_attempt_at, created_at) VALUES (?, ?, ?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public void insertAll(List<SmsOutbox> messages) {
+        if (messages.isEmpty()) {
+            return;
+        }
+        KeyHolder keys = new GeneratedKeyHolder();
+        jdbcTemplate.batchUpdate(connection -> connection.prepareStatement(INSERT, Statement.RETURN_GENERATED_KEYS),
+                new BatchPreparedStatementSetter() {
+                    @Override
+                    public void setValues(PreparedStatement statement, int i) throws SQLException {
+                        SmsOutbox sms = messages.get(i);
+                        statement.setString(1, sms.getPhone());
+                        statement.setString(2, sms.getMessage());
+                        statement.setString(3, sms.getStatus().name());
+                        statement.setInt(4, sms.getAttempts());
+                        statement.setTimestamp(5, Timestamp.from(sms.getNextAttemptAt()));
+                        statement.setTimestamp(6, Timestamp.from(sms.getCreatedAt()));
+                    }
+
+                    @Override
+                    public int getBatchSize() {
+                        return messages.size();
+                    }
+                }, keys);
+        List<Map<String, Object>> generated = keys.getKeyList();
+        for (int i = 0; i < messages.size(); i++) {
+            messages.get(i).setId(((Number) generated.get(i).values().iterator().next()).longValue());
+        }
+    }
+}
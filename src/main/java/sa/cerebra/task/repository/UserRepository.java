@@ -1,12 +1,24 @@
 package sa.cerebra.task.repository;
 
 
-import jakarta.validation.constraints.NotBlank;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 import sa.cerebra.task.entity.User;
 
 import java.util.Optional;
 
 public interface UserRepository extends JpaRepository<User, Long> {
     Optional<User> findByPhone(String phone);
+
+    /**
+     * Creates the user unless one with this phone already exists. Safe under concurrent calls for the same
+     * phone: the UNIQUE constraint turns the losing insert into a no-op instead of an error.
+     */
+    @Transactional
+    @Modifying
+    @Query(value = "INSERT INTO users (phone) VALUES (:phone) ON DUPLICATE KEY UPDATE id = id", nativeQuery = true)
+    int insertIfAbsent(@Param("phone") String phone);
 }
@@ -5,26 +5,23 @@ import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
-import sa.cerebra.task.entity.User;
 import sa.cerebra.task.repository.UserRepository;
 
-import java.util.Optional;
-
 @Service
 @RequiredArgsConstructor
 public class DefaultUserDetailsService implements UserDetailsService {
     final  UserRepository userRepository;
     @Override
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
+        // returning users: a single keyed read
         var user = userRepository.findByPhone(username);
-
-        if (user.isEmpty()) {
-            var newUser = new User();
-            newUser.setPhone(username);
-            newUser = userRepository.save(newUser);
-            user= Optional.of(newUser);
+        if (user.isPresent()) {
+            return user.get();
         }
-        return user.get();
 
+        // first login: an idempotent insert, so concurrent first logins for one phone all end up on the same row
+        userRepository.insertIfAbsent(username);
+        return userRepository.findByPhone(username)
+                .orElseThrow(() -> new UsernameNotFoundException("User could not be created for " + username));
     }
 }
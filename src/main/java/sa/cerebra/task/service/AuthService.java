@@ -5,14 +5,19 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.stereotype.Service;
 import sa.cerebra.task.cache.CacheStore;
+import sa.cerebra.task.dto.response.LoginResponse;
 import sa.cerebra.task.dto.response.TokenResponse;
 import sa.cerebra.task.entity.User;
 import sa.cerebra.task.exception.CerebraException;
 import sa.cerebra.task.exception.ErrorCode;
 import sa.cerebra.task.helper.JwtHelper;
-import sa.cerebra.task.helper.OtpHelper;
+import sa.cerebra.task.helper.OtpChallenges;
+import sa.cerebra.task.helper.OtpGenerator;
+import sa.cerebra.task.ratelimit.LoginRateLimiter;
 import sa.cerebra.task.sms.SendSms;
 
+import java.util.concurrent.CompletableFuture;
+
 @Service
 @Slf4j
 @RequiredArgsConstructor
@@ -21,29 +26,73 @@ public class AuthService {
     final UserDetailsService userDetailsService;
     final JwtHelper jwtHelper;
     final SendSms sendSms;
+    final RefreshTokenService refreshTokenService;
+    final LoginRateLimiter loginRateLimiter;
+    final OtpGenerator otpGenerator;
+    final OtpChallenges otpChallenges;
     private final String OTP_REDIS_NAME = "login-otp";
+    private final String USED_CHALLENGES_NAME = "used-otp-challenges";
 
-    public void login(String phone) {
+    /**
+     * Sends an OTP to the phone.
+     *
+     * @return in stateless OTP mode, the signed challenge the client must send back with the OTP; otherwise null
+     */
+    public LoginResponse login(String phone) {
 //        todo add validation on phone number
-        String otp = OtpHelper.generateRandomOtp();
-        cacheStore.put(OTP_REDIS_NAME, phone, otp, OtpHelper.OTP_EXPIRY_MINUTES);
+        if (!loginRateLimiter.tryAcquireForPhone(phone))
+            throw new CerebraException(ErrorCode.TOO_MANY_REQUESTS);
+        String otp = otpGenerator.generate();
+        if (otpChallenges.isEnabled()) {
+            // nothing to store: validate-otp checks the OTP against the signed challenge
+            String challenge = otpChallenges.issue(phone, otp);
+            sendSms.send(phone, otpMessage(otp));
+            return LoginResponse.builder().challenge(challenge).expiresIn(otpChallenges.expirySeconds()).build();
+        }
+        // the OTP must be stored before it is sent, or the user gets a code that can never be validated
+        cacheStore.putAsync(OTP_REDIS_NAME, phone, otp, otpGenerator.expiryMinutes()).join();
 
         log.debug("OTP generated for {}", otp);
-        String otpMsg = String.format("This is the otp %s", otp);
-        sendSms.send(phone, otpMsg);
+        sendSms.send(phone, otpMessage(otp));
+        return null;
     }
 
     public TokenResponse validate(String phone, String otp) {
-        String storedOtp = (String) cacheStore.get(OTP_REDIS_NAME, phone);
-        if (!otp.equals(storedOtp))
-            throw new CerebraException(ErrorCode.INVALID_OTP);
-        cacheStore.remove(OTP_REDIS_NAME, phone);
+        return validate(phone, otp, null);
+    }
+
+    public TokenResponse validate(String phone, String otp, String challenge) {
+        CompletableFuture<Void> removed;
+        if (otpChallenges.isEnabled()) {
+            String challengeId = otpChallenges.verify(phone, otp, challenge);
+            // kept a minute longer than any challenge lives, so a challenge cannot be replayed once its record is gone
+            if (challengeId == null
+                    || !cacheStore.putIfAbsent(USED_CHALLENGES_NAME, challengeId, true, otpGenerator.expiryMinutes() + 1))
+                throw new CerebraException(ErrorCode.INVALID_OTP);
+            removed = CompletableFuture.completedFuture(null);
+        } else {
+            String storedOtp = (String) cacheStore.get(OTP_REDIS_NAME, phone);
+            if (!otp.equals(storedOtp))
+                throw new CerebraException(ErrorCode.INVALID_OTP);
+            removed = cacheStore.removeAsync(OTP_REDIS_NAME, phone);
+        }
 
         User user = (User) userDetailsService.loadUserByUsername(phone);
-        return TokenResponse.builder()
-                .accessToken(jwtHelper.generateToken(user.getId()))
+        TokenResponse response = TokenResponse.builder()
+                .accessToken(jwtHelper.generateToken(user))
+                .refreshToken(refreshTokenService.issue(user))
                 .build();
+        removed.join();
+        return response;
+
+    }
+
+    private static String otpMessage(String otp) {
+        return String.format("This is the otp %s", otp);
+    }
 
+    public TokenResponse refresh(String refreshToken) {
+        return refreshTokenService.refresh(refreshToken);
     }
 
 }
@@ -0,0 +1,138 @@
+package sa.cerebra.task.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import sa.cerebra.task.cache.CacheStore;
+import sa.cerebra.task.dto.response.TokenResponse;
+import sa.cerebra.task.entity.User;
+import sa.cerebra.task.exception.CerebraException;
+import sa.cerebra.task.exception.ErrorCode;
+import sa.cerebra.task.helper.JwtHelper;
+import sa.cerebra.task.model.RefreshTokenFamily;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Rotating refresh tokens, so clients get new access tokens without another OTP round trip.
+ * <p>
+ * A refresh token is {@code familyId.secret}. Each use returns a new token of the same family and
+ * invalidates the old one. Reusing an already rotated token revokes the family, which logs out
+ * both the thief and the legitimate client. The family keeps the expiry of the login that started it.
+ * <p>
+ * A token is spent by an atomic {@link CacheStore#putIfAbsent} of a used-token marker, so of concurrent requests
+ * with the same token exactly one rotates the family; the others count as reuse. Revoked families are recorded,
+ * so a rotation that lost the race with its revocation cannot bring the family back.
+ */
+@Slf4j
+@Service
+public class RefreshTokenService {
+    private static final String CACHE_NAME = "refresh-tokens";
+    private static final String USED_CACHE_NAME = "used-refresh-tokens";
+    private static final String REVOKED_CACHE_NAME = "revoked-refresh-families";
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+
+    final CacheStore cacheStore;
+    final JwtHelper jwtHelper;
+    private final long refreshTokenExpirationMillis;
+    private final SecureRandom secureRandom = new SecureRandom();
+
+    public RefreshTokenService(CacheStore cacheStore, JwtHelper jwtHelper,
+                               @Value("${cerebra.auth.refresh-token-expiration-days:30}") long refreshTokenExpirationDays) {
+        this.cacheStore = cacheStore;
+        this.jwtHelper = jwtHelper;
+        this.refreshTokenExpirationMillis = TimeUnit.DAYS.toMillis(refreshTokenExpirationDays);
+    }
+
+    /**
+     * Starts a new token family for a user who just logged in and returns its first refresh token.
+     */
+    public String issue(User user) {
+        String familyId = randomToken(16);
+        String secret = randomToken(32);
+        RefreshTokenFamily family = RefreshTokenFamily.builder()
+                .userId(user.getId())
+                .phone(user.getPhone())
+                .tokenHash(hash(secret))
+                .expiresAt(System.currentTimeMillis() + refreshTokenExpirationMillis)
+                .build();
+        store(familyId, family);
+        return familyId + "." + secret;
+    }
+
+    public TokenResponse refresh(String refreshToken) {
+        int separator = refreshToken.indexOf('.');
+        if (separator <= 0 || separator == refreshToken.length() - 1) {
+            throw new CerebraException(ErrorCode.INVALID_REFRESH_TOKEN);
+        }
+        String familyId = refreshToken.substring(0, separator);
+        String secret = refreshToken.substring(separator + 1);
+
+        // both reads overlap
+        CompletableFuture<Object> revoked = cacheStore.getAsync(REVOKED_CACHE_NAME, familyId);
+        RefreshTokenFamily family = (RefreshTokenFamily) cacheStore.get(CACHE_NAME, familyId);
+        if (family == null || family.getExpiresAt() <= System.currentTimeMillis() || revoked.join() != null) {
+            throw new CerebraException(ErrorCode.INVALID_REFRESH_TOKEN);
+        }
+        String tokenHash = hash(secret);
+        if (!MessageDigest.isEqual(tokenHash.getBytes(StandardCharsets.US_ASCII),
+                family.getTokenHash().getBytes(StandardCharsets.US_ASCII))) {
+            log.warn("Rotated refresh token reused for user {}, revoking its token family", family.getUserId());
+            revoke(familyId, family);
+            throw new CerebraException(ErrorCode.INVALID_REFRESH_TOKEN);
+        }
+        if (!cacheStore.putIfAbsent(USED_CACHE_NAME, familyId + ":" + tokenHash, true, remainingMinutes(family))) {
+            log.warn("Refresh token used concurrently for user {}, revoking its token family", family.getUserId());
+            revoke(familyId, family);
+            throw new CerebraException(ErrorCode.INVALID_REFRESH_TOKEN);
+        }
+
+        String nextSecret = randomToken(32);
+        family.setTokenHash(hash(nextSecret));
+        store(familyId, family);
+
+        User user = new User();
+        user.setId(family.getUserId());
+        user.setPhone(family.getPhone());
+        return TokenResponse.builder()
+                .accessToken(jwtHelper.generateToken(user))
+                .refreshToken(familyId + "." + nextSecret)
+                .build();
+    }
+
+    private void store(String familyId, RefreshTokenFamily family) {
+        cacheStore.put(CACHE_NAME, familyId, family, remainingMinutes(family));
+    }
+
+    private void revoke(String familyId, RefreshTokenFamily family) {
+        cacheStore.put(REVOKED_CACHE_NAME, familyId, true, remainingMinutes(family));
+        cacheStore.remove(CACHE_NAME, familyId);
+    }
+
+    private static long remainingMinutes(RefreshTokenFamily family) {
+        long remainingMillis = family.getExpiresAt() - System.currentTimeMillis();
+        // rounded up, so markers outlive the family
+        return Math.max(1, TimeUnit.MILLISECONDS.toMinutes(remainingMillis + 59_999));
+    }
+
+    private String randomToken(int bytes) {
+        byte[] random = new byte[bytes];
+        secureRandom.nextBytes(random);
+        return ENCODER.encodeToString(random);
+    }
+
+    private static String hash(String secret) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(secret.getBytes(StandardCharsets.UTF_8));
+            return ENCODER.encodeToString(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
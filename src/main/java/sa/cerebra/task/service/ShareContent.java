@@ -0,0 +1,266 @@
+package sa.cerebra.task.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Service;
+import sa.cerebra.task.cache.CacheStore;
+import sa.cerebra.task.config.Configs;
+import sa.cerebra.task.exception.CerebraException;
+import sa.cerebra.task.exception.ErrorCode;
+import sa.cerebra.task.storage.StorageService;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Versions of shared files, identified by the SHA-256 of their content, for HTTP caching of share downloads.
+ * <p>
+ * The hash of each file is computed once per version (size and modification time) and kept in the
+ * {@code share-content-versions} cache; it is the strong ETag of share downloads. Hashing reads the whole file,
+ * so it runs on {@code cerebra.share.content.hash-threads} background threads: until it is done, downloads of a
+ * new version are served directly with Last-Modified only, and the request thread reads the file once. With
+ * {@code cerebra.share.content.redirect} enabled, a share token answers with a redirect to
+ * {@code /api/v1/share/content/{key}}, where the key is an HMAC of the path and content hash. That URL is the
+ * same for every recipient and never changes meaning, so a reverse proxy or CDN in front of
+ * {@code cerebra.share.content.base-url} can cache it as immutable and the origin serves each version once.
+ * The key is a capability for that version of the file: it stays valid after the share link that handed it
+ * out is revoked, as long as the file is unchanged and the key was handed out within
+ * {@code cerebra.share.content.ttl}.
+ */
+@Slf4j
+@Service
+public class ShareContent {
+
+    /**
+     * A file resolved for download, with its storage path and content hash; {@code hash} is null while the version
+     * is still being hashed. {@code contentUrl} is set when downloads redirect to the immutable content URL;
+     * {@code limited} when the link that opened the file has a download limit, so every download goes through it.
+     */
+    public record SharedFile(Resource resource, String path, String hash, Instant lastModified, String contentUrl,
+                             boolean limited) {
+        /**
+         * @return the strong ETag, or null while the hash is not known yet
+         */
+        public String etag() {
+            return hash == null ? null : "\"" + hash + "\"";
+        }
+    }
+
+    public static final String VERSIONS_CACHE = "share-content-versions";
+    public static final String KEYS_CACHE = "share-content";
+    public static final String CONTENT_PATH = "/api/v1/share/content/";
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+
+    private final CacheStore cacheStore;
+    private final StorageService storageService;
+    private final boolean redirect;
+    private final String baseUrl;
+    private final long ttlMinutes;
+    private final byte[] key;
+    private final ThreadLocal<Mac> mac = ThreadLocal.withInitial(this::newMac);
+    private final Executor hasher;
+    // versions being hashed, so concurrent downloads of a new version read it once more, not once each
+    private final Set<String> hashing = ConcurrentHashMap.newKeySet();
+
+    @Autowired
+    public ShareContent(CacheStore cacheStore, StorageService storageService, Configs configs,
+                        @Value("${cerebra.share.content.redirect:false}") boolean redirect,
+                        @Value("${cerebra.share.content.base-url:${app.base-url:http://localhost:8080}}") String baseUrl,
+                        @Value("${cerebra.share.content.ttl:P7D}") Duration ttl,
+                        @Value("${cerebra.share.content.hash-threads:2}") int hashThreads) {
+        this(cacheStore, storageService, configs, redirect, baseUrl, ttl, Executors.newFixedThreadPool(
+                Math.max(1, hashThreads), Thread.ofPlatform().daemon().name("share-content-hash-", 0).factory()));
+    }
+
+    ShareContent(CacheStore cacheStore, StorageService storageService, Configs configs, boolean redirect,
+                 String baseUrl, Duration ttl, Executor hasher) {
+        this.cacheStore = cacheStore;
+        this.storageService = storageService;
+        this.redirect = redirect;
+        this.baseUrl = baseUrl;
+        this.ttlMinutes = Math.max(1, ttl.toMinutes());
+        this.key = hmac(configs.getSigningKey().getBytes(StandardCharsets.UTF_8), "share-content");
+        this.hasher = hasher;
+    }
+
+    /**
+     * Describes the file at storage path {@code path} for a share token download. When redirects are enabled
+     * and the version is hashed, the content URL is (re)published, which keeps it resolvable for another
+     * {@code cerebra.share.content.ttl}. Never reads the file: an unknown version is hashed in the background.
+     */
+    public SharedFile describe(String path, Resource resource) {
+        return describe(path, resource, false);
+    }
+
+    /**
+     * @param limited true for links with a download limit, which get no content URL: it could be downloaded
+     *                without the token, again and again
+     */
+    public SharedFile describe(String path, Resource resource, boolean limited) {
+        long lastModified = lastModified(resource);
+        String version = version(resource, lastModified);
+        String hash = cachedHash(path, version);
+        if (hash == null) {
+            hashLater(path, resource, version);
+        }
+        String contentUrl = null;
+        if (redirect && !limited && hash != null) {
+            String contentKey = contentKey(path, hash);
+            cacheStore.putAsync(KEYS_CACHE, contentKey, path, ttlMinutes);
+            contentUrl = baseUrl + CONTENT_PATH + contentKey;
+        }
+        return new SharedFile(resource, path, hash, Instant.ofEpochMilli(lastModified), contentUrl, limited);
+    }
+
+    /**
+     * Resolves a content key handed out by {@link #describe}.
+     *
+     * @throws CerebraException SHARE_LINK_EXPIRED if the key is unknown, or the file changed since
+     */
+    public SharedFile resolve(String contentKey) {
+        Object path = cacheStore.get(KEYS_CACHE, contentKey);
+        if (path == null) {
+            throw new CerebraException(ErrorCode.SHARE_LINK_EXPIRED);
+        }
+        Resource resource;
+        try {
+            resource = storageService.getResource((String) path);
+        } catch (CerebraException e) {
+            throw new CerebraException(ErrorCode.SHARE_LINK_EXPIRED);
+        }
+        long lastModified = lastModified(resource);
+        String hash = hash((String) path, resource, lastModified);
+        if (!MessageDigest.isEqual(contentKey.getBytes(StandardCharsets.US_ASCII),
+                contentKey((String) path, hash).getBytes(StandardCharsets.US_ASCII))) {
+            // replaced since the key was handed out; the new version has another key
+            throw new CerebraException(ErrorCode.SHARE_LINK_EXPIRED);
+        }
+        return new SharedFile(resource, (String) path, hash, Instant.ofEpochMilli(lastModified), null, false);
+    }
+
+    /**
+     * Content hash of the file, computed once per size and modification time.
+     */
+    private String hash(String path, Resource resource, long lastModified) {
+        String version = version(resource, lastModified);
+        String hash = cachedHash(path, version);
+        if (hash == null) {
+            hash = digest(resource);
+            cacheStore.putAsync(VERSIONS_CACHE, path, version + hash, ttlMinutes);
+        }
+        return hash;
+    }
+
+    private String cachedHash(String path, String version) {
+        Object cached = cacheStore.get(VERSIONS_CACHE, path);
+        if (cached instanceof String entry && entry.startsWith(version)) {
+            return entry.substring(version.length());
+        }
+        return null;
+    }
+
+    /**
+     * Hashes a version of the file on a background thread, unless it is being hashed already.
+     */
+    private void hashLater(String path, Resource resource, String version) {
+        String job = path + "\n" + version;
+        if (!hashing.add(job)) {
+            return;
+        }
+        try {
+            hasher.execute(() -> {
+                try {
+                    cacheStore.put(VERSIONS_CACHE, path, version + digest(resource), ttlMinutes);
+                } catch (RuntimeException e) {
+                    log.debug("Could not hash {}, retrying with its next download", path, e);
+                } finally {
+                    hashing.remove(job);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            hashing.remove(job);
+        }
+    }
+
+    private static String version(Resource resource, long lastModified) {
+        return contentLength(resource) + ":" + lastModified + ":";
+    }
+
+    private String contentKey(String path, String hash) {
+        Mac hmac = mac.get();
+        hmac.update(path.getBytes(StandardCharsets.UTF_8));
+        hmac.update((byte) '\n');
+        return ENCODER.encodeToString(hmac.doFinal(hash.getBytes(StandardCharsets.US_ASCII)));
+    }
+
+    private static String digest(Resource resource) {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+        byte[] buffer = new byte[64 * 1024];
+        try (InputStream in = resource.getInputStream()) {
+            for (int read; (read = in.read(buffer)) != -1; ) {
+                digest.update(buffer, 0, read);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return ENCODER.encodeToString(digest.digest());
+    }
+
+    private static long lastModified(Resource resource) {
+        try {
+            return resource.lastModified();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static long contentLength(Resource resource) {
+        try {
+            return resource.contentLength();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private Mac newMac() {
+        try {
+            Mac hmac = Mac.getInstance("HmacSHA256");
+            hmac.init(new SecretKeySpec(key, "HmacSHA256"));
+            return hmac;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HmacSHA256 is not available", e);
+        }
+    }
+
+    private static byte[] hmac(byte[] key, String label) {
+        try {
+            Mac hmac = Mac.getInstance("HmacSHA256");
+            hmac.init(new SecretKeySpec(key, "HmacSHA256"));
+            return hmac.doFinal(label.getBytes(StandardCharsets.UTF_8));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HmacSHA256 is not available", e);
+        }
+    }
+}
@@ -0,0 +1,201 @@
+package sa.cerebra.task.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import sa.cerebra.task.dto.response.ShareStatsResponse;
+import sa.cerebra.task.entity.ShareFileStats;
+import sa.cerebra.task.entity.ShareLink;
+import sa.cerebra.task.exception.CerebraException;
+import sa.cerebra.task.exception.ErrorCode;
+import sa.cerebra.task.helper.HyperLogLog;
+import sa.cerebra.task.helper.PathHelper;
+import sa.cerebra.task.repository.ShareFileStatsRepository;
+import sa.cerebra.task.repository.ShareLinkRepository;
+
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Download counters per share link and per shared file: downloads, bytes served and an approximate number of
+ * distinct recipients (client addresses, counted with a {@link HyperLogLog}).
+ * <p>
+ * {@link #record} only touches in-memory LongAdders and sketches, so downloads never wait on a write. Every
+ * {@code cerebra.share.download-count-flush-interval} the counts are added to {@code share_links} and
+ * {@code share_file_stats} with one atomic update per link and file; only a changed sketch is merged under a
+ * row lock. Counts that fail to flush are kept for the next flush. Stats therefore trail downloads by up to
+ * one flush interval.
+ */
+@Slf4j
+@Service
+public class ShareDownloadStats {
+
+    static final class Counters {
+        final LongAdder downloads = new LongAdder();
+        final LongAdder bytes = new LongAdder();
+        final HyperLogLog recipients = new HyperLogLog();
+        volatile boolean recipientsChanged;
+        // only read and written by the flushing thread
+        int idleFlushes;
+
+        void record(long size, String recipient) {
+            downloads.increment();
+            bytes.add(size);
+            if (recipient != null && recipients.add(recipient)) {
+                recipientsChanged = true;
+            }
+        }
+    }
+
+    private record Pending(long downloads, long bytes, byte[] recipients) {
+    }
+
+    private final ShareLinkRepository shareLinkRepository;
+    private final ShareFileStatsRepository shareFileStatsRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final Map<String, Counters> byToken = new ConcurrentHashMap<>();
+    private final Map<String, Counters> byFile = new ConcurrentHashMap<>();
+
+    public ShareDownloadStats(ShareLinkRepository shareLinkRepository,
+                              ShareFileStatsRepository shareFileStatsRepository,
+                              PlatformTransactionManager transactionManager) {
+        this.shareLinkRepository = shareLinkRepository;
+        this.shareFileStatsRepository = shareFileStatsRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Counts one download of {@code size} bytes of the file at storage path {@code path} through {@code token}.
+     */
+    public void record(String token, String path, long size, String recipient) {
+        counters(byToken, ShareLinkRegistry.hash(token)).record(size, recipient);
+        counters(byFile, path).record(size, recipient);
+    }
+
+    public ShareStatsResponse linkStats(Long ownerId, Long shareLinkId) {
+        ShareLink link = shareLinkRepository.findByIdAndOwnerId(shareLinkId, ownerId)
+                .orElseThrow(() -> new CerebraException(ErrorCode.SHARE_LINK_EXPIRED));
+        return stats(link.getDownloadCount(), link.getBytesServed(), link.getRecipientsSketch());
+    }
+
+    public ShareStatsResponse fileStats(Long ownerId, String path) {
+        return shareFileStatsRepository.findByOwnerIdAndPathHash(ownerId, ShareLinkRegistry.hash(path))
+                .map(stats -> stats(stats.getDownloadCount(), stats.getBytesServed(), stats.getRecipientsSketch()))
+                .orElseGet(() -> stats(0, 0, null));
+    }
+
+    @Scheduled(fixedDelayString = "${cerebra.share.download-count-flush-interval:PT10S}")
+    public synchronized void flush() {
+        byToken.forEach((tokenHash, counters) -> {
+            Pending pending = drain(byToken, tokenHash, counters);
+            if (pending != null && !write(pending, counters, () -> writeLink(tokenHash, pending))) {
+                log.warn("Could not record downloads of a share link, retrying with the next flush");
+            }
+        });
+        Instant now = Instant.now();
+        byFile.forEach((path, counters) -> {
+            Pending pending = drain(byFile, path, counters);
+            if (pending != null && !write(pending, counters, () -> writeFile(path, pending, now))) {
+                log.warn("Could not record downloads of {}, retrying with the next flush", path);
+            }
+        });
+    }
+
+    /**
+     * Downloads through the link with this token hash that this node counted but has not flushed yet. Waits for a
+     * flush in progress, so its downloads are in the table by the time this returns.
+     */
+    public synchronized long unflushedDownloads(String tokenHash) {
+        Counters counters = byToken.get(tokenHash);
+        return counters == null ? 0 : counters.downloads.sum();
+    }
+
+    int trackedCount() {
+        return byToken.size() + byFile.size();
+    }
+
+    private static Counters counters(Map<String, Counters> map, String key) {
+        Counters counters = map.get(key);
+        return counters != null ? counters : map.computeIfAbsent(key, k -> new Counters());
+    }
+
+    /**
+     * Takes what was counted since the last flush, or returns null if nothing was. Entries idle for two flushes
+     * are dropped; a download that fetched the entry just before could in theory still land on it afterwards,
+     * but only if it stalled for a whole flush interval in between.
+     */
+    private static Pending drain(Map<String, Counters> map, String key, Counters counters) {
+        long downloads = counters.downloads.sumThenReset();
+        long bytes = counters.bytes.sumThenReset();
+        byte[] recipients = null;
+        if (counters.recipientsChanged) {
+            counters.recipientsChanged = false;
+            recipients = counters.recipients.toBytes();
+        }
+        if (downloads == 0 && recipients == null) {
+            if (++counters.idleFlushes >= 2) {
+                map.remove(key, counters);
+            }
+            return null;
+        }
+        counters.idleFlushes = 0;
+        return new Pending(downloads, bytes, recipients);
+    }
+
+    private boolean write(Pending pending, Counters counters, Runnable writer) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> writer.run());
+            return true;
+        } catch (RuntimeException e) {
+            log.debug("Download stats flush failed", e);
+            counters.downloads.add(pending.downloads());
+            counters.bytes.add(pending.bytes());
+            if (pending.recipients() != null) {
+                counters.recipientsChanged = true;
+            }
+            return false;
+        }
+    }
+
+    private void writeLink(String tokenHash, Pending pending) {
+        if (shareLinkRepository.addDownloads(tokenHash, pending.downloads(), pending.bytes()) == 0) {
+            // revoked, expired and purged, or shared before the registry
+            return;
+        }
+        if (pending.recipients() != null) {
+            shareLinkRepository.findForUpdate(tokenHash).ifPresent(link ->
+                    link.setRecipientsSketch(merge(link.getRecipientsSketch(), pending.recipients())));
+        }
+    }
+
+    private void writeFile(String path, Pending pending, Instant now) {
+        Long ownerId = PathHelper.getOwnerId(path);
+        if (ownerId == null) {
+            return;
+        }
+        String pathHash = ShareLinkRegistry.hash(path);
+        shareFileStatsRepository.addDownloads(ownerId, pathHash, path, pending.downloads(), pending.bytes(), now);
+        if (pending.recipients() != null) {
+            shareFileStatsRepository.findForUpdate(ownerId, pathHash).ifPresent(stats ->
+                    stats.setRecipientsSketch(merge(stats.getRecipientsSketch(), pending.recipients())));
+        }
+    }
+
+    private static byte[] merge(byte[] stored, byte[] recipients) {
+        HyperLogLog sketch = HyperLogLog.fromBytes(recipients);
+        sketch.merge(stored);
+        return sketch.toBytes();
+    }
+
+    private static ShareStatsResponse stats(long downloads, long bytes, byte[] recipients) {
+        return ShareStatsResponse.builder()
+                .downloads(downloads)
+                .bytesServed(bytes)
+                .uniqueRecipients(recipients == null ? 0 : HyperLogLog.fromBytes(recipients).estimate())
+                .build();
+    }
+}
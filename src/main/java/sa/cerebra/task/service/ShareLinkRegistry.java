@@ -0,0 +1,375 @@
+package sa.cerebra.task.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import sa.cerebra.task.cache.CacheStore;
+import sa.cerebra.task.dto.response.ShareLinkPageResponse;
+import sa.cerebra.task.dto.response.ShareLinkSummaryResponse;
+import sa.cerebra.task.entity.ShareLink;
+import sa.cerebra.task.exception.CerebraException;
+import sa.cerebra.task.exception.ErrorCode;
+import sa.cerebra.task.repository.ShareLinkRepository;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Every share link is a row in {@code share_links}, keyed by the SHA-256 of its token, so users can list and
+ * revoke their links. Cached links are resolved through the {@code share-links} cache, which is filled from the
+ * table on a miss and holds an entry for at most {@code cerebra.share.registry.cache-ttl}. Signed links are
+ * registered only for listing: downloads still verify the token without a lookup, and revoking one records it
+ * in {@link ShareRevocations}. Download counts are kept by {@link ShareDownloadStats}.
+ * <p>
+ * A link with {@code max_downloads} also has a counter of downloads left in the {@code share-link-downloads}
+ * cache, kept until the link expires. Whether a link is limited travels with it, in the signed token or the
+ * cache entry, so only limited links touch the counter. {@link #takeDownload} decrements it atomically in the
+ * store, so the limit holds for concurrent downloads on every node, and restores a lost counter from the table.
+ * <p>
+ * Short links ({@link ShortLinkIds}) are cached by id instead, as fields of the {@code share-short-links} buckets.
+ * An entry holds a prefix of the token hash, the expiry and the path; a token whose secret does not match the
+ * entry is rejected without a database lookup.
+ */
+@Slf4j
+@Service
+public class ShareLinkRegistry {
+
+    /**
+     * A link to register; {@code revocationId} is set for signed links.
+     */
+    public record NewShareLink(String token, String path, String revocationId) {
+    }
+
+    /**
+     * A live link: its storage path, and whether it has a download limit.
+     */
+    public record LiveLink(String path, boolean limited) {
+    }
+
+    public static final String CACHE_NAME = "share-links";
+    public static final String DOWNLOADS_CACHE = "share-link-downloads";
+    public static final String SHORT_CACHE_NAME = "share-short-links";
+    public static final int MAX_PAGE_SIZE = 200;
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    // 66 bits of the token hash are enough to tell a short token's secret apart, and keep bucket entries small
+    private static final int CHECK_LENGTH = 11;
+    // storage paths start with the owner id, so a cached path starting with this belongs to a limited link
+    private static final char LIMITED = '#';
+
+    private final ShareLinkRepository shareLinkRepository;
+    private final CacheStore cacheStore;
+    private final ShareRevocations shareRevocations;
+    private final ShareDownloadStats shareDownloadStats;
+    private final Duration cacheTtl;
+
+    public ShareLinkRegistry(ShareLinkRepository shareLinkRepository, CacheStore cacheStore,
+                             ShareRevocations shareRevocations, ShareDownloadStats shareDownloadStats,
+                             @Value("${cerebra.share.registry.cache-ttl:PT1H}") Duration cacheTtl) {
+        this.shareLinkRepository = shareLinkRepository;
+        this.cacheStore = cacheStore;
+        this.shareRevocations = shareRevocations;
+        this.shareDownloadStats = shareDownloadStats;
+        this.cacheTtl = cacheTtl;
+    }
+
+    /**
+     * Stores a new link. Cached links (no {@code revocationId}) are also written to the cache, which the
+     * returned future completes.
+     */
+    public CompletableFuture<Void> register(Long ownerId, String token, String path, Instant expiresAt,
+                                            String revocationId, Integer maxDownloads) {
+        ShareLink link = new ShareLink();
+        link.setTokenHash(hash(token));
+        link.setShortId(revocationId == null ? ShortLinkIds.idOf(token) : null);
+        link.setRevocationId(revocationId);
+        link.setOwnerId(ownerId);
+        link.setPath(path);
+        link.setExpiresAt(expiresAt);
+        link.setMaxDownloads(maxDownloads);
+        link.setCreatedAt(Instant.now());
+        shareLinkRepository.save(link);
+        CompletableFuture<Void> counted = maxDownloads == null ? CompletableFuture.completedFuture(null)
+                : cacheStore.putAsync(DOWNLOADS_CACHE, link.getTokenHash(), (long) maxDownloads, linkMinutes(expiresAt));
+        if (revocationId != null) {
+            return counted;
+        }
+        if (link.getShortId() != null) {
+            cacheShort(link);
+            return counted;
+        }
+        return CompletableFuture.allOf(counted,
+                cacheStore.putAsync(CACHE_NAME, link.getTokenHash(), cacheEntry(link), cacheMinutes(expiresAt)));
+    }
+
+    /**
+     * Stores many links of one owner with one batched insert, and writes the cached ones to the cache with
+     * one {@link CacheStore#putAll}.
+     */
+    public void registerAll(Long ownerId, List<NewShareLink> newLinks, Instant expiresAt, Integer maxDownloads) {
+        Instant now = Instant.now();
+        List<ShareLink> links = new ArrayList<>(newLinks.size());
+        Map<String, String> cached = new HashMap<>();
+        Map<String, Long> counters = new HashMap<>();
+        Map<String, Map<String, String>> buckets = new HashMap<>();
+        for (NewShareLink newLink : newLinks) {
+            ShareLink link = new ShareLink();
+            link.setTokenHash(hash(newLink.token()));
+            link.setShortId(newLink.revocationId() == null ? ShortLinkIds.idOf(newLink.token()) : null);
+            link.setRevocationId(newLink.revocationId());
+            link.setOwnerId(ownerId);
+            link.setPath(newLink.path());
+            link.setExpiresAt(expiresAt);
+            link.setMaxDownloads(maxDownloads);
+            link.setCreatedAt(now);
+            links.add(link);
+            if (link.getShortId() != null) {
+                buckets.computeIfAbsent(ShortLinkIds.bucketOf(link.getShortId()), bucket -> new HashMap<>())
+                        .put(ShortLinkIds.fieldOf(link.getShortId()), shortEntry(link));
+            } else if (newLink.revocationId() == null) {
+                cached.put(link.getTokenHash(), cacheEntry(link));
+            }
+            if (maxDownloads != null) {
+                counters.put(link.getTokenHash(), (long) maxDownloads);
+            }
+        }
+        shareLinkRepository.insertAll(links);
+        if (!cached.isEmpty()) {
+            cacheStore.putAll(CACHE_NAME, cached, cacheMinutes(expiresAt));
+        }
+        // ids of one batch are consecutive, so a batch fills few buckets
+        buckets.forEach((bucket, fields) -> cacheStore.putFields(SHORT_CACHE_NAME, bucket, fields, bucketMinutes()));
+        if (!counters.isEmpty()) {
+            cacheStore.putAll(DOWNLOADS_CACHE, counters, linkMinutes(expiresAt));
+        }
+    }
+
+    /**
+     * @return the live cached link, or null if the token is unknown or expired
+     */
+    public LiveLink resolve(String token) {
+        String tokenHash = hash(token);
+        Long shortId = ShortLinkIds.idOf(token);
+        Object cached = shortId == null ? cacheStore.get(CACHE_NAME, tokenHash)
+                : cacheStore.getField(SHORT_CACHE_NAME, ShortLinkIds.bucketOf(shortId), ShortLinkIds.fieldOf(shortId));
+        if (cached != null) {
+            String entry = shortId == null ? (String) cached : shortPath((String) cached, tokenHash);
+            if (entry == null) {
+                return null;
+            }
+            return entry.charAt(0) == LIMITED ? new LiveLink(entry.substring(1), true) : new LiveLink(entry, false);
+        }
+        ShareLink link = (shortId == null ? shareLinkRepository.findByTokenHash(tokenHash)
+                : shareLinkRepository.findByShortId(shortId).filter(row -> row.getTokenHash().equals(tokenHash)))
+                .filter(ShareLinkRegistry::isLive)
+                .orElse(null);
+        if (link != null && link.getRevocationId() == null) {
+            if (shortId != null) {
+                cacheShort(link);
+            } else {
+                cacheStore.put(CACHE_NAME, tokenHash, cacheEntry(link), cacheMinutes(link.getExpiresAt()));
+            }
+            return new LiveLink(link.getPath(), link.getMaxDownloads() != null);
+        }
+        return null;
+    }
+
+    /**
+     * Counts one download of a limited link against its {@code max_downloads}, with one atomic decrement in the
+     * cache. A counter lost to eviction or a restart is restored from the table first.
+     *
+     * @throws CerebraException SHARE_LINK_EXPIRED if the link has no downloads left, or is no longer registered
+     */
+    public void takeDownload(String token) {
+        String tokenHash = hash(token);
+        Long left = cacheStore.decrement(DOWNLOADS_CACHE, tokenHash);
+        if (left == null && restoreCounter(tokenHash)) {
+            left = cacheStore.decrement(DOWNLOADS_CACHE, tokenHash);
+        }
+        if (left == null || left < 0) {
+            throw new CerebraException(ErrorCode.SHARE_LINK_EXPIRED);
+        }
+    }
+
+    /**
+     * Puts back the downloads left, unless another download put them back first: the limit less the downloads in
+     * the table and those not flushed to it yet. The unflushed ones are read first, so a flush in between counts
+     * them twice rather than not at all; only this node's are known.
+     *
+     * @return false if the link is gone or has no limit
+     */
+    private boolean restoreCounter(String tokenHash) {
+        long unflushed = shareDownloadStats.unflushedDownloads(tokenHash);
+        ShareLink link = shareLinkRepository.findByTokenHash(tokenHash)
+                .filter(ShareLinkRegistry::isLive)
+                .orElse(null);
+        if (link == null || link.getMaxDownloads() == null) {
+            return false;
+        }
+        cacheStore.putIfAbsent(DOWNLOADS_CACHE, tokenHash, link.getMaxDownloads() - link.getDownloadCount() - unflushed,
+                linkMinutes(link.getExpiresAt()));
+        return true;
+    }
+
+    public ShareLinkPageResponse list(Long ownerId, Long cursor, int limit) {
+        int size = Math.min(Math.max(limit, 1), MAX_PAGE_SIZE);
+        // one extra row tells whether there is a next page
+        List<ShareLink> page = shareLinkRepository.findLivePage(ownerId, cursor == null ? Long.MAX_VALUE : cursor,
+                Instant.now(), PageRequest.of(0, size + 1));
+        boolean more = page.size() > size;
+        List<ShareLinkSummaryResponse> links = page.stream()
+                .limit(size)
+                .map(link -> ShareLinkSummaryResponse.builder()
+                        .id(link.getId())
+                        .path(relativePath(ownerId, link.getPath()))
+                        .expiresAt(link.getExpiresAt())
+                        .createdAt(link.getCreatedAt())
+                        .downloadCount(link.getDownloadCount())
+                        .maxDownloads(link.getMaxDownloads())
+                        .build())
+                .toList();
+        return ShareLinkPageResponse.builder()
+                .links(links)
+                .nextCursor(more ? links.get(links.size() - 1).getId() : null)
+                .build();
+    }
+
+    public void revoke(Long ownerId, Long id) {
+        ShareLink link = shareLinkRepository.findByIdAndOwnerId(id, ownerId)
+                .orElseThrow(() -> new CerebraException(ErrorCode.SHARE_LINK_EXPIRED));
+        end(link);
+    }
+
+    /**
+     * Revokes every link of the owner to the file at {@code path}.
+     *
+     * @return the number of links revoked
+     */
+    public int revokeByPath(Long ownerId, String path) {
+        List<ShareLink> links = shareLinkRepository.findByOwnerIdAndPath(ownerId, path);
+        links.forEach(this::end);
+        return links.size();
+    }
+
+    /**
+     * Revokes the link with this token if it is registered.
+     *
+     * @return false if the token is not in the registry, e.g. a link shared before the registry existed
+     */
+    public boolean revokeToken(Long ownerId, String token) {
+        ShareLink link = shareLinkRepository.findByTokenHash(hash(token)).orElse(null);
+        if (link == null) {
+            return false;
+        }
+        if (!link.getOwnerId().equals(ownerId)) {
+            throw new CerebraException(ErrorCode.ACCESS_DENIED);
+        }
+        end(link);
+        return true;
+    }
+
+    private void end(ShareLink link) {
+        shareLinkRepository.delete(link);
+        if (link.getRevocationId() != null) {
+            shareRevocations.revoke(link.getRevocationId(), link.getExpiresAt());
+        } else if (link.getShortId() != null) {
+            cacheStore.removeField(SHORT_CACHE_NAME, ShortLinkIds.bucketOf(link.getShortId()),
+                    ShortLinkIds.fieldOf(link.getShortId()));
+        } else {
+            cacheStore.remove(CACHE_NAME, link.getTokenHash());
+        }
+        if (link.getMaxDownloads() != null) {
+            cacheStore.remove(DOWNLOADS_CACHE, link.getTokenHash());
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${cerebra.share.registry.purge-interval:PT1H}",
+            initialDelayString = "${cerebra.share.registry.purge-interval:PT1H}")
+    public void purgeExpired() {
+        int purged = shareLinkRepository.deleteExpired(Instant.now());
+        if (purged > 0) {
+            log.info("Removed {} expired share links", purged);
+        }
+    }
+
+    public static String hash(String token) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return ENCODER.encodeToString(digest.digest(token.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private long cacheMinutes(Instant expiresAt) {
+        long remaining = Duration.between(Instant.now(), expiresAt).toSeconds();
+        long seconds = Math.min(remaining, cacheTtl.toSeconds());
+        return Math.max(1, (seconds + 59) / 60);
+    }
+
+    /**
+     * A bucket is shared by links with different expiries, each checked against its own entry.
+     */
+    private long bucketMinutes() {
+        return Math.max(1, cacheTtl.toMinutes());
+    }
+
+    private void cacheShort(ShareLink link) {
+        cacheStore.putFields(SHORT_CACHE_NAME, ShortLinkIds.bucketOf(link.getShortId()),
+                Map.of(ShortLinkIds.fieldOf(link.getShortId()), shortEntry(link)), bucketMinutes());
+    }
+
+    private static String shortEntry(ShareLink link) {
+        return link.getTokenHash().substring(0, CHECK_LENGTH) + " " + link.getExpiresAt().getEpochSecond() + " "
+                + cacheEntry(link);
+    }
+
+    /**
+     * The cached path of a link, marked if the link has a download limit.
+     */
+    private static String cacheEntry(ShareLink link) {
+        return link.getMaxDownloads() == null ? link.getPath() : LIMITED + link.getPath();
+    }
+
+    /**
+     * @return the cached path of a bucket entry, or null if the token's secret does not match it or the link expired
+     */
+    private static String shortPath(String entry, String tokenHash) {
+        int expiry = entry.indexOf(' ', CHECK_LENGTH + 1);
+        if (!MessageDigest.isEqual(entry.substring(0, CHECK_LENGTH).getBytes(StandardCharsets.US_ASCII),
+                tokenHash.substring(0, CHECK_LENGTH).getBytes(StandardCharsets.US_ASCII))) {
+            return null;
+        }
+        if (Long.parseLong(entry, CHECK_LENGTH + 1, expiry, 10) <= Instant.now().getEpochSecond()) {
+            return null;
+        }
+        return entry.substring(expiry + 1);
+    }
+
+    /**
+     * Download counters are kept for the whole life of the link.
+     */
+    private static long linkMinutes(Instant expiresAt) {
+        long seconds = Duration.between(Instant.now(), expiresAt).toSeconds();
+        return Math.max(1, (seconds + 59) / 60);
+    }
+
+    private static boolean isLive(ShareLink link) {
+        return link.getExpiresAt().isAfter(Instant.now());
+    }
+
+    private static String relativePath(Long ownerId, String path) {
+        String prefix = ownerId + "/";
+        return path.startsWith(prefix) ? path.substring(prefix.length()) : path;
+    }
+}
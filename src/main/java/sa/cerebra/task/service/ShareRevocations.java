@@ -0,0 +1,102 @@
+package sa.cerebra.task.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import sa.cerebra.task.entity.RevokedShareLink;
+import sa.cerebra.task.helper.BloomFilter;
+import sa.cerebra.task.repository.RevokedShareLinkRepository;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Revoked signed share links. Every node keeps a Bloom filter of the revoked token ids, so checking a link
+ * that was not revoked (nearly every download) costs no network hop; only a filter hit is confirmed against
+ * {@code revoked_share_links}. Nodes pick up each other's revocations every
+ * {@code cerebra.share.revocation-sync-interval}, and rebuild the filter without expired entries every
+ * {@code cerebra.share.revocation-rebuild-interval}.
+ */
+@Slf4j
+@Service
+public class ShareRevocations {
+
+    private static final int PAGE_SIZE = 1000;
+    // ids of concurrent inserts can commit out of order and node clocks drift, so each sync re-reads this much
+    private static final Duration SYNC_OVERLAP = Duration.ofMinutes(1);
+
+    private final RevokedShareLinkRepository revokedShareLinkRepository;
+    private final long expectedRevocations;
+    private final double falsePositiveRate;
+    private volatile BloomFilter filter;
+    private volatile boolean loaded;
+    private Instant lastSync = Instant.EPOCH;
+
+    public ShareRevocations(RevokedShareLinkRepository revokedShareLinkRepository,
+                            @Value("${cerebra.share.revocation-filter.expected:100000}") long expectedRevocations,
+                            @Value("${cerebra.share.revocation-filter.false-positive-rate:0.001}") double falsePositiveRate) {
+        this.revokedShareLinkRepository = revokedShareLinkRepository;
+        this.expectedRevocations = expectedRevocations;
+        this.falsePositiveRate = falsePositiveRate;
+        this.filter = BloomFilter.create(expectedRevocations, falsePositiveRate);
+    }
+
+    public boolean isRevoked(String tokenId) {
+        if (loaded && !filter.mightContain(tokenId)) {
+            return false;
+        }
+        return revokedShareLinkRepository.existsByTokenId(tokenId);
+    }
+
+    public void revoke(String tokenId, Instant expiresAt) {
+        RevokedShareLink revoked = new RevokedShareLink();
+        revoked.setTokenId(tokenId);
+        revoked.setExpiresAt(expiresAt);
+        revoked.setRevokedAt(Instant.now());
+        try {
+            revokedShareLinkRepository.save(revoked);
+        } catch (DataIntegrityViolationException e) {
+            log.debug("Share link {} was already revoked", tokenId);
+        }
+        filter.put(tokenId);
+    }
+
+    @Scheduled(fixedDelayString = "${cerebra.share.revocation-sync-interval:PT5S}")
+    public synchronized void sync() {
+        Instant start = Instant.now();
+        load(filter, lastSync.minus(SYNC_OVERLAP));
+        lastSync = start;
+        loaded = true;
+    }
+
+    @Scheduled(fixedDelayString = "${cerebra.share.revocation-rebuild-interval:PT1H}",
+            initialDelayString = "${cerebra.share.revocation-rebuild-interval:PT1H}")
+    public synchronized void rebuild() {
+        int expired = revokedShareLinkRepository.deleteExpired(Instant.now());
+        long live = revokedShareLinkRepository.count();
+        // sized with headroom so the false positive rate holds until the next rebuild
+        BloomFilter rebuilt = BloomFilter.create(Math.max(expectedRevocations, live * 2), falsePositiveRate);
+        Instant start = Instant.now();
+        load(rebuilt, Instant.EPOCH);
+        filter = rebuilt;
+        lastSync = start;
+        loaded = true;
+        log.info("Rebuilt share revocation filter: {} live, {} expired removed, {} bits", live, expired, rebuilt.bitSize());
+    }
+
+    private void load(BloomFilter target, Instant since) {
+        long afterId = 0;
+        List<RevokedShareLink> page;
+        do {
+            page = revokedShareLinkRepository.findRevokedSince(since, afterId, PageRequest.of(0, PAGE_SIZE));
+            for (RevokedShareLink revoked : page) {
+                target.put(revoked.getTokenId());
+                afterId = revoked.getId();
+            }
+        } while (page.size() == PAGE_SIZE);
+    }
+}
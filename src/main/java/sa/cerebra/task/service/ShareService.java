@@ -1,13 +1,85 @@
 package sa.cerebra.task.service;
 
-import org.springframework.core.io.Resource;
+import sa.cerebra.task.dto.request.BulkShareLinkRequest;
 import sa.cerebra.task.dto.request.CreateShareLinkRequest;
+import sa.cerebra.task.dto.response.BulkShareLinkResponse;
+import sa.cerebra.task.dto.response.ShareLinkPageResponse;
 import sa.cerebra.task.dto.response.ShareLinkResponse;
+import sa.cerebra.task.dto.response.ShareStatsResponse;
 import sa.cerebra.task.entity.User;
+import sa.cerebra.task.model.FileModel;
+import sa.cerebra.task.service.ShareContent.SharedFile;
+
+import java.util.List;
 
 public interface ShareService {
     
     ShareLinkResponse shareLink(User user, CreateShareLinkRequest request);
 
-    Resource download(String shareToken);
+    /**
+     * Creates a link per path and recipient (per path when there are no recipients) and sends each recipient
+     * one SMS with their links. Links, cache entries and SMS messages are each written as one batch.
+     */
+    BulkShareLinkResponse shareLinks(User user, BulkShareLinkRequest request);
+
+    /**
+     * Resolves a share token and describes the file for HTTP caching: its content hash, and the immutable content
+     * URL when downloads redirect there. Nothing is counted yet, see {@link #countDownload}.
+     */
+    default SharedFile open(String shareToken) {
+        return open(shareToken, null);
+    }
+
+    /**
+     * Opens the file at {@code path} under a shared directory; a null path opens the shared file itself.
+     *
+     * @throws sa.cerebra.task.exception.CerebraException ACCESS_DENIED if {@code path} leaves the shared directory
+     */
+    SharedFile open(String shareToken, String path);
+
+    /**
+     * Counts a download of a file returned by {@link #open}, against the link's download limit if it has one.
+     * Call it only when the response hands out the file, not when a conditional request is answered with 304.
+     *
+     * @param recipient identifies who downloads (the client address) for the unique recipient count, may be null
+     * @throws sa.cerebra.task.exception.CerebraException SHARE_LINK_EXPIRED if the link has no downloads left
+     */
+    void countDownload(String shareToken, SharedFile file, String recipient);
+
+    /**
+     * Lists the directory at {@code path} under a shared directory, or the shared directory itself when the path
+     * is null.
+     */
+    List<FileModel> listShared(String shareToken, String path);
+
+    /**
+     * The file behind an immutable content URL handed out by {@link #open}.
+     */
+    SharedFile openContent(String contentKey);
+
+    /**
+     * Ends a share link of the user before its expiry.
+     */
+    void revoke(User user, String shareToken);
+
+    /**
+     * Live share links of the user, newest first. Pass the previous page's {@code nextCursor} for the next page.
+     */
+    ShareLinkPageResponse list(User user, Long cursor, int limit);
+
+    void revoke(User user, Long shareLinkId);
+
+    /**
+     * Revokes every share link of the user to the file at {@code path}.
+     *
+     * @return the number of links revoked
+     */
+    int revokeByPath(User user, String path);
+
+    ShareStatsResponse linkStats(User user, Long shareLinkId);
+
+    /**
+     * Downloads of the file through any of the user's share links, past and present.
+     */
+    ShareStatsResponse fileStats(User user, String path);
 }
@@ -0,0 +1,130 @@
+package sa.cerebra.task.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import sa.cerebra.task.helper.TokenGenerator;
+import sa.cerebra.task.repository.IdSegmentRepository;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Short share tokens: a base62 id followed by a {@value #SECRET_LENGTH}-digit random base62 secret, e.g.
+ * {@code 4c92kQ7sXbP0mZ}, instead of the {@code cerebra.share.token.bytes} random bytes of a regular token.
+ * <p>
+ * Ids come from the {@code share-links} sequence in {@code id_segments}, in blocks of
+ * {@code cerebra.share.short-links.segment-size}: a node creates that many links per database round trip without
+ * coordinating with other nodes, and ids stay small and dense. The id makes the token short and locates the link;
+ * the secret (about 59 bits) keeps tokens unguessable although ids are sequential. {@link ShareLinkRegistry} caches
+ * short links by id in buckets of {@value #BUCKET_SIZE} with {@link sa.cerebra.task.cache.CacheStore#putFields},
+ * one Redis hash per bucket instead of one key per link.
+ */
+@Service
+public class ShortLinkIds {
+
+    public static final int SECRET_LENGTH = 10;
+    static final int BUCKET_SIZE = 100;
+    static final String SEQUENCE = "share-links";
+    // Long.MAX_VALUE has 11 base62 digits; generated regular tokens have at least 22 characters
+    private static final int MAX_ID_LENGTH = 11;
+    private static final String DIGITS = "0123456789ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz";
+
+    private final IdSegmentRepository idSegmentRepository;
+    private final TokenGenerator tokenGenerator;
+    private final boolean enabled;
+    private final int segmentSize;
+    private long next;
+    private long end;
+
+    public ShortLinkIds(IdSegmentRepository idSegmentRepository, TokenGenerator tokenGenerator,
+                        @Value("${cerebra.share.short-links.enabled:false}") boolean enabled,
+                        @Value("${cerebra.share.short-links.segment-size:1000}") int segmentSize) {
+        this.idSegmentRepository = idSegmentRepository;
+        this.tokenGenerator = tokenGenerator;
+        this.enabled = enabled;
+        this.segmentSize = Math.max(1, segmentSize);
+    }
+
+    /**
+     * Whether new unsigned links get short tokens. Short tokens already handed out resolve either way.
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public String newToken() {
+        return newTokens(1).get(0);
+    }
+
+    public List<String> newTokens(int count) {
+        long[] ids = nextIds(count);
+        List<String> tokens = new ArrayList<>(count);
+        for (long id : ids) {
+            tokens.add(encode(id) + tokenGenerator.base62(SECRET_LENGTH));
+        }
+        return tokens;
+    }
+
+    private synchronized long[] nextIds(int count) {
+        long[] ids = new long[count];
+        for (int i = 0; i < count; i++) {
+            if (next == end) {
+                // one block covers the rest of a large batch
+                int size = Math.max(segmentSize, count - i);
+                next = idSegmentRepository.allocate(SEQUENCE, size);
+                end = next + size;
+            }
+            ids[i] = next++;
+        }
+        return ids;
+    }
+
+    /**
+     * @return the id of a short token, or null for any other token
+     */
+    public static Long idOf(String token) {
+        int idLength = token.length() - SECRET_LENGTH;
+        if (idLength < 1 || idLength > MAX_ID_LENGTH) {
+            return null;
+        }
+        long id = 0;
+        for (int i = 0; i < token.length(); i++) {
+            int digit = DIGITS.indexOf(token.charAt(i));
+            if (digit < 0) {
+                return null;
+            }
+            if (i < idLength) {
+                if (id > (Long.MAX_VALUE - digit) / 62) {
+                    return null;
+                }
+                id = id * 62 + digit;
+            }
+        }
+        return id;
+    }
+
+    /**
+     * Cache key of the bucket holding the link with this id.
+     */
+    public static String bucketOf(long id) {
+        return Long.toString(id / BUCKET_SIZE);
+    }
+
+    /**
+     * Field of the link within its bucket.
+     */
+    public static String fieldOf(long id) {
+        return Long.toString(id % BUCKET_SIZE);
+    }
+
+    static String encode(long id) {
+        if (id == 0) {
+            return "0";
+        }
+        StringBuilder digits = new StringBuilder();
+        for (long rest = id; rest > 0; rest /= 62) {
+            digits.append(DIGITS.charAt((int) (rest % 62)));
+        }
+        return digits.reverse().toString();
+    }
+}
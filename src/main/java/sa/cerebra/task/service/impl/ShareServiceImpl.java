@@ -7,81 +7,343 @@ import org.springframework.core.io.Resource;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import sa.cerebra.task.cache.CacheStore;
+import sa.cerebra.task.dto.request.BulkShareLinkRequest;
 import sa.cerebra.task.dto.request.CreateShareLinkRequest;
+import sa.cerebra.task.dto.response.BulkShareLinkResponse;
+import sa.cerebra.task.dto.response.ShareLinkPageResponse;
 import sa.cerebra.task.dto.response.ShareLinkResponse;
+import sa.cerebra.task.dto.response.ShareStatsResponse;
 import sa.cerebra.task.entity.User;
 import sa.cerebra.task.exception.CerebraException;
 import sa.cerebra.task.exception.ErrorCode;
 import sa.cerebra.task.helper.PathHelper;
+import sa.cerebra.task.helper.ShareLinkSigner;
+import sa.cerebra.task.helper.ShareLinkSigner.SignedShareLink;
+import sa.cerebra.task.helper.TokenGenerator;
+import sa.cerebra.task.model.FileModel;
+import sa.cerebra.task.service.ShareContent;
+import sa.cerebra.task.service.ShareContent.SharedFile;
+import sa.cerebra.task.service.ShareDownloadStats;
+import sa.cerebra.task.service.ShareLinkRegistry;
+import sa.cerebra.task.service.ShareLinkRegistry.LiveLink;
+import sa.cerebra.task.service.ShareRevocations;
 import sa.cerebra.task.sms.SendSms;
+import sa.cerebra.task.sms.SmsMessage;
 import sa.cerebra.task.service.ShareService;
+import sa.cerebra.task.service.ShortLinkIds;
 import sa.cerebra.task.storage.StorageService;
 
-import java.security.SecureRandom;
-import java.util.Base64;
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class ShareServiceImpl implements ShareService {
-    
+
+    // sms_outbox.message holds 1000 characters; the rest is left for the surrounding text
+    private static final int MAX_SMS_LINKS_LENGTH = 850;
+
     private final SendSms sendSms;
     private final StorageService storageService;
     private final CacheStore cacheStore;
-    private final String cacheName = "share-links";
+    private final ShareLinkSigner shareLinkSigner;
+    private final ShareRevocations shareRevocations;
+    private final ShareLinkRegistry shareLinkRegistry;
+    private final ShareDownloadStats shareDownloadStats;
+    private final TokenGenerator tokenGenerator;
+    private final ShortLinkIds shortLinkIds;
+    private final ShareContent shareContent;
+    private final String cacheName = ShareLinkRegistry.CACHE_NAME;
 
     @Value("${app.base-url:http://localhost:8080}")
     private String baseUrl;
 
+    @Value("${cerebra.share.bulk.max-links:1000}")
+    private int maxBulkLinks;
+
     @Override
     @Transactional
     public ShareLinkResponse shareLink(User user, CreateShareLinkRequest request) {
         log.info("Creating share link for user {} and file {}", user.getUsername(), request.getPath());
         String userStoragePath = PathHelper.getUserStoragePath(user, request.getPath());
 
-        String shareToken = generateSecureToken();
-        
-
-        cacheStore.put(cacheName, shareToken, userStoragePath, request.getExpirationDays()* 24*60*60*1000);
-
+        Instant expiresAt = Instant.now().plus(Duration.ofDays(request.getExpirationDays()));
+        String shareToken;
+        String revocationId = null;
+        if (shareLinkSigner.isEnabled()) {
+            // the token carries the path itself, downloads need no lookup
+            shareToken = shareLinkSigner.sign(user.getId(), userStoragePath, expiresAt, request.getMaxDownloads());
+            revocationId = shareLinkSigner.verify(shareToken).tokenId();
+        } else {
+            shareToken = shortLinkIds.isEnabled() ? shortLinkIds.newToken() : tokenGenerator.generate();
+        }
         String downloadUrl = baseUrl + "/api/v1/share/" + shareToken;
+        boolean notify = request.getRecipientPhone() != null && !request.getRecipientPhone().trim().isEmpty();
+        if (notify) {
+            checkSmsLength(downloadUrl);
+        }
+        CompletableFuture<Void> stored = shareLinkRegistry.register(user.getId(), shareToken, userStoragePath,
+                expiresAt, revocationId, request.getMaxDownloads());
+        stored.join();
 
-        // Send SMS notification if phone number provided
-        if (request.getRecipientPhone() != null && !request.getRecipientPhone().trim().isEmpty()) {
+        // Send SMS notification if phone number provided, once the link is known to resolve
+        if (notify) {
 
             sendShareNotification(request.getRecipientPhone(), downloadUrl, request.getExpirationDays());
         }
-        
+
         return new ShareLinkResponse().setLink(downloadUrl);
     }
 
     @Override
-    public Resource download(String shareToken) {
-        Object o = cacheStore.get(cacheName, shareToken);
-        if(o == null) {
+    @Transactional
+    public BulkShareLinkResponse shareLinks(User user, BulkShareLinkRequest request) {
+        List<String> recipients = request.getRecipientPhones() == null ? List.of() : request.getRecipientPhones().stream()
+                .filter(phone -> phone != null && !phone.isBlank())
+                .distinct()
+                .toList();
+        int count = request.getPaths().size() * Math.max(1, recipients.size());
+        if (count > maxBulkLinks) {
+            throw new CerebraException(ErrorCode.BAD_REQUEST);
+        }
+        log.info("Creating {} share links for user {}", count, user.getUsername());
+
+        Instant expiresAt = Instant.now().plus(Duration.ofDays(request.getExpirationDays()));
+        boolean signed = shareLinkSigner.isEnabled();
+        List<String> tokens = signed ? null
+                : shortLinkIds.isEnabled() ? shortLinkIds.newTokens(count) : tokenGenerator.generate(count);
+        List<ShareLinkRegistry.NewShareLink> newLinks = new ArrayList<>(count);
+        List<BulkShareLinkResponse.Link> links = new ArrayList<>(count);
+        List<SmsMessage> messages = new ArrayList<>(recipients.size());
+        int i = 0;
+        for (String recipient : recipients.isEmpty() ? Collections.<String>singletonList(null) : recipients) {
+            List<String> urls = new ArrayList<>(request.getPaths().size());
+            for (String path : request.getPaths()) {
+                String userStoragePath = PathHelper.getUserStoragePath(user, path);
+                String shareToken;
+                String revocationId = null;
+                if (signed) {
+                    shareToken = shareLinkSigner.sign(user.getId(), userStoragePath, expiresAt,
+                            request.getMaxDownloads());
+                    revocationId = shareLinkSigner.verify(shareToken).tokenId();
+                } else {
+                    shareToken = tokens.get(i++);
+                }
+                newLinks.add(new ShareLinkRegistry.NewShareLink(shareToken, userStoragePath, revocationId));
+                String downloadUrl = baseUrl + "/api/v1/share/" + shareToken;
+                if (recipient != null) {
+                    checkSmsLength(downloadUrl);
+                }
+                urls.add(downloadUrl);
+                links.add(BulkShareLinkResponse.Link.builder()
+                        .path(path)
+                        .recipientPhone(recipient)
+                        .link(downloadUrl)
+                        .build());
+            }
+            if (recipient != null) {
+                for (String message : shareNotifications(urls, request.getExpirationDays())) {
+                    messages.add(new SmsMessage(recipient, message));
+                }
+            }
+        }
+
+        shareLinkRegistry.registerAll(user.getId(), newLinks, expiresAt, request.getMaxDownloads());
+        if (!messages.isEmpty()) {
+            // Stored with the links; the sender hands them to the provider once this transaction commits
+            sendSms.sendAll(messages);
+            log.info("{} SMS notifications queued for {} share links", messages.size(), count);
+        }
+        return BulkShareLinkResponse.builder().links(links).build();
+    }
+
+    @Override
+    public SharedFile open(String shareToken, String sharedPath) {
+        LiveLink link = resolve(shareToken);
+        String path = within(link.path(), sharedPath);
+        return shareContent.describe(path, storageService.getResource(path), link.limited());
+    }
+
+    @Override
+    public void countDownload(String shareToken, SharedFile file, String recipient) {
+        if (file.limited()) {
+            shareLinkRegistry.takeDownload(shareToken);
+        }
+        shareDownloadStats.record(shareToken, file.path(), sizeOf(file.resource()), recipient);
+    }
+
+    @Override
+    public List<FileModel> listShared(String shareToken, String path) {
+        return storageService.list(within(resolve(shareToken).path(), path));
+    }
+
+    @Override
+    public SharedFile openContent(String contentKey) {
+        return shareContent.resolve(contentKey);
+    }
+
+    /**
+     * @return the storage path a live share token points at, and whether the link has a download limit
+     */
+    private LiveLink resolve(String shareToken) {
+        if (ShareLinkSigner.isSigned(shareToken)) {
+            SignedShareLink link = shareLinkSigner.verify(shareToken);
+            if (link == null || shareRevocations.isRevoked(link.tokenId())) {
+                throw new CerebraException(ErrorCode.SHARE_LINK_EXPIRED);
+            }
+            return new LiveLink(link.path(), link.maxDownloads() != null);
+        }
+        // links created in cache mode keep working after switching to signed mode
+        LiveLink link = shareLinkRegistry.resolve(shareToken);
+        if (link != null) {
+            return link;
+        }
+        // links shared before the registry existed are only in the cache, under the raw token
+        Object path = cacheStore.get(cacheName, shareToken);
+        if (path == null) {
+            throw new CerebraException(ErrorCode.SHARE_LINK_EXPIRED);
+        }
+        return new LiveLink((String) path, false);
+    }
+
+    /**
+     * A link to a directory grants every file under it.
+     *
+     * @return the storage path of {@code path} under the shared path
+     */
+    private static String within(String sharedPath, String path) {
+        if (path == null || path.isEmpty()) {
+            return sharedPath;
+        }
+        String resolved = PathHelper.resolveWithin(sharedPath, path);
+        if (resolved == null) {
+            throw new CerebraException(ErrorCode.ACCESS_DENIED);
+        }
+        return resolved;
+    }
+
+    @Override
+    public void revoke(User user, String shareToken) {
+        if (shareLinkRegistry.revokeToken(user.getId(), shareToken)) {
+            return;
+        }
+        // not registered: shared before the registry existed
+        if (ShareLinkSigner.isSigned(shareToken)) {
+            SignedShareLink link = shareLinkSigner.verify(shareToken);
+            if (link == null) {
+                throw new CerebraException(ErrorCode.SHARE_LINK_EXPIRED);
+            }
+            if (link.ownerId() != user.getId()) {
+                throw new CerebraException(ErrorCode.ACCESS_DENIED);
+            }
+            shareRevocations.revoke(link.tokenId(), link.expiresAt());
+            return;
+        }
+        Object path = cacheStore.get(cacheName, shareToken);
+        if (path == null) {
             throw new CerebraException(ErrorCode.SHARE_LINK_EXPIRED);
         }
-        Resource resource = storageService.getResource((String) o);
-        return resource;
+        if (!Paths.get((String) path).getName(0).toString().equals(user.getId().toString())) {
+            throw new CerebraException(ErrorCode.ACCESS_DENIED);
+        }
+        cacheStore.remove(cacheName, shareToken);
     }
 
+    @Override
+    public ShareLinkPageResponse list(User user, Long cursor, int limit) {
+        return shareLinkRegistry.list(user.getId(), cursor, limit);
+    }
 
-    private String generateSecureToken() {
-        SecureRandom random = new SecureRandom();
-        byte[] bytes = new byte[32];
-        random.nextBytes(bytes);
-        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    @Override
+    public void revoke(User user, Long shareLinkId) {
+        shareLinkRegistry.revoke(user.getId(), shareLinkId);
     }
-    
 
-    private void sendShareNotification(String phoneNumber, String downloadUrl, Integer expirationDays) {
-            String message = String.format(
+    @Override
+    public int revokeByPath(User user, String path) {
+        return shareLinkRegistry.revokeByPath(user.getId(), PathHelper.getUserStoragePath(user, path));
+    }
+
+    @Override
+    public ShareStatsResponse linkStats(User user, Long shareLinkId) {
+        return shareDownloadStats.linkStats(user.getId(), shareLinkId);
+    }
+
+    @Override
+    public ShareStatsResponse fileStats(User user, String path) {
+        return shareDownloadStats.fileStats(user.getId(), PathHelper.getUserStoragePath(user, path));
+    }
+
+    private static long sizeOf(Resource resource) {
+        try {
+            return resource.contentLength();
+        } catch (IOException e) {
+            // the download itself reports a missing file; stats just leave out its size
+            return 0;
+        }
+    }
+
+    /**
+     * Signed tokens grow with the path. A link that does not fit one notification could not be stored in the
+     * outbox, so the request is rejected before any link is registered.
+     */
+    private static void checkSmsLength(String downloadUrl) {
+        if (downloadUrl.length() > MAX_SMS_LINKS_LENGTH) {
+            throw new CerebraException(ErrorCode.BAD_REQUEST, "Share link is too long to send by SMS");
+        }
+    }
+
+    /**
+     * Notification texts for one recipient, as few as fit the outbox message column.
+     */
+    private static List<String> shareNotifications(List<String> downloadUrls, Integer expirationDays) {
+        if (downloadUrls.size() == 1) {
+            return List.of(shareNotification(downloadUrls.get(0), expirationDays));
+        }
+        List<String> messages = new ArrayList<>();
+        List<String> chunk = new ArrayList<>();
+        int length = 0;
+        for (String url : downloadUrls) {
+            if (!chunk.isEmpty() && length + url.length() + 1 > MAX_SMS_LINKS_LENGTH) {
+                messages.add(multiLinkNotification(chunk, expirationDays));
+                chunk = new ArrayList<>();
+                length = 0;
+            }
+            chunk.add(url);
+            length += url.length() + 1;
+        }
+        messages.add(multiLinkNotification(chunk, expirationDays));
+        return messages;
+    }
+
+    private static String shareNotification(String downloadUrl, Integer expirationDays) {
+        return String.format(
                 "You have received a shared file! Download it using this link: %s\nThis link will expire in %s days.",
-                downloadUrl, expirationDays
-            );
-            
+                downloadUrl, expirationDays);
+    }
+
+    private static String multiLinkNotification(List<String> downloadUrls, Integer expirationDays) {
+        if (downloadUrls.size() == 1) {
+            return shareNotification(downloadUrls.get(0), expirationDays);
+        }
+        return String.format(
+                "You have received %d shared files! Download them using these links:\n%s\nThese links will expire in %s days.",
+                downloadUrls.size(), String.join("\n", downloadUrls), expirationDays);
+    }
+
+
+    private void sendShareNotification(String phoneNumber, String downloadUrl, Integer expirationDays) {
+            String message = shareNotification(downloadUrl, expirationDays);
+
             sendSms.send(phoneNumber, message);
-            log.info("SMS notification sent to {} for share link {}", phoneNumber, downloadUrl);
+            log.info("SMS notification queued to {} for share link {}", phoneNumber, downloadUrl);
 
     }
 }
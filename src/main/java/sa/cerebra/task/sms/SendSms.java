@@ -1,5 +1,17 @@
 package sa.cerebra.task.sms;
 
+import java.util.List;
+
+/**
+ * Sends SMS messages. Called inside a transaction, a sender hands messages to the provider only after it commits.
+ */
 public interface SendSms {
     void send(String phone, String msg);
+
+    /**
+     * Sends many messages at once; senders that store or transmit messages do so in one batch.
+     */
+    default void sendAll(List<SmsMessage> messages) {
+        messages.forEach(sms -> send(sms.phone(), sms.message()));
+    }
 }
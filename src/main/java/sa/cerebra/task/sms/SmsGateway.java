@@ -0,0 +1,20 @@
+package sa.cerebra.task.sms;
+
+import sa.cerebra.task.entity.SmsOutbox;
+
+import java.util.List;
+import java.util.Set;
+
+/**
+ * The SMS provider. Called by the outbox dispatch workers, never on the request path.
+ */
+public interface SmsGateway {
+
+    /**
+     * Sends a batch of messages in one provider call.
+     *
+     * @return ids of the messages the provider rejected; empty when all were accepted
+     * @throws RuntimeException when the whole batch failed (provider unreachable, timeout, ...)
+     */
+    Set<Long> sendBatch(List<SmsOutbox> batch);
+}
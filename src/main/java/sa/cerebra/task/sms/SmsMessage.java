@@ -0,0 +1,4 @@
+package sa.cerebra.task.sms;
+
+public record SmsMessage(String phone, String message) {
+}
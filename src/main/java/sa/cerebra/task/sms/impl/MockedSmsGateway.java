@@ -0,0 +1,24 @@
+package sa.cerebra.task.sms.impl;
+
+import lombok.extern.log4j.Log4j2;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Service;
+import sa.cerebra.task.entity.SmsOutbox;
+import sa.cerebra.task.sms.SmsGateway;
+
+import java.util.List;
+import java.util.Set;
+
+@Service
+@Log4j2
+@Profile({"default","test","local"})
+public class MockedSmsGateway implements SmsGateway {
+
+    @Override
+    public Set<Long> sendBatch(List<SmsOutbox> batch) {
+        for (SmsOutbox sms : batch) {
+            log.info("Sending SMS: {} -> to this phone {}", sms.getMessage(), sms.getPhone());
+        }
+        return Set.of();
+    }
+}
@@ -0,0 +1,259 @@
+package sa.cerebra.task.sms.impl;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import sa.cerebra.task.entity.SmsOutbox;
+import sa.cerebra.task.repository.SmsOutboxRepository;
+import sa.cerebra.task.sms.SendSms;
+import sa.cerebra.task.sms.SmsMessage;
+import sa.cerebra.task.sms.SmsGateway;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Outbox-backed {@link SendSms}: {@link #send} stores the message in {@code sms_outbox} and hands it to a
+ * bounded in-memory queue, so the caller never waits on the SMS provider.
+ * <p>
+ * Dispatch workers drain the queue in batches of up to {@code batch-size} and send each batch to the
+ * {@link SmsGateway} in one call. Rejected messages are retried with exponential backoff (with jitter) until
+ * {@code max-attempts}, then marked FAILED. The scheduled poller re-queues retries that are due, messages
+ * that did not fit in the queue, and messages whose worker died (a claim is a lease that expires), so
+ * nothing stored is lost across restarts. A message can be sent twice if a batch outlives its lease.
+ * <p>
+ * Inside a transaction, messages are queued only once it commits: a message stored by a transaction that rolls
+ * back is never sent, and neither are the links it carries.
+ * <p>
+ * Messages carry OTPs and share links, so their text is cleared once they are SENT or FAILED, and finished rows
+ * are deleted after {@code retention}.
+ */
+@Slf4j
+@Service
+public class OutboxSendSms implements SendSms, DisposableBean {
+
+    private static final Set<SmsOutbox.Status> CLAIMABLE = Set.of(SmsOutbox.Status.PENDING, SmsOutbox.Status.QUEUED);
+    private static final Set<SmsOutbox.Status> FINISHED = Set.of(SmsOutbox.Status.SENT, SmsOutbox.Status.FAILED);
+
+    private final SmsOutboxRepository smsOutboxRepository;
+    private final SmsGateway smsGateway;
+    private final BlockingQueue<SmsOutbox> queue;
+    private final ExecutorService workers;
+    private final int batchSize;
+    private final int maxAttempts;
+    private final Duration initialBackoff;
+    private final Duration maxBackoff;
+    private final Duration lease;
+    private final Duration retention;
+    private volatile boolean running = true;
+
+    public OutboxSendSms(SmsOutboxRepository smsOutboxRepository,
+                         SmsGateway smsGateway,
+                         @Value("${cerebra.sms.outbox.queue-capacity:10000}") int queueCapacity,
+                         @Value("${cerebra.sms.outbox.workers:4}") int workerCount,
+                         @Value("${cerebra.sms.outbox.batch-size:50}") int batchSize,
+                         @Value("${cerebra.sms.outbox.max-attempts:5}") int maxAttempts,
+                         @Value("${cerebra.sms.outbox.initial-backoff:PT2S}") Duration initialBackoff,
+                         @Value("${cerebra.sms.outbox.max-backoff:PT5M}") Duration maxBackoff,
+                         @Value("${cerebra.sms.outbox.lease:PT1M}") Duration lease,
+                         @Value("${cerebra.sms.outbox.retention:P7D}") Duration retention) {
+        this.smsOutboxRepository = smsOutboxRepository;
+        this.smsGateway = smsGateway;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.batchSize = batchSize;
+        this.maxAttempts = maxAttempts;
+        this.initialBackoff = initialBackoff;
+        this.maxBackoff = maxBackoff;
+        this.lease = lease;
+        this.retention = retention;
+        this.workers = Executors.newFixedThreadPool(workerCount, Thread.ofPlatform().daemon().name("sms-dispatch-", 0).factory());
+        for (int i = 0; i < workerCount; i++) {
+            workers.execute(this::dispatchLoop);
+        }
+    }
+
+    @Override
+    public void send(String phone, String msg) {
+        SmsOutbox sms = smsOutboxRepository.save(queued(phone, msg, Instant.now()));
+        afterCommit(() -> {
+            if (!queue.offer(sms)) {
+                log.warn("SMS dispatch queue is full, message {} will be sent by the outbox poller", sms.getId());
+            }
+        });
+    }
+
+    /**
+     * Stores all messages with one batched insert, then queues them.
+     */
+    @Override
+    public void sendAll(List<SmsMessage> messages) {
+        Instant now = Instant.now();
+        List<SmsOutbox> batch = new ArrayList<>(messages.size());
+        for (SmsMessage message : messages) {
+            batch.add(queued(message.phone(), message.message(), now));
+        }
+        smsOutboxRepository.insertAll(batch);
+        afterCommit(() -> {
+            int overflow = 0;
+            for (SmsOutbox sms : batch) {
+                if (!queue.offer(sms)) {
+                    overflow++;
+                }
+            }
+            if (overflow > 0) {
+                log.warn("SMS dispatch queue is full, {} of {} messages will be sent by the outbox poller", overflow,
+                        batch.size());
+            }
+        });
+    }
+
+    /**
+     * Runs {@code task} once the caller's transaction commits, or right away outside a transaction. Rows of a
+     * rolled back transaction do not exist, so nothing is left for the poller either.
+     */
+    private static void afterCommit(Runnable task) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            task.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                task.run();
+            }
+        });
+    }
+
+    private SmsOutbox queued(String phone, String msg, Instant now) {
+        SmsOutbox sms = new SmsOutbox();
+        sms.setPhone(phone);
+        sms.setMessage(msg);
+        // stored as already claimed by this node; if the queue is full the lease runs out and the poller sends it
+        sms.setStatus(SmsOutbox.Status.QUEUED);
+        sms.setNextAttemptAt(now.plus(lease));
+        sms.setCreatedAt(now);
+        return sms;
+    }
+
+    /**
+     * Queues due retries and messages whose lease expired.
+     */
+    @Scheduled(fixedDelayString = "${cerebra.sms.outbox.poll-interval:PT5S}")
+    public void enqueueDue() {
+        int capacity = queue.remainingCapacity();
+        if (capacity == 0) {
+            return;
+        }
+        Instant now = Instant.now();
+        for (SmsOutbox sms : smsOutboxRepository.findDue(CLAIMABLE, now, PageRequest.of(0, capacity))) {
+            if (smsOutboxRepository.claim(sms.getId(), CLAIMABLE, SmsOutbox.Status.QUEUED, now, now.plus(lease)) == 0) {
+                continue;
+            }
+            if (!queue.offer(sms)) {
+                return;
+            }
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${cerebra.sms.outbox.purge-interval:PT1H}",
+            initialDelayString = "${cerebra.sms.outbox.purge-interval:PT1H}")
+    public void purgeFinished() {
+        int purged = smsOutboxRepository.deleteFinished(FINISHED, Instant.now().minus(retention));
+        if (purged > 0) {
+            log.info("Removed {} finished SMS outbox rows", purged);
+        }
+    }
+
+    private void dispatchLoop() {
+        List<SmsOutbox> batch = new ArrayList<>(batchSize);
+        while (running) {
+            try {
+                SmsOutbox first = queue.poll(1, TimeUnit.SECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, batchSize - 1);
+                dispatch(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                // leave the batch to lease expiry and keep the worker alive
+                log.error("Could not record SMS dispatch result for {} messages", batch.size(), e);
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    void dispatch(List<SmsOutbox> batch) {
+        Set<Long> rejected;
+        String error;
+        try {
+            rejected = smsGateway.sendBatch(batch);
+            error = "Rejected by SMS provider";
+        } catch (RuntimeException e) {
+            log.warn("SMS batch of {} failed: {}", batch.size(), e.getMessage());
+            rejected = new HashSet<>();
+            for (SmsOutbox sms : batch) {
+                rejected.add(sms.getId());
+            }
+            error = e.getMessage();
+        }
+
+        Instant now = Instant.now();
+        List<Long> sent = new ArrayList<>(batch.size());
+        for (SmsOutbox sms : batch) {
+            if (!rejected.contains(sms.getId())) {
+                sent.add(sms.getId());
+                continue;
+            }
+            int attempts = sms.getAttempts() + 1;
+            if (attempts >= maxAttempts) {
+                smsOutboxRepository.markFailed(sms.getId(), SmsOutbox.Status.FAILED, attempts, truncate(error));
+                log.error("Giving up on SMS {} after {} attempts: {}", sms.getId(), attempts, error);
+            } else {
+                smsOutboxRepository.markAttemptFailed(sms.getId(), SmsOutbox.Status.PENDING, attempts,
+                        now.plus(backoff(attempts)), truncate(error));
+            }
+        }
+        if (!sent.isEmpty()) {
+            smsOutboxRepository.markSent(sent, SmsOutbox.Status.SENT, now);
+        }
+    }
+
+    Duration backoff(int attempts) {
+        long exponential = initialBackoff.toMillis() << Math.min(attempts - 1, 30);
+        long capped = Math.min(Math.max(exponential, 0), maxBackoff.toMillis());
+        // jitter spreads retries of one failed batch instead of retrying them together
+        return Duration.ofMillis(capped / 2 + ThreadLocalRandom.current().nextLong(capped / 2 + 1));
+    }
+
+    private static String truncate(String error) {
+        return error == null || error.length() <= 500 ? error : error.substring(0, 500);
+    }
+
+    @Override
+    public void destroy() throws InterruptedException {
+        running = false;
+        workers.shutdown();
+        // unsent queued messages keep their outbox rows and are picked up after the lease
+        workers.awaitTermination(5, TimeUnit.SECONDS);
+    }
+}
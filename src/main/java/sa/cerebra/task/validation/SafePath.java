@@ -6,7 +6,7 @@ import java.lang.annotation.*;
 
 @Documented
 @Constraint(validatedBy = SafePathValidator.class)
-@Target({ ElementType.FIELD, ElementType.PARAMETER }) // Can be used on fields or method parameters
+@Target({ ElementType.FIELD, ElementType.PARAMETER, ElementType.TYPE_USE }) // Can be used on fields, method parameters or list elements
 @Retention(RetentionPolicy.RUNTIME)
 public @interface SafePath {
 
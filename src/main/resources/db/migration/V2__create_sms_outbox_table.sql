@@ -0,0 +1,13 @@
+create table sms_outbox(
+    id bigint PRIMARY KEY AUTO_INCREMENT,
+    phone VARCHAR(50) NOT NULL,
+    message VARCHAR(1000) NOT NULL,
+    status VARCHAR(16) NOT NULL,
+    attempts int NOT NULL DEFAULT 0,
+    next_attempt_at TIMESTAMP(3) NOT NULL,
+    last_error VARCHAR(500),
+    created_at TIMESTAMP(3) NOT NULL,
+    sent_at TIMESTAMP(3) NULL
+);
+
+create index idx_sms_outbox_due on sms_outbox (status, next_attempt_at);
@@ -0,0 +1,9 @@
+create table revoked_share_links(
+    id bigint PRIMARY KEY AUTO_INCREMENT,
+    token_id VARCHAR(32) NOT NULL UNIQUE,
+    expires_at TIMESTAMP(3) NOT NULL,
+    revoked_at TIMESTAMP(3) NOT NULL
+);
+
+create index idx_revoked_share_links_revoked_at on revoked_share_links (revoked_at, id);
+create index idx_revoked_share_links_expires_at on revoked_share_links (expires_at);
@@ -0,0 +1,15 @@
+create table share_links(
+    id bigint PRIMARY KEY AUTO_INCREMENT,
+    token_hash CHAR(43) NOT NULL UNIQUE,
+    revocation_id VARCHAR(32),
+    owner_id bigint NOT NULL,
+    path VARCHAR(1024) NOT NULL,
+    expires_at TIMESTAMP(3) NOT NULL,
+    download_count bigint NOT NULL DEFAULT 0,
+    created_at TIMESTAMP(3) NOT NULL
+);
+
+-- listing walks an owner's links newest first by id
+create index idx_share_links_owner on share_links (owner_id, id);
+create index idx_share_links_owner_path on share_links (owner_id, path(255));
+create index idx_share_links_expires_at on share_links (expires_at);
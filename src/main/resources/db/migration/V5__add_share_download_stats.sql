@@ -0,0 +1,16 @@
+alter table share_links
+    add column bytes_served bigint NOT NULL DEFAULT 0,
+    add column recipients_sketch VARBINARY(1024);
+
+create table share_file_stats(
+    id bigint PRIMARY KEY AUTO_INCREMENT,
+    owner_id bigint NOT NULL,
+    path_hash CHAR(43) NOT NULL,
+    path VARCHAR(1024) NOT NULL,
+    download_count bigint NOT NULL DEFAULT 0,
+    bytes_served bigint NOT NULL DEFAULT 0,
+    recipients_sketch VARBINARY(1024),
+    updated_at TIMESTAMP(3) NOT NULL
+);
+
+create unique index uk_share_file_stats_owner_path on share_file_stats (owner_id, path_hash);
@@ -0,0 +1,3 @@
+-- null for links without a download limit; the remaining count lives in the share-link-downloads cache
+alter table share_links
+    add column max_downloads int;
@@ -0,0 +1,13 @@
+-- blocks of ids handed to each node, see IdSegmentRepository
+create table id_segments(
+    name VARCHAR(64) PRIMARY KEY,
+    next_id bigint NOT NULL
+);
+
+insert into id_segments (name, next_id) values ('share-links', 1);
+
+-- id of a short link, the leading part of its token; null for other links
+alter table share_links
+    add column short_id bigint;
+
+create unique index uk_share_links_short_id on share_links (short_id);
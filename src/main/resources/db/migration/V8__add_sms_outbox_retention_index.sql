@@ -0,0 +1,2 @@
+-- finished messages are purged by age, see OutboxSendSms.purgeFinished
+create index idx_sms_outbox_finished on sms_outbox (status, created_at);
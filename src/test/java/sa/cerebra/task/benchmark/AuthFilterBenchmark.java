@@ -0,0 +1,90 @@
+package sa.cerebra.task.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.FilterChain;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.context.SecurityContextHolder;
+import sa.cerebra.task.config.Configs;
+import sa.cerebra.task.entity.User;
+import sa.cerebra.task.filter.JwtFilter;
+import sa.cerebra.task.helper.JwtHelper;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of {@link JwtFilter} for a request carrying a bearer token.
+ * <p>
+ * {@code cacheHit} presents the same token every time, as clients do between logins, so the verified-token
+ * cache answers without any crypto. {@code cacheMiss} runs the same filter with the cache disabled, which is
+ * also the cost of the first request made with a new token.
+ * <p>
+ * See "Running Benchmarks" in the readme.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+public class AuthFilterBenchmark {
+
+    private static final FilterChain NOOP_CHAIN = (request, response) -> { };
+
+    private JwtFilter cachingFilter;
+    private JwtFilter uncachedFilter;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        Configs configs = new Configs();
+        JwtHelper cachingHelper = new JwtHelper(configs, 10_000);
+        // principal comes from the token claims, so the filter never touches the repository
+        cachingFilter = new JwtFilter(cachingHelper, null, new ObjectMapper());
+        uncachedFilter = new JwtFilter(new JwtHelper(configs, 0), null, new ObjectMapper());
+
+        User user = new User();
+        user.setId(42L);
+        user.setPhone("+966500000000");
+        token = cachingHelper.generateToken(user);
+    }
+
+    @State(Scope.Thread)
+    public static class Exchange {
+        MockHttpServletRequest request;
+        MockHttpServletResponse response;
+
+        @Setup(Level.Invocation)
+        public void setUp(AuthFilterBenchmark benchmark) {
+            request = new MockHttpServletRequest();
+            request.addHeader("Authorization", "Bearer " + benchmark.token);
+            response = new MockHttpServletResponse();
+            SecurityContextHolder.clearContext();
+        }
+    }
+
+    @Benchmark
+    public Object cacheHit(Exchange exchange) throws Exception {
+        cachingFilter.doFilter(exchange.request, exchange.response, NOOP_CHAIN);
+        return SecurityContextHolder.getContext().getAuthentication();
+    }
+
+    @Benchmark
+    public Object cacheMiss(Exchange exchange) throws Exception {
+        uncachedFilter.doFilter(exchange.request, exchange.response, NOOP_CHAIN);
+        return SecurityContextHolder.getContext().getAuthentication();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(AuthFilterBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,88 @@
+package sa.cerebra.task.benchmark;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import sa.cerebra.task.cache.CacheMetrics;
+import sa.cerebra.task.cache.impl.map.InMemoryCacheStore;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Get throughput of {@link InMemoryCacheStore}.
+ * <p>
+ * {@code legacyStdoutGet} reproduces the per-operation {@code System.out.println} the store used to do
+ * (against a discarding stream, so it under-reports the real terminal cost). {@code noopMetricsGet} and
+ * {@code instrumentedGet} are the current store with metrics disabled and enabled.
+ * <p>
+ * See "Running Benchmarks" in the readme.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+public class CacheStoreBenchmark {
+
+    private static final String CACHE_NAME = "share-links";
+    private static final int KEYS = 1024;
+
+    private InMemoryCacheStore noopStore;
+    private InMemoryCacheStore instrumentedStore;
+    private PrintStream legacyOut;
+    private String[] keys;
+
+    @Setup
+    public void setUp() {
+        noopStore = new InMemoryCacheStore(CacheMetrics.noop());
+        instrumentedStore = new InMemoryCacheStore(new CacheMetrics(new SimpleMeterRegistry(), 0));
+        legacyOut = new PrintStream(OutputStream.nullOutputStream(), true);
+        keys = new String[KEYS];
+        for (int i = 0; i < KEYS; i++) {
+            keys[i] = "token-" + i;
+            noopStore.put(CACHE_NAME, keys[i], "1/docs/file-" + i + ".pdf", 60);
+            instrumentedStore.put(CACHE_NAME, keys[i], "1/docs/file-" + i + ".pdf", 60);
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Cursor {
+        int next;
+
+        String nextKey(String[] keys) {
+            return keys[next++ & (KEYS - 1)];
+        }
+    }
+
+    @Benchmark
+    public Object legacyStdoutGet(Cursor cursor) {
+        String key = cursor.nextKey(keys);
+        Object value = noopStore.get(CACHE_NAME, key);
+        legacyOut.println("Retrieved key: " + key + ", value: " + value);
+        return value;
+    }
+
+    @Benchmark
+    public Object noopMetricsGet(Cursor cursor) {
+        return noopStore.get(CACHE_NAME, cursor.nextKey(keys));
+    }
+
+    @Benchmark
+    public Object instrumentedGet(Cursor cursor) {
+        return instrumentedStore.get(CACHE_NAME, cursor.nextKey(keys));
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(CacheStoreBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
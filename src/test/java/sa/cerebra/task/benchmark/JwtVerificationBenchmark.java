@@ -0,0 +1,76 @@
+package sa.cerebra.task.benchmark;
+
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import sa.cerebra.task.config.Configs;
+import sa.cerebra.task.helper.JwtHelper;
+import sa.cerebra.task.helper.JwtVerification;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-request access token verification cost in {@link JwtHelper}.
+ * <p>
+ * {@code legacyTwoPass} reproduces what JwtFilter used to do: {@code isTokenExpired} then
+ * {@code extractUsername}, each building a new HMAC key and parser and verifying the signature.
+ * {@code singlePass} is the current {@link JwtHelper#verify(String)} with the key and parser built once.
+ * <p>
+ * See "Running Benchmarks" in the readme.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+public class JwtVerificationBenchmark {
+
+    private Configs configs;
+    private JwtHelper jwtHelper;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        configs = new Configs();
+        jwtHelper = new JwtHelper(configs);
+        token = jwtHelper.generateToken(42L, TimeUnit.HOURS.toMillis(1));
+    }
+
+    @Benchmark
+    public String legacyTwoPass() {
+        try {
+            Jwts.parser()
+                    .verifyWith(Keys.hmacShaKeyFor(configs.getSigningKey().getBytes()))
+                    .build()
+                    .parseSignedClaims(token);
+        } catch (ExpiredJwtException e) {
+            return null;
+        }
+        return Jwts.parser()
+                .verifyWith(Keys.hmacShaKeyFor(configs.getSigningKey().getBytes()))
+                .build()
+                .parseSignedClaims(token)
+                .getPayload()
+                .getSubject();
+    }
+
+    @Benchmark
+    public String singlePass() {
+        JwtVerification verification = jwtHelper.verify(token);
+        return verification.isValid() ? verification.subject() : null;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(JwtVerificationBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
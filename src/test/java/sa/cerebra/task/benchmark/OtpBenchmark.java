@@ -0,0 +1,88 @@
+package sa.cerebra.task.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import sa.cerebra.task.cache.CacheMetrics;
+import sa.cerebra.task.cache.impl.map.InMemoryCacheStore;
+import sa.cerebra.task.config.Configs;
+import sa.cerebra.task.helper.OtpChallenges;
+import sa.cerebra.task.helper.OtpGenerator;
+import sa.cerebra.task.ratelimit.LoginRateLimiter;
+import sa.cerebra.task.service.AuthService;
+
+import java.time.Duration;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * OTP generation and login-path cost.
+ * <p>
+ * {@code legacyRandomPerCall} reproduces the old {@code OtpHelper}: a new {@link Random} per call and one
+ * StringBuilder append per digit. {@code generator} is {@link OtpGenerator} with per-thread buffered SecureRandom output.
+ * {@code login} is {@link AuthService#login} end to end over the in-memory cache with a no-op SMS sender and
+ * rate limiting disabled, so it shows what OTP generation costs relative to the rest of the request;
+ * {@code statelessLogin} is the same in {@code cerebra.otp.mode=stateless}, signing a challenge instead of
+ * writing the OTP to the cache. With Redis the cache mode also pays a network round trip.
+ * <p>
+ * See "Running Benchmarks" in the readme.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+public class OtpBenchmark {
+
+    private OtpGenerator generator;
+    private AuthService authService;
+    private AuthService statelessAuthService;
+    private final AtomicLong phones = new AtomicLong();
+
+    @Setup
+    public void setUp() {
+        generator = new OtpGenerator(6, 1);
+        LoginRateLimiter noLimits = new LoginRateLimiter(null, false, 0, Duration.ZERO, 0, Duration.ZERO, 0, Duration.ZERO);
+        authService = new AuthService(new InMemoryCacheStore(CacheMetrics.noop()), null, null,
+                (phone, msg) -> { }, null, noLimits, generator, new OtpChallenges(new Configs(), generator, "cache"));
+        statelessAuthService = new AuthService(new InMemoryCacheStore(CacheMetrics.noop()), null, null,
+                (phone, msg) -> { }, null, noLimits, generator, new OtpChallenges(new Configs(), generator, "stateless"));
+    }
+
+    @Benchmark
+    public String legacyRandomPerCall() {
+        Random random = new Random();
+        StringBuilder sb = new StringBuilder(6);
+        for (int i = 0; i < 6; i++) {
+            sb.append(random.nextInt(10));
+        }
+        return sb.toString();
+    }
+
+    @Benchmark
+    public String generator() {
+        return generator.generate();
+    }
+
+    @Benchmark
+    public void login() {
+        authService.login("+9665" + (phones.incrementAndGet() & 0xFFFF));
+    }
+
+    @Benchmark
+    public Object statelessLogin() {
+        return statelessAuthService.login("+9665" + (phones.incrementAndGet() & 0xFFFF));
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(OtpBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,146 @@
+package sa.cerebra.task.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import sa.cerebra.task.cache.CacheStore;
+import sa.cerebra.task.config.Configs;
+import sa.cerebra.task.dto.request.CreateShareLinkRequest;
+import sa.cerebra.task.dto.response.ShareLinkResponse;
+import sa.cerebra.task.entity.User;
+import sa.cerebra.task.helper.ShareLinkSigner;
+import sa.cerebra.task.helper.TokenGenerator;
+import sa.cerebra.task.repository.ShareLinkRepository;
+import sa.cerebra.task.service.ShareLinkRegistry;
+import sa.cerebra.task.service.ShortLinkIds;
+import sa.cerebra.task.service.impl.ShareServiceImpl;
+
+import java.lang.reflect.Proxy;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Share token generation and share creation cost.
+ * <p>
+ * {@code legacySecureRandomPerCall} reproduces the old {@code ShareServiceImpl.generateSecureToken}: a new
+ * {@link SecureRandom}, byte array and encoder per token. {@code sharedSecureRandom} draws from one default
+ * SecureRandom shared by all threads. {@code generator} and {@code generatorBase62} are {@link TokenGenerator}
+ * with per-thread DRBG sources, and {@code generatorBatch} is one 100-token batch, reported per token.
+ * {@code shareLink} and {@code legacyShareLink} run {@link ShareServiceImpl#shareLink} over a no-op cache and
+ * repository, using the new generator and the old per-call SecureRandom respectively, so they show
+ * share creation throughput before and after.
+ * <p>
+ * See "Running Benchmarks" in the readme.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+public class ShareTokenBenchmark {
+
+    private static final int BATCH = 100;
+
+    private final SecureRandom sharedRandom = new SecureRandom();
+    private TokenGenerator generator;
+    private TokenGenerator base62Generator;
+    private ShareServiceImpl shareService;
+    private ShareServiceImpl legacyShareService;
+    private User user;
+    private CreateShareLinkRequest request;
+
+    @Setup
+    public void setUp() {
+        generator = new TokenGenerator(32, TokenGenerator.Format.BASE64URL);
+        base62Generator = new TokenGenerator(32, TokenGenerator.Format.BASE62);
+        TokenGenerator legacyGenerator = new TokenGenerator(32, TokenGenerator.Format.BASE64URL) {
+            @Override
+            public String generate() {
+                return legacySecureRandomPerCall();
+            }
+        };
+        shareService = shareService(generator);
+        legacyShareService = shareService(legacyGenerator);
+
+        user = new User();
+        user.setId(5L);
+        user.setPhone("+966500000000");
+        request = new CreateShareLinkRequest();
+        request.setPath("docs/report.pdf");
+        request.setExpirationDays(7);
+    }
+
+    private static ShareServiceImpl shareService(TokenGenerator tokenGenerator) {
+        CacheStore cacheStore = noop(CacheStore.class);
+        ShareLinkRepository repository = noop(ShareLinkRepository.class);
+        ShareLinkRegistry registry = new ShareLinkRegistry(repository, cacheStore, null, null, Duration.ofHours(1));
+        ShareLinkSigner signer = new ShareLinkSigner(new Configs(), "cache", "", "");
+        return new ShareServiceImpl(null, null, cacheStore, signer, null, registry, null, tokenGenerator,
+                new ShortLinkIds(null, tokenGenerator, false, 1000), null);
+    }
+
+    /**
+     * Discards every call; futures complete immediately. Keeps millions of created links from piling up in memory.
+     */
+    private static <T> T noop(Class<T> type) {
+        return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type},
+                (proxy, method, args) -> method.getReturnType() == CompletableFuture.class
+                        ? CompletableFuture.completedFuture(null) : null));
+    }
+
+    @Benchmark
+    public String legacySecureRandomPerCall() {
+        SecureRandom random = new SecureRandom();
+        byte[] bytes = new byte[32];
+        random.nextBytes(bytes);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+
+    @Benchmark
+    public String sharedSecureRandom() {
+        byte[] bytes = new byte[32];
+        sharedRandom.nextBytes(bytes);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+
+    @Benchmark
+    public String generator() {
+        return generator.generate();
+    }
+
+    @Benchmark
+    public String generatorBase62() {
+        return base62Generator.generate();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public List<String> generatorBatch() {
+        return generator.generate(BATCH);
+    }
+
+    @Benchmark
+    public ShareLinkResponse shareLink() {
+        return shareService.shareLink(user, request);
+    }
+
+    @Benchmark
+    public ShareLinkResponse legacyShareLink() {
+        return legacyShareService.shareLink(user, request);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(ShareTokenBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
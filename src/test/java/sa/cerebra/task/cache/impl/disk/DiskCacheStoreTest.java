@@ -0,0 +1,322 @@
+package sa.cerebra.task.cache.impl.disk;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import sa.cerebra.task.cache.CacheMetrics;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DiskCacheStoreTest {
+
+    @TempDir
+    Path tempDir;
+
+    private DiskCacheStore cacheStore;
+
+    private static final String CACHE_NAME = "share-links";
+    private static final String KEY = "testKey";
+    private static final String TEST_VALUE = "5/docs/file.txt";
+    private static final long TIMEOUT_MINUTES = 10L;
+
+    @BeforeEach
+    void setUp() {
+        cacheStore = open();
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        cacheStore.destroy();
+    }
+
+    private DiskCacheStore open() {
+        DiskCacheStore store = new DiskCacheStore(CacheMetrics.noop(), tempDir.toString(), false, 1024);
+        store.awaitIndexLoaded();
+        return store;
+    }
+
+    private DiskCacheStore restart() throws IOException {
+        cacheStore.destroy();
+        cacheStore = open();
+        return cacheStore;
+    }
+
+    @Test
+    void put_ShouldStoreValue_WhenValidParametersProvided() {
+        // When
+        cacheStore.put(CACHE_NAME, KEY, TEST_VALUE, TIMEOUT_MINUTES);
+
+        // Then
+        assertEquals(TEST_VALUE, cacheStore.get(CACHE_NAME, KEY));
+        assertEquals(1, cacheStore.size());
+    }
+
+    @Test
+    void putAll_ShouldStoreEveryEntry_AndSurviveRestart() throws IOException {
+        // Given
+        Map<String, String> entries = new HashMap<>();
+        for (int i = 0; i < 50; i++) {
+            entries.put("key-" + i, "5/docs/" + i + ".txt");
+        }
+        cacheStore.put(CACHE_NAME, "key-0", "old", TIMEOUT_MINUTES);
+
+        // When
+        cacheStore.putAll(CACHE_NAME, entries, TIMEOUT_MINUTES);
+        restart();
+
+        // Then
+        assertEquals(50, cacheStore.size());
+        for (int i = 0; i < 50; i++) {
+            assertEquals("5/docs/" + i + ".txt", cacheStore.get(CACHE_NAME, "key-" + i));
+        }
+    }
+
+    @Test
+    void get_ShouldReturnNull_WhenKeyDoesNotExist() {
+        assertNull(cacheStore.get(CACHE_NAME, "missing"));
+    }
+
+    @Test
+    void put_ShouldOverwriteValue_WhenKeyAlreadyExists() {
+        // Given
+        cacheStore.put(CACHE_NAME, KEY, "old", TIMEOUT_MINUTES);
+
+        // When
+        cacheStore.put(CACHE_NAME, KEY, "new", TIMEOUT_MINUTES);
+
+        // Then
+        assertEquals("new", cacheStore.get(CACHE_NAME, KEY));
+    }
+
+    @Test
+    void get_ShouldReturnNull_WhenEntryExpired() {
+        // Given
+        cacheStore.put(CACHE_NAME, KEY, TEST_VALUE, -1L);
+
+        // Then
+        assertNull(cacheStore.get(CACHE_NAME, KEY));
+        assertEquals(0, cacheStore.size());
+    }
+
+    @Test
+    void decrement_ShouldHandOutEveryCountOnce_AndSurviveRestart() throws Exception {
+        // Given
+        cacheStore.put(CACHE_NAME, KEY, 100L, TIMEOUT_MINUTES);
+        AtomicInteger granted = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+
+        // When
+        for (int t = 0; t < 4; t++) {
+            executor.execute(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int i = 0; i < 30; i++) {
+                    if (cacheStore.decrement(CACHE_NAME, KEY) >= 0) {
+                        granted.incrementAndGet();
+                    }
+                }
+            });
+        }
+        start.countDown();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+
+        // Then
+        assertEquals(100, granted.get());
+        assertEquals(-21L, restart().decrement(CACHE_NAME, KEY));
+        assertNull(cacheStore.decrement(CACHE_NAME, "missing"));
+    }
+
+    @Test
+    void putIfAbsent_ShouldStoreOnlyFirstValue_UntilRemovedOrExpired() {
+        // When
+        boolean first = cacheStore.putIfAbsent(CACHE_NAME, KEY, TEST_VALUE, TIMEOUT_MINUTES);
+        boolean second = cacheStore.putIfAbsent(CACHE_NAME, KEY, "other", TIMEOUT_MINUTES);
+
+        // Then
+        assertTrue(first);
+        assertFalse(second);
+        assertEquals(TEST_VALUE, cacheStore.get(CACHE_NAME, KEY));
+
+        cacheStore.remove(CACHE_NAME, KEY);
+        assertTrue(cacheStore.putIfAbsent(CACHE_NAME, KEY, "other", TIMEOUT_MINUTES));
+        cacheStore.put(CACHE_NAME, "expired", TEST_VALUE, -1L);
+        assertTrue(cacheStore.putIfAbsent(CACHE_NAME, "expired", "fresh", TIMEOUT_MINUTES));
+        assertEquals("fresh", cacheStore.get(CACHE_NAME, "expired"));
+    }
+
+    @Test
+    void remove_ShouldDeleteEntry() {
+        // Given
+        cacheStore.put(CACHE_NAME, KEY, TEST_VALUE, TIMEOUT_MINUTES);
+
+        // When
+        cacheStore.remove(CACHE_NAME, KEY);
+
+        // Then
+        assertNull(cacheStore.get(CACHE_NAME, KEY));
+    }
+
+    @Test
+    void entries_ShouldSurviveRestart() throws IOException {
+        // Given
+        cacheStore.put(CACHE_NAME, KEY, TEST_VALUE, TIMEOUT_MINUTES);
+        cacheStore.put("login-otp", "+966500000000", "123456", TIMEOUT_MINUTES);
+        cacheStore.put(CACHE_NAME, "overwritten", "old", TIMEOUT_MINUTES);
+        cacheStore.put(CACHE_NAME, "overwritten", "new", TIMEOUT_MINUTES);
+        cacheStore.put(CACHE_NAME, "removed", TEST_VALUE, TIMEOUT_MINUTES);
+        cacheStore.remove(CACHE_NAME, "removed");
+        cacheStore.put(CACHE_NAME, "expired", TEST_VALUE, -1L);
+
+        // When
+        restart();
+
+        // Then
+        assertEquals(TEST_VALUE, cacheStore.get(CACHE_NAME, KEY));
+        assertEquals("123456", cacheStore.get("login-otp", "+966500000000"));
+        assertEquals("new", cacheStore.get(CACHE_NAME, "overwritten"));
+        assertNull(cacheStore.get(CACHE_NAME, "removed"));
+        assertNull(cacheStore.get(CACHE_NAME, "expired"));
+        assertEquals(3, cacheStore.size());
+    }
+
+    @Test
+    void get_ShouldServeRequests_WhileIndexIsLoading() throws IOException {
+        // Given
+        for (int i = 0; i < 5_000; i++) {
+            cacheStore.put(CACHE_NAME, "token-" + i, "path-" + i, TIMEOUT_MINUTES);
+        }
+        cacheStore.destroy();
+
+        // When the store is used right after opening, without waiting for the scan
+        cacheStore = new DiskCacheStore(CacheMetrics.noop(), tempDir.toString(), false, 1024);
+        cacheStore.put(CACHE_NAME, "token-0", "rewritten", TIMEOUT_MINUTES);
+        cacheStore.remove(CACHE_NAME, "token-1");
+
+        // Then writes made during loading win over older log records
+        assertEquals("path-4999", cacheStore.get(CACHE_NAME, "token-4999"));
+        assertEquals("rewritten", cacheStore.get(CACHE_NAME, "token-0"));
+        assertNull(cacheStore.get(CACHE_NAME, "token-1"));
+        cacheStore.awaitIndexLoaded();
+        assertEquals(4_999, cacheStore.size());
+    }
+
+    @Test
+    void get_ShouldNotServeSupersededRecord_WhileIndexIsLoading() throws IOException {
+        // Given: early records for two keys, replaced near the end of a long log
+        cacheStore.put(CACHE_NAME, "revoked", TEST_VALUE, TIMEOUT_MINUTES);
+        cacheStore.put("share-link-downloads", "counter", 5L, TIMEOUT_MINUTES);
+        for (int i = 0; i < 20_000; i++) {
+            cacheStore.put(CACHE_NAME, "token-" + i, "path-" + i, TIMEOUT_MINUTES);
+        }
+        cacheStore.remove(CACHE_NAME, "revoked");
+        cacheStore.put("share-link-downloads", "counter", 1L, TIMEOUT_MINUTES);
+        cacheStore.destroy();
+
+        // When the store is used right after opening, without waiting for the scan
+        cacheStore = new DiskCacheStore(CacheMetrics.noop(), tempDir.toString(), false, 1024);
+
+        // Then the latest record of each key wins, wherever the scan is
+        assertNull(cacheStore.get(CACHE_NAME, "revoked"));
+        assertTrue(cacheStore.putIfAbsent(CACHE_NAME, "revoked", "again", TIMEOUT_MINUTES));
+        assertEquals(0L, cacheStore.decrement("share-link-downloads", "counter"));
+    }
+
+    @Test
+    void compact_ShouldShrinkLogAndKeepLiveEntries() throws IOException {
+        // Given
+        for (int round = 0; round < 100; round++) {
+            for (int k = 0; k < 10; k++) {
+                cacheStore.put(CACHE_NAME, "key-" + k, "value-" + round + "-" + k, TIMEOUT_MINUTES);
+            }
+        }
+        cacheStore.put(CACHE_NAME, "expired", TEST_VALUE, -1L);
+        long before = cacheStore.logBytes();
+
+        // When
+        cacheStore.evictExpiredCacheEntries();
+
+        // Then
+        assertTrue(cacheStore.logBytes() < before / 50);
+        restart();
+        assertEquals(10, cacheStore.size());
+        for (int k = 0; k < 10; k++) {
+            assertEquals("value-99-" + k, cacheStore.get(CACHE_NAME, "key-" + k));
+        }
+    }
+
+    @Test
+    void restart_ShouldRecover_WhenLogTailIsTorn() throws IOException {
+        // Given
+        cacheStore.put(CACHE_NAME, KEY, TEST_VALUE, TIMEOUT_MINUTES);
+        cacheStore.put(CACHE_NAME, "torn", TEST_VALUE, TIMEOUT_MINUTES);
+        cacheStore.destroy();
+        Path log = tempDir.resolve("cache.log");
+        try (var channel = Files.newByteChannel(log, StandardOpenOption.WRITE)) {
+            channel.truncate(Files.size(log) - 3);
+        }
+
+        // When
+        cacheStore = open();
+        cacheStore.put(CACHE_NAME, "after", "value", TIMEOUT_MINUTES);
+        restart();
+
+        // Then
+        assertEquals(TEST_VALUE, cacheStore.get(CACHE_NAME, KEY));
+        assertNull(cacheStore.get(CACHE_NAME, "torn"));
+        assertEquals("value", cacheStore.get(CACHE_NAME, "after"));
+    }
+
+    @Test
+    void putAndGet_ShouldBeThreadSafe_WhenMultipleThreadsAccessConcurrently() throws InterruptedException {
+        // Given
+        int threads = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch latch = new CountDownLatch(threads);
+        AtomicInteger mismatches = new AtomicInteger();
+
+        // When
+        for (int t = 0; t < threads; t++) {
+            final int threadId = t;
+            executor.submit(() -> {
+                try {
+                    for (int i = 0; i < 500; i++) {
+                        String key = "t" + threadId + "-" + i;
+                        cacheStore.put(CACHE_NAME, key, key, TIMEOUT_MINUTES);
+                        if (!key.equals(cacheStore.get(CACHE_NAME, key))) {
+                            mismatches.incrementAndGet();
+                        }
+                        if (i == 250 && threadId == 0) {
+                            cacheStore.compact();
+                        }
+                    }
+                } finally {
+                    latch.countDown();
+                }
+            });
+        }
+
+        // Then
+        assertTrue(latch.await(30, TimeUnit.SECONDS));
+        executor.shutdown();
+        assertEquals(0, mismatches.get());
+        assertEquals(threads * 500, cacheStore.size());
+    }
+}
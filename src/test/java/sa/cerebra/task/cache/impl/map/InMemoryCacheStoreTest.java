@@ -1,5 +1,6 @@
 package sa.cerebra.task.cache.impl.map;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -8,11 +9,13 @@ import org.junit.jupiter.api.parallel.ExecutionMode;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.mockito.junit.jupiter.MockitoSettings;
 import org.mockito.quality.Strictness;
+import sa.cerebra.task.cache.CacheMetrics;
 
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -22,6 +25,7 @@ import static org.junit.jupiter.api.Assertions.*;
 class InMemoryCacheStoreTest {
 
     private InMemoryCacheStore cacheStore;
+    private SimpleMeterRegistry meterRegistry;
 
     private static final String CACHE_NAME = "testCache";
     private static final String KEY = "testKey";
@@ -30,7 +34,8 @@ class InMemoryCacheStoreTest {
 
     @BeforeEach
     void setUp() {
-        cacheStore = new InMemoryCacheStore();
+        meterRegistry = new SimpleMeterRegistry();
+        cacheStore = new InMemoryCacheStore(new CacheMetrics(meterRegistry, 0));
     }
 
     @Test
@@ -152,6 +157,98 @@ class InMemoryCacheStoreTest {
 
 
 
+    @Test
+    void putIfAbsent_ShouldStoreOnlyFirstValue_UntilRemovedOrExpired() {
+        // When
+        boolean first = cacheStore.putIfAbsent(CACHE_NAME, KEY, TEST_VALUE, TIMEOUT_MINUTES);
+        boolean second = cacheStore.putIfAbsent(CACHE_NAME, KEY, "other", TIMEOUT_MINUTES);
+
+        // Then
+        assertTrue(first);
+        assertFalse(second);
+        assertEquals(TEST_VALUE, cacheStore.get(CACHE_NAME, KEY));
+
+        cacheStore.remove(CACHE_NAME, KEY);
+        assertTrue(cacheStore.putIfAbsent(CACHE_NAME, KEY, "other", TIMEOUT_MINUTES));
+        cacheStore.put(CACHE_NAME, "expired", TEST_VALUE, -1L);
+        assertTrue(cacheStore.putIfAbsent(CACHE_NAME, "expired", "fresh", TIMEOUT_MINUTES));
+        assertEquals("fresh", cacheStore.get(CACHE_NAME, "expired"));
+    }
+
+    @Test
+    void putIfAbsent_ShouldLetExactlyOneCallerWin_UnderConcurrency() throws InterruptedException {
+        // Given
+        int threads = 8;
+        AtomicInteger winners = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+
+        // When
+        for (int t = 0; t < threads; t++) {
+            String value = "value-" + t;
+            executor.execute(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                if (cacheStore.putIfAbsent(CACHE_NAME, KEY, value, TIMEOUT_MINUTES)) {
+                    winners.incrementAndGet();
+                }
+            });
+        }
+        start.countDown();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+
+        // Then
+        assertEquals(1, winners.get());
+    }
+
+    @Test
+    void decrement_ShouldHandOutEveryCountOnce_UnderConcurrency() throws InterruptedException {
+        // Given: 100 downloads left, 400 attempts on 8 threads
+        cacheStore.put(CACHE_NAME, KEY, 100L, TIMEOUT_MINUTES);
+        int threads = 8;
+        AtomicInteger granted = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+
+        // When
+        for (int t = 0; t < threads; t++) {
+            executor.execute(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int i = 0; i < 50; i++) {
+                    if (cacheStore.decrement(CACHE_NAME, KEY) >= 0) {
+                        granted.incrementAndGet();
+                    }
+                }
+            });
+        }
+        start.countDown();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+
+        // Then
+        assertEquals(100, granted.get());
+        assertEquals(-301L, cacheStore.decrement(CACHE_NAME, KEY));
+    }
+
+    @Test
+    void decrement_ShouldReturnNull_ForMissingOrExpiredCounter() {
+        // Given
+        cacheStore.put(CACHE_NAME, "expired", 5L, -1L);
+
+        // When / Then
+        assertNull(cacheStore.decrement(CACHE_NAME, KEY));
+        assertNull(cacheStore.decrement(CACHE_NAME, "expired"));
+        assertNull(cacheStore.get(CACHE_NAME, KEY));
+    }
+
     @Test
     void remove_ShouldDeleteKey_WhenValidParametersProvided() {
         // Given
@@ -412,6 +509,71 @@ class InMemoryCacheStoreTest {
         }
     }
 
+    @Test
+    void get_ShouldRecordHitsAndMisses_PerCacheName() {
+        // Given
+        cacheStore.put(CACHE_NAME, KEY, TEST_VALUE, TIMEOUT_MINUTES);
+
+        // When
+        cacheStore.get(CACHE_NAME, KEY);
+        cacheStore.get(CACHE_NAME, KEY);
+        cacheStore.get(CACHE_NAME, "missing");
+        cacheStore.get("otherCache", KEY);
+
+        // Then
+        assertEquals(2.0, meterRegistry.get("cerebra.cache.gets").tags("cache", CACHE_NAME, "result", "hit").counter().count());
+        assertEquals(1.0, meterRegistry.get("cerebra.cache.gets").tags("cache", CACHE_NAME, "result", "miss").counter().count());
+        assertEquals(1.0, meterRegistry.get("cerebra.cache.gets").tags("cache", "otherCache", "result", "miss").counter().count());
+        assertEquals(3, meterRegistry.get("cerebra.cache.get").tag("cache", CACHE_NAME).timer().count());
+        assertEquals(1, meterRegistry.get("cerebra.cache.put").tag("cache", CACHE_NAME).timer().count());
+    }
+
+    @Test
+    void get_ShouldRecordExpired_WhenEntryHasExpired() {
+        // Given
+        cacheStore.put(CACHE_NAME, KEY, TEST_VALUE, -1L);
+
+        // When
+        Object result = cacheStore.get(CACHE_NAME, KEY);
+
+        // Then
+        assertNull(result);
+        assertEquals(1.0, meterRegistry.get("cerebra.cache.expired").tag("cache", CACHE_NAME).counter().count());
+        assertEquals(1.0, meterRegistry.get("cerebra.cache.gets").tags("cache", CACHE_NAME, "result", "miss").counter().count());
+    }
+
+    @Test
+    void asyncOperations_ShouldCompleteImmediately() {
+        // When
+        var put = cacheStore.putAsync(CACHE_NAME, KEY, TEST_VALUE, TIMEOUT_MINUTES);
+        var get = cacheStore.getAsync(CACHE_NAME, KEY);
+
+        // Then
+        assertTrue(put.isDone());
+        assertTrue(get.isDone());
+        assertEquals(TEST_VALUE, get.join());
+
+        // When
+        var remove = cacheStore.removeAsync(CACHE_NAME, KEY);
+
+        // Then
+        assertTrue(remove.isDone());
+        assertNull(cacheStore.get(CACHE_NAME, KEY));
+    }
+
+    @Test
+    void noopMetrics_ShouldNotRegisterMeters() {
+        // Given
+        InMemoryCacheStore store = new InMemoryCacheStore(CacheMetrics.noop());
+
+        // When
+        store.put(CACHE_NAME, KEY, TEST_VALUE, TIMEOUT_MINUTES);
+
+        // Then
+        assertEquals(TEST_VALUE, store.get(CACHE_NAME, KEY));
+        assertTrue(meterRegistry.find("cerebra.cache.get").tag("cache", CACHE_NAME).timers().isEmpty());
+    }
+
     // Helper class for testing complex objects
     private static class TestComplexObject {
         private final String name;
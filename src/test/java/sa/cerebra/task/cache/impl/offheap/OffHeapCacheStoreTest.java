@@ -0,0 +1,274 @@
+package sa.cerebra.task.cache.impl.offheap;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import sa.cerebra.task.cache.CacheMetrics;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OffHeapCacheStoreTest {
+
+    private OffHeapCacheStore cacheStore;
+
+    private static final String CACHE_NAME = "share-links";
+    private static final String KEY = "testKey";
+    private static final String TEST_VALUE = "5/docs/file.txt";
+    private static final long TIMEOUT_MINUTES = 10L;
+
+    @BeforeEach
+    void setUp() {
+        cacheStore = new OffHeapCacheStore(CacheMetrics.noop(), 16 * 1024 * 1024, 64 * 1024, 64, 4);
+    }
+
+    @Test
+    void put_ShouldStoreValue_WhenValidParametersProvided() {
+        // When
+        cacheStore.put(CACHE_NAME, KEY, TEST_VALUE, TIMEOUT_MINUTES);
+
+        // Then
+        assertEquals(TEST_VALUE, cacheStore.get(CACHE_NAME, KEY));
+        assertEquals(1, cacheStore.size());
+    }
+
+    @Test
+    void get_ShouldReturnNull_WhenKeyDoesNotExist() {
+        assertNull(cacheStore.get(CACHE_NAME, "missing"));
+    }
+
+    @Test
+    void put_ShouldOverwriteValue_WhenKeyAlreadyExists() {
+        // Given
+        cacheStore.put(CACHE_NAME, KEY, "old", TIMEOUT_MINUTES);
+
+        // When
+        cacheStore.put(CACHE_NAME, KEY, "new", TIMEOUT_MINUTES);
+
+        // Then
+        assertEquals("new", cacheStore.get(CACHE_NAME, KEY));
+        assertEquals(1, cacheStore.size());
+    }
+
+    @Test
+    void put_ShouldKeepCacheNamesApart_WhenSameKeyUsed() {
+        // When
+        cacheStore.put("login-otp", KEY, "123456", TIMEOUT_MINUTES);
+        cacheStore.put(CACHE_NAME, KEY, TEST_VALUE, TIMEOUT_MINUTES);
+
+        // Then
+        assertEquals("123456", cacheStore.get("login-otp", KEY));
+        assertEquals(TEST_VALUE, cacheStore.get(CACHE_NAME, KEY));
+    }
+
+    @Test
+    void put_ShouldRoundTripNonStringValues() {
+        // When
+        cacheStore.put(CACHE_NAME, "number", 42, TIMEOUT_MINUTES);
+        cacheStore.put(CACHE_NAME, "list", new ArrayList<>(List.of("a", "b")), TIMEOUT_MINUTES);
+        cacheStore.put(CACHE_NAME, "null", null, TIMEOUT_MINUTES);
+
+        // Then
+        assertEquals(42, cacheStore.get(CACHE_NAME, "number"));
+        assertEquals(List.of("a", "b"), cacheStore.get(CACHE_NAME, "list"));
+        assertNull(cacheStore.get(CACHE_NAME, "null"));
+    }
+
+    @Test
+    void get_ShouldReturnNull_WhenEntryExpired() {
+        // Given
+        cacheStore.put(CACHE_NAME, KEY, TEST_VALUE, -1L);
+
+        // Then
+        assertNull(cacheStore.get(CACHE_NAME, KEY));
+    }
+
+    @Test
+    void putIfAbsent_ShouldStoreOnlyFirstValue_UntilRemovedOrExpired() {
+        // When
+        boolean first = cacheStore.putIfAbsent(CACHE_NAME, KEY, TEST_VALUE, TIMEOUT_MINUTES);
+        boolean second = cacheStore.putIfAbsent(CACHE_NAME, KEY, "other", TIMEOUT_MINUTES);
+
+        // Then
+        assertTrue(first);
+        assertFalse(second);
+        assertEquals(TEST_VALUE, cacheStore.get(CACHE_NAME, KEY));
+
+        cacheStore.remove(CACHE_NAME, KEY);
+        assertTrue(cacheStore.putIfAbsent(CACHE_NAME, KEY, "other", TIMEOUT_MINUTES));
+        cacheStore.put(CACHE_NAME, "expired", TEST_VALUE, -1L);
+        assertTrue(cacheStore.putIfAbsent(CACHE_NAME, "expired", "fresh", TIMEOUT_MINUTES));
+        assertEquals("fresh", cacheStore.get(CACHE_NAME, "expired"));
+    }
+
+    @Test
+    void decrement_ShouldHandOutEveryCountOnce_UnderConcurrency() throws InterruptedException {
+        // Given: 100 downloads left, 400 attempts on 8 threads
+        cacheStore.put(CACHE_NAME, KEY, 100L, TIMEOUT_MINUTES);
+        int threads = 8;
+        AtomicInteger granted = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+
+        // When
+        for (int t = 0; t < threads; t++) {
+            executor.execute(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int i = 0; i < 50; i++) {
+                    if (cacheStore.decrement(CACHE_NAME, KEY) >= 0) {
+                        granted.incrementAndGet();
+                    }
+                }
+            });
+        }
+        start.countDown();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+
+        // Then
+        assertEquals(100, granted.get());
+        assertEquals(-301L, cacheStore.decrement(CACHE_NAME, KEY));
+    }
+
+    @Test
+    void decrement_ShouldReturnNull_ForMissingOrExpiredCounter() {
+        // Given
+        cacheStore.put(CACHE_NAME, "expired", 5L, -1L);
+
+        // When / Then
+        assertNull(cacheStore.decrement(CACHE_NAME, KEY));
+        assertNull(cacheStore.decrement(CACHE_NAME, "expired"));
+        assertNull(cacheStore.get(CACHE_NAME, KEY));
+    }
+
+    @Test
+    void remove_ShouldDeleteEntry() {
+        // Given
+        cacheStore.put(CACHE_NAME, KEY, TEST_VALUE, TIMEOUT_MINUTES);
+
+        // When
+        cacheStore.remove(CACHE_NAME, KEY);
+        cacheStore.remove(CACHE_NAME, "missing");
+
+        // Then
+        assertNull(cacheStore.get(CACHE_NAME, KEY));
+        assertEquals(0, cacheStore.size());
+    }
+
+    @Test
+    void put_ShouldGrowIndex_WhenManyEntriesAdded() {
+        // When
+        for (int i = 0; i < 10_000; i++) {
+            cacheStore.put(CACHE_NAME, "token-" + i, "path-" + i, TIMEOUT_MINUTES);
+        }
+
+        // Then
+        assertEquals(10_000, cacheStore.size());
+        for (int i = 0; i < 10_000; i++) {
+            assertEquals("path-" + i, cacheStore.get(CACHE_NAME, "token-" + i));
+        }
+    }
+
+    @Test
+    void evictExpiredCacheEntries_ShouldRemoveExpiredAndKeepLiveEntries() {
+        // Given
+        for (int i = 0; i < 100; i++) {
+            cacheStore.put(CACHE_NAME, "expired-" + i, "value", -1L);
+            cacheStore.put(CACHE_NAME, "live-" + i, "value-" + i, TIMEOUT_MINUTES);
+        }
+
+        // When
+        cacheStore.evictExpiredCacheEntries();
+
+        // Then
+        assertEquals(100, cacheStore.size());
+        for (int i = 0; i < 100; i++) {
+            assertEquals("value-" + i, cacheStore.get(CACHE_NAME, "live-" + i));
+        }
+    }
+
+    @Test
+    void put_ShouldCompactInPlace_WhenArenaFullOfOverwrittenRecords() {
+        // Given a single small segment: 4 chunks of 4KB
+        OffHeapCacheStore small = new OffHeapCacheStore(CacheMetrics.noop(), 16 * 1024, 4 * 1024, 16, 1);
+
+        // When overwriting the same few keys far more often than the arena could hold without reclaiming
+        for (int round = 0; round < 500; round++) {
+            for (int k = 0; k < 10; k++) {
+                small.put(CACHE_NAME, "key-" + k, "value-" + round + "-" + k, TIMEOUT_MINUTES);
+            }
+        }
+
+        // Then
+        assertEquals(10, small.size());
+        for (int k = 0; k < 10; k++) {
+            assertEquals("value-499-" + k, small.get(CACHE_NAME, "key-" + k));
+        }
+        assertTrue(small.allocatedBytes() <= 16 * 1024 + 16 * 24);
+    }
+
+    @Test
+    void put_ShouldThrow_WhenLiveDataExceedsCapacity() {
+        // Given
+        OffHeapCacheStore small = new OffHeapCacheStore(CacheMetrics.noop(), 4 * 1024, 1024, 16, 1);
+
+        // When / Then
+        assertThrows(IllegalStateException.class, () -> {
+            for (int i = 0; i < 1000; i++) {
+                small.put(CACHE_NAME, "key-" + i, "value-" + i, TIMEOUT_MINUTES);
+            }
+        });
+    }
+
+    @Test
+    void constructor_ShouldReject_NonPowerOfTwoSegments() {
+        assertThrows(IllegalArgumentException.class,
+                () -> new OffHeapCacheStore(CacheMetrics.noop(), 1024 * 1024, 1024, 16, 3));
+    }
+
+    @Test
+    void putAndGet_ShouldBeThreadSafe_WhenMultipleThreadsAccessConcurrently() throws InterruptedException {
+        // Given
+        int threads = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch latch = new CountDownLatch(threads);
+        AtomicInteger mismatches = new AtomicInteger();
+
+        // When
+        for (int t = 0; t < threads; t++) {
+            final int threadId = t;
+            executor.submit(() -> {
+                try {
+                    for (int i = 0; i < 2_000; i++) {
+                        String key = "t" + threadId + "-" + i;
+                        cacheStore.put(CACHE_NAME, key, key, TIMEOUT_MINUTES);
+                        if (!key.equals(cacheStore.get(CACHE_NAME, key))) {
+                            mismatches.incrementAndGet();
+                        }
+                        if (i % 3 == 0) {
+                            cacheStore.remove(CACHE_NAME, key);
+                        }
+                    }
+                } finally {
+                    latch.countDown();
+                }
+            });
+        }
+
+        // Then
+        assertTrue(latch.await(30, TimeUnit.SECONDS));
+        executor.shutdown();
+        assertEquals(0, mismatches.get());
+        assertEquals(threads * (2_000 - 667), cacheStore.size());
+    }
+}
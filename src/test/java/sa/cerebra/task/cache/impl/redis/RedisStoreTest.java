@@ -1,16 +1,28 @@
 package sa.cerebra.task.cache.impl.redis;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.mockito.junit.jupiter.MockitoSettings;
 import org.mockito.quality.Strictness;
+import org.springframework.data.redis.core.HashOperations;
+import org.springframework.data.redis.core.ReactiveHashOperations;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import org.springframework.data.redis.core.ReactiveValueOperations;
 import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.data.redis.core.ValueOperations;
+import reactor.core.publisher.Mono;
+import sa.cerebra.task.cache.CacheMetrics;
 
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.TimeUnit;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -27,6 +39,20 @@ class RedisStoreTest {
     @Mock
     private ValueOperations<String, Object> valueOperations;
 
+    @Mock
+    private ReactiveRedisTemplate<String, Object> reactiveRedisTemplate;
+
+    @Mock
+    private ReactiveValueOperations<String, Object> reactiveValueOperations;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Spy
+    private CacheMetrics cacheMetrics = new CacheMetrics(meterRegistry, 0);
+
+    @Spy
+    private RedisTopology redisTopology = RedisTopology.standalone();
+
     @InjectMocks
     private RedisStore redisStore;
 
@@ -38,6 +64,7 @@ class RedisStoreTest {
     @BeforeEach
     void setUp() {
         when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+        when(reactiveRedisTemplate.opsForValue()).thenReturn(reactiveValueOperations);
     }
 
     @Test
@@ -52,6 +79,29 @@ class RedisStoreTest {
         verify(valueOperations).set(eq(expectedCacheKey), eq(TEST_VALUE), eq(TIMEOUT_MINUTES), eq(TimeUnit.MINUTES));
     }
 
+    @Test
+    void putIfAbsent_ShouldUseSetNxWithTimeout() {
+        // Given
+        when(valueOperations.setIfAbsent(CACHE_NAME + ":" + KEY, TEST_VALUE, TIMEOUT_MINUTES, TimeUnit.MINUTES))
+                .thenReturn(true, false);
+
+        // When / Then
+        assertTrue(redisStore.putIfAbsent(CACHE_NAME, KEY, TEST_VALUE, TIMEOUT_MINUTES));
+        assertFalse(redisStore.putIfAbsent(CACHE_NAME, KEY, TEST_VALUE, TIMEOUT_MINUTES));
+    }
+
+    @Test
+    void decrement_ShouldRunOneScript_ThatNeverCreatesTheCounter() {
+        // Given
+        when(redisTemplate.execute(RedisStore.DECREMENT_EXISTING, List.of(CACHE_NAME + ":" + KEY))).thenReturn(4L);
+
+        // When / Then
+        assertEquals(4L, redisStore.decrement(CACHE_NAME, KEY));
+        assertNull(redisStore.decrement(CACHE_NAME, "missing"));
+        assertTrue(RedisStore.DECREMENT_EXISTING.getScriptAsString().contains("EXISTS"));
+        verifyNoInteractions(valueOperations);
+    }
+
     @Test
     void put_ShouldSetValueWithZeroTimeout_WhenZeroTimeoutProvided() {
         // Given
@@ -337,6 +387,192 @@ class RedisStoreTest {
         verify(valueOperations).get(expectedCacheKey);
     }
 
+    @Test
+    void get_ShouldRecordHitAndMiss_PerCacheName() {
+        // Given
+        when(valueOperations.get(CACHE_NAME + ":" + KEY)).thenReturn(TEST_VALUE);
+
+        // When
+        redisStore.get(CACHE_NAME, KEY);
+        redisStore.get(CACHE_NAME, "missing");
+
+        // Then
+        assertEquals(1.0, meterRegistry.get("cerebra.cache.gets").tags("cache", CACHE_NAME, "result", "hit").counter().count());
+        assertEquals(1.0, meterRegistry.get("cerebra.cache.gets").tags("cache", CACHE_NAME, "result", "miss").counter().count());
+        assertEquals(2, meterRegistry.get("cerebra.cache.get").tag("cache", CACHE_NAME).timer().count());
+    }
+
+    @Test
+    void putAll_ShouldPipelineOneSetPerEntry_UsingReactiveTemplate() {
+        // Given
+        when(reactiveValueOperations.set(anyString(), any(), any(Duration.class))).thenReturn(Mono.just(true));
+        Map<String, String> entries = Map.of("a", "1", "b", "2", "c", "3");
+
+        // When
+        redisStore.putAll(CACHE_NAME, entries, TIMEOUT_MINUTES);
+
+        // Then
+        entries.forEach((key, value) -> verify(reactiveValueOperations)
+                .set(CACHE_NAME + ":" + key, value, Duration.ofMinutes(TIMEOUT_MINUTES)));
+        verifyNoInteractions(valueOperations);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void putFields_ShouldWriteOneHash_AndExpireIt() {
+        // Given
+        ReactiveHashOperations<String, Object, Object> hashOperations = mock(ReactiveHashOperations.class);
+        when(reactiveRedisTemplate.opsForHash()).thenReturn(hashOperations);
+        when(hashOperations.putAll(anyString(), anyMap())).thenReturn(Mono.just(true));
+        when(reactiveRedisTemplate.expire(anyString(), any(Duration.class))).thenReturn(Mono.just(true));
+        Map<String, String> fields = Map.of("1", "a", "2", "b");
+
+        // When
+        redisStore.putFields(CACHE_NAME, KEY, fields, TIMEOUT_MINUTES);
+
+        // Then
+        verify(hashOperations).putAll(CACHE_NAME + ":" + KEY, fields);
+        verify(reactiveRedisTemplate).expire(CACHE_NAME + ":" + KEY, Duration.ofMinutes(TIMEOUT_MINUTES));
+        verifyNoInteractions(valueOperations, reactiveValueOperations);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void getField_AndRemoveField_ShouldUseHashOperations() {
+        // Given
+        HashOperations<String, Object, Object> hashOperations = mock(HashOperations.class);
+        when(redisTemplate.opsForHash()).thenReturn(hashOperations);
+        when(hashOperations.get(CACHE_NAME + ":" + KEY, "7")).thenReturn(TEST_VALUE);
+
+        // When
+        Object value = redisStore.getField(CACHE_NAME, KEY, "7");
+        Object missing = redisStore.getField(CACHE_NAME, KEY, "8");
+        redisStore.removeField(CACHE_NAME, KEY, "7");
+
+        // Then
+        assertEquals(TEST_VALUE, value);
+        assertNull(missing);
+        verify(hashOperations).delete(CACHE_NAME + ":" + KEY, "7");
+        verifyNoInteractions(valueOperations);
+    }
+
+    @Test
+    void putAsync_ShouldSetValueWithTimeout_UsingReactiveTemplate() {
+        // Given
+        String expectedCacheKey = CACHE_NAME + ":" + KEY;
+        when(reactiveValueOperations.set(expectedCacheKey, TEST_VALUE, Duration.ofMinutes(TIMEOUT_MINUTES)))
+                .thenReturn(Mono.just(true));
+
+        // When
+        redisStore.putAsync(CACHE_NAME, KEY, TEST_VALUE, TIMEOUT_MINUTES).join();
+
+        // Then
+        verify(reactiveValueOperations).set(expectedCacheKey, TEST_VALUE, Duration.ofMinutes(TIMEOUT_MINUTES));
+        verifyNoInteractions(valueOperations);
+    }
+
+    @Test
+    void getAsync_ShouldReturnValue_WhenKeyExists() {
+        // Given
+        when(reactiveValueOperations.get(CACHE_NAME + ":" + KEY)).thenReturn(Mono.just(TEST_VALUE));
+
+        // When
+        Object result = redisStore.getAsync(CACHE_NAME, KEY).join();
+
+        // Then
+        assertEquals(TEST_VALUE, result);
+    }
+
+    @Test
+    void getAsync_ShouldReturnNull_WhenKeyDoesNotExist() {
+        // Given
+        when(reactiveValueOperations.get(CACHE_NAME + ":" + KEY)).thenReturn(Mono.empty());
+
+        // When
+        Object result = redisStore.getAsync(CACHE_NAME, KEY).join();
+
+        // Then
+        assertNull(result);
+    }
+
+    @Test
+    void removeAsync_ShouldDeleteKey_UsingReactiveTemplate() {
+        // Given
+        String expectedCacheKey = CACHE_NAME + ":" + KEY;
+        when(reactiveRedisTemplate.delete(expectedCacheKey)).thenReturn(Mono.just(1L));
+
+        // When
+        redisStore.removeAsync(CACHE_NAME, KEY).join();
+
+        // Then
+        verify(reactiveRedisTemplate).delete(expectedCacheKey);
+        verify(redisTemplate, never()).delete(anyString());
+    }
+
+    @Test
+    void fromCacheKey_ShouldHashTagCacheName_WhenCacheIsColocated() {
+        // Given
+        RedisTopology topology = new RedisTopology(Set.of("share-links"), Set.of(), null, null, null);
+        RedisStore store = new RedisStore(redisTemplate, reactiveRedisTemplate, cacheMetrics, topology);
+
+        // When
+        store.put("share-links", KEY, TEST_VALUE, TIMEOUT_MINUTES);
+        store.put("login-otp", KEY, TEST_VALUE, TIMEOUT_MINUTES);
+
+        // Then
+        verify(valueOperations).set(eq("{share-links}:" + KEY), eq(TEST_VALUE), eq(TIMEOUT_MINUTES), eq(TimeUnit.MINUTES));
+        verify(valueOperations).set(eq("login-otp:" + KEY), eq(TEST_VALUE), eq(TIMEOUT_MINUTES), eq(TimeUnit.MINUTES));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void get_ShouldReadFromReplica_OnlyForReplicaReadCaches() {
+        // Given
+        RedisTemplate<String, Object> replicaTemplate = mock(RedisTemplate.class);
+        ValueOperations<String, Object> replicaOperations = mock(ValueOperations.class);
+        when(replicaTemplate.opsForValue()).thenReturn(replicaOperations);
+        when(replicaOperations.get("share-links:" + KEY)).thenReturn("from-replica");
+        when(valueOperations.get("login-otp:" + KEY)).thenReturn("from-primary");
+        RedisTopology topology = new RedisTopology(Set.of(), Set.of("share-links"), null, replicaTemplate, null);
+        RedisStore store = new RedisStore(redisTemplate, reactiveRedisTemplate, cacheMetrics, topology);
+
+        // When
+        Object shareLink = store.get("share-links", KEY);
+        Object otp = store.get("login-otp", KEY);
+
+        // Then
+        assertEquals("from-replica", shareLink);
+        assertEquals("from-primary", otp);
+        verify(valueOperations, never()).get("share-links:" + KEY);
+    }
+
+    @Test
+    void put_ShouldAlwaysWriteToPrimary_WhenCacheReadsFromReplica() {
+        // Given
+        @SuppressWarnings("unchecked")
+        RedisTemplate<String, Object> replicaTemplate = mock(RedisTemplate.class);
+        RedisTopology topology = new RedisTopology(Set.of(), Set.of(CACHE_NAME), null, replicaTemplate, null);
+        RedisStore store = new RedisStore(redisTemplate, reactiveRedisTemplate, cacheMetrics, topology);
+
+        // When
+        store.put(CACHE_NAME, KEY, TEST_VALUE, TIMEOUT_MINUTES);
+        store.remove(CACHE_NAME, KEY);
+
+        // Then
+        verify(valueOperations).set(eq(CACHE_NAME + ":" + KEY), eq(TEST_VALUE), eq(TIMEOUT_MINUTES), eq(TimeUnit.MINUTES));
+        verify(redisTemplate).delete(CACHE_NAME + ":" + KEY);
+        verifyNoInteractions(replicaTemplate);
+    }
+
+    @Test
+    void readsFromReplica_ShouldBeDisabled_WhenNoReplicaConnection() {
+        // Given
+        RedisTopology topology = new RedisTopology(Set.of(), Set.of(CACHE_NAME), null, null, null);
+
+        // Then
+        assertFalse(topology.readsFromReplica(CACHE_NAME));
+    }
+
     // Helper class for testing complex objects
     private static class TestComplexObject {
         private final String name;
@@ -9,6 +9,7 @@ import org.springframework.test.web.servlet.MockMvc;
 import sa.cerebra.task.BaseIntegrationTest;
 import sa.cerebra.task.cache.CacheStore;
 import sa.cerebra.task.dto.request.LoginRequest;
+import sa.cerebra.task.dto.request.RefreshTokenRequest;
 import sa.cerebra.task.dto.request.ValidateOtpRequest;
 import sa.cerebra.task.exception.ErrorCode;
 import sa.cerebra.task.helper.OtpHelper;
@@ -140,6 +141,37 @@ class AuthControllerIT extends BaseIntegrationTest {
                 .andExpect(jsonPath("$.errors.phone").exists())
                 .andExpect(jsonPath("$.errors.otp").exists());
     }
-}
 
+    @Test
+    @DisplayName("POST validate otp then refresh, reusing a rotated refresh token is rejected")
+    void refreshFlow_ShouldRotateTokens_AndRejectReuse() throws Exception {
+        var phone = "+1234567891";
+        cacheStore.put("login-otp", phone, "123456", 5);
+        ValidateOtpRequest validateOtpRequest = new ValidateOtpRequest();
+        validateOtpRequest.setPhone(phone);
+        validateOtpRequest.setOtp("123456");
+
+        String validateBody = mockMvc.perform(post("/api/v1/auth/validate-otp")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(validateOtpRequest)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.refreshToken").exists())
+                .andReturn().getResponse().getContentAsString();
+        String refreshToken = objectMapper.readTree(validateBody).get("refreshToken").asText();
 
+        RefreshTokenRequest refreshRequest = new RefreshTokenRequest();
+        refreshRequest.setRefreshToken(refreshToken);
+        mockMvc.perform(post("/api/v1/auth/refresh")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(refreshRequest)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.accessToken").exists())
+                .andExpect(jsonPath("$.refreshToken").exists());
+
+        mockMvc.perform(post("/api/v1/auth/refresh")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(refreshRequest)))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.errorCode", equalTo(ErrorCode.INVALID_REFRESH_TOKEN.getCode())));
+    }
+}
@@ -12,14 +12,18 @@ import org.springframework.mock.web.MockMultipartFile;
 import org.springframework.test.web.servlet.MockMvc;
 import sa.cerebra.task.BaseIntegrationTest;
 import sa.cerebra.task.cache.CacheStore;
+import sa.cerebra.task.dto.request.BulkShareLinkRequest;
 import sa.cerebra.task.dto.request.CreateShareLinkRequest;
 import sa.cerebra.task.entity.User;
 import sa.cerebra.task.exception.ErrorCode;
 import sa.cerebra.task.helper.JwtHelper;
 import sa.cerebra.task.repository.UserRepository;
+import sa.cerebra.task.service.ShareDownloadStats;
 
+import java.util.List;
 import java.util.Random;
 
+import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.Matchers.is;
 import static org.hamcrest.Matchers.startsWith;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
@@ -41,6 +45,9 @@ class ShareControllerIT extends BaseIntegrationTest {
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private ShareDownloadStats shareDownloadStats;
+
 
 
     private User testUser;
@@ -140,6 +147,271 @@ class ShareControllerIT extends BaseIntegrationTest {
                 .andExpect(content().string("This is a test file for sharing"));
     }
 
+    @Test
+    @DisplayName("DELETE /api/v1/share/{token} should revoke the link for its owner only")
+    void revokeShareLink_ShouldStopDownloads() throws Exception {
+        CreateShareLinkRequest request = new CreateShareLinkRequest();
+        request.setPath(uploadedFilePath);
+        request.setExpirationDays(7);
+
+        String responseContent = mockMvc.perform(post("/api/v1/share")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request))
+                        .header("Authorization", "Bearer " + authToken))
+                .andExpect(status().isOk())
+                .andReturn()
+                .getResponse()
+                .getContentAsString();
+        String shareLink = objectMapper.readTree(responseContent).get("link").asText();
+        String shareToken = shareLink.substring(shareLink.lastIndexOf("/") + 1);
+
+        mockMvc.perform(delete("/api/v1/share/" + shareToken))
+                .andExpect(status().isUnauthorized());
+
+        mockMvc.perform(delete("/api/v1/share/" + shareToken)
+                        .header("Authorization", "Bearer " + authToken))
+                .andExpect(status().isNoContent());
+
+        mockMvc.perform(get("/api/v1/share/" + shareToken))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.errorCode", is(ErrorCode.SHARE_LINK_EXPIRED.getCode())));
+    }
+
+    @Test
+    @DisplayName("GET /api/v1/share should page the user's links, and revoking by id or path should end them")
+    void listAndRevokeShareLinks_ShouldUseRegistry() throws Exception {
+        CreateShareLinkRequest request = new CreateShareLinkRequest();
+        request.setPath(uploadedFilePath);
+        request.setExpirationDays(7);
+        String[] tokens = new String[3];
+        for (int i = 0; i < tokens.length; i++) {
+            String responseContent = mockMvc.perform(post("/api/v1/share")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(objectMapper.writeValueAsString(request))
+                            .header("Authorization", "Bearer " + authToken))
+                    .andExpect(status().isOk())
+                    .andReturn()
+                    .getResponse()
+                    .getContentAsString();
+            String shareLink = objectMapper.readTree(responseContent).get("link").asText();
+            tokens[i] = shareLink.substring(shareLink.lastIndexOf("/") + 1);
+        }
+
+        String firstPage = mockMvc.perform(get("/api/v1/share").param("limit", "2")
+                        .header("Authorization", "Bearer " + authToken))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.links.length()", is(2)))
+                .andExpect(jsonPath("$.links[0].path", is(uploadedFilePath)))
+                .andExpect(jsonPath("$.nextCursor").exists())
+                .andReturn()
+                .getResponse()
+                .getContentAsString();
+        long newestId = objectMapper.readTree(firstPage).get("links").get(0).get("id").asLong();
+        long cursor = objectMapper.readTree(firstPage).get("nextCursor").asLong();
+
+        mockMvc.perform(get("/api/v1/share").param("limit", "2").param("cursor", String.valueOf(cursor))
+                        .header("Authorization", "Bearer " + authToken))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.links.length()", is(1)))
+                .andExpect(jsonPath("$.nextCursor").doesNotExist());
+
+        // the newest link is the last one created
+        mockMvc.perform(delete("/api/v1/share/links/" + newestId)
+                        .header("Authorization", "Bearer " + authToken))
+                .andExpect(status().isNoContent());
+        mockMvc.perform(get("/api/v1/share/" + tokens[2]))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/v1/share/" + tokens[0]))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(delete("/api/v1/share").param("path", uploadedFilePath)
+                        .header("Authorization", "Bearer " + authToken))
+                .andExpect(status().isNoContent());
+        mockMvc.perform(get("/api/v1/share/" + tokens[0]))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/v1/share").header("Authorization", "Bearer " + authToken))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.links.length()", is(0)));
+    }
+
+    @Test
+    @DisplayName("GET /api/v1/share/links/{id}/stats and /files/stats should report flushed downloads")
+    void shareStats_ShouldReportDownloads_AfterFlush() throws Exception {
+        CreateShareLinkRequest request = new CreateShareLinkRequest();
+        request.setPath(uploadedFilePath);
+        request.setExpirationDays(7);
+        String responseContent = mockMvc.perform(post("/api/v1/share")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request))
+                        .header("Authorization", "Bearer " + authToken))
+                .andExpect(status().isOk())
+                .andReturn()
+                .getResponse()
+                .getContentAsString();
+        String shareLink = objectMapper.readTree(responseContent).get("link").asText();
+        String shareToken = shareLink.substring(shareLink.lastIndexOf("/") + 1);
+
+        for (int i = 0; i < 2; i++) {
+            mockMvc.perform(get("/api/v1/share/" + shareToken))
+                    .andExpect(status().isOk());
+        }
+        shareDownloadStats.flush();
+
+        String page = mockMvc.perform(get("/api/v1/share").header("Authorization", "Bearer " + authToken))
+                .andExpect(status().isOk())
+                .andReturn()
+                .getResponse()
+                .getContentAsString();
+        long id = objectMapper.readTree(page).get("links").get(0).get("id").asLong();
+
+        mockMvc.perform(get("/api/v1/share/links/" + id + "/stats").header("Authorization", "Bearer " + authToken))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.downloads", is(2)))
+                .andExpect(jsonPath("$.bytesServed", is(2 * "This is a test file for sharing".length())))
+                .andExpect(jsonPath("$.uniqueRecipients", is(1)));
+        mockMvc.perform(get("/api/v1/share/files/stats").param("path", uploadedFilePath)
+                        .header("Authorization", "Bearer " + authToken))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.downloads", is(2)));
+        mockMvc.perform(get("/api/v1/share/files/stats").param("path", uploadedFilePath))
+                .andExpect(status().isUnauthorized());
+    }
+
+    @Test
+    @DisplayName("POST /api/v1/share/bulk should create one downloadable link per path and recipient")
+    void createShareLinks_ShouldCreateDownloadableLinks() throws Exception {
+        BulkShareLinkRequest request = new BulkShareLinkRequest();
+        request.setPaths(List.of(uploadedFilePath));
+        request.setRecipientPhones(List.of("+966500000001", "+966500000002"));
+        request.setExpirationDays(7);
+
+        mockMvc.perform(post("/api/v1/share/bulk")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isUnauthorized());
+
+        String responseContent = mockMvc.perform(post("/api/v1/share/bulk")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request))
+                        .header("Authorization", "Bearer " + authToken))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.links.length()", is(2)))
+                .andExpect(jsonPath("$.links[1].recipientPhone", is("+966500000002")))
+                .andReturn()
+                .getResponse()
+                .getContentAsString();
+
+        for (var link : objectMapper.readTree(responseContent).get("links")) {
+            String shareLink = link.get("link").asText();
+            mockMvc.perform(get("/api/v1/share/" + shareLink.substring(shareLink.lastIndexOf("/") + 1)))
+                    .andExpect(status().isOk());
+        }
+    }
+
+    @Test
+    @DisplayName("GET /api/v1/share/{token} should carry cache headers and answer a conditional GET with an uncounted 304")
+    void downloadShareLink_ShouldSupportConditionalGet() throws Exception {
+        CreateShareLinkRequest request = new CreateShareLinkRequest();
+        request.setPath(uploadedFilePath);
+        request.setExpirationDays(7);
+        String responseContent = mockMvc.perform(post("/api/v1/share")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request))
+                        .header("Authorization", "Bearer " + authToken))
+                .andExpect(status().isOk())
+                .andReturn()
+                .getResponse()
+                .getContentAsString();
+        String shareLink = objectMapper.readTree(responseContent).get("link").asText();
+        String shareToken = shareLink.substring(shareLink.lastIndexOf("/") + 1);
+
+        // the first download of a version goes out before its hash is known, with Last-Modified only
+        String lastModified = mockMvc.perform(get("/api/v1/share/" + shareToken))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Cache-Control", "no-cache"))
+                .andExpect(header().string("Vary", containsString("Accept-Encoding")))
+                .andReturn()
+                .getResponse()
+                .getHeader("Last-Modified");
+
+        mockMvc.perform(get("/api/v1/share/" + shareToken).header("If-Modified-Since", lastModified))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string("Last-Modified", lastModified))
+                .andExpect(content().string(""));
+        shareDownloadStats.flush();
+        String page = mockMvc.perform(get("/api/v1/share").header("Authorization", "Bearer " + authToken))
+                .andExpect(status().isOk())
+                .andReturn()
+                .getResponse()
+                .getContentAsString();
+        long id = objectMapper.readTree(page).get("links").get(0).get("id").asLong();
+        mockMvc.perform(get("/api/v1/share/links/" + id + "/stats").header("Authorization", "Bearer " + authToken))
+                .andExpect(jsonPath("$.downloads", is(1)));
+        mockMvc.perform(get("/api/v1/share/content/unknown-key"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.errorCode", is(ErrorCode.SHARE_LINK_EXPIRED.getCode())));
+    }
+
+    @Test
+    @DisplayName("GET /api/v1/share/{token}/files should list and serve files of a shared folder")
+    void sharedFolder_ShouldListAndServeFilesUnderIt() throws Exception {
+        MockMultipartFile file = new MockMultipartFile("files", "jan.txt", MediaType.TEXT_PLAIN_VALUE,
+                "January report".getBytes());
+        mockMvc.perform(multipart("/api/v1/files")
+                        .file(file)
+                        .param("path", "reports/2025")
+                        .header("Authorization", "Bearer " + authToken))
+                .andExpect(status().isCreated());
+        CreateShareLinkRequest request = new CreateShareLinkRequest();
+        request.setPath("reports");
+        request.setExpirationDays(7);
+        String shareLink = objectMapper.readTree(mockMvc.perform(post("/api/v1/share")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request))
+                        .header("Authorization", "Bearer " + authToken))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString()).get("link").asText();
+        String shareToken = shareLink.substring(shareLink.lastIndexOf("/") + 1);
+
+        mockMvc.perform(get("/api/v1/share/" + shareToken + "/files").param("path", "2025"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].name", is("jan.txt")));
+        mockMvc.perform(get("/api/v1/share/" + shareToken + "/files/download").param("path", "2025/jan.txt"))
+                .andExpect(status().isOk())
+                .andExpect(content().string("January report"));
+        // the token grants the folder only, not the rest of the owner's files
+        mockMvc.perform(get("/api/v1/share/" + shareToken + "/files/download").param("path", "../" + uploadedFilePath))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @DisplayName("GET /api/v1/share/{token} should stop serving a link after its last download, not counting 304s")
+    void downloadShareLink_ShouldHonourMaxDownloads() throws Exception {
+        CreateShareLinkRequest request = new CreateShareLinkRequest();
+        request.setPath(uploadedFilePath);
+        request.setMaxDownloads(2);
+        String shareLink = objectMapper.readTree(mockMvc.perform(post("/api/v1/share")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request))
+                        .header("Authorization", "Bearer " + authToken))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString()).get("link").asText();
+        String shareToken = shareLink.substring(shareLink.lastIndexOf("/") + 1);
+
+        String lastModified = mockMvc.perform(get("/api/v1/share/" + shareToken))
+                .andExpect(status().isOk())
+                .andReturn()
+                .getResponse()
+                .getHeader("Last-Modified");
+        mockMvc.perform(get("/api/v1/share/" + shareToken).header("If-Modified-Since", lastModified))
+                .andExpect(status().isNotModified());
+        mockMvc.perform(get("/api/v1/share/" + shareToken))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/api/v1/share/" + shareToken))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.errorCode", is(ErrorCode.SHARE_LINK_EXPIRED.getCode())));
+    }
+
     @Test
     @DisplayName("GET /api/v1/share/{token} should return 400 when token is invalid/expired")
     void downloadShareLink_ShouldReturnBadRequest_WhenInvalidToken() throws Exception {
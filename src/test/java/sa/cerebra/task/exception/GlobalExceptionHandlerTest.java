@@ -20,6 +20,7 @@ import org.springframework.web.bind.ServletRequestBindingException;
 import org.springframework.web.multipart.support.MissingServletRequestPartException;
 
 import java.util.*;
+import java.util.concurrent.CompletionException;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -76,6 +77,24 @@ class GlobalExceptionHandlerTest {
         assertEquals(errorCode.getCode(), body.get("errorCode"));
     }
 
+    @Test
+    void handleCompletionException_ShouldAnswerAsWrappedCerebraException() {
+        // Given
+        CompletionException wrapped = new CompletionException(new CerebraException(ErrorCode.TOO_MANY_REQUESTS));
+
+        // When
+        ResponseEntity<Object> response = globalExceptionHandler.handleCompletionException(wrapped);
+        ResponseEntity<Object> other = globalExceptionHandler.handleCompletionException(
+                new CompletionException(new IllegalStateException("cache down")));
+
+        // Then
+        assertEquals(HttpStatus.TOO_MANY_REQUESTS, response.getStatusCode());
+        @SuppressWarnings("unchecked")
+        Map<String, Object> body = (Map<String, Object>) response.getBody();
+        assertEquals(ErrorCode.TOO_MANY_REQUESTS.getCode(), body.get("errorCode"));
+        assertEquals(HttpStatus.INTERNAL_SERVER_ERROR, other.getStatusCode());
+    }
+
     @Test
     void handleCerebraException_ShouldReturnBadRequest_WhenCerebraExceptionWithDefaultMessage() {
         // Given
@@ -114,6 +133,18 @@ class GlobalExceptionHandlerTest {
         assertEquals(ErrorCode.INTERNAL_ERROR.getCode(), body.get("errorCode"));
     }
 
+    @Test
+    void handleCerebraException_ShouldReturnTooManyRequests_WhenRateLimited() {
+        // Given
+        CerebraException cerebraException = new CerebraException(ErrorCode.TOO_MANY_REQUESTS);
+
+        // When
+        ResponseEntity<Object> response = globalExceptionHandler.handleCerebraException(cerebraException);
+
+        // Then
+        assertEquals(HttpStatus.TOO_MANY_REQUESTS, response.getStatusCode());
+    }
+
     @Test
     void handleValidationExceptions_ShouldReturnBadRequest_WhenMethodArgumentNotValidExceptionThrown() {
         // Given
@@ -388,7 +419,8 @@ class GlobalExceptionHandlerTest {
             ResponseEntity<Object> response = globalExceptionHandler.handleCerebraException(cerebraException);
             
             // Then
-            assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+            HttpStatus expected = errorCode == ErrorCode.TOO_MANY_REQUESTS ? HttpStatus.TOO_MANY_REQUESTS : HttpStatus.BAD_REQUEST;
+            assertEquals(expected, response.getStatusCode());
             assertNotNull(response.getBody());
             
             @SuppressWarnings("unchecked")
@@ -0,0 +1,130 @@
+package sa.cerebra.task.filter;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.FilterChain;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.context.SecurityContextHolder;
+import sa.cerebra.task.config.Configs;
+import sa.cerebra.task.entity.User;
+import sa.cerebra.task.helper.JwtHelper;
+import sa.cerebra.task.repository.UserRepository;
+import sa.cerebra.task.security.AuthHelper;
+
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class JwtFilterTest {
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private FilterChain chain;
+
+    private JwtHelper jwtHelper;
+    private JwtFilter jwtFilter;
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        jwtHelper = new JwtHelper(new Configs());
+        jwtFilter = new JwtFilter(jwtHelper, userRepository, new ObjectMapper());
+        user = new User();
+        user.setId(42L);
+        user.setPhone("+966500000000");
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    private MockHttpServletRequest requestWithToken(String token) {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addHeader("Authorization", "Bearer " + token);
+        return request;
+    }
+
+    @Test
+    void doFilter_ShouldBuildPrincipalFromClaims_WithoutLoadingUser() throws Exception {
+        // Given
+        MockHttpServletRequest request = requestWithToken(jwtHelper.generateToken(user));
+
+        // When
+        jwtFilter.doFilter(request, new MockHttpServletResponse(), chain);
+
+        // Then
+        User principal = AuthHelper.getCurrentUser();
+        assertEquals(42L, principal.getId());
+        assertEquals("+966500000000", principal.getPhone());
+        verifyNoInteractions(userRepository);
+        verify(chain).doFilter(any(), any());
+    }
+
+    @Test
+    void doFilter_ShouldLoadUser_WhenTokenHasNoPhoneClaim() throws Exception {
+        // Given
+        when(userRepository.findById(42L)).thenReturn(Optional.of(user));
+        MockHttpServletRequest request = requestWithToken(jwtHelper.generateToken(42L));
+
+        // When
+        jwtFilter.doFilter(request, new MockHttpServletResponse(), chain);
+
+        // Then
+        assertSame(user, AuthHelper.getCurrentUser());
+        verify(userRepository).findById(42L);
+    }
+
+    @Test
+    void doFilter_ShouldReturnUnauthorized_WhenTokenExpired() throws Exception {
+        // Given
+        MockHttpServletRequest request = requestWithToken(jwtHelper.generateToken(42L, -1_000L));
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        // When
+        jwtFilter.doFilter(request, response, chain);
+
+        // Then
+        assertEquals(401, response.getStatus());
+        assertTrue(response.getContentAsString().contains("Token expired"));
+        verifyNoInteractions(chain, userRepository);
+    }
+
+    @Test
+    void doFilter_ShouldReturnUnauthorized_WhenTokenInvalid() throws Exception {
+        // Given
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        // When
+        jwtFilter.doFilter(requestWithToken("not-a-jwt"), response, chain);
+
+        // Then
+        assertEquals(401, response.getStatus());
+        assertTrue(response.getContentAsString().contains("Invalid token"));
+        verifyNoInteractions(chain, userRepository);
+    }
+
+    @Test
+    void doFilter_ShouldPassThrough_WhenNoToken() throws Exception {
+        // When
+        jwtFilter.doFilter(new MockHttpServletRequest(), new MockHttpServletResponse(), chain);
+
+        // Then
+        assertNull(SecurityContextHolder.getContext().getAuthentication());
+        verify(chain).doFilter(any(), any());
+    }
+}
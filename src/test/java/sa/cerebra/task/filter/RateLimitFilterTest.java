@@ -0,0 +1,91 @@
+package sa.cerebra.task.filter;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.FilterChain;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import sa.cerebra.task.ratelimit.LoginRateLimiter;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class RateLimitFilterTest {
+
+    @Mock
+    private LoginRateLimiter loginRateLimiter;
+
+    @Mock
+    private FilterChain chain;
+
+    private RateLimitFilter rateLimitFilter;
+
+    @BeforeEach
+    void setUp() {
+        rateLimitFilter = new RateLimitFilter(loginRateLimiter, new ObjectMapper());
+        when(loginRateLimiter.clientWindow()).thenReturn(Duration.ofMinutes(10));
+    }
+
+    private static MockHttpServletRequest loginRequest() {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", RateLimitFilter.LOGIN_PATH);
+        request.setServletPath(RateLimitFilter.LOGIN_PATH);
+        request.setRemoteAddr("10.0.0.1");
+        return request;
+    }
+
+    @Test
+    void doFilter_ShouldPassLogin_WhenUnderLimit() throws Exception {
+        // Given
+        when(loginRateLimiter.tryAcquireForClient("10.0.0.1")).thenReturn(true);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        // When
+        rateLimitFilter.doFilter(loginRequest(), response, chain);
+
+        // Then
+        verify(chain).doFilter(any(), any());
+        assertEquals(200, response.getStatus());
+    }
+
+    @Test
+    void doFilter_ShouldReturn429_WhenClientIsRateLimited() throws Exception {
+        // Given
+        when(loginRateLimiter.tryAcquireForClient("10.0.0.1")).thenReturn(false);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        // When
+        rateLimitFilter.doFilter(loginRequest(), response, chain);
+
+        // Then
+        verifyNoInteractions(chain);
+        assertEquals(429, response.getStatus());
+        assertEquals("600", response.getHeader("Retry-After"));
+        assertTrue(response.getContentAsString().contains("TOO_MANY_REQUESTS"));
+    }
+
+    @Test
+    void doFilter_ShouldSkipOtherEndpoints() throws Exception {
+        // Given
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/v1/auth/validate-otp");
+        request.setServletPath("/api/v1/auth/validate-otp");
+
+        // When
+        rateLimitFilter.doFilter(request, new MockHttpServletResponse(), chain);
+
+        // Then
+        verify(chain).doFilter(any(), any());
+        verify(loginRateLimiter, never()).tryAcquireForClient(anyString());
+    }
+}
@@ -0,0 +1,113 @@
+package sa.cerebra.task.helper;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HyperLogLogTest {
+
+    @Test
+    void estimate_ShouldBeExact_ForSmallCounts() {
+        // Given
+        HyperLogLog sketch = new HyperLogLog();
+
+        // When
+        for (int i = 0; i < 20; i++) {
+            sketch.add("10.0.0." + i);
+            sketch.add("10.0.0." + i);
+        }
+
+        // Then
+        assertEquals(0, new HyperLogLog().estimate());
+        assertEquals(20, sketch.estimate(), 1);
+    }
+
+    @Test
+    void estimate_ShouldStayWithinTenPercent_ForLargeCounts() {
+        // Given
+        HyperLogLog sketch = new HyperLogLog();
+
+        // When
+        for (int i = 0; i < 100_000; i++) {
+            sketch.add("recipient-" + i);
+        }
+
+        // Then
+        assertEquals(100_000, sketch.estimate(), 10_000);
+    }
+
+    @Test
+    void add_ShouldReportChange_OnlyWhenARegisterGrows() {
+        // Given
+        HyperLogLog sketch = new HyperLogLog();
+
+        // When / Then
+        assertTrue(sketch.add("10.0.0.1"));
+        assertFalse(sketch.add("10.0.0.1"));
+    }
+
+    @Test
+    void merge_ShouldEstimateUnion_AndBeIdempotent() {
+        // Given
+        HyperLogLog first = new HyperLogLog();
+        HyperLogLog second = new HyperLogLog();
+        for (int i = 0; i < 5_000; i++) {
+            first.add("a-" + i);
+            second.add("b-" + i);
+        }
+
+        // When
+        HyperLogLog union = HyperLogLog.fromBytes(first.toBytes());
+        union.merge(second.toBytes());
+        union.merge(second.toBytes());
+
+        // Then
+        assertEquals(10_000, union.estimate(), 1_000);
+        assertArrayEquals(union.toBytes(), HyperLogLog.fromBytes(union.toBytes()).toBytes());
+    }
+
+    @Test
+    void merge_ShouldIgnoreMissingOrMalformedRegisters() {
+        // Given
+        HyperLogLog sketch = new HyperLogLog();
+        sketch.add("10.0.0.1");
+        byte[] before = sketch.toBytes();
+
+        // When
+        sketch.merge(null);
+        sketch.merge(new byte[3]);
+
+        // Then
+        assertArrayEquals(before, sketch.toBytes());
+    }
+
+    @Test
+    void add_ShouldNotLoseUpdates_UnderConcurrency() throws Exception {
+        // Given
+        HyperLogLog concurrent = new HyperLogLog();
+        HyperLogLog sequential = new HyperLogLog();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+
+        // When
+        for (int t = 0; t < 8; t++) {
+            int thread = t;
+            executor.execute(() -> {
+                for (int i = 0; i < 10_000; i++) {
+                    concurrent.add("r-" + (i * 8 + thread));
+                }
+            });
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+        for (int i = 0; i < 80_000; i++) {
+            sequential.add("r-" + i);
+        }
+
+        // Then
+        assertArrayEquals(sequential.toBytes(), concurrent.toBytes());
+    }
+}
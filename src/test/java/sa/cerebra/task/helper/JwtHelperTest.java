@@ -12,6 +12,7 @@ import org.mockito.junit.jupiter.MockitoExtension;
 import org.mockito.junit.jupiter.MockitoSettings;
 import org.mockito.quality.Strictness;
 import sa.cerebra.task.config.Configs;
+import sa.cerebra.task.entity.User;
 
 import javax.crypto.SecretKey;
 
@@ -133,4 +134,119 @@ class JwtHelperTest {
         // When/Then
         assertTrue(jwtHelper.isTokenExpired(tokenSignedWithOtherKey));
     }
+
+    @Test
+    void verify_ShouldReturnClaims_ForValidToken() {
+        // Given
+        String token = jwtHelper.generateToken(42L);
+
+        // When
+        JwtVerification verification = jwtHelper.verify(token);
+
+        // Then
+        assertTrue(verification.isValid());
+        assertEquals(JwtVerification.Status.VALID, verification.status());
+        assertEquals("42", verification.subject());
+        assertNotNull(verification.claims().getExpiration());
+    }
+
+    @Test
+    void verify_ShouldReturnExpired_WhenTokenIsExpired() {
+        // Given
+        String token = jwtHelper.generateToken(42L, -1_000L);
+
+        // When
+        JwtVerification verification = jwtHelper.verify(token);
+
+        // Then
+        assertEquals(JwtVerification.Status.EXPIRED, verification.status());
+        assertNull(verification.subject());
+    }
+
+    @Test
+    void verify_ShouldReturnInvalid_WhenTokenIsTamperedOrMalformed() {
+        // Given
+        String token = jwtHelper.generateToken(42L);
+        String tampered = token.substring(0, token.length() - 2) + "aa";
+
+        // Then
+        assertEquals(JwtVerification.Status.INVALID, jwtHelper.verify(tampered).status());
+        assertEquals(JwtVerification.Status.INVALID, jwtHelper.verify("not-a-jwt").status());
+        assertEquals(JwtVerification.Status.INVALID, jwtHelper.verify("").status());
+    }
+
+    @Test
+    void verify_ShouldNotReadSigningKeyAgain_AfterConstruction() {
+        // Given
+        String token = jwtHelper.generateToken(42L);
+        clearInvocations(configs);
+
+        // When
+        jwtHelper.verify(token);
+        jwtHelper.verify(token);
+
+        // Then
+        verify(configs, never()).getSigningKey();
+    }
+
+    @Test
+    void generateToken_ShouldCarryPhoneClaim_WhenIssuedForUser() {
+        // Given
+        User user = new User();
+        user.setId(42L);
+        user.setPhone("+966500000000");
+
+        // When
+        JwtVerification verification = jwtHelper.verify(jwtHelper.generateToken(user));
+
+        // Then
+        assertTrue(verification.isValid());
+        assertEquals("42", verification.subject());
+        assertEquals("+966500000000", verification.claims().get(JwtHelper.PHONE_CLAIM, String.class));
+    }
+
+    @Test
+    void verify_ShouldServeRepeatedTokenFromCache_WhenCacheEnabled() {
+        // Given
+        JwtHelper cachingHelper = new JwtHelper(configs, 100);
+        String token = cachingHelper.generateToken(42L);
+
+        // When
+        JwtVerification first = cachingHelper.verify(token);
+        JwtVerification second = cachingHelper.verify(token);
+
+        // Then
+        assertTrue(first.isValid());
+        assertSame(first, second);
+    }
+
+    @Test
+    void verify_ShouldNotCacheRejectedTokens() {
+        // Given
+        JwtHelper cachingHelper = new JwtHelper(configs, 100);
+        String token = cachingHelper.generateToken(42L);
+        String tampered = token.substring(0, token.length() - 2) + "aa";
+        cachingHelper.verify(token);
+
+        // Then
+        assertEquals(JwtVerification.Status.INVALID, cachingHelper.verify(tampered).status());
+        assertEquals(JwtVerification.Status.INVALID, cachingHelper.verify(tampered).status());
+        assertEquals(JwtVerification.Status.EXPIRED, cachingHelper.verify(cachingHelper.generateToken(42L, -1_000L)).status());
+    }
+
+    @Test
+    void verify_ShouldNotServeCachedToken_AfterItExpires() throws InterruptedException {
+        // Given (exp has second precision, so this token expires within 0.1-1.1 seconds)
+        JwtHelper cachingHelper = new JwtHelper(configs, 100);
+        String token = cachingHelper.generateToken(42L, 1_100L);
+        JwtVerification first = cachingHelper.verify(token);
+        assertTrue(first.isValid());
+
+        // When
+        long waitMillis = first.claims().getExpiration().getTime() - System.currentTimeMillis() + 50;
+        Thread.sleep(Math.max(waitMillis, 0));
+
+        // Then
+        assertEquals(JwtVerification.Status.EXPIRED, cachingHelper.verify(token).status());
+    }
 }
@@ -0,0 +1,201 @@
+package sa.cerebra.task.helper;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Jwks;
+import io.jsonwebtoken.security.PrivateJwk;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import sa.cerebra.task.config.Configs;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.spec.ECGenParameterSpec;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JwtKeyRingTest {
+
+    @TempDir
+    Path tempDir;
+
+    private final Configs configs = new Configs();
+
+    private JwtKeyRing generated(JwtKeyRing.Algorithm algorithm) {
+        return new JwtKeyRing(configs, algorithm, "", "", Duration.ofDays(1));
+    }
+
+    private static String header(String token) {
+        return new String(Base64.getUrlDecoder().decode(token.substring(0, token.indexOf('.'))));
+    }
+
+    @Test
+    void hmac_ShouldSignWithoutKid_AndPublishNoKeys() {
+        // Given
+        JwtKeyRing keyRing = JwtKeyRing.hmac(configs);
+        JwtHelper jwtHelper = new JwtHelper(configs, keyRing, 0);
+
+        // When
+        String token = jwtHelper.generateToken(42L);
+
+        // Then
+        assertTrue(header(token).contains("\"HS256\""));
+        assertFalse(header(token).contains("kid"));
+        assertTrue(jwtHelper.verify(token).isValid());
+        assertEquals(List.of(), keyRing.jwks().get("keys"));
+    }
+
+    @Test
+    void es256_ShouldSignWithKid_AndVerify() {
+        // Given
+        JwtKeyRing keyRing = generated(JwtKeyRing.Algorithm.ES256);
+        JwtHelper jwtHelper = new JwtHelper(configs, keyRing, 0);
+
+        // When
+        String token = jwtHelper.generateToken(42L);
+
+        // Then
+        assertTrue(header(token).contains("\"ES256\""));
+        assertTrue(header(token).contains("\"kid\":\"" + keyRing.signingKid() + "\""));
+        JwtVerification verification = jwtHelper.verify(token);
+        assertTrue(verification.isValid());
+        assertEquals("42", verification.subject());
+    }
+
+    @Test
+    void eddsa_ShouldSignWithKid_AndVerify() {
+        // Given
+        JwtKeyRing keyRing = generated(JwtKeyRing.Algorithm.EdDSA);
+        JwtHelper jwtHelper = new JwtHelper(configs, keyRing, 0);
+
+        // When
+        String token = jwtHelper.generateToken(42L);
+
+        // Then
+        assertTrue(header(token).contains("\"EdDSA\""));
+        assertTrue(jwtHelper.verify(token).isValid());
+    }
+
+    @Test
+    void rotate_ShouldKeepVerifyingTokensSignedByRetiredKey() {
+        // Given
+        JwtKeyRing keyRing = generated(JwtKeyRing.Algorithm.ES256);
+        JwtHelper jwtHelper = new JwtHelper(configs, keyRing, 0);
+        String oldKid = keyRing.signingKid();
+        String oldToken = jwtHelper.generateToken(1L);
+
+        // When
+        keyRing.rotate();
+        String newToken = jwtHelper.generateToken(2L);
+
+        // Then
+        assertNotEquals(oldKid, keyRing.signingKid());
+        assertTrue(jwtHelper.verify(oldToken).isValid());
+        assertTrue(jwtHelper.verify(newToken).isValid());
+        List<?> keys = (List<?>) keyRing.jwks().get("keys");
+        assertEquals(2, keys.size());
+    }
+
+    @Test
+    void rotate_ShouldDropRetiredKey_AfterRetention() {
+        // Given a token lifetime of zero, so a retired key is only kept for the one minute margin
+        Configs shortLived = new Configs() {
+            @Override
+            public long getAccessTokenExpiration() {
+                return -Duration.ofMinutes(1).toMillis();
+            }
+        };
+        JwtKeyRing keyRing = new JwtKeyRing(shortLived, JwtKeyRing.Algorithm.ES256, "", "", Duration.ofDays(1));
+        JwtHelper jwtHelper = new JwtHelper(shortLived, keyRing, 0);
+        String oldToken = jwtHelper.generateToken(1L, 60_000L);
+
+        // When
+        keyRing.rotate();
+
+        // Then
+        assertEquals(JwtVerification.Status.INVALID, jwtHelper.verify(oldToken).status());
+        assertEquals(1, ((List<?>) keyRing.jwks().get("keys")).size());
+    }
+
+    @Test
+    void verify_ShouldRejectHmacToken_WhenRingIsAsymmetric() {
+        // Given
+        JwtHelper asymmetric = new JwtHelper(configs, generated(JwtKeyRing.Algorithm.ES256), 0);
+        String hmacToken = new JwtHelper(configs).generateToken(42L);
+
+        // Then
+        assertEquals(JwtVerification.Status.INVALID, asymmetric.verify(hmacToken).status());
+    }
+
+    @Test
+    void verify_ShouldRejectToken_FromAnotherKeyRing() {
+        // Given
+        JwtHelper jwtHelper = new JwtHelper(configs, generated(JwtKeyRing.Algorithm.ES256), 0);
+        String foreignToken = new JwtHelper(configs, generated(JwtKeyRing.Algorithm.ES256), 0).generateToken(42L);
+
+        // Then
+        assertEquals(JwtVerification.Status.INVALID, jwtHelper.verify(foreignToken).status());
+    }
+
+    @Test
+    void jwks_ShouldPublishOnlyPublicParameters() throws Exception {
+        // Given
+        JwtKeyRing keyRing = generated(JwtKeyRing.Algorithm.ES256);
+
+        // When
+        String json = new ObjectMapper().writeValueAsString(keyRing.jwks());
+
+        // Then
+        Map<?, ?> jwk = (Map<?, ?>) ((List<?>) new ObjectMapper().readValue(json, Map.class).get("keys")).get(0);
+        assertEquals("EC", jwk.get("kty"));
+        assertEquals("P-256", jwk.get("crv"));
+        assertEquals(keyRing.signingKid(), jwk.get("kid"));
+        assertNotNull(jwk.get("x"));
+        assertNull(jwk.get("d"));
+    }
+
+    @Test
+    void keySetFile_ShouldSignWithActiveKid_AndReloadWhenChanged() throws Exception {
+        // Given
+        Path keySet = tempDir.resolve("jwks.json");
+        writeKeySet(keySet, "k1", "k2");
+        JwtKeyRing keyRing = new JwtKeyRing(configs, JwtKeyRing.Algorithm.ES256, keySet.toString(), "k2", Duration.ofDays(1));
+        JwtHelper jwtHelper = new JwtHelper(configs, keyRing, 0);
+
+        // When
+        String token = jwtHelper.generateToken(42L);
+
+        // Then
+        assertEquals("k2", keyRing.signingKid());
+        assertTrue(jwtHelper.verify(token).isValid());
+        assertEquals(2, ((List<?>) keyRing.jwks().get("keys")).size());
+
+        // When the file is replaced with freshly generated keys
+        writeKeySet(keySet, "k2", "k3");
+        Files.setLastModifiedTime(keySet, FileTime.fromMillis(System.currentTimeMillis() + 10_000));
+        keyRing.refresh();
+
+        // Then tokens signed by the replaced key are rejected
+        assertEquals("k2", keyRing.signingKid());
+        assertEquals(JwtVerification.Status.INVALID, jwtHelper.verify(token).status());
+    }
+
+    private static void writeKeySet(Path path, String... kids) throws Exception {
+        StringBuilder json = new StringBuilder("{\"keys\":[");
+        for (int i = 0; i < kids.length; i++) {
+            KeyPairGenerator generator = KeyPairGenerator.getInstance("EC");
+            generator.initialize(new ECGenParameterSpec("secp256r1"));
+            KeyPair keyPair = generator.generateKeyPair();
+            PrivateJwk<?, ?, ?> jwk = Jwks.builder().keyPair(keyPair).id(kids[i]).build();
+            json.append(i == 0 ? "" : ",").append(Jwks.UNSAFE_JSON(jwk));
+        }
+        Files.writeString(path, json.append("]}"));
+    }
+}
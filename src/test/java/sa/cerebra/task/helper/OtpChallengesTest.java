@@ -0,0 +1,88 @@
+package sa.cerebra.task.helper;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import sa.cerebra.task.config.Configs;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OtpChallengesTest {
+
+    private static final String PHONE = "+966500000000";
+
+    private OtpChallenges challenges;
+
+    @BeforeEach
+    void setUp() {
+        challenges = new OtpChallenges(new Configs(), new OtpGenerator(6, 1), "stateless");
+    }
+
+    @Test
+    void verify_ShouldReturnNonce_ForMatchingPhoneAndOtp() {
+        // Given
+        String challenge = challenges.issue(PHONE, "123456");
+
+        // When
+        String nonce = challenges.verify(PHONE, "123456", challenge);
+
+        // Then
+        assertTrue(challenges.isEnabled());
+        assertNotNull(nonce);
+        assertEquals(challenge.split("\\.")[1], nonce);
+    }
+
+    @Test
+    void verify_ShouldReject_WrongOtpOrPhone() {
+        // Given
+        String challenge = challenges.issue(PHONE, "123456");
+
+        // When / Then
+        assertNull(challenges.verify(PHONE, "123457", challenge));
+        assertNull(challenges.verify("+966500000001", "123456", challenge));
+    }
+
+    @Test
+    void verify_ShouldReject_TamperedOrMalformedChallenge() {
+        // Given
+        String challenge = challenges.issue(PHONE, "123456");
+        String[] parts = challenge.split("\\.");
+        String extended = (Long.parseLong(parts[0]) + 3600) + "." + parts[1] + "." + parts[2];
+
+        // When / Then
+        assertNull(challenges.verify(PHONE, "123456", extended));
+        assertNull(challenges.verify(PHONE, "123456", "not-a-challenge"));
+        assertNull(challenges.verify(PHONE, "123456", "x.y.%%%"));
+        assertNull(challenges.verify(PHONE, "123456", null));
+        assertNull(challenges.verify(PHONE, "123456|", challenge));
+    }
+
+    @Test
+    void verify_ShouldReject_ExpiredChallenge() {
+        // Given: OTPs that expire immediately
+        OtpChallenges expiring = new OtpChallenges(new Configs(), new OtpGenerator(6, 0), "stateless");
+        String challenge = expiring.issue(PHONE, "123456");
+
+        // When / Then
+        assertNull(expiring.verify(PHONE, "123456", challenge));
+    }
+
+    @Test
+    void verify_ShouldReject_ChallengeSignedWithAnotherKey() {
+        // Given
+        Configs otherConfigs = new Configs() {
+            @Override
+            public String getSigningKey() {
+                return "another-256-bit-secret-another-256-bit-secret";
+            }
+        };
+        String foreign = new OtpChallenges(otherConfigs, new OtpGenerator(6, 1), "stateless").issue(PHONE, "123456");
+
+        // When / Then
+        assertNull(challenges.verify(PHONE, "123456", foreign));
+    }
+
+    @Test
+    void isEnabled_ShouldBeFalse_InCacheMode() {
+        assertFalse(new OtpChallenges(new Configs(), new OtpGenerator(6, 1), "cache").isEnabled());
+    }
+}
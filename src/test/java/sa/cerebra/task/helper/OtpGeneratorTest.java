@@ -0,0 +1,113 @@
+package sa.cerebra.task.helper;
+
+import org.junit.jupiter.api.Test;
+
+import java.security.SecureRandom;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OtpGeneratorTest {
+
+    @Test
+    void generate_ShouldUseConfiguredLength() {
+        // Given
+        OtpGenerator generator = new OtpGenerator(8, 5);
+
+        // When
+        String otp = generator.generate();
+
+        // Then
+        assertTrue(otp.matches("\\d{8}"), "unexpected OTP " + otp);
+        assertEquals(5, generator.expiryMinutes());
+    }
+
+    @Test
+    void generate_ShouldKeepLeadingZeros() {
+        // Given: a source that always draws 42
+        OtpGenerator generator = new OtpGenerator(6, 1, () -> new Random() {
+            @Override
+            public long nextLong(long bound) {
+                return 42;
+            }
+        });
+
+        // When / Then
+        assertEquals("000042", generator.generate());
+    }
+
+    @Test
+    void generate_ShouldDrawFromOneSourcePerThread() throws InterruptedException {
+        // Given
+        AtomicInteger sources = new AtomicInteger();
+        OtpGenerator generator = new OtpGenerator(6, 1, () -> {
+            sources.incrementAndGet();
+            return new Random();
+        });
+        Set<String> otps = ConcurrentHashMap.newKeySet();
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+
+        // When
+        for (int i = 0; i < 400; i++) {
+            executor.execute(() -> otps.add(generator.generate()));
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+
+        // Then
+        assertTrue(sources.get() <= 4);
+        assertTrue(otps.size() > 300);
+    }
+
+    @Test
+    void generate_ShouldSupportMaximumLength() {
+        // Given
+        OtpGenerator generator = new OtpGenerator(18, 1);
+        Set<Character> firstDigits = new HashSet<>();
+
+        // When
+        for (int i = 0; i < 200; i++) {
+            String otp = generator.generate();
+            assertTrue(otp.matches("\\d{18}"));
+            firstDigits.add(otp.charAt(0));
+        }
+
+        // Then
+        assertTrue(firstDigits.size() > 5);
+    }
+
+    @Test
+    void bufferedSecureRandom_ShouldRefillWholeBuffer_OnlyWhenDrained() {
+        // Given
+        AtomicInteger refills = new AtomicInteger();
+        SecureRandom source = new SecureRandom() {
+            @Override
+            public void nextBytes(byte[] bytes) {
+                refills.incrementAndGet();
+                super.nextBytes(bytes);
+            }
+        };
+        OtpGenerator.BufferedSecureRandom random = new OtpGenerator.BufferedSecureRandom(source, 2 * Long.BYTES);
+
+        // When
+        for (int i = 0; i < 5; i++) {
+            random.nextLong();
+        }
+
+        // Then
+        assertEquals(3, refills.get());
+    }
+
+    @Test
+    void constructor_ShouldRejectUnsupportedLength() {
+        assertThrows(IllegalArgumentException.class, () -> new OtpGenerator(0, 1));
+        assertThrows(IllegalArgumentException.class, () -> new OtpGenerator(19, 1));
+    }
+}
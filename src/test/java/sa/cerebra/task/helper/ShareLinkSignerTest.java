@@ -0,0 +1,115 @@
+package sa.cerebra.task.helper;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import sa.cerebra.task.config.Configs;
+import sa.cerebra.task.helper.ShareLinkSigner.SignedShareLink;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ShareLinkSignerTest {
+
+    private static final String KEY_A = Base64.getEncoder().encodeToString(new byte[32]);
+    private static final String KEY_B = Base64.getEncoder().encodeToString("0123456789abcdef0123456789abcdef".getBytes());
+
+    private ShareLinkSigner signer;
+    private Instant expiresAt;
+
+    @BeforeEach
+    void setUp() {
+        signer = new ShareLinkSigner(new Configs(), "signed", "", "");
+        expiresAt = Instant.now().plus(Duration.ofDays(7)).truncatedTo(java.time.temporal.ChronoUnit.SECONDS);
+    }
+
+    @Test
+    void verify_ShouldReturnSealedFields_WithoutExposingPath() {
+        // Given
+        String token = signer.sign(5L, "5/docs/report.pdf", expiresAt);
+
+        // When
+        SignedShareLink link = signer.verify(token);
+
+        // Then
+        assertTrue(signer.isEnabled());
+        assertTrue(ShareLinkSigner.isSigned(token));
+        assertTrue(token.startsWith("k0."));
+        assertFalse(new String(Base64.getUrlDecoder().decode(token.substring(3))).contains("report"));
+        assertNotNull(link);
+        assertEquals(5L, link.ownerId());
+        assertEquals("5/docs/report.pdf", link.path());
+        assertEquals(expiresAt, link.expiresAt());
+        assertNotNull(link.tokenId());
+        assertNull(link.maxDownloads());
+    }
+
+    @Test
+    void verify_ShouldReturnDownloadLimit_SealedIntoToken() {
+        // When
+        SignedShareLink link = signer.verify(signer.sign(5L, "5/docs/report.pdf", expiresAt, 3));
+
+        // Then
+        assertEquals(3, link.maxDownloads());
+        assertEquals(expiresAt, link.expiresAt());
+        assertEquals("5/docs/report.pdf", link.path());
+    }
+
+    @Test
+    void sign_ShouldGiveEveryLinkItsOwnTokenId() {
+        // When
+        SignedShareLink first = signer.verify(signer.sign(5L, "5/a.txt", expiresAt));
+        SignedShareLink second = signer.verify(signer.sign(5L, "5/a.txt", expiresAt));
+
+        // Then
+        assertNotEquals(first.tokenId(), second.tokenId());
+    }
+
+    @Test
+    void verify_ShouldReject_TamperedToken() {
+        // Given
+        String token = signer.sign(5L, "5/a.txt", expiresAt);
+        char last = token.charAt(token.length() - 2);
+        String tampered = token.substring(0, token.length() - 2) + (last == 'A' ? 'B' : 'A') + token.charAt(token.length() - 1);
+
+        // When / Then
+        assertNull(signer.verify(tampered));
+        assertNull(signer.verify("k1" + token.substring(2)));
+        assertNull(signer.verify("k0.%%%"));
+        assertNull(signer.verify("k0.AAAA"));
+        assertNull(signer.verify("random-cache-token"));
+    }
+
+    @Test
+    void verify_ShouldReject_ExpiredLink() {
+        // Given
+        String token = signer.sign(5L, "5/a.txt", Instant.now().minusSeconds(1));
+
+        // When / Then
+        assertNull(signer.verify(token));
+    }
+
+    @Test
+    void verify_ShouldAcceptLinksOfRetiredKey_WhileItIsConfigured() {
+        // Given
+        ShareLinkSigner before = new ShareLinkSigner(new Configs(), "signed", "a:" + KEY_A, "a");
+        ShareLinkSigner after = new ShareLinkSigner(new Configs(), "signed", "a:" + KEY_A + ", b:" + KEY_B, "b");
+        ShareLinkSigner dropped = new ShareLinkSigner(new Configs(), "signed", "b:" + KEY_B, "b");
+        String oldToken = before.sign(5L, "5/a.txt", expiresAt);
+
+        // When / Then
+        assertTrue(after.sign(5L, "5/a.txt", expiresAt).startsWith("b."));
+        assertNotNull(after.verify(oldToken));
+        assertNull(dropped.verify(oldToken));
+    }
+
+    @Test
+    void constructor_ShouldReject_InvalidKeyConfiguration() {
+        assertThrows(IllegalStateException.class, () -> new ShareLinkSigner(new Configs(), "signed", "a:" + KEY_A, "b"));
+        assertThrows(IllegalStateException.class, () -> new ShareLinkSigner(new Configs(), "signed", "a:AAAA", ""));
+        assertThrows(IllegalStateException.class, () -> new ShareLinkSigner(new Configs(), "signed", "a.b:" + KEY_A, ""));
+        assertFalse(new ShareLinkSigner(new Configs(), "cache", "", "").isEnabled());
+    }
+}
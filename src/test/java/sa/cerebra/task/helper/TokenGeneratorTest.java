@@ -0,0 +1,138 @@
+package sa.cerebra.task.helper;
+
+import org.junit.jupiter.api.Test;
+
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TokenGeneratorTest {
+
+    /**
+     * Replays fixed bytes and counts the nextBytes calls.
+     */
+    private static final class FixedRandom extends SecureRandom {
+        private final byte[] bytes;
+        private int position;
+        int calls;
+
+        FixedRandom(byte[] bytes) {
+            this.bytes = bytes;
+        }
+
+        @Override
+        public void nextBytes(byte[] out) {
+            calls++;
+            for (int i = 0; i < out.length; i++) {
+                out[i] = bytes[position++ % bytes.length];
+            }
+        }
+    }
+
+    @Test
+    void generate_ShouldMatchJdkBase64Url_ForEveryLength() {
+        for (int bytes = 16; bytes <= 20; bytes++) {
+            // Given
+            byte[] raw = new byte[bytes];
+            for (int i = 0; i < bytes; i++) {
+                raw[i] = (byte) (i * 37 - 100);
+            }
+            TokenGenerator generator = new TokenGenerator(bytes, TokenGenerator.Format.BASE64URL, () -> new FixedRandom(raw));
+
+            // When
+            String token = generator.generate();
+
+            // Then
+            assertEquals(Base64.getUrlEncoder().withoutPadding().encodeToString(raw), token);
+            assertEquals(token.length(), generator.tokenLength());
+        }
+    }
+
+    @Test
+    void generate_ShouldProduceBase62Tokens_WithAtLeastTheEntropyOfTheRawBytes() {
+        // Given
+        TokenGenerator generator = new TokenGenerator(32, TokenGenerator.Format.BASE62);
+
+        // When
+        String token = generator.generate();
+
+        // Then
+        assertEquals(43, token.length());
+        assertTrue(token.matches("[0-9A-Za-z]{43}"), "unexpected token " + token);
+    }
+
+    @Test
+    void generate_ShouldSkipDrawsOutsideBase62() {
+        // Given: 62 and 63 in the low six bits are rejected
+        byte[] raw = {(byte) 62, (byte) 63, (byte) 0xC1, 10};
+        TokenGenerator generator = new TokenGenerator(16, TokenGenerator.Format.BASE62, () -> new FixedRandom(raw));
+
+        // When
+        String token = generator.generate();
+
+        // Then
+        assertTrue(token.startsWith("1A1A"), "unexpected token " + token);
+        assertFalse(token.contains("-"));
+    }
+
+    @Test
+    void generateBatch_ShouldFillOneBuffer_AndReturnDistinctTokens() {
+        // Given
+        AtomicInteger sources = new AtomicInteger();
+        FixedRandom[] random = new FixedRandom[1];
+        byte[] raw = new byte[32 * 100];
+        new SecureRandom().nextBytes(raw);
+        TokenGenerator generator = new TokenGenerator(32, TokenGenerator.Format.BASE64URL, () -> {
+            sources.incrementAndGet();
+            return random[0] = new FixedRandom(raw);
+        });
+
+        // When
+        List<String> tokens = generator.generate(100);
+
+        // Then
+        assertEquals(100, tokens.size());
+        assertEquals(100, new HashSet<>(tokens).size());
+        assertEquals(1, random[0].calls);
+        assertEquals(1, sources.get());
+        assertTrue(generator.generate(0).isEmpty());
+    }
+
+    @Test
+    void generateBatch_ShouldDrawLargeBatchesWithOneCall() {
+        // Given
+        FixedRandom random = new FixedRandom(new byte[]{1, 2, 3, 4, 5, 6, 7});
+        TokenGenerator generator = new TokenGenerator(32, TokenGenerator.Format.BASE64URL, () -> random);
+
+        // When
+        List<String> tokens = generator.generate(1000);
+
+        // Then
+        assertEquals(1000, tokens.size());
+        assertEquals(1, random.calls);
+    }
+
+    @Test
+    void base62_ShouldReturnDigitsOfRequestedLength_InAnyFormat() {
+        // Given
+        TokenGenerator generator = new TokenGenerator(32, TokenGenerator.Format.BASE64URL);
+
+        // When
+        String secret = generator.base62(10);
+
+        // Then
+        assertTrue(secret.matches("[0-9A-Za-z]{10}"), "unexpected secret " + secret);
+        assertNotEquals(secret, generator.base62(10));
+    }
+
+    @Test
+    void constructor_ShouldParseFormat_AndRejectShortTokens() {
+        assertEquals(TokenGenerator.Format.BASE62, new TokenGenerator(32, "base62").format());
+        assertThrows(IllegalArgumentException.class, () -> new TokenGenerator(8, "base64url"));
+        assertThrows(IllegalArgumentException.class, () -> new TokenGenerator(32, "hex"));
+    }
+}
@@ -0,0 +1,193 @@
+package sa.cerebra.task.ratelimit;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.AbstractResource;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.Resource;
+import sa.cerebra.task.ratelimit.DownloadBandwidth.Traffic;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DownloadBandwidthTest {
+
+    private static final long SECOND = 1_000_000_000L;
+
+    /**
+     * Endless zeros, so a stream can be read for a fixed time.
+     */
+    private static Resource endless() {
+        return new AbstractResource() {
+            @Override
+            public InputStream getInputStream() {
+                return new InputStream() {
+                    @Override
+                    public int read() {
+                        return 0;
+                    }
+
+                    @Override
+                    public int read(byte[] b, int off, int len) {
+                        return len;
+                    }
+                };
+            }
+
+            @Override
+            public String getDescription() {
+                return "endless";
+            }
+        };
+    }
+
+    private static long drain(Resource resource) throws IOException {
+        long total = 0;
+        byte[] buffer = new byte[8192];
+        try (InputStream in = resource.getInputStream()) {
+            for (int read; (read = in.read(buffer)) != -1; ) {
+                total += read;
+            }
+        }
+        return total;
+    }
+
+    @Test
+    void bucket_ShouldLetBurstThrough_ThenMakeReservationsWait() {
+        // Given: 1000 bytes per second, one second of burst
+        DownloadBandwidth.Bucket bucket = new DownloadBandwidth.Bucket(1000, SECOND);
+
+        // When / Then
+        assertEquals(0, bucket.reserve(1000, 0));
+        assertEquals(0, bucket.reserve(1000, 0));
+        assertEquals(SECOND, bucket.reserve(1000, 0));
+        assertEquals(3 * SECOND, bucket.backlogNanos(0));
+        // idle time refills the bucket, but never beyond the burst
+        assertEquals(0, bucket.reserve(1000, 10 * SECOND));
+        assertEquals(0, bucket.reserve(1000, 10 * SECOND));
+        assertEquals(SECOND, bucket.reserve(1000, 10 * SECOND));
+    }
+
+    @Test
+    void bucket_ShouldReturnRefundedBytes() {
+        // Given
+        DownloadBandwidth.Bucket bucket = new DownloadBandwidth.Bucket(1000, 0);
+        bucket.reserve(2000, 0);
+
+        // When
+        bucket.refund(1500);
+
+        // Then
+        assertEquals(SECOND / 2, bucket.backlogNanos(0));
+    }
+
+    @Test
+    void throttle_ShouldReturnResourceAsIs_WhenDisabled() {
+        // Given
+        DownloadBandwidth bandwidth = new DownloadBandwidth(null, false, 1000, 1000, 1000, Duration.ZERO, 1024, 4, 1);
+        Resource resource = new ByteArrayResource(new byte[10]);
+
+        // When / Then
+        assertSame(resource, bandwidth.throttle(resource, Traffic.FILE, 5L, null));
+    }
+
+    @Test
+    void throttle_ShouldHoldShareLinkToItsRate() throws IOException {
+        // Given: 2 MB/s per share link, no burst
+        DownloadBandwidth bandwidth = new DownloadBandwidth(null, true, 0, 0, 2_000_000, Duration.ZERO, 64 * 1024, 4, 1);
+        Resource resource = bandwidth.throttle(new ByteArrayResource(new byte[1_000_000]), Traffic.SHARE, 5L, "token");
+
+        // When
+        long start = System.nanoTime();
+        long read = drain(resource);
+        long elapsed = System.nanoTime() - start;
+
+        // Then: the last chunk may start at 1 MB - 64 KB
+        assertEquals(1_000_000, read);
+        assertTrue(elapsed >= 400_000_000L, "read 1 MB in " + elapsed / 1_000_000 + " ms");
+    }
+
+    @Test
+    void throttle_ShouldNotLimitFileDownloads_ByShareLinkRate() throws IOException {
+        // Given
+        DownloadBandwidth bandwidth = new DownloadBandwidth(null, true, 0, 0, 1000, Duration.ZERO, 64 * 1024, 4, 1);
+        Resource resource = bandwidth.throttle(new ByteArrayResource(new byte[1_000_000]), Traffic.FILE, 5L, null);
+
+        // When
+        long start = System.nanoTime();
+        drain(resource);
+
+        // Then
+        assertTrue(System.nanoTime() - start < SECOND);
+    }
+
+    @Test
+    void throttle_ShouldSplitGlobalBandwidthByWeight_UnderContention() throws Exception {
+        // Given: 8 MB/s for the node, file downloads weigh 3 and share downloads 1
+        DownloadBandwidth bandwidth = new DownloadBandwidth(null, true, 8_000_000, 0, 0, Duration.ofMillis(10),
+                16 * 1024, 3, 1);
+        AtomicLong fileBytes = new AtomicLong();
+        AtomicLong shareBytes = new AtomicLong();
+        CountDownLatch start = new CountDownLatch(1);
+        long end = System.nanoTime() + SECOND;
+
+        // When
+        Thread file = reader(bandwidth.throttle(endless(), Traffic.FILE, 5L, null), fileBytes, start, end);
+        Thread share = reader(bandwidth.throttle(endless(), Traffic.SHARE, 6L, "token"), shareBytes, start, end);
+        start.countDown();
+        file.join();
+        share.join();
+
+        // Then
+        double ratio = (double) fileBytes.get() / shareBytes.get();
+        assertTrue(ratio > 2 && ratio < 4.5, "file:share = " + fileBytes.get() + ":" + shareBytes.get());
+        assertTrue(fileBytes.get() + shareBytes.get() < 10_000_000, "total " + (fileBytes.get() + shareBytes.get()));
+    }
+
+    private static Thread reader(Resource resource, AtomicLong bytes, CountDownLatch start, long end) {
+        Thread thread = new Thread(() -> {
+            byte[] buffer = new byte[8192];
+            try (InputStream in = resource.getInputStream()) {
+                start.await();
+                while (System.nanoTime() < end) {
+                    bytes.addAndGet(in.read(buffer));
+                }
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        thread.start();
+        return thread;
+    }
+
+    @Test
+    void throttle_ShouldPublishMetrics_AndReleaseBucketsOnClose() throws Exception {
+        // Given
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        DownloadBandwidth bandwidth = new DownloadBandwidth(registry, true, 100_000_000, 100_000_000, 100_000_000,
+                Duration.ofSeconds(1), 64 * 1024, 4, 1);
+        Resource resource = bandwidth.throttle(new ByteArrayResource(new byte[5000]), Traffic.SHARE, 5L, "token");
+
+        // When
+        InputStream in = resource.getInputStream();
+        double activeWhileOpen = registry.get("cerebra.download.active").tag("traffic", "share").gauge().value();
+        in.readAllBytes();
+        in.close();
+        // the 5000 bytes read are due 50 microseconds after they were booked
+        Thread.sleep(5);
+        bandwidth.evictIdleBuckets();
+
+        // Then
+        assertEquals(1, activeWhileOpen);
+        assertEquals(0, registry.get("cerebra.download.active").tag("traffic", "share").gauge().value());
+        assertEquals(5000, registry.get("cerebra.download.bytes").tag("traffic", "share").counter().count());
+        // the unused part of the booked chunk was refunded
+        assertTrue(registry.get("cerebra.download.backlog").gauge().value() < 0.001);
+        assertEquals(0, bandwidth.trackedCount());
+    }
+}
@@ -0,0 +1,59 @@
+package sa.cerebra.task.ratelimit;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class LoginRateLimiterTest {
+
+    @Mock
+    private RateLimiter rateLimiter;
+
+    private LoginRateLimiter loginRateLimiter;
+
+    @BeforeEach
+    void setUp() {
+        loginRateLimiter = new LoginRateLimiter(rateLimiter, true, 3, Duration.ofMinutes(10), 20,
+                Duration.ofMinutes(10), 1000, Duration.ofMinutes(1));
+    }
+
+    @Test
+    void tryAcquireForClient_ShouldGiveBackIpSlot_WhenGlobalLimitRejects() {
+        // Given
+        when(rateLimiter.tryAcquire("login:ip:10.0.0.1", 20, Duration.ofMinutes(10))).thenReturn(true);
+        when(rateLimiter.tryAcquire("login:global", 1000, Duration.ofMinutes(1))).thenReturn(false);
+
+        // When
+        boolean allowed = loginRateLimiter.tryAcquireForClient("10.0.0.1");
+
+        // Then
+        assertFalse(allowed);
+        verify(rateLimiter).release("login:ip:10.0.0.1", Duration.ofMinutes(10));
+    }
+
+    @Test
+    void tryAcquireForClient_ShouldNotTouchGlobalBudget_WhenIpLimitRejects() {
+        // Given
+        when(rateLimiter.tryAcquire("login:ip:10.0.0.1", 20, Duration.ofMinutes(10))).thenReturn(false);
+
+        // When
+        boolean allowed = loginRateLimiter.tryAcquireForClient("10.0.0.1");
+
+        // Then
+        assertFalse(allowed);
+        verify(rateLimiter, never()).tryAcquire(eq("login:global"), anyInt(), any());
+        verify(rateLimiter, never()).release(anyString(), any());
+    }
+}
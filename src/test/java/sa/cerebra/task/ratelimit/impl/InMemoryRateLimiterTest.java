@@ -0,0 +1,131 @@
+package sa.cerebra.task.ratelimit.impl;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class InMemoryRateLimiterTest {
+
+    private static final Duration WINDOW = Duration.ofSeconds(10);
+
+    private AtomicLong now;
+    private InMemoryRateLimiter rateLimiter;
+
+    @BeforeEach
+    void setUp() {
+        now = new AtomicLong(1_000_000);
+        rateLimiter = new InMemoryRateLimiter(now::get);
+    }
+
+    @Test
+    void tryAcquire_ShouldAllowUpToLimit_ThenReject() {
+        // When / Then
+        for (int i = 0; i < 3; i++) {
+            assertTrue(rateLimiter.tryAcquire("phone", 3, WINDOW));
+        }
+        assertFalse(rateLimiter.tryAcquire("phone", 3, WINDOW));
+        assertTrue(rateLimiter.tryAcquire("other-phone", 3, WINDOW));
+    }
+
+    @Test
+    void release_ShouldGiveBackOneRequest_OfTheCurrentWindowOnly() {
+        // Given
+        assertTrue(rateLimiter.tryAcquire("ip", 2, WINDOW));
+        assertTrue(rateLimiter.tryAcquire("ip", 2, WINDOW));
+
+        // When
+        rateLimiter.release("ip", WINDOW);
+        rateLimiter.release("unknown", WINDOW);
+
+        // Then
+        assertTrue(rateLimiter.tryAcquire("ip", 2, WINDOW));
+        assertFalse(rateLimiter.tryAcquire("ip", 2, WINDOW));
+        // a full window later the request counts in the previous window and is not released
+        now.addAndGet(WINDOW.toMillis());
+        rateLimiter.release("ip", WINDOW);
+        assertFalse(rateLimiter.tryAcquire("ip", 2, WINDOW));
+    }
+
+    @Test
+    void tryAcquire_ShouldWeighPreviousWindow_ByRemainingOverlap() {
+        // Given: the previous window is full
+        for (int i = 0; i < 4; i++) {
+            assertTrue(rateLimiter.tryAcquire("ip", 4, WINDOW));
+        }
+
+        // When: half of it still overlaps the sliding window
+        now.addAndGet(15_000);
+
+        // Then: 4 * 0.5 already counted, so two more fit
+        assertTrue(rateLimiter.tryAcquire("ip", 4, WINDOW));
+        assertTrue(rateLimiter.tryAcquire("ip", 4, WINDOW));
+        assertFalse(rateLimiter.tryAcquire("ip", 4, WINDOW));
+    }
+
+    @Test
+    void tryAcquire_ShouldReset_AfterTwoIdleWindows() {
+        // Given
+        assertTrue(rateLimiter.tryAcquire("ip", 1, WINDOW));
+        assertFalse(rateLimiter.tryAcquire("ip", 1, WINDOW));
+
+        // When
+        now.addAndGet(20_000);
+
+        // Then
+        assertTrue(rateLimiter.tryAcquire("ip", 1, WINDOW));
+    }
+
+    @Test
+    void evictIdleKeys_ShouldDropKeysThatNoLongerAffectDecisions() {
+        // Given
+        rateLimiter.tryAcquire("idle", 5, WINDOW);
+        now.addAndGet(20_000);
+        rateLimiter.tryAcquire("active", 5, WINDOW);
+
+        // When
+        rateLimiter.evictIdleKeys();
+
+        // Then
+        assertEquals(1, rateLimiter.size());
+    }
+
+    @Test
+    void tryAcquire_ShouldNeverExceedLimit_UnderConcurrency() throws InterruptedException {
+        // Given
+        int threads = 8;
+        AtomicInteger allowed = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+
+        // When
+        for (int t = 0; t < threads; t++) {
+            executor.execute(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int i = 0; i < 1000; i++) {
+                    if (rateLimiter.tryAcquire("global", 500, WINDOW)) {
+                        allowed.incrementAndGet();
+                    }
+                }
+            });
+        }
+        start.countDown();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+
+        // Then
+        assertEquals(500, allowed.get());
+    }
+}
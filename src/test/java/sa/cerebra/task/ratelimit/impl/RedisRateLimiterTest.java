@@ -0,0 +1,65 @@
+package sa.cerebra.task.ratelimit.impl;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class RedisRateLimiterTest {
+
+    @Mock
+    private StringRedisTemplate stringRedisTemplate;
+
+    private RedisRateLimiter rateLimiter;
+
+    @BeforeEach
+    void setUp() {
+        rateLimiter = new RedisRateLimiter(stringRedisTemplate, () -> 25_000L);
+    }
+
+    @Test
+    void tryAcquire_ShouldRunScript_WithCurrentAndPreviousWindowKeysInOneSlot() {
+        // Given
+        when(stringRedisTemplate.execute(eq(RedisRateLimiter.SLIDING_WINDOW), anyList(), any(Object[].class))).thenReturn(1L);
+
+        // When
+        boolean allowed = rateLimiter.tryAcquire("login:ip:10.0.0.1", 20, Duration.ofSeconds(10));
+
+        // Then
+        assertTrue(allowed);
+        verify(stringRedisTemplate).execute(RedisRateLimiter.SLIDING_WINDOW,
+                List.of("rate-limit:{login:ip:10.0.0.1}:2", "rate-limit:{login:ip:10.0.0.1}:1"),
+                "20", "10000", "5000");
+    }
+
+    @Test
+    void release_ShouldRunScript_OnCurrentWindowKey() {
+        // When
+        rateLimiter.release("login:ip:10.0.0.1", Duration.ofSeconds(10));
+
+        // Then
+        verify(stringRedisTemplate).execute(RedisRateLimiter.RELEASE, List.of("rate-limit:{login:ip:10.0.0.1}:2"));
+    }
+
+    @Test
+    void tryAcquire_ShouldReject_WhenScriptReturnsZero() {
+        // Given
+        when(stringRedisTemplate.execute(eq(RedisRateLimiter.SLIDING_WINDOW), anyList(), any(Object[].class))).thenReturn(0L);
+
+        // When / Then
+        assertFalse(rateLimiter.tryAcquire("login:global", 1000, Duration.ofMinutes(1)));
+    }
+}
@@ -0,0 +1,77 @@
+package sa.cerebra.task.security;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import sa.cerebra.task.BaseIntegrationTest;
+import sa.cerebra.task.entity.User;
+import sa.cerebra.task.repository.UserRepository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DefaultUserDetailsServiceIT extends BaseIntegrationTest {
+
+    @Autowired
+    private DefaultUserDetailsService userDetailsService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @BeforeEach
+    void setUp() {
+        userRepository.deleteAll();
+    }
+
+    @Test
+    @DisplayName("Concurrent first logins for one phone create exactly one user")
+    void loadUserByUsername_ShouldCreateOneUser_UnderConcurrentFirstLogins() throws Exception {
+        String phone = "+966511111111";
+        int threads = 16;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<User>> results = new ArrayList<>();
+
+        for (int i = 0; i < threads; i++) {
+            results.add(executor.submit(() -> {
+                start.await();
+                return (User) userDetailsService.loadUserByUsername(phone);
+            }));
+        }
+        start.countDown();
+
+        Set<Long> ids = results.stream().map(future -> {
+            try {
+                return future.get().getId();
+            } catch (Exception e) {
+                throw new AssertionError("first login failed", e);
+            }
+        }).collect(Collectors.toSet());
+        executor.shutdown();
+
+        assertEquals(1, ids.size());
+        assertEquals(1, userRepository.count());
+        assertEquals(ids.iterator().next(), userRepository.findByPhone(phone).orElseThrow().getId());
+    }
+
+    @Test
+    @DisplayName("Returning user is loaded without creating a new row")
+    void loadUserByUsername_ShouldReturnExistingUser() {
+        String phone = "+966522222222";
+        User first = (User) userDetailsService.loadUserByUsername(phone);
+
+        User second = (User) userDetailsService.loadUserByUsername(phone);
+
+        assertEquals(first.getId(), second.getId());
+        assertEquals(1, userRepository.count());
+    }
+}
@@ -0,0 +1,87 @@
+package sa.cerebra.task.security;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import sa.cerebra.task.entity.User;
+import sa.cerebra.task.repository.UserRepository;
+
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class DefaultUserDetailsServiceTest {
+
+    @Mock
+    private UserRepository userRepository;
+
+    private DefaultUserDetailsService userDetailsService;
+
+    private static final String PHONE = "+966500000000";
+
+    @BeforeEach
+    void setUp() {
+        userDetailsService = new DefaultUserDetailsService(userRepository);
+    }
+
+    private static User user(long id) {
+        User user = new User();
+        user.setId(id);
+        user.setPhone(PHONE);
+        return user;
+    }
+
+    @Test
+    void loadUserByUsername_ShouldReturnExistingUser_WithSingleRead() {
+        // Given
+        User existing = user(7L);
+        when(userRepository.findByPhone(PHONE)).thenReturn(Optional.of(existing));
+
+        // When
+        var result = userDetailsService.loadUserByUsername(PHONE);
+
+        // Then
+        assertSame(existing, result);
+        verify(userRepository).findByPhone(PHONE);
+        verify(userRepository, never()).insertIfAbsent(anyString());
+        verify(userRepository, never()).save(any());
+    }
+
+    @Test
+    void loadUserByUsername_ShouldInsertIfAbsentThenRead_WhenUserIsNew() {
+        // Given
+        User created = user(8L);
+        when(userRepository.findByPhone(PHONE)).thenReturn(Optional.empty()).thenReturn(Optional.of(created));
+
+        // When
+        var result = userDetailsService.loadUserByUsername(PHONE);
+
+        // Then
+        assertSame(created, result);
+        InOrder inOrder = inOrder(userRepository);
+        inOrder.verify(userRepository).findByPhone(PHONE);
+        inOrder.verify(userRepository).insertIfAbsent(PHONE);
+        inOrder.verify(userRepository).findByPhone(PHONE);
+        verify(userRepository, never()).save(any());
+    }
+
+    @Test
+    void loadUserByUsername_ShouldThrow_WhenUserStillMissingAfterInsert() {
+        // Given
+        when(userRepository.findByPhone(PHONE)).thenReturn(Optional.empty());
+
+        // When / Then
+        assertThrows(UsernameNotFoundException.class, () -> userDetailsService.loadUserByUsername(PHONE));
+    }
+}
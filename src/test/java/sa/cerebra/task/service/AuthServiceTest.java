@@ -12,14 +12,21 @@ import org.mockito.junit.jupiter.MockitoSettings;
 import org.mockito.quality.Strictness;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import sa.cerebra.task.cache.CacheStore;
+import sa.cerebra.task.dto.response.LoginResponse;
 import sa.cerebra.task.dto.response.TokenResponse;
 import sa.cerebra.task.entity.User;
 import sa.cerebra.task.exception.CerebraException;
 import sa.cerebra.task.exception.ErrorCode;
 import sa.cerebra.task.helper.JwtHelper;
+import sa.cerebra.task.config.Configs;
+import sa.cerebra.task.helper.OtpChallenges;
+import sa.cerebra.task.helper.OtpGenerator;
 import sa.cerebra.task.helper.OtpHelper;
+import sa.cerebra.task.ratelimit.LoginRateLimiter;
 import sa.cerebra.task.sms.SendSms;
 
+import java.util.concurrent.CompletableFuture;
+
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.*;
@@ -40,6 +47,15 @@ class AuthServiceTest {
     @Mock
     private SendSms sendSms;
 
+    @Mock
+    private RefreshTokenService refreshTokenService;
+
+    @Mock
+    private LoginRateLimiter loginRateLimiter;
+
+    @Mock
+    private OtpChallenges otpChallenges;
+
     private AuthService authService;
 
     @Captor
@@ -50,7 +66,11 @@ class AuthServiceTest {
 
     @BeforeEach
     void setUp() {
-        authService = new AuthService(cacheStore, userDetailsService, jwtHelper, sendSms);
+        authService = new AuthService(cacheStore, userDetailsService, jwtHelper, sendSms, refreshTokenService, loginRateLimiter,
+                new OtpGenerator(6, OtpHelper.OTP_EXPIRY_MINUTES), otpChallenges);
+        when(loginRateLimiter.tryAcquireForPhone(anyString())).thenReturn(true);
+        when(cacheStore.putAsync(anyString(), anyString(), any(), anyLong())).thenReturn(CompletableFuture.completedFuture(null));
+        when(cacheStore.removeAsync(anyString(), anyString())).thenReturn(CompletableFuture.completedFuture(null));
     }
 
     @Test
@@ -62,7 +82,7 @@ class AuthServiceTest {
         authService.login(phone);
 
         // Then
-        verify(cacheStore).put(eq("login-otp"), eq(phone), otpCaptor.capture(), eq(Long.parseLong(OtpHelper.OTP_EXPIRY_MINUTES+"") ));
+        verify(cacheStore).putAsync(eq("login-otp"), eq(phone), otpCaptor.capture(), eq(Long.parseLong(OtpHelper.OTP_EXPIRY_MINUTES+"") ));
         String generatedOtp = otpCaptor.getValue();
         assertNotNull(generatedOtp);
         assertEquals(6, generatedOtp.length());
@@ -74,6 +94,30 @@ class AuthServiceTest {
         assertTrue(smsMessage.contains(generatedOtp));
     }
 
+    @Test
+    void login_ShouldFail_WhenOtpCouldNotBeCached() {
+        // Given
+        String phone = "+1234567890";
+        when(cacheStore.putAsync(anyString(), anyString(), any(), anyLong()))
+                .thenReturn(CompletableFuture.failedFuture(new IllegalStateException("cache down")));
+
+        // When / Then
+        assertThrows(RuntimeException.class, () -> authService.login(phone));
+        verifyNoInteractions(sendSms);
+    }
+
+    @Test
+    void login_ShouldRejectWithoutSendingSms_WhenPhoneIsRateLimited() {
+        // Given
+        String phone = "+1234567890";
+        when(loginRateLimiter.tryAcquireForPhone(phone)).thenReturn(false);
+
+        // When / Then
+        CerebraException ex = assertThrows(CerebraException.class, () -> authService.login(phone));
+        assertEquals(ErrorCode.TOO_MANY_REQUESTS, ex.getErrorCode());
+        verifyNoInteractions(cacheStore, sendSms);
+    }
+
     @Test
     void validate_ShouldThrowInvalidOtp_WhenOtpDoesNotMatch() {
         // Given
@@ -85,7 +129,7 @@ class AuthServiceTest {
         // When / Then
         CerebraException ex = assertThrows(CerebraException.class, () -> authService.validate(phone, providedOtp));
         assertEquals(ErrorCode.INVALID_OTP, ex.getErrorCode());
-        verify(cacheStore, never()).remove(anyString(), anyString());
+        verify(cacheStore, never()).removeAsync(anyString(), anyString());
         verifyNoInteractions(jwtHelper);
         verify(userDetailsService, never()).loadUserByUsername(anyString());
     }
@@ -100,7 +144,7 @@ class AuthServiceTest {
         // When / Then
         CerebraException ex = assertThrows(CerebraException.class, () -> authService.validate(phone, providedOtp));
         assertEquals(ErrorCode.INVALID_OTP, ex.getErrorCode());
-        verify(cacheStore, never()).remove(anyString(), anyString());
+        verify(cacheStore, never()).removeAsync(anyString(), anyString());
         verifyNoInteractions(jwtHelper);
         verify(userDetailsService, never()).loadUserByUsername(anyString());
     }
@@ -116,18 +160,20 @@ class AuthServiceTest {
         user.setId(42L);
         user.setPhone(phone);
         when(userDetailsService.loadUserByUsername(phone)).thenReturn(user);
-        when(jwtHelper.generateToken(42L)).thenReturn("access.jwt.token");
+        when(jwtHelper.generateToken(user)).thenReturn("access.jwt.token");
+        when(refreshTokenService.issue(user)).thenReturn("family.secret");
 
         // When
         TokenResponse response = authService.validate(phone, otp);
 
         // Then
-        verify(cacheStore).remove("login-otp", phone);
+        verify(cacheStore).removeAsync("login-otp", phone);
         verify(userDetailsService).loadUserByUsername(phone);
-        verify(jwtHelper).generateToken(42L);
+        verify(jwtHelper).generateToken(user);
 
         assertNotNull(response);
         assertEquals("access.jwt.token", response.getAccessToken());
+        assertEquals("family.secret", response.getRefreshToken());
     }
 
     @Test
@@ -141,7 +187,7 @@ class AuthServiceTest {
         user.setId(7L);
         user.setPhone(phone);
         when(userDetailsService.loadUserByUsername(phone)).thenReturn(user);
-        when(jwtHelper.generateToken(7L)).thenReturn("tkn.7");
+        when(jwtHelper.generateToken(user)).thenReturn("tkn.7");
 
         // When
         TokenResponse response = authService.validate(phone, otp);
@@ -149,4 +195,75 @@ class AuthServiceTest {
         // Then
         assertEquals("tkn.7", response.getAccessToken());
     }
+
+    private AuthService statelessAuthService(OtpChallenges challenges) {
+        return new AuthService(cacheStore, userDetailsService, jwtHelper, sendSms, refreshTokenService, loginRateLimiter,
+                new OtpGenerator(6, OtpHelper.OTP_EXPIRY_MINUTES), challenges);
+    }
+
+    @Test
+    void login_ShouldReturnChallenge_WithoutCacheWrite_InStatelessMode() {
+        // Given
+        String phone = "+1234567890";
+        OtpChallenges challenges = new OtpChallenges(new Configs(), new OtpGenerator(6, 1), "stateless");
+        AuthService service = statelessAuthService(challenges);
+
+        // When
+        LoginResponse response = service.login(phone);
+
+        // Then
+        assertNotNull(response.getChallenge());
+        assertEquals(60, response.getExpiresIn());
+        verifyNoInteractions(cacheStore);
+        verify(sendSms).send(eq(phone), smsMessageCaptor.capture());
+        String otp = smsMessageCaptor.getValue().replaceAll("\\D", "");
+        assertNotNull(challenges.verify(phone, otp, response.getChallenge()));
+    }
+
+    @Test
+    void validate_ShouldIssueTokens_AndRecordChallenge_InStatelessMode() {
+        // Given
+        String phone = "+1234567890";
+        when(otpChallenges.isEnabled()).thenReturn(true);
+        when(otpChallenges.verify(phone, "123456", "challenge")).thenReturn("nonce");
+        when(cacheStore.putIfAbsent("used-otp-challenges", "nonce", true, 2L)).thenReturn(true);
+        User user = new User();
+        user.setId(42L);
+        user.setPhone(phone);
+        when(userDetailsService.loadUserByUsername(phone)).thenReturn(user);
+        when(jwtHelper.generateToken(user)).thenReturn("access.jwt.token");
+
+        // When
+        TokenResponse response = authService.validate(phone, "123456", "challenge");
+
+        // Then
+        assertEquals("access.jwt.token", response.getAccessToken());
+        verify(cacheStore, never()).get(anyString(), anyString());
+        verify(cacheStore).putIfAbsent("used-otp-challenges", "nonce", true, 2L);
+    }
+
+    @Test
+    void validate_ShouldRejectReplayedChallenge_InStatelessMode() {
+        // Given
+        String phone = "+1234567890";
+        when(otpChallenges.isEnabled()).thenReturn(true);
+        when(otpChallenges.verify(phone, "123456", "challenge")).thenReturn("nonce");
+        when(cacheStore.putIfAbsent("used-otp-challenges", "nonce", true, 2L)).thenReturn(false);
+
+        // When / Then
+        CerebraException ex = assertThrows(CerebraException.class, () -> authService.validate(phone, "123456", "challenge"));
+        assertEquals(ErrorCode.INVALID_OTP, ex.getErrorCode());
+        verifyNoInteractions(jwtHelper, userDetailsService);
+    }
+
+    @Test
+    void validate_ShouldRejectWrongOtp_WithoutRecordingChallenge_InStatelessMode() {
+        // Given
+        when(otpChallenges.isEnabled()).thenReturn(true);
+        when(otpChallenges.verify(anyString(), anyString(), any())).thenReturn(null);
+
+        // When / Then
+        assertThrows(CerebraException.class, () -> authService.validate("+1234567890", "000000", "challenge"));
+        verify(cacheStore, never()).putIfAbsent(anyString(), anyString(), any(), anyLong());
+    }
 }
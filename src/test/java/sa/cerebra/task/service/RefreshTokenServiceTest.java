@@ -0,0 +1,163 @@
+package sa.cerebra.task.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import sa.cerebra.task.cache.CacheMetrics;
+import sa.cerebra.task.cache.CacheStore;
+import sa.cerebra.task.cache.impl.map.InMemoryCacheStore;
+import sa.cerebra.task.cache.impl.offheap.OffHeapCacheStore;
+import sa.cerebra.task.config.Configs;
+import sa.cerebra.task.dto.response.TokenResponse;
+import sa.cerebra.task.entity.User;
+import sa.cerebra.task.exception.CerebraException;
+import sa.cerebra.task.exception.ErrorCode;
+import sa.cerebra.task.helper.JwtHelper;
+import sa.cerebra.task.helper.JwtVerification;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RefreshTokenServiceTest {
+
+    private CacheStore cacheStore;
+    private JwtHelper jwtHelper;
+    private RefreshTokenService refreshTokenService;
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        cacheStore = new InMemoryCacheStore(CacheMetrics.noop());
+        jwtHelper = new JwtHelper(new Configs());
+        refreshTokenService = new RefreshTokenService(cacheStore, jwtHelper, 30);
+        user = new User();
+        user.setId(42L);
+        user.setPhone("+966500000000");
+    }
+
+    @Test
+    void refresh_ShouldIssueAccessTokenForUser_AndRotateRefreshToken() {
+        // Given
+        String refreshToken = refreshTokenService.issue(user);
+
+        // When
+        TokenResponse response = refreshTokenService.refresh(refreshToken);
+
+        // Then
+        JwtVerification verification = jwtHelper.verify(response.getAccessToken());
+        assertTrue(verification.isValid());
+        assertEquals("42", verification.subject());
+        assertEquals("+966500000000", verification.claims().get(JwtHelper.PHONE_CLAIM, String.class));
+        assertNotNull(response.getRefreshToken());
+        assertNotEquals(refreshToken, response.getRefreshToken());
+    }
+
+    @Test
+    void refresh_ShouldAcceptEachRotatedToken_InSequence() {
+        // Given
+        String refreshToken = refreshTokenService.issue(user);
+
+        // When / Then
+        for (int i = 0; i < 5; i++) {
+            refreshToken = refreshTokenService.refresh(refreshToken).getRefreshToken();
+        }
+        assertNotNull(refreshTokenService.refresh(refreshToken).getAccessToken());
+    }
+
+    @Test
+    void refresh_ShouldRevokeFamily_WhenRotatedTokenIsReused() {
+        // Given
+        String stolen = refreshTokenService.issue(user);
+        String current = refreshTokenService.refresh(stolen).getRefreshToken();
+
+        // When
+        CerebraException reuse = assertThrows(CerebraException.class, () -> refreshTokenService.refresh(stolen));
+
+        // Then the legitimate client's newer token is revoked too
+        assertEquals(ErrorCode.INVALID_REFRESH_TOKEN, reuse.getErrorCode());
+        CerebraException revoked = assertThrows(CerebraException.class, () -> refreshTokenService.refresh(current));
+        assertEquals(ErrorCode.INVALID_REFRESH_TOKEN, revoked.getErrorCode());
+    }
+
+    @Test
+    void refresh_ShouldNotAffectOtherFamilies_WhenOneIsRevoked() {
+        // Given
+        String otherDevice = refreshTokenService.issue(user);
+        String stolen = refreshTokenService.issue(user);
+        refreshTokenService.refresh(stolen);
+
+        // When
+        assertThrows(CerebraException.class, () -> refreshTokenService.refresh(stolen));
+
+        // Then
+        assertNotNull(refreshTokenService.refresh(otherDevice).getAccessToken());
+    }
+
+    @Test
+    void refresh_ShouldFail_WhenTokenUnknownOrMalformed() {
+        for (String token : new String[]{"unknown.secret", "no-separator", ".secret", "family."}) {
+            CerebraException exception = assertThrows(CerebraException.class, () -> refreshTokenService.refresh(token));
+            assertEquals(ErrorCode.INVALID_REFRESH_TOKEN, exception.getErrorCode());
+        }
+    }
+
+    @Test
+    void refresh_ShouldFail_WhenFamilyExpired() {
+        // Given
+        RefreshTokenService expiredService = new RefreshTokenService(cacheStore, jwtHelper, -1);
+        String refreshToken = expiredService.issue(user);
+
+        // Then
+        assertThrows(CerebraException.class, () -> expiredService.refresh(refreshToken));
+    }
+
+    @Test
+    void refresh_ShouldRotateOnce_WhenSameTokenIsUsedConcurrently() throws InterruptedException {
+        // Given
+        String refreshToken = refreshTokenService.issue(user);
+        int threads = 8;
+        CountDownLatch start = new CountDownLatch(1);
+        Queue<String> rotated = new ConcurrentLinkedQueue<>();
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+
+        // When
+        for (int i = 0; i < threads; i++) {
+            executor.execute(() -> {
+                try {
+                    start.await();
+                    rotated.add(refreshTokenService.refresh(refreshToken).getRefreshToken());
+                } catch (CerebraException | InterruptedException e) {
+                    // rejected as reuse
+                }
+            });
+        }
+        start.countDown();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+
+        // Then: one request rotated the family, the others revoked it
+        assertEquals(1, rotated.size());
+        CerebraException revoked = assertThrows(CerebraException.class, () -> refreshTokenService.refresh(rotated.peek()));
+        assertEquals(ErrorCode.INVALID_REFRESH_TOKEN, revoked.getErrorCode());
+    }
+
+    @Test
+    void refresh_ShouldWork_WithSerializingCacheStore() {
+        // Given a store that round-trips values through the same JSON serializer as RedisStore
+        RefreshTokenService service = new RefreshTokenService(
+                new OffHeapCacheStore(CacheMetrics.noop(), 1024 * 1024, 64 * 1024, 16, 1), jwtHelper, 30);
+        String refreshToken = service.issue(user);
+
+        // When
+        TokenResponse response = service.refresh(refreshToken);
+
+        // Then
+        assertEquals("42", jwtHelper.verify(response.getAccessToken()).subject());
+        assertNotNull(service.refresh(response.getRefreshToken()).getRefreshToken());
+    }
+}
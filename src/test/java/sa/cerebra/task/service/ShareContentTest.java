@@ -0,0 +1,207 @@
+package sa.cerebra.task.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import sa.cerebra.task.cache.CacheMetrics;
+import sa.cerebra.task.cache.impl.map.InMemoryCacheStore;
+import sa.cerebra.task.config.Configs;
+import sa.cerebra.task.exception.CerebraException;
+import sa.cerebra.task.exception.ErrorCode;
+import sa.cerebra.task.service.ShareContent.SharedFile;
+import sa.cerebra.task.storage.StorageService;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class ShareContentTest {
+
+    @TempDir
+    Path dir;
+
+    @Mock
+    private StorageService storageService;
+
+    private InMemoryCacheStore cacheStore;
+    private Path file;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        cacheStore = new InMemoryCacheStore(CacheMetrics.noop());
+        file = dir.resolve("report.pdf");
+        Files.writeString(file, "version one");
+        when(storageService.getResource(anyString())).thenAnswer(invocation -> new FileSystemResource(file));
+    }
+
+    /**
+     * Hashes on the calling thread, so the version is hashed once the first describe returns.
+     */
+    private ShareContent shareContent(boolean redirect) {
+        return shareContent(redirect, Runnable::run);
+    }
+
+    private ShareContent shareContent(boolean redirect, Executor hasher) {
+        return new ShareContent(cacheStore, storageService, new Configs(), redirect, "https://cdn.example.com",
+                Duration.ofDays(7), hasher);
+    }
+
+    /**
+     * Describes the file once its version is hashed.
+     */
+    private SharedFile hashed(ShareContent shareContent, String path) {
+        shareContent.describe(path, new FileSystemResource(file));
+        return shareContent.describe(path, new FileSystemResource(file));
+    }
+
+    /**
+     * Counts how often the file content is read.
+     */
+    private Resource countingResource(AtomicInteger reads) {
+        return new FileSystemResource(file) {
+            @Override
+            public InputStream getInputStream() throws IOException {
+                reads.incrementAndGet();
+                return super.getInputStream();
+            }
+        };
+    }
+
+    @Test
+    void describe_ShouldHashContentOncePerVersion_WithoutRedirect() throws IOException {
+        // Given
+        ShareContent shareContent = shareContent(false);
+        AtomicInteger reads = new AtomicInteger();
+
+        // When
+        shareContent.describe("5/docs/report.pdf", countingResource(reads));
+        SharedFile first = shareContent.describe("5/docs/report.pdf", countingResource(reads));
+        SharedFile second = shareContent.describe("5/docs/report.pdf", countingResource(reads));
+        Files.writeString(file, "version two");
+        Files.setLastModifiedTime(file, FileTime.from(Instant.now().plusSeconds(5)));
+        shareContent.describe("5/docs/report.pdf", countingResource(reads));
+        SharedFile changed = shareContent.describe("5/docs/report.pdf", countingResource(reads));
+
+        // Then
+        assertEquals(first.hash(), second.hash());
+        assertEquals("\"" + first.hash() + "\"", first.etag());
+        assertNotEquals(first.hash(), changed.hash());
+        assertEquals(2, reads.get());
+        assertNull(first.contentUrl());
+        assertNull(cacheStore.get(ShareContent.KEYS_CACHE, "anything"));
+    }
+
+    @Test
+    void describe_ShouldNotReadFile_WhileVersionIsHashedInBackground() {
+        // Given
+        List<Runnable> hashing = new ArrayList<>();
+        ShareContent shareContent = shareContent(true, hashing::add);
+        AtomicInteger reads = new AtomicInteger();
+
+        // When
+        SharedFile first = shareContent.describe("5/docs/report.pdf", countingResource(reads));
+        SharedFile concurrent = shareContent.describe("5/docs/report.pdf", countingResource(reads));
+
+        // Then
+        assertEquals(0, reads.get());
+        assertNull(first.hash());
+        assertNull(first.etag());
+        assertNull(concurrent.contentUrl());
+        assertEquals(Instant.ofEpochMilli(file.toFile().lastModified()), first.lastModified());
+        assertEquals(1, hashing.size());
+
+        // When
+        hashing.get(0).run();
+        SharedFile hashed = shareContent.describe("5/docs/report.pdf", countingResource(reads));
+
+        // Then
+        assertEquals(1, reads.get());
+        assertNotNull(hashed.etag());
+        assertNotNull(hashed.contentUrl());
+    }
+
+    @Test
+    void describe_ShouldPublishSameContentUrl_ForEveryRecipient() {
+        // Given
+        ShareContent shareContent = shareContent(true);
+
+        // When
+        SharedFile first = hashed(shareContent, "5/docs/report.pdf");
+        SharedFile second = shareContent.describe("5/docs/report.pdf", new FileSystemResource(file));
+        SharedFile otherOwner = hashed(shareContent, "6/report.pdf");
+        SharedFile limited = shareContent.describe("5/docs/report.pdf", new FileSystemResource(file), true);
+
+        // Then
+        assertTrue(first.contentUrl().startsWith("https://cdn.example.com/api/v1/share/content/"));
+        assertEquals(first.contentUrl(), second.contentUrl());
+        assertNotEquals(first.contentUrl(), otherOwner.contentUrl());
+        // a limited link is downloaded through its token only
+        assertNull(limited.contentUrl());
+        assertTrue(limited.limited());
+    }
+
+    @Test
+    void resolve_ShouldServePublishedVersion() {
+        // Given
+        ShareContent shareContent = shareContent(true);
+        SharedFile shared = hashed(shareContent, "5/docs/report.pdf");
+        String contentKey = shared.contentUrl().substring(shared.contentUrl().lastIndexOf('/') + 1);
+
+        // When
+        SharedFile resolved = shareContent.resolve(contentKey);
+
+        // Then
+        assertEquals(shared.hash(), resolved.hash());
+        verify(storageService).getResource("5/docs/report.pdf");
+    }
+
+    @Test
+    void resolve_ShouldFail_ForUnknownKey_AndForReplacedFile() throws IOException {
+        // Given
+        ShareContent shareContent = shareContent(true);
+        SharedFile shared = hashed(shareContent, "5/docs/report.pdf");
+        String contentKey = shared.contentUrl().substring(shared.contentUrl().lastIndexOf('/') + 1);
+        Files.writeString(file, "version two");
+        Files.setLastModifiedTime(file, FileTime.from(Instant.now().plusSeconds(5)));
+
+        // When / Then
+        CerebraException unknown = assertThrows(CerebraException.class, () -> shareContent.resolve("unknown"));
+        assertEquals(ErrorCode.SHARE_LINK_EXPIRED, unknown.getErrorCode());
+        CerebraException replaced = assertThrows(CerebraException.class, () -> shareContent.resolve(contentKey));
+        assertEquals(ErrorCode.SHARE_LINK_EXPIRED, replaced.getErrorCode());
+    }
+
+    @Test
+    void resolve_ShouldFail_WhenFileWasDeleted() {
+        // Given
+        ShareContent shareContent = shareContent(true);
+        SharedFile shared = hashed(shareContent, "5/docs/report.pdf");
+        String contentKey = shared.contentUrl().substring(shared.contentUrl().lastIndexOf('/') + 1);
+        when(storageService.getResource(anyString())).thenThrow(new CerebraException(ErrorCode.FILE_NOT_FOUND));
+
+        // When / Then
+        CerebraException ex = assertThrows(CerebraException.class, () -> shareContent.resolve(contentKey));
+        assertEquals(ErrorCode.SHARE_LINK_EXPIRED, ex.getErrorCode());
+    }
+}
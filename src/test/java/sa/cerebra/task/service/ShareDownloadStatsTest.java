@@ -0,0 +1,183 @@
+package sa.cerebra.task.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.transaction.PlatformTransactionManager;
+import sa.cerebra.task.dto.response.ShareStatsResponse;
+import sa.cerebra.task.entity.ShareFileStats;
+import sa.cerebra.task.entity.ShareLink;
+import sa.cerebra.task.exception.CerebraException;
+import sa.cerebra.task.exception.ErrorCode;
+import sa.cerebra.task.helper.HyperLogLog;
+import sa.cerebra.task.repository.ShareFileStatsRepository;
+import sa.cerebra.task.repository.ShareLinkRepository;
+
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class ShareDownloadStatsTest {
+
+    @Mock
+    private ShareLinkRepository shareLinkRepository;
+
+    @Mock
+    private ShareFileStatsRepository shareFileStatsRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private ShareDownloadStats stats;
+
+    private final String tokenHash = ShareLinkRegistry.hash("abc");
+    private final String pathHash = ShareLinkRegistry.hash("5/docs/a.txt");
+
+    @BeforeEach
+    void setUp() {
+        stats = new ShareDownloadStats(shareLinkRepository, shareFileStatsRepository, transactionManager);
+        when(shareLinkRepository.addDownloads(anyString(), anyLong(), anyLong())).thenReturn(1);
+    }
+
+    @Test
+    void record_ShouldNotTouchDatabase() {
+        // When
+        stats.record("abc", "5/docs/a.txt", 100, "10.0.0.1");
+
+        // Then
+        verifyNoInteractions(shareLinkRepository, shareFileStatsRepository, transactionManager);
+    }
+
+    @Test
+    void flush_ShouldWriteOneUpdatePerLinkAndFile_WithAggregatedCounts() {
+        // Given
+        stats.record("abc", "5/docs/a.txt", 100, "10.0.0.1");
+        stats.record("abc", "5/docs/a.txt", 100, "10.0.0.1");
+        stats.record("xyz", "5/docs/a.txt", 100, "10.0.0.2");
+
+        // When
+        stats.flush();
+
+        // Then
+        verify(shareLinkRepository).addDownloads(tokenHash, 2, 200);
+        verify(shareLinkRepository).addDownloads(ShareLinkRegistry.hash("xyz"), 1, 100);
+        verify(shareFileStatsRepository).addDownloads(eq(5L), eq(pathHash), eq("5/docs/a.txt"), eq(3L), eq(300L), any());
+    }
+
+    @Test
+    void flush_ShouldMergeRecipientsIntoStoredSketch() {
+        // Given
+        HyperLogLog stored = new HyperLogLog();
+        stored.add("10.0.0.9");
+        ShareLink link = new ShareLink();
+        link.setRecipientsSketch(stored.toBytes());
+        when(shareLinkRepository.findForUpdate(tokenHash)).thenReturn(Optional.of(link));
+        stats.record("abc", "5/docs/a.txt", 100, "10.0.0.1");
+
+        // When
+        stats.flush();
+
+        // Then
+        assertEquals(2, HyperLogLog.fromBytes(link.getRecipientsSketch()).estimate());
+    }
+
+    @Test
+    void flush_ShouldSkipSketchMerge_WhenNoNewRecipient() {
+        // Given
+        stats.record("abc", "5/docs/a.txt", 100, "10.0.0.1");
+        stats.flush();
+        clearInvocations(shareLinkRepository);
+        clearInvocations(shareFileStatsRepository);
+
+        // When
+        stats.record("abc", "5/docs/a.txt", 100, "10.0.0.1");
+        stats.flush();
+
+        // Then
+        verify(shareLinkRepository).addDownloads(tokenHash, 1, 100);
+        verify(shareLinkRepository, never()).findForUpdate(anyString());
+        verify(shareFileStatsRepository, never()).findForUpdate(anyLong(), anyString());
+    }
+
+    @Test
+    void flush_ShouldKeepCounts_WhenWriteFails() {
+        // Given
+        stats.record("abc", "5/docs/a.txt", 100, null);
+        when(shareLinkRepository.addDownloads(tokenHash, 1, 100)).thenThrow(new RuntimeException("db down"));
+        stats.flush();
+
+        // When
+        stats.record("abc", "5/docs/a.txt", 100, null);
+        stats.flush();
+
+        // Then
+        verify(shareLinkRepository).addDownloads(tokenHash, 2, 200);
+    }
+
+    @Test
+    void flush_ShouldDropIdleEntries_AfterTwoEmptyFlushes() {
+        // Given
+        stats.record("abc", "5/docs/a.txt", 100, null);
+        stats.flush();
+
+        // When
+        stats.flush();
+        assertEquals(2, stats.trackedCount());
+        stats.flush();
+
+        // Then
+        assertEquals(0, stats.trackedCount());
+    }
+
+    @Test
+    void linkStats_ShouldEstimateRecipients_FromStoredSketch() {
+        // Given
+        HyperLogLog sketch = new HyperLogLog();
+        sketch.add("10.0.0.1");
+        sketch.add("10.0.0.2");
+        ShareLink link = new ShareLink();
+        link.setDownloadCount(5);
+        link.setBytesServed(500);
+        link.setRecipientsSketch(sketch.toBytes());
+        when(shareLinkRepository.findByIdAndOwnerId(42L, 5L)).thenReturn(Optional.of(link));
+
+        // When
+        ShareStatsResponse response = stats.linkStats(5L, 42L);
+
+        // Then
+        assertEquals(5, response.getDownloads());
+        assertEquals(500, response.getBytesServed());
+        assertEquals(2, response.getUniqueRecipients());
+    }
+
+    @Test
+    void linkStats_ShouldFail_ForLinkOfAnotherOwner() {
+        // Given
+        when(shareLinkRepository.findByIdAndOwnerId(42L, 6L)).thenReturn(Optional.empty());
+
+        // When / Then
+        CerebraException ex = assertThrows(CerebraException.class, () -> stats.linkStats(6L, 42L));
+        assertEquals(ErrorCode.SHARE_LINK_EXPIRED, ex.getErrorCode());
+    }
+
+    @Test
+    void fileStats_ShouldBeZero_ForNeverDownloadedFile_AndReadStoredRow() {
+        // Given
+        ShareFileStats row = new ShareFileStats();
+        row.setDownloadCount(7);
+        when(shareFileStatsRepository.findByOwnerIdAndPathHash(5L, pathHash)).thenReturn(Optional.of(row));
+
+        // When / Then
+        assertEquals(0, stats.fileStats(5L, "5/docs/other.txt").getDownloads());
+        assertEquals(7, stats.fileStats(5L, "5/docs/a.txt").getDownloads());
+        assertEquals(0, stats.fileStats(5L, "5/docs/a.txt").getUniqueRecipients());
+    }
+}
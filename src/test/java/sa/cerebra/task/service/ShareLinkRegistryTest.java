@@ -0,0 +1,408 @@
+package sa.cerebra.task.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.data.domain.Pageable;
+import sa.cerebra.task.cache.CacheMetrics;
+import sa.cerebra.task.cache.CacheStore;
+import sa.cerebra.task.cache.impl.map.InMemoryCacheStore;
+import sa.cerebra.task.dto.response.ShareLinkPageResponse;
+import sa.cerebra.task.entity.ShareLink;
+import sa.cerebra.task.exception.CerebraException;
+import sa.cerebra.task.exception.ErrorCode;
+import sa.cerebra.task.repository.ShareLinkRepository;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class ShareLinkRegistryTest {
+
+    @Mock
+    private ShareLinkRepository shareLinkRepository;
+
+    @Mock
+    private CacheStore cacheStore;
+
+    @Mock
+    private ShareRevocations shareRevocations;
+
+    @Mock
+    private ShareDownloadStats shareDownloadStats;
+
+    private ShareLinkRegistry registry;
+
+    @BeforeEach
+    void setUp() {
+        registry = new ShareLinkRegistry(shareLinkRepository, cacheStore, shareRevocations, shareDownloadStats,
+                Duration.ofHours(1));
+        when(cacheStore.putAsync(anyString(), anyString(), any(), anyLong())).thenReturn(CompletableFuture.completedFuture(null));
+    }
+
+    private static ShareLink link(long id, String token, String path, String revocationId) {
+        ShareLink link = new ShareLink();
+        link.setId(id);
+        link.setTokenHash(ShareLinkRegistry.hash(token));
+        link.setOwnerId(5L);
+        link.setPath(path);
+        link.setRevocationId(revocationId);
+        link.setExpiresAt(Instant.now().plusSeconds(86400));
+        link.setCreatedAt(Instant.now());
+        return link;
+    }
+
+    @Test
+    void register_ShouldStoreTokenHashOnly_AndWarmCacheForCachedLinks() {
+        // When
+        registry.register(5L, "secret-token", "5/docs/a.txt", Instant.now().plusSeconds(7 * 86400), null, null).join();
+
+        // Then
+        ArgumentCaptor<ShareLink> saved = ArgumentCaptor.forClass(ShareLink.class);
+        verify(shareLinkRepository).save(saved.capture());
+        assertEquals(ShareLinkRegistry.hash("secret-token"), saved.getValue().getTokenHash());
+        assertNotEquals("secret-token", saved.getValue().getTokenHash());
+        // the cache entry is capped at the configured ttl, not the link lifetime
+        verify(cacheStore).putAsync("share-links", ShareLinkRegistry.hash("secret-token"), "5/docs/a.txt", 60L);
+    }
+
+    @Test
+    void register_ShouldNotCacheSignedLinks() {
+        // When
+        registry.register(5L, "k0.sealed", "5/docs/a.txt", Instant.now().plusSeconds(60), "id1", null).join();
+
+        // Then
+        verify(shareLinkRepository).save(any());
+        verifyNoInteractions(cacheStore);
+    }
+
+    @Test
+    void registerAll_ShouldInsertOnce_AndCacheOnlyCachedLinks() {
+        // Given
+        List<ShareLinkRegistry.NewShareLink> links = List.of(
+                new ShareLinkRegistry.NewShareLink("a", "5/docs/a.txt", null),
+                new ShareLinkRegistry.NewShareLink("b", "5/docs/b.txt", null),
+                new ShareLinkRegistry.NewShareLink("k0.c", "5/docs/c.txt", "id3"));
+
+        // When
+        registry.registerAll(5L, links, Instant.now().plusSeconds(7 * 86400), null);
+
+        // Then
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<ShareLink>> inserted = ArgumentCaptor.forClass(List.class);
+        verify(shareLinkRepository).insertAll(inserted.capture());
+        verify(shareLinkRepository, never()).save(any());
+        assertEquals(3, inserted.getValue().size());
+        assertEquals("id3", inserted.getValue().get(2).getRevocationId());
+        verify(cacheStore).putAll("share-links", Map.of(
+                ShareLinkRegistry.hash("a"), "5/docs/a.txt",
+                ShareLinkRegistry.hash("b"), "5/docs/b.txt"), 60L);
+    }
+
+    @Test
+    void register_ShouldKeepDownloadCounter_ForTheLifeOfLimitedLinks() {
+        // When
+        registry.register(5L, "k0.sealed", "5/docs/a.txt", Instant.now().plusSeconds(3 * 86400), "id1", 2).join();
+        registry.registerAll(5L, List.of(new ShareLinkRegistry.NewShareLink("a", "5/docs/a.txt", null)),
+                Instant.now().plusSeconds(86400), 1);
+
+        // Then
+        ArgumentCaptor<ShareLink> saved = ArgumentCaptor.forClass(ShareLink.class);
+        verify(shareLinkRepository).save(saved.capture());
+        assertEquals(2, saved.getValue().getMaxDownloads());
+        verify(cacheStore).putAsync("share-link-downloads", ShareLinkRegistry.hash("k0.sealed"), 2L, 3 * 1440L);
+        verify(cacheStore).putAll("share-link-downloads", Map.of(ShareLinkRegistry.hash("a"), 1L), 1440L);
+        // the cache entry tells the link is limited
+        verify(cacheStore).putAll("share-links", Map.of(ShareLinkRegistry.hash("a"), "#5/docs/a.txt"), 60L);
+    }
+
+    @Test
+    void takeDownload_ShouldDecrementCounter_AndRejectOnceUsedUp() {
+        // Given
+        String tokenHash = ShareLinkRegistry.hash("abc");
+        when(cacheStore.decrement("share-link-downloads", tokenHash)).thenReturn(0L, -1L);
+
+        // When / Then
+        assertDoesNotThrow(() -> registry.takeDownload("abc"));
+        CerebraException ex = assertThrows(CerebraException.class, () -> registry.takeDownload("abc"));
+        assertEquals(ErrorCode.SHARE_LINK_EXPIRED, ex.getErrorCode());
+        verifyNoInteractions(shareLinkRepository);
+    }
+
+    @Test
+    void takeDownload_ShouldRestoreLostCounter_LessFlushedAndUnflushedDownloads() {
+        // Given: the path is still cached, but the counter was evicted
+        ShareLink link = link(1, "k0.sealed", "5/docs/a.txt", "id1");
+        link.setMaxDownloads(5);
+        link.setDownloadCount(3);
+        when(shareLinkRepository.findByTokenHash(link.getTokenHash())).thenReturn(Optional.of(link));
+        when(shareDownloadStats.unflushedDownloads(link.getTokenHash())).thenReturn(1L);
+        when(cacheStore.decrement("share-link-downloads", link.getTokenHash())).thenReturn(null, 0L);
+
+        // When
+        registry.takeDownload("k0.sealed");
+
+        // Then
+        verify(cacheStore).putIfAbsent(eq("share-link-downloads"), eq(link.getTokenHash()), eq(1L), anyLong());
+        verify(cacheStore, times(2)).decrement("share-link-downloads", link.getTokenHash());
+    }
+
+    @Test
+    void takeDownload_ShouldReject_WhenCounterAndLinkAreGone() {
+        // Given
+        when(cacheStore.decrement(eq("share-link-downloads"), anyString())).thenReturn(null);
+
+        // When / Then
+        CerebraException ex = assertThrows(CerebraException.class, () -> registry.takeDownload("revoked"));
+        assertEquals(ErrorCode.SHARE_LINK_EXPIRED, ex.getErrorCode());
+        verify(cacheStore, never()).putIfAbsent(anyString(), anyString(), any(), anyLong());
+    }
+
+    @Test
+    void resolve_ShouldServeFromCache_WithoutDatabase() {
+        // Given
+        when(cacheStore.get("share-links", ShareLinkRegistry.hash("abc"))).thenReturn("5/docs/a.txt");
+        when(cacheStore.get("share-links", ShareLinkRegistry.hash("once"))).thenReturn("#5/docs/b.txt");
+
+        // When / Then
+        assertEquals(new ShareLinkRegistry.LiveLink("5/docs/a.txt", false), registry.resolve("abc"));
+        assertEquals(new ShareLinkRegistry.LiveLink("5/docs/b.txt", true), registry.resolve("once"));
+        verifyNoInteractions(shareLinkRepository);
+    }
+
+    @Test
+    void resolve_ShouldReadThroughDatabase_AndFillCache_OnMiss() {
+        // Given
+        ShareLink link = link(1, "abc", "5/docs/a.txt", null);
+        when(shareLinkRepository.findByTokenHash(link.getTokenHash())).thenReturn(Optional.of(link));
+
+        // When
+        ShareLinkRegistry.LiveLink resolved = registry.resolve("abc");
+
+        // Then
+        assertEquals(new ShareLinkRegistry.LiveLink("5/docs/a.txt", false), resolved);
+        verify(cacheStore).put("share-links", link.getTokenHash(), "5/docs/a.txt", 60L);
+    }
+
+    @Test
+    void resolve_ShouldReturnNull_ForUnknownOrExpiredLinks() {
+        // Given
+        ShareLink expired = link(1, "old", "5/docs/a.txt", null);
+        expired.setExpiresAt(Instant.now().minusSeconds(1));
+        when(shareLinkRepository.findByTokenHash(expired.getTokenHash())).thenReturn(Optional.of(expired));
+
+        // When / Then
+        assertNull(registry.resolve("old"));
+        assertNull(registry.resolve("unknown"));
+        verify(cacheStore, never()).put(anyString(), anyString(), any(), anyLong());
+    }
+
+    @Test
+    void list_ShouldReturnRelativePaths_AndCursorOfLastRow_WhenMoreRowsExist() {
+        // Given
+        List<ShareLink> rows = LongStream.of(50, 49, 48).mapToObj(id -> link(id, "t" + id, "5/docs/" + id + ".txt", null)).toList();
+        when(shareLinkRepository.findLivePage(eq(5L), eq(Long.MAX_VALUE), any(), any())).thenReturn(rows);
+
+        // When
+        ShareLinkPageResponse page = registry.list(5L, null, 2);
+
+        // Then
+        assertEquals(2, page.getLinks().size());
+        assertEquals("docs/50.txt", page.getLinks().get(0).getPath());
+        assertEquals(49L, page.getNextCursor());
+        ArgumentCaptor<Pageable> pageable = ArgumentCaptor.forClass(Pageable.class);
+        verify(shareLinkRepository).findLivePage(eq(5L), eq(Long.MAX_VALUE), any(), pageable.capture());
+        assertEquals(3, pageable.getValue().getPageSize());
+    }
+
+    @Test
+    void list_ShouldSeekFromCursor_AndEndWithoutNextCursor() {
+        // Given
+        when(shareLinkRepository.findLivePage(eq(5L), eq(49L), any(), any()))
+                .thenReturn(List.of(link(48, "t48", "5/docs/48.txt", null)));
+
+        // When
+        ShareLinkPageResponse page = registry.list(5L, 49L, 2);
+
+        // Then
+        assertEquals(1, page.getLinks().size());
+        assertNull(page.getNextCursor());
+    }
+
+    @Test
+    void list_ShouldCapPageSize() {
+        // When
+        registry.list(5L, null, 1_000_000);
+
+        // Then
+        ArgumentCaptor<Pageable> pageable = ArgumentCaptor.forClass(Pageable.class);
+        verify(shareLinkRepository).findLivePage(eq(5L), anyLong(), any(), pageable.capture());
+        assertEquals(ShareLinkRegistry.MAX_PAGE_SIZE + 1, pageable.getValue().getPageSize());
+    }
+
+    @Test
+    void revoke_ShouldDeleteRow_AndEvictCache_ForCachedLink() {
+        // Given
+        ShareLink link = link(42, "abc", "5/docs/a.txt", null);
+        when(shareLinkRepository.findByIdAndOwnerId(42L, 5L)).thenReturn(Optional.of(link));
+
+        // When
+        registry.revoke(5L, 42L);
+
+        // Then
+        verify(shareLinkRepository).delete(link);
+        verify(cacheStore).remove("share-links", link.getTokenHash());
+        verifyNoInteractions(shareRevocations);
+    }
+
+    @Test
+    void revoke_ShouldRecordRevocation_ForSignedLink() {
+        // Given
+        ShareLink link = link(42, "k0.sealed", "5/docs/a.txt", "id1");
+        when(shareLinkRepository.findByIdAndOwnerId(42L, 5L)).thenReturn(Optional.of(link));
+
+        // When
+        registry.revoke(5L, 42L);
+
+        // Then
+        verify(shareLinkRepository).delete(link);
+        verify(shareRevocations).revoke("id1", link.getExpiresAt());
+    }
+
+    @Test
+    void revoke_ShouldFail_ForLinkOfAnotherOwner() {
+        // Given
+        when(shareLinkRepository.findByIdAndOwnerId(42L, 6L)).thenReturn(Optional.empty());
+
+        // When / Then
+        CerebraException ex = assertThrows(CerebraException.class, () -> registry.revoke(6L, 42L));
+        assertEquals(ErrorCode.SHARE_LINK_EXPIRED, ex.getErrorCode());
+        verify(shareLinkRepository, never()).delete(any());
+    }
+
+    @Test
+    void revokeByPath_ShouldEndEveryLinkToTheFile() {
+        // Given
+        ShareLink cached = link(1, "a", "5/docs/a.txt", null);
+        ShareLink signed = link(2, "k0.b", "5/docs/a.txt", "id2");
+        when(shareLinkRepository.findByOwnerIdAndPath(5L, "5/docs/a.txt")).thenReturn(List.of(cached, signed));
+
+        // When
+        int revoked = registry.revokeByPath(5L, "5/docs/a.txt");
+
+        // Then
+        assertEquals(2, revoked);
+        verify(cacheStore).remove("share-links", cached.getTokenHash());
+        verify(shareRevocations).revoke("id2", signed.getExpiresAt());
+    }
+
+    @Test
+    void revokeToken_ShouldDeny_LinkOfAnotherOwner_AndReportUnregisteredTokens() {
+        // Given
+        ShareLink link = link(1, "abc", "5/docs/a.txt", null);
+        when(shareLinkRepository.findByTokenHash(link.getTokenHash())).thenReturn(Optional.of(link));
+
+        // When / Then
+        CerebraException ex = assertThrows(CerebraException.class, () -> registry.revokeToken(6L, "abc"));
+        assertEquals(ErrorCode.ACCESS_DENIED, ex.getErrorCode());
+        assertFalse(registry.revokeToken(5L, "unknown"));
+        assertTrue(registry.revokeToken(5L, "abc"));
+        verify(shareLinkRepository).delete(link);
+    }
+
+    @Test
+    void register_ShouldCacheShortLinkInItsBucket_AndResolveWithoutDatabase() {
+        // Given
+        InMemoryCacheStore store = new InMemoryCacheStore(CacheMetrics.noop());
+        ShareLinkRegistry shortRegistry = new ShareLinkRegistry(shareLinkRepository, store, shareRevocations,
+                shareDownloadStats, Duration.ofHours(1));
+        String token = ShortLinkIds.encode(1234) + "kQ7sXbP0mZ";
+
+        // When
+        shortRegistry.register(5L, token, "5/docs/a.txt", Instant.now().plusSeconds(86400), null, null).join();
+
+        // Then
+        ArgumentCaptor<ShareLink> saved = ArgumentCaptor.forClass(ShareLink.class);
+        verify(shareLinkRepository).save(saved.capture());
+        assertEquals(1234L, saved.getValue().getShortId());
+        assertEquals(ShareLinkRegistry.hash(token), saved.getValue().getTokenHash());
+        assertNull(store.get(ShareLinkRegistry.CACHE_NAME, ShareLinkRegistry.hash(token)));
+        assertEquals(new ShareLinkRegistry.LiveLink("5/docs/a.txt", false), shortRegistry.resolve(token));
+        // same id, wrong secret: rejected from the bucket entry
+        assertNull(shortRegistry.resolve(ShortLinkIds.encode(1234) + "kQ7sXbP0mA"));
+        verify(shareLinkRepository, never()).findByShortId(anyLong());
+        verify(shareLinkRepository, never()).findByTokenHash(anyString());
+    }
+
+    @Test
+    void registerAll_ShouldWriteShortLinksOnePutPerBucket() {
+        // Given
+        List<ShareLinkRegistry.NewShareLink> links = LongStream.range(195, 205)
+                .mapToObj(id -> new ShareLinkRegistry.NewShareLink(ShortLinkIds.encode(id) + "kQ7sXbP0mZ",
+                        "5/docs/" + id + ".txt", null))
+                .toList();
+
+        // When
+        registry.registerAll(5L, links, Instant.now().plusSeconds(86400), null);
+
+        // Then
+        verify(cacheStore).putFields(eq("share-short-links"), eq("1"), argThat(fields -> fields.size() == 5), eq(60L));
+        verify(cacheStore).putFields(eq("share-short-links"), eq("2"), argThat(fields -> fields.size() == 5), eq(60L));
+        verify(cacheStore, never()).putAll(eq("share-links"), anyMap(), anyLong());
+    }
+
+    @Test
+    void resolve_ShouldReadShortLinkThroughDatabase_OnlyForMatchingSecret() {
+        // Given
+        InMemoryCacheStore store = new InMemoryCacheStore(CacheMetrics.noop());
+        ShareLinkRegistry shortRegistry = new ShareLinkRegistry(shareLinkRepository, store, shareRevocations,
+                shareDownloadStats, Duration.ofHours(1));
+        String token = ShortLinkIds.encode(77) + "kQ7sXbP0mZ";
+        ShareLink row = link(1L, token, "5/docs/a.txt", null);
+        row.setShortId(77L);
+        row.setMaxDownloads(1);
+        when(shareLinkRepository.findByShortId(77L)).thenReturn(Optional.of(row));
+
+        // When
+        ShareLinkRegistry.LiveLink guessed = shortRegistry.resolve(ShortLinkIds.encode(77) + "0000000000");
+        ShareLinkRegistry.LiveLink resolved = shortRegistry.resolve(token);
+        ShareLinkRegistry.LiveLink cached = shortRegistry.resolve(token);
+
+        // Then
+        assertNull(guessed);
+        assertEquals(new ShareLinkRegistry.LiveLink("5/docs/a.txt", true), resolved);
+        assertEquals(resolved, cached);
+        verify(shareLinkRepository, times(2)).findByShortId(77L);
+    }
+
+    @Test
+    void revoke_ShouldRemoveShortLinkFromItsBucket() {
+        // Given
+        ShareLink row = link(1L, ShortLinkIds.encode(1234) + "kQ7sXbP0mZ", "5/docs/a.txt", null);
+        row.setShortId(1234L);
+        when(shareLinkRepository.findByIdAndOwnerId(1L, 5L)).thenReturn(Optional.of(row));
+
+        // When
+        registry.revoke(5L, 1L);
+
+        // Then
+        verify(shareLinkRepository).delete(row);
+        verify(cacheStore).removeField("share-short-links", "12", "34");
+        verify(cacheStore, never()).remove(eq("share-links"), anyString());
+    }
+}
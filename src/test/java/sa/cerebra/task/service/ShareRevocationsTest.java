@@ -0,0 +1,140 @@
+package sa.cerebra.task.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.dao.DataIntegrityViolationException;
+import sa.cerebra.task.entity.RevokedShareLink;
+import sa.cerebra.task.repository.RevokedShareLinkRepository;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class ShareRevocationsTest {
+
+    @Mock
+    private RevokedShareLinkRepository revokedShareLinkRepository;
+
+    private ShareRevocations shareRevocations;
+
+    @BeforeEach
+    void setUp() {
+        shareRevocations = new ShareRevocations(revokedShareLinkRepository, 1000, 0.001);
+        when(revokedShareLinkRepository.findRevokedSince(any(), anyLong(), any())).thenReturn(List.of());
+    }
+
+    private static RevokedShareLink revoked(long id, String tokenId) {
+        RevokedShareLink revoked = new RevokedShareLink();
+        revoked.setId(id);
+        revoked.setTokenId(tokenId);
+        revoked.setExpiresAt(Instant.now().plusSeconds(3600));
+        return revoked;
+    }
+
+    @Test
+    void isRevoked_ShouldAskDatabase_UntilFirstSync() {
+        // Given
+        when(revokedShareLinkRepository.existsByTokenId("t1")).thenReturn(true);
+
+        // When / Then
+        assertTrue(shareRevocations.isRevoked("t1"));
+        verify(revokedShareLinkRepository).existsByTokenId("t1");
+    }
+
+    @Test
+    void isRevoked_ShouldNotTouchDatabase_ForLinksMissingFromFilter() {
+        // Given
+        shareRevocations.sync();
+
+        // When
+        boolean revoked = shareRevocations.isRevoked("live-token");
+
+        // Then
+        assertFalse(revoked);
+        verify(revokedShareLinkRepository, never()).existsByTokenId(anyString());
+    }
+
+    @Test
+    void sync_ShouldLoadRevocationsOfOtherNodes_AndConfirmHitsInDatabase() {
+        // Given
+        when(revokedShareLinkRepository.findRevokedSince(any(), eq(0L), any())).thenReturn(List.of(revoked(7, "t7")));
+        when(revokedShareLinkRepository.existsByTokenId("t7")).thenReturn(true);
+
+        // When
+        shareRevocations.sync();
+
+        // Then
+        assertTrue(shareRevocations.isRevoked("t7"));
+        verify(revokedShareLinkRepository).existsByTokenId("t7");
+    }
+
+    @Test
+    void sync_ShouldPageThroughLargeBatches() {
+        // Given
+        List<RevokedShareLink> full = new ArrayList<>();
+        for (int i = 1; i <= 1000; i++) {
+            full.add(revoked(i, "t" + i));
+        }
+        when(revokedShareLinkRepository.findRevokedSince(any(), eq(0L), any())).thenReturn(full);
+        when(revokedShareLinkRepository.findRevokedSince(any(), eq(1000L), any())).thenReturn(List.of(revoked(1001, "t1001")));
+        when(revokedShareLinkRepository.existsByTokenId(anyString())).thenReturn(true);
+
+        // When
+        shareRevocations.sync();
+
+        // Then
+        assertTrue(shareRevocations.isRevoked("t1001"));
+        verify(revokedShareLinkRepository).findRevokedSince(any(), eq(1000L), any());
+    }
+
+    @Test
+    void revoke_ShouldPersist_AndFlagLocallyAtOnce() {
+        // Given
+        shareRevocations.sync();
+        Instant expiresAt = Instant.now().plusSeconds(60);
+        when(revokedShareLinkRepository.existsByTokenId("t9")).thenReturn(true);
+
+        // When
+        shareRevocations.revoke("t9", expiresAt);
+
+        // Then
+        verify(revokedShareLinkRepository).save(argThat(r -> r.getTokenId().equals("t9") && r.getExpiresAt().equals(expiresAt)));
+        assertTrue(shareRevocations.isRevoked("t9"));
+    }
+
+    @Test
+    void revoke_ShouldTolerateRepeatedRevocation() {
+        // Given
+        when(revokedShareLinkRepository.save(any())).thenThrow(new DataIntegrityViolationException("duplicate"));
+
+        // When / Then
+        assertDoesNotThrow(() -> shareRevocations.revoke("t9", Instant.now().plusSeconds(60)));
+    }
+
+    @Test
+    void rebuild_ShouldDropExpiredRows_AndReloadFilter() {
+        // Given
+        when(revokedShareLinkRepository.count()).thenReturn(1L);
+        when(revokedShareLinkRepository.findRevokedSince(eq(Instant.EPOCH), eq(0L), any())).thenReturn(List.of(revoked(3, "t3")));
+        when(revokedShareLinkRepository.existsByTokenId("t3")).thenReturn(true);
+
+        // When
+        shareRevocations.rebuild();
+
+        // Then
+        verify(revokedShareLinkRepository).deleteExpired(any());
+        assertTrue(shareRevocations.isRevoked("t3"));
+        assertFalse(shareRevocations.isRevoked("t4"));
+    }
+}
@@ -0,0 +1,78 @@
+package sa.cerebra.task.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import sa.cerebra.task.helper.TokenGenerator;
+import sa.cerebra.task.repository.IdSegmentRepository;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class ShortLinkIdsTest {
+
+    @Mock
+    private IdSegmentRepository idSegmentRepository;
+
+    private final TokenGenerator tokenGenerator = new TokenGenerator(32, TokenGenerator.Format.BASE64URL);
+
+    @Test
+    void newTokens_ShouldTakeIdsFromOneSegment_UntilItRunsOut() {
+        // Given
+        when(idSegmentRepository.allocate("share-links", 3)).thenReturn(1000L, 5000L);
+        ShortLinkIds ids = new ShortLinkIds(idSegmentRepository, tokenGenerator, true, 3);
+
+        // When
+        List<String> tokens = ids.newTokens(2);
+        String third = ids.newToken();
+        String fourth = ids.newToken();
+
+        // Then
+        assertEquals(1000L, ShortLinkIds.idOf(tokens.get(0)));
+        assertEquals(1001L, ShortLinkIds.idOf(tokens.get(1)));
+        assertEquals(1002L, ShortLinkIds.idOf(third));
+        assertEquals(5000L, ShortLinkIds.idOf(fourth));
+        verify(idSegmentRepository, times(2)).allocate("share-links", 3);
+        assertTrue(third.matches("[0-9A-Za-z]{12}"), "unexpected token " + third);
+    }
+
+    @Test
+    void newTokens_ShouldAllocateOneBlock_ForBatchLargerThanSegment() {
+        // Given
+        when(idSegmentRepository.allocate("share-links", 50)).thenReturn(1L);
+        ShortLinkIds ids = new ShortLinkIds(idSegmentRepository, tokenGenerator, true, 10);
+
+        // When
+        List<String> tokens = ids.newTokens(50);
+
+        // Then
+        assertEquals(50L, ShortLinkIds.idOf(tokens.get(49)));
+        verify(idSegmentRepository).allocate("share-links", 50);
+    }
+
+    @Test
+    void idOf_ShouldDecodeShortTokens_AndRejectEveryOtherToken() {
+        assertEquals(0L, ShortLinkIds.idOf("0kQ7sXbP0mZ"));
+        assertEquals(Long.MAX_VALUE, ShortLinkIds.idOf(ShortLinkIds.encode(Long.MAX_VALUE) + "kQ7sXbP0mZ"));
+        // too short, overflowing, not base62, or as long as a regular token
+        assertNull(ShortLinkIds.idOf("kQ7sXbP0mZ"));
+        assertNull(ShortLinkIds.idOf("zzzzzzzzzzz" + "kQ7sXbP0mZ"));
+        assertNull(ShortLinkIds.idOf("4c9-kQ7sXbP0mZ"));
+        assertNull(ShortLinkIds.idOf(tokenGenerator.generate()));
+        assertNull(ShortLinkIds.idOf(new TokenGenerator(16, TokenGenerator.Format.BASE62).generate()));
+    }
+
+    @Test
+    void bucketOf_ShouldGroupConsecutiveIdsByHundred() {
+        assertEquals("12", ShortLinkIds.bucketOf(1234));
+        assertEquals("34", ShortLinkIds.fieldOf(1234));
+        assertEquals("0", ShortLinkIds.bucketOf(99));
+    }
+}
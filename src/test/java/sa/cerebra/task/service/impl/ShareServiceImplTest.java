@@ -7,19 +7,42 @@ import org.mockito.ArgumentCaptor;
 import org.mockito.Captor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.mockito.junit.jupiter.MockitoSettings;
 import org.mockito.quality.Strictness;
 import org.springframework.core.io.Resource;
 import sa.cerebra.task.cache.CacheStore;
+import sa.cerebra.task.dto.request.BulkShareLinkRequest;
 import sa.cerebra.task.dto.request.CreateShareLinkRequest;
+import sa.cerebra.task.dto.response.BulkShareLinkResponse;
+import sa.cerebra.task.dto.response.ShareLinkPageResponse;
 import sa.cerebra.task.dto.response.ShareLinkResponse;
+import sa.cerebra.task.dto.response.ShareStatsResponse;
 import sa.cerebra.task.entity.User;
 import sa.cerebra.task.exception.CerebraException;
 import sa.cerebra.task.exception.ErrorCode;
+import sa.cerebra.task.helper.ShareLinkSigner;
+import sa.cerebra.task.helper.ShareLinkSigner.SignedShareLink;
+import sa.cerebra.task.helper.TokenGenerator;
+import sa.cerebra.task.model.FileModel;
+import sa.cerebra.task.service.ShareContent;
+import sa.cerebra.task.service.ShareContent.SharedFile;
+import sa.cerebra.task.service.ShareDownloadStats;
+import sa.cerebra.task.service.ShareLinkRegistry;
+import sa.cerebra.task.service.ShareLinkRegistry.LiveLink;
+import sa.cerebra.task.service.ShareRevocations;
+import sa.cerebra.task.service.ShortLinkIds;
 import sa.cerebra.task.sms.SendSms;
+import sa.cerebra.task.sms.SmsMessage;
 import sa.cerebra.task.storage.StorageService;
 
+import java.io.FileNotFoundException;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.*;
@@ -37,9 +60,30 @@ class ShareServiceImplTest {
     @Mock
     private CacheStore cacheStore;
 
+    @Mock
+    private ShareLinkSigner shareLinkSigner;
+
+    @Mock
+    private ShareRevocations shareRevocations;
+
+    @Mock
+    private ShareLinkRegistry shareLinkRegistry;
+
+    @Mock
+    private ShareDownloadStats shareDownloadStats;
+
+    @Mock
+    private ShareContent shareContent;
+
+    @Mock
+    private ShortLinkIds shortLinkIds;
+
     @Mock
     private Resource resource;
 
+    @Spy
+    private TokenGenerator tokenGenerator = new TokenGenerator(32, TokenGenerator.Format.BASE64URL);
+
     @InjectMocks
     private ShareServiceImpl shareService;
 
@@ -54,14 +98,20 @@ class ShareServiceImplTest {
         var field = ShareServiceImpl.class.getDeclaredField("baseUrl");
         field.setAccessible(true);
         field.set(shareService, "http://localhost:8080");
+        var maxBulkLinks = ShareServiceImpl.class.getDeclaredField("maxBulkLinks");
+        maxBulkLinks.setAccessible(true);
+        maxBulkLinks.set(shareService, 10);
 
         user = new User();
         user.setId(5L);
         user.setPhone("+1234567890");
+
+        when(shareLinkRegistry.register(anyLong(), anyString(), anyString(), any(), any(), any()))
+                .thenReturn(CompletableFuture.completedFuture(null));
     }
 
     @Test
-    void shareLink_ShouldCachePath_AndReturnShareUrl_WithoutSms_WhenNoRecipient() {
+    void shareLink_ShouldRegisterPath_AndReturnShareUrl_WithoutSms_WhenNoRecipient() {
         // Given
         CreateShareLinkRequest request = new CreateShareLinkRequest();
         request.setPath("docs/file.txt");
@@ -72,7 +122,8 @@ class ShareServiceImplTest {
         ShareLinkResponse response = shareService.shareLink(user, request);
 
         // Then
-        verify(cacheStore).put(eq("share-links"), anyString(), eq("5/docs/file.txt"), eq(3 * 24 * 60 * 60 * 1000L));
+        verify(shareLinkRegistry).register(eq(5L), anyString(), eq("5/docs/file.txt"),
+                argThat(expiry -> expiry.isAfter(Instant.now().plusSeconds(3 * 86400 - 60))), isNull(), isNull());
         assertNotNull(response);
         assertNotNull(response.getLink());
         assertTrue(response.getLink().startsWith("http://localhost:8080/api/v1/share/"));
@@ -91,11 +142,27 @@ class ShareServiceImplTest {
         ShareLinkResponse response = shareService.shareLink(user, request);
 
         // Then
-        verify(cacheStore).put(eq("share-links"), anyString(), eq("5/docs/file.txt"), eq(7 * 24 * 60 * 60 * 1000L));
+        verify(shareLinkRegistry).register(eq(5L), anyString(), eq("5/docs/file.txt"),
+                argThat(expiry -> expiry.isAfter(Instant.now().plusSeconds(7 * 86400 - 60))), isNull(), isNull());
         verify(sendSms).send(eq("+1111111111"), contains("http://localhost:8080/api/v1/share/"));
         assertNotNull(response.getLink());
     }
 
+    @Test
+    void shareLink_ShouldNotSendSms_WhenLinkCannotBeStored() {
+        // Given
+        CreateShareLinkRequest request = new CreateShareLinkRequest();
+        request.setPath("docs/file.txt");
+        request.setExpirationDays(7);
+        request.setRecipientPhone("+1111111111");
+        when(shareLinkRegistry.register(anyLong(), anyString(), anyString(), any(), any(), any()))
+                .thenReturn(CompletableFuture.failedFuture(new IllegalStateException("cache unavailable")));
+
+        // When / Then
+        assertThrows(CompletionException.class, () -> shareService.shareLink(user, request));
+        verifyNoInteractions(sendSms);
+    }
+
     @Test
     void shareLink_ShouldHandleDifferentPathsAndExpirations() {
         // Given
@@ -107,33 +174,508 @@ class ShareServiceImplTest {
         shareService.shareLink(user, request);
 
         // Then
-        verify(cacheStore).put(eq("share-links"), anyString(), eq("5/reports/2025/jan.pdf"), eq(1 * 24 * 60 * 60 * 1000L));
+        verify(shareLinkRegistry).register(eq(5L), anyString(), eq("5/reports/2025/jan.pdf"),
+                argThat(expiry -> expiry.isAfter(Instant.now().plusSeconds(1 * 86400 - 60))), isNull(), isNull());
     }
 
     @Test
-    void download_ShouldFetchResource_WhenTokenValid() {
+    void countDownload_ShouldRecordSizeAndRecipient() throws Exception {
         // Given
-        String token = "abc";
-        when(cacheStore.get("share-links", token)).thenReturn("5/docs/file.txt");
+        when(resource.contentLength()).thenReturn(31L);
+        SharedFile file = new SharedFile(resource, "5/docs/file.txt", "hash", Instant.EPOCH, null, false);
+
+        // When
+        shareService.countDownload("abc", file, "10.0.0.1");
+
+        // Then
+        verify(shareDownloadStats).record("abc", "5/docs/file.txt", 31L, "10.0.0.1");
+    }
+
+    @Test
+    void open_ShouldDescribeFileVersion_WithoutCounting() throws Exception {
+        // Given
+        when(shareLinkRegistry.resolve("abc")).thenReturn(new LiveLink("5/docs/file.txt", false));
         when(storageService.getResource("5/docs/file.txt")).thenReturn(resource);
+        when(resource.contentLength()).thenReturn(31L);
+        SharedFile described = new SharedFile(resource, "5/docs/file.txt", "hash", Instant.EPOCH, null, false);
+        when(shareContent.describe("5/docs/file.txt", resource, false)).thenReturn(described);
+
+        // When
+        SharedFile result = shareService.open("abc");
+
+        // Then
+        assertSame(described, result);
+        verifyNoInteractions(shareDownloadStats);
+    }
+
+    @Test
+    void open_ShouldServeFileUnderSharedFolder_AndCountItsDownload() throws Exception {
+        // Given
+        when(shareLinkRegistry.resolve("abc")).thenReturn(new LiveLink("5/docs", false));
+        when(storageService.getResource("5/docs/2025/jan.pdf")).thenReturn(resource);
+        when(resource.contentLength()).thenReturn(31L);
+        SharedFile described = new SharedFile(resource, "5/docs/2025/jan.pdf", "hash", Instant.EPOCH, null, false);
+        when(shareContent.describe("5/docs/2025/jan.pdf", resource, false)).thenReturn(described);
 
         // When
-        Resource result = shareService.download(token);
+        SharedFile result = shareService.open("abc", "2025/./jan.pdf");
+        shareService.countDownload("abc", result, "10.0.0.1");
 
         // Then
-        assertSame(resource, result);
-        verify(storageService).getResource("5/docs/file.txt");
+        assertSame(described, result);
+        verify(shareDownloadStats).record("abc", "5/docs/2025/jan.pdf", 31L, "10.0.0.1");
+    }
+
+    @Test
+    void open_ShouldDeny_PathsOutsideSharedFolder() {
+        // Given
+        when(shareLinkRegistry.resolve("abc")).thenReturn(new LiveLink("5/docs", false));
+
+        // When / Then
+        for (String path : List.of("../secret.txt", "../docs2/file.txt", "2025/../../../6/file.txt")) {
+            CerebraException ex = assertThrows(CerebraException.class, () -> shareService.open("abc", path));
+            assertEquals(ErrorCode.ACCESS_DENIED, ex.getErrorCode(), path);
+        }
+        verifyNoInteractions(storageService, shareDownloadStats);
     }
 
     @Test
-    void download_ShouldThrow_WhenTokenMissingOrExpired() {
+    void listShared_ShouldListSubfolderOfSharedFolder() {
         // Given
-        String token = "expired";
-        when(cacheStore.get("share-links", token)).thenReturn(null);
+        when(shareLinkRegistry.resolve("abc")).thenReturn(new LiveLink("5/docs", false));
+        List<FileModel> files = List.of(FileModel.builder().name("jan.pdf").build());
+        when(storageService.list("5/docs/2025")).thenReturn(files);
 
         // When / Then
-        CerebraException ex = assertThrows(CerebraException.class, () -> shareService.download(token));
+        assertSame(files, shareService.listShared("abc", "2025"));
+        when(storageService.list("5/docs")).thenReturn(List.of());
+        assertTrue(shareService.listShared("abc", null).isEmpty());
+    }
+
+    @Test
+    void listShared_ShouldThrow_WhenTokenExpired() {
+        // When / Then
+        CerebraException ex = assertThrows(CerebraException.class, () -> shareService.listShared("expired", "2025"));
         assertEquals(ErrorCode.SHARE_LINK_EXPIRED, ex.getErrorCode());
         verifyNoInteractions(storageService);
     }
+
+    @Test
+    void open_ShouldNotPublishContentUrl_ForLinksWithDownloadLimit_WithoutTakingADownload() throws Exception {
+        // Given
+        when(shareLinkRegistry.resolve("abc")).thenReturn(new LiveLink("5/docs/file.txt", true));
+        when(storageService.getResource("5/docs/file.txt")).thenReturn(resource);
+        SharedFile described = new SharedFile(resource, "5/docs/file.txt", "hash", Instant.EPOCH, null, true);
+        when(shareContent.describe("5/docs/file.txt", resource, true)).thenReturn(described);
+
+        // When
+        SharedFile result = shareService.open("abc");
+
+        // Then
+        assertSame(described, result);
+        verify(shareLinkRegistry, never()).takeDownload(anyString());
+    }
+
+    @Test
+    void countDownload_ShouldTakeDownload_OnlyForLimitedLinks() {
+        // Given
+        SharedFile unlimited = new SharedFile(resource, "5/docs/file.txt", "hash", Instant.EPOCH, null, false);
+        SharedFile limited = new SharedFile(resource, "5/docs/file.txt", "hash", Instant.EPOCH, null, true);
+
+        // When
+        shareService.countDownload("free", unlimited, "10.0.0.1");
+        shareService.countDownload("abc", limited, "10.0.0.1");
+
+        // Then
+        verify(shareLinkRegistry, never()).takeDownload("free");
+        verify(shareLinkRegistry).takeDownload("abc");
+        verify(shareDownloadStats, times(2)).record(anyString(), eq("5/docs/file.txt"), anyLong(), eq("10.0.0.1"));
+    }
+
+    @Test
+    void countDownload_ShouldThrow_WithoutRecording_WhenDownloadsUsedUp() {
+        // Given
+        SharedFile limited = new SharedFile(resource, "5/docs/file.txt", "hash", Instant.EPOCH, null, true);
+        doThrow(new CerebraException(ErrorCode.SHARE_LINK_EXPIRED)).when(shareLinkRegistry).takeDownload("abc");
+
+        // When / Then
+        CerebraException ex = assertThrows(CerebraException.class,
+                () -> shareService.countDownload("abc", limited, "10.0.0.1"));
+        assertEquals(ErrorCode.SHARE_LINK_EXPIRED, ex.getErrorCode());
+        verifyNoInteractions(shareDownloadStats);
+    }
+
+    @Test
+    void open_ShouldTellLimitedSignedLink_FromItsToken() {
+        // Given
+        when(shareLinkSigner.verify("k0.limited"))
+                .thenReturn(new SignedShareLink("id1", 5L, "5/docs/file.txt", Instant.now().plusSeconds(60), 2));
+        when(storageService.getResource("5/docs/file.txt")).thenReturn(resource);
+
+        // When
+        shareService.open("k0.limited");
+
+        // Then
+        verify(shareContent).describe("5/docs/file.txt", resource, true);
+        verify(shareLinkRegistry, never()).resolve(anyString());
+    }
+
+    @Test
+    void shareLink_ShouldRegisterDownloadLimit() {
+        // Given
+        CreateShareLinkRequest request = new CreateShareLinkRequest();
+        request.setPath("docs/file.txt");
+        request.setMaxDownloads(1);
+
+        // When
+        shareService.shareLink(user, request);
+
+        // Then
+        verify(shareLinkRegistry).register(eq(5L), anyString(), eq("5/docs/file.txt"), any(), isNull(), eq(1));
+    }
+
+    @Test
+    void shareLink_ShouldSealDownloadLimitIntoSignedToken() {
+        // Given
+        when(shareLinkSigner.isEnabled()).thenReturn(true);
+        when(shareLinkSigner.sign(eq(5L), eq("5/docs/file.txt"), any(), eq(2))).thenReturn("k0.limited");
+        when(shareLinkSigner.verify("k0.limited"))
+                .thenReturn(new SignedShareLink("id1", 5L, "5/docs/file.txt", Instant.now().plusSeconds(60), 2));
+        CreateShareLinkRequest request = new CreateShareLinkRequest();
+        request.setPath("docs/file.txt");
+        request.setMaxDownloads(2);
+
+        // When
+        shareService.shareLink(user, request);
+
+        // Then
+        verify(shareLinkRegistry).register(eq(5L), eq("k0.limited"), eq("5/docs/file.txt"), any(), eq("id1"), eq(2));
+    }
+
+    @Test
+    void shareLink_ShouldUseShortToken_WhenShortLinksEnabled() {
+        // Given
+        when(shortLinkIds.isEnabled()).thenReturn(true);
+        when(shortLinkIds.newToken()).thenReturn("4c92kQ7sXbP0mZ");
+        CreateShareLinkRequest request = new CreateShareLinkRequest();
+        request.setPath("docs/file.txt");
+
+        // When
+        ShareLinkResponse response = shareService.shareLink(user, request);
+
+        // Then
+        assertEquals("http://localhost:8080/api/v1/share/4c92kQ7sXbP0mZ", response.getLink());
+        verify(shareLinkRegistry).register(eq(5L), eq("4c92kQ7sXbP0mZ"), eq("5/docs/file.txt"), any(), isNull(), isNull());
+        verify(tokenGenerator, never()).generate();
+    }
+
+    @Test
+    void open_ShouldThrow_WithoutDescribing_WhenTokenExpired() {
+        // When / Then
+        CerebraException ex = assertThrows(CerebraException.class, () -> shareService.open("expired"));
+        assertEquals(ErrorCode.SHARE_LINK_EXPIRED, ex.getErrorCode());
+        verifyNoInteractions(shareContent, shareDownloadStats);
+    }
+
+    @Test
+    void open_ShouldFallBackToRawTokenCacheEntry_ForLinksSharedBeforeRegistry() {
+        // Given
+        when(shareLinkRegistry.resolve("old")).thenReturn(null);
+        when(cacheStore.get("share-links", "old")).thenReturn("5/docs/file.txt");
+        when(storageService.getResource("5/docs/file.txt")).thenReturn(resource);
+
+        // When
+        shareService.open("old");
+
+        // Then
+        verify(shareContent).describe("5/docs/file.txt", resource, false);
+    }
+
+    @Test
+    void shareLink_ShouldSealPathIntoToken_WithoutCacheWrite_InSignedMode() {
+        // Given
+        when(shareLinkSigner.isEnabled()).thenReturn(true);
+        when(shareLinkSigner.sign(eq(5L), eq("5/docs/file.txt"), any(), isNull())).thenReturn("k0.sealed");
+        when(shareLinkSigner.verify("k0.sealed"))
+                .thenReturn(new SignedShareLink("id1", 5L, "5/docs/file.txt", Instant.now().plusSeconds(3 * 86400), null));
+        CreateShareLinkRequest request = new CreateShareLinkRequest();
+        request.setPath("docs/file.txt");
+        request.setExpirationDays(3);
+
+        // When
+        ShareLinkResponse response = shareService.shareLink(user, request);
+
+        // Then
+        assertEquals("http://localhost:8080/api/v1/share/k0.sealed", response.getLink());
+        verify(shareLinkSigner).sign(eq(5L), eq("5/docs/file.txt"),
+                argThat(expiry -> expiry.isAfter(Instant.now().plusSeconds(3 * 86400 - 60))), isNull());
+        // registered for listing and revocation by id
+        verify(shareLinkRegistry).register(eq(5L), eq("k0.sealed"), eq("5/docs/file.txt"), any(), eq("id1"), isNull());
+        verifyNoInteractions(cacheStore);
+    }
+
+    @Test
+    void open_ShouldServeSignedLink_WithoutCacheLookup() {
+        // Given
+        when(shareLinkSigner.verify("k0.sealed"))
+                .thenReturn(new SignedShareLink("id1", 5L, "5/docs/file.txt", Instant.now().plusSeconds(60), null));
+        when(storageService.getResource("5/docs/file.txt")).thenReturn(resource);
+
+        // When
+        shareService.open("k0.sealed");
+
+        // Then
+        verify(shareContent).describe("5/docs/file.txt", resource, false);
+        verify(shareRevocations).isRevoked("id1");
+        verify(shareLinkRegistry, never()).resolve(anyString());
+        verifyNoInteractions(cacheStore);
+    }
+
+    @Test
+    void open_ShouldReject_RevokedOrInvalidSignedLink() {
+        // Given
+        when(shareLinkSigner.verify("k0.revoked"))
+                .thenReturn(new SignedShareLink("id1", 5L, "5/docs/file.txt", Instant.now().plusSeconds(60), null));
+        when(shareRevocations.isRevoked("id1")).thenReturn(true);
+        when(shareLinkSigner.verify("k0.forged")).thenReturn(null);
+
+        // When / Then
+        assertEquals(ErrorCode.SHARE_LINK_EXPIRED,
+                assertThrows(CerebraException.class, () -> shareService.open("k0.revoked")).getErrorCode());
+        assertEquals(ErrorCode.SHARE_LINK_EXPIRED,
+                assertThrows(CerebraException.class, () -> shareService.open("k0.forged")).getErrorCode());
+        verifyNoInteractions(storageService, cacheStore);
+    }
+
+    @Test
+    void revoke_ShouldRecordRevocation_ForOwnSignedLink() {
+        // Given
+        Instant expiresAt = Instant.now().plusSeconds(60);
+        when(shareLinkSigner.verify("k0.sealed")).thenReturn(new SignedShareLink("id1", 5L, "5/a.txt", expiresAt, null));
+
+        // When
+        shareService.revoke(user, "k0.sealed");
+
+        // Then
+        verify(shareRevocations).revoke("id1", expiresAt);
+    }
+
+    @Test
+    void revoke_ShouldDeny_SignedLinkOfAnotherUser() {
+        // Given
+        when(shareLinkSigner.verify("k0.sealed"))
+                .thenReturn(new SignedShareLink("id1", 6L, "6/a.txt", Instant.now().plusSeconds(60), null));
+
+        // When / Then
+        CerebraException ex = assertThrows(CerebraException.class, () -> shareService.revoke(user, "k0.sealed"));
+        assertEquals(ErrorCode.ACCESS_DENIED, ex.getErrorCode());
+        verify(shareRevocations, never()).revoke(anyString(), any());
+    }
+
+    @Test
+    void revoke_ShouldRemoveCacheEntry_ForOwnCachedLink() {
+        // Given
+        when(cacheStore.get("share-links", "abc")).thenReturn("5/docs/file.txt");
+
+        // When
+        shareService.revoke(user, "abc");
+
+        // Then
+        verify(cacheStore).remove("share-links", "abc");
+    }
+
+    @Test
+    void revoke_ShouldDeny_CachedLinkOfAnotherUser() {
+        // Given
+        when(cacheStore.get("share-links", "abc")).thenReturn("55/docs/file.txt");
+
+        // When / Then
+        CerebraException ex = assertThrows(CerebraException.class, () -> shareService.revoke(user, "abc"));
+        assertEquals(ErrorCode.ACCESS_DENIED, ex.getErrorCode());
+        verify(cacheStore, never()).remove(anyString(), anyString());
+    }
+
+    @Test
+    void revoke_ShouldUseRegistry_WhenTokenRegistered() {
+        // Given
+        when(shareLinkRegistry.revokeToken(5L, "abc")).thenReturn(true);
+
+        // When
+        shareService.revoke(user, "abc");
+
+        // Then
+        verifyNoInteractions(cacheStore, shareLinkSigner, shareRevocations);
+    }
+
+    @Test
+    void list_ShouldReturnRegistryPage_ForCurrentUser() {
+        // Given
+        ShareLinkPageResponse page = ShareLinkPageResponse.builder().links(List.of()).build();
+        when(shareLinkRegistry.list(5L, 41L, 20)).thenReturn(page);
+
+        // When / Then
+        assertSame(page, shareService.list(user, 41L, 20));
+    }
+
+    @Test
+    void revokeById_ShouldDelegateToRegistry_WithCurrentUser() {
+        // When
+        shareService.revoke(user, 42L);
+
+        // Then
+        verify(shareLinkRegistry).revoke(5L, 42L);
+    }
+
+    @Test
+    void revokeByPath_ShouldResolvePathInUserStorage() {
+        // Given
+        when(shareLinkRegistry.revokeByPath(5L, "5/docs/file.txt")).thenReturn(2);
+
+        // When
+        int revoked = shareService.revokeByPath(user, "/docs/file.txt");
+
+        // Then
+        assertEquals(2, revoked);
+    }
+
+    @Test
+    void countDownload_ShouldStillCount_WhenSizeUnknown() throws Exception {
+        // Given
+        when(resource.contentLength()).thenThrow(new FileNotFoundException());
+        SharedFile file = new SharedFile(resource, "5/docs/file.txt", null, Instant.EPOCH, null, false);
+
+        // When
+        shareService.countDownload("abc", file, "10.0.0.1");
+
+        // Then
+        verify(shareDownloadStats).record("abc", "5/docs/file.txt", 0L, "10.0.0.1");
+    }
+
+    @Test
+    void stats_ShouldDelegate_WithCurrentUserAndStoragePath() {
+        // Given
+        ShareStatsResponse stats = ShareStatsResponse.builder().downloads(3).build();
+        when(shareDownloadStats.linkStats(5L, 42L)).thenReturn(stats);
+        when(shareDownloadStats.fileStats(5L, "5/docs/file.txt")).thenReturn(stats);
+
+        // When / Then
+        assertSame(stats, shareService.linkStats(user, 42L));
+        assertSame(stats, shareService.fileStats(user, "docs/file.txt"));
+    }
+
+    private static BulkShareLinkRequest bulkRequest(List<String> paths, List<String> recipients) {
+        BulkShareLinkRequest request = new BulkShareLinkRequest();
+        request.setPaths(paths);
+        request.setRecipientPhones(recipients);
+        request.setExpirationDays(7);
+        return request;
+    }
+
+    @Test
+    void shareLinks_ShouldCreateLinkPerPathAndRecipient_WithOneRegistryCall_AndOneSmsBatch() {
+        // Given
+        BulkShareLinkRequest request = bulkRequest(List.of("docs/a.txt", "docs/b.txt"),
+                List.of("+1111111111", "+2222222222", "+1111111111"));
+
+        // When
+        BulkShareLinkResponse response = shareService.shareLinks(user, request);
+
+        // Then
+        assertEquals(4, response.getLinks().size());
+        assertEquals(4, response.getLinks().stream().map(BulkShareLinkResponse.Link::getLink).distinct().count());
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<ShareLinkRegistry.NewShareLink>> registered = ArgumentCaptor.forClass(List.class);
+        verify(shareLinkRegistry).registerAll(eq(5L), registered.capture(),
+                argThat(expiry -> expiry.isAfter(Instant.now().plusSeconds(7 * 86400 - 60))), isNull());
+        assertEquals(4, registered.getValue().size());
+        assertTrue(registered.getValue().stream().allMatch(link -> link.revocationId() == null));
+        verify(shareLinkRegistry, never()).register(anyLong(), anyString(), anyString(), any(), any(), any());
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<SmsMessage>> sent = ArgumentCaptor.forClass(List.class);
+        verify(sendSms).sendAll(sent.capture());
+        verify(sendSms, never()).send(anyString(), anyString());
+        assertEquals(2, sent.getValue().size());
+        SmsMessage first = sent.getValue().get(0);
+        assertEquals("+1111111111", first.phone());
+        response.getLinks().stream()
+                .filter(link -> "+1111111111".equals(link.getRecipientPhone()))
+                .forEach(link -> assertTrue(first.message().contains(link.getLink())));
+    }
+
+    @Test
+    void shareLinks_ShouldNotSendSms_WhenLinksCannotBeRegistered() {
+        // Given
+        BulkShareLinkRequest request = bulkRequest(List.of("docs/a.txt"), List.of("+1111111111"));
+        doThrow(new IllegalStateException("database unavailable"))
+                .when(shareLinkRegistry).registerAll(anyLong(), any(), any(), any());
+
+        // When / Then
+        assertThrows(IllegalStateException.class, () -> shareService.shareLinks(user, request));
+        verifyNoInteractions(sendSms);
+    }
+
+    @Test
+    void shareLinks_ShouldNotSendSms_WhenNoRecipients() {
+        // Given
+        BulkShareLinkRequest request = bulkRequest(List.of("docs/a.txt", "docs/b.txt", "docs/c.txt"), null);
+
+        // When
+        BulkShareLinkResponse response = shareService.shareLinks(user, request);
+
+        // Then
+        assertEquals(3, response.getLinks().size());
+        assertNull(response.getLinks().get(0).getRecipientPhone());
+        verify(shareLinkRegistry).registerAll(eq(5L), argThat(links -> links.size() == 3), any(), isNull());
+        verifyNoInteractions(sendSms);
+    }
+
+    @Test
+    void shareLinks_ShouldRejectRequest_WhenTooManyLinks() {
+        // Given
+        BulkShareLinkRequest request = bulkRequest(List.of("a", "b", "c", "d"), List.of("+1", "+2", "+3"));
+
+        // When / Then
+        CerebraException ex = assertThrows(CerebraException.class, () -> shareService.shareLinks(user, request));
+        assertEquals(ErrorCode.BAD_REQUEST, ex.getErrorCode());
+        verifyNoInteractions(shareLinkRegistry, sendSms);
+    }
+
+    @Test
+    void shareLinks_ShouldSignEveryLink_WhenSignedModeEnabled() {
+        // Given
+        when(shareLinkSigner.isEnabled()).thenReturn(true);
+        when(shareLinkSigner.sign(eq(5L), anyString(), any(), any())).thenReturn("k0.a", "k0.b");
+        when(shareLinkSigner.verify("k0.a")).thenReturn(new SignedShareLink("id1", 5L, "5/docs/a.txt", Instant.now().plusSeconds(60), null));
+        when(shareLinkSigner.verify("k0.b")).thenReturn(new SignedShareLink("id2", 5L, "5/docs/b.txt", Instant.now().plusSeconds(60), null));
+
+        // When
+        BulkShareLinkResponse response = shareService.shareLinks(user, bulkRequest(List.of("docs/a.txt", "docs/b.txt"), null));
+
+        // Then
+        assertEquals("http://localhost:8080/api/v1/share/k0.a", response.getLinks().get(0).getLink());
+        verify(shareLinkRegistry).registerAll(eq(5L), eq(List.of(
+                new ShareLinkRegistry.NewShareLink("k0.a", "5/docs/a.txt", "id1"),
+                new ShareLinkRegistry.NewShareLink("k0.b", "5/docs/b.txt", "id2"))), any(), isNull());
+    }
+
+    @Test
+    void shareLinks_ShouldRejectLinkTooLongForSms_BeforeRegisteringAny() {
+        // Given: a signed token for a deep path
+        String longToken = "k0." + "x".repeat(900);
+        when(shareLinkSigner.isEnabled()).thenReturn(true);
+        when(shareLinkSigner.sign(eq(5L), anyString(), any(), any())).thenReturn(longToken);
+        when(shareLinkSigner.verify(longToken)).thenReturn(new SignedShareLink("id1", 5L, "5/docs/a.txt",
+                Instant.now().plusSeconds(60), null));
+
+        // When / Then
+        CerebraException ex = assertThrows(CerebraException.class, () -> shareService.shareLinks(user,
+                bulkRequest(List.of("docs/a.txt"), List.of("+966500000001"))));
+        assertEquals(ErrorCode.BAD_REQUEST, ex.getErrorCode());
+        verify(shareLinkRegistry, never()).registerAll(anyLong(), any(), any(), any());
+        verifyNoInteractions(sendSms);
+        // without a recipient nothing is sent, so the same link is fine
+        shareService.shareLinks(user, bulkRequest(List.of("docs/a.txt"), null));
+        verify(shareLinkRegistry).registerAll(eq(5L), any(), any(), isNull());
+    }
 }
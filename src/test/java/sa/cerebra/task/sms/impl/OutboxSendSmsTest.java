@@ -0,0 +1,308 @@
+package sa.cerebra.task.sms.impl;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import sa.cerebra.task.entity.SmsOutbox;
+import sa.cerebra.task.repository.SmsOutboxRepository;
+import sa.cerebra.task.sms.SmsGateway;
+import sa.cerebra.task.sms.SmsMessage;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class OutboxSendSmsTest {
+
+    @Mock
+    private SmsOutboxRepository smsOutboxRepository;
+
+    private FakeSmsGateway gateway;
+    private OutboxSendSms outboxSendSms;
+    private final AtomicLong ids = new AtomicLong();
+
+    private static final int MAX_ATTEMPTS = 3;
+
+    /**
+     * Stands in for the SMS provider: records batches, can be held back, and rejects or fails on demand.
+     */
+    static class FakeSmsGateway implements SmsGateway {
+        final List<List<SmsOutbox>> batches = Collections.synchronizedList(new ArrayList<>());
+        final Set<Long> rejectIds = Collections.synchronizedSet(new HashSet<>());
+        volatile RuntimeException failure;
+        volatile CountDownLatch hold = new CountDownLatch(0);
+        volatile CountDownLatch delivered = new CountDownLatch(0);
+
+        @Override
+        public Set<Long> sendBatch(List<SmsOutbox> batch) {
+            try {
+                hold.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            batches.add(List.copyOf(batch));
+            try {
+                if (failure != null) {
+                    throw failure;
+                }
+                Set<Long> rejected = new HashSet<>();
+                for (SmsOutbox sms : batch) {
+                    if (rejectIds.contains(sms.getId())) {
+                        rejected.add(sms.getId());
+                    }
+                }
+                return rejected;
+            } finally {
+                for (int i = 0; i < batch.size(); i++) {
+                    delivered.countDown();
+                }
+            }
+        }
+    }
+
+    @BeforeEach
+    void setUp() {
+        gateway = new FakeSmsGateway();
+        outboxSendSms = new OutboxSendSms(smsOutboxRepository, gateway, 100, 2, 10, MAX_ATTEMPTS,
+                Duration.ofSeconds(2), Duration.ofMinutes(5), Duration.ofMinutes(1), Duration.ofDays(7));
+        when(smsOutboxRepository.save(any(SmsOutbox.class))).thenAnswer(invocation -> {
+            SmsOutbox sms = invocation.getArgument(0);
+            sms.setId(ids.incrementAndGet());
+            return sms;
+        });
+        doAnswer(invocation -> {
+            List<SmsOutbox> batch = invocation.getArgument(0);
+            batch.forEach(sms -> sms.setId(ids.incrementAndGet()));
+            return null;
+        }).when(smsOutboxRepository).insertAll(anyList());
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        gateway.hold = new CountDownLatch(0);
+        outboxSendSms.destroy();
+    }
+
+    private static SmsOutbox sms(long id, int attempts) {
+        SmsOutbox sms = new SmsOutbox();
+        sms.setId(id);
+        sms.setPhone("+96650000000" + id);
+        sms.setMessage("message " + id);
+        sms.setAttempts(attempts);
+        return sms;
+    }
+
+    @Test
+    void send_ShouldPersistAndReturn_WithoutWaitingForGateway() throws InterruptedException {
+        // Given a provider that does not answer yet
+        CountDownLatch hold = new CountDownLatch(1);
+        gateway.hold = hold;
+        gateway.delivered = new CountDownLatch(1);
+
+        // When
+        long start = System.nanoTime();
+        outboxSendSms.send("+966500000000", "This is the otp 123456");
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        // Then
+        assertTrue(elapsedMillis < 1_000);
+        ArgumentCaptor<SmsOutbox> saved = ArgumentCaptor.forClass(SmsOutbox.class);
+        verify(smsOutboxRepository).save(saved.capture());
+        assertEquals("+966500000000", saved.getValue().getPhone());
+        assertEquals(SmsOutbox.Status.QUEUED, saved.getValue().getStatus());
+        assertNotNull(saved.getValue().getNextAttemptAt());
+
+        hold.countDown();
+        assertTrue(gateway.delivered.await(5, TimeUnit.SECONDS));
+        verify(smsOutboxRepository, timeout(5_000)).markSent(eq(List.of(1L)), eq(SmsOutbox.Status.SENT), any());
+    }
+
+    @Test
+    void send_ShouldBatchQueuedMessages() throws InterruptedException {
+        // Given
+        CountDownLatch hold = new CountDownLatch(1);
+        gateway.hold = hold;
+        gateway.delivered = new CountDownLatch(25);
+
+        // When
+        for (int i = 0; i < 25; i++) {
+            outboxSendSms.send("+9665000000" + i, "message " + i);
+        }
+        hold.countDown();
+
+        // Then
+        assertTrue(gateway.delivered.await(5, TimeUnit.SECONDS));
+        assertTrue(gateway.batches.size() < 25);
+        assertTrue(gateway.batches.stream().allMatch(batch -> batch.size() <= 10));
+        assertEquals(25, gateway.batches.stream().mapToInt(List::size).sum());
+    }
+
+    @Test
+    void sendAll_ShouldStoreMessagesWithOneInsert_AndDispatchThem() throws InterruptedException {
+        // Given
+        gateway.delivered = new CountDownLatch(30);
+        List<SmsMessage> messages = new ArrayList<>();
+        for (int i = 0; i < 30; i++) {
+            messages.add(new SmsMessage("+9665000000" + i, "message " + i));
+        }
+
+        // When
+        outboxSendSms.sendAll(messages);
+
+        // Then
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<SmsOutbox>> inserted = ArgumentCaptor.forClass(List.class);
+        verify(smsOutboxRepository).insertAll(inserted.capture());
+        verify(smsOutboxRepository, never()).save(any());
+        assertEquals(30, inserted.getValue().size());
+        assertTrue(inserted.getValue().stream().allMatch(sms -> sms.getStatus() == SmsOutbox.Status.QUEUED));
+        assertTrue(gateway.delivered.await(5, TimeUnit.SECONDS));
+        assertEquals(30, gateway.batches.stream().mapToInt(List::size).sum());
+    }
+
+    @Test
+    void send_ShouldQueueOnlyAfterCommit_AndNeverWhenTransactionRollsBack() throws InterruptedException {
+        // Given
+        gateway.delivered = new CountDownLatch(1);
+        TransactionSynchronizationManager.initSynchronization();
+        List<TransactionSynchronization> rolledBack;
+        List<TransactionSynchronization> committed;
+        try {
+            outboxSendSms.sendAll(List.of(new SmsMessage("+966500000001", "rolled back")));
+            rolledBack = TransactionSynchronizationManager.getSynchronizations();
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            outboxSendSms.send("+966500000002", "committed");
+            committed = TransactionSynchronizationManager.getSynchronizations();
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        // When
+        rolledBack.forEach(sync -> sync.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+        Thread.sleep(200);
+
+        // Then
+        assertTrue(gateway.batches.isEmpty());
+
+        // When
+        committed.forEach(TransactionSynchronization::afterCommit);
+
+        // Then
+        assertTrue(gateway.delivered.await(5, TimeUnit.SECONDS));
+        assertEquals(List.of("committed"),
+                gateway.batches.stream().flatMap(List::stream).map(SmsOutbox::getMessage).toList());
+    }
+
+    @Test
+    void dispatch_ShouldMarkSent_WhenGatewayAcceptsBatch() {
+        // When
+        outboxSendSms.dispatch(List.of(sms(1, 0), sms(2, 0)));
+
+        // Then
+        verify(smsOutboxRepository).markSent(eq(List.of(1L, 2L)), eq(SmsOutbox.Status.SENT), any());
+        verify(smsOutboxRepository, never()).markAttemptFailed(anyLong(), any(), anyInt(), any(), any());
+    }
+
+    @Test
+    void dispatch_ShouldScheduleRetry_WhenGatewayFails() {
+        // Given
+        gateway.failure = new IllegalStateException("provider unavailable");
+
+        // When
+        outboxSendSms.dispatch(List.of(sms(1, 0)));
+
+        // Then
+        verify(smsOutboxRepository).markAttemptFailed(eq(1L), eq(SmsOutbox.Status.PENDING), eq(1), any(), eq("provider unavailable"));
+        verify(smsOutboxRepository, never()).markSent(any(), any(), any());
+    }
+
+    @Test
+    void dispatch_ShouldRetryOnlyRejectedMessages_WhenBatchPartiallyFails() {
+        // Given
+        gateway.rejectIds.add(2L);
+
+        // When
+        outboxSendSms.dispatch(List.of(sms(1, 0), sms(2, 0), sms(3, 0)));
+
+        // Then
+        verify(smsOutboxRepository).markSent(eq(List.of(1L, 3L)), eq(SmsOutbox.Status.SENT), any());
+        verify(smsOutboxRepository).markAttemptFailed(eq(2L), eq(SmsOutbox.Status.PENDING), eq(1), any(), anyString());
+    }
+
+    @Test
+    void dispatch_ShouldMarkFailed_AfterMaxAttempts() {
+        // Given
+        gateway.failure = new IllegalStateException("provider unavailable");
+
+        // When
+        outboxSendSms.dispatch(List.of(sms(1, MAX_ATTEMPTS - 1)));
+
+        // Then
+        verify(smsOutboxRepository).markFailed(eq(1L), eq(SmsOutbox.Status.FAILED), eq(MAX_ATTEMPTS), anyString());
+        verify(smsOutboxRepository, never()).markAttemptFailed(anyLong(), any(), anyInt(), any(), any());
+    }
+
+    @Test
+    void purgeFinished_ShouldDeleteSentAndFailedRows_OlderThanRetention() {
+        // When
+        outboxSendSms.purgeFinished();
+
+        // Then
+        verify(smsOutboxRepository).deleteFinished(eq(Set.of(SmsOutbox.Status.SENT, SmsOutbox.Status.FAILED)),
+                argThat(before -> before.isBefore(Instant.now().minus(Duration.ofDays(7)).plusSeconds(5))
+                        && before.isAfter(Instant.now().minus(Duration.ofDays(7)).minusSeconds(5))));
+    }
+
+    @Test
+    void enqueueDue_ShouldSendOnlyMessagesClaimedByThisNode() throws InterruptedException {
+        // Given
+        gateway.delivered = new CountDownLatch(1);
+        when(smsOutboxRepository.findDue(any(), any(), any())).thenReturn(List.of(sms(1, 1), sms(2, 1)));
+        when(smsOutboxRepository.claim(eq(1L), any(), eq(SmsOutbox.Status.QUEUED), any(), any())).thenReturn(1);
+        when(smsOutboxRepository.claim(eq(2L), any(), eq(SmsOutbox.Status.QUEUED), any(), any())).thenReturn(0);
+
+        // When
+        outboxSendSms.enqueueDue();
+
+        // Then
+        assertTrue(gateway.delivered.await(5, TimeUnit.SECONDS));
+        verify(smsOutboxRepository, timeout(5_000)).markSent(eq(List.of(1L)), eq(SmsOutbox.Status.SENT), any());
+        assertTrue(gateway.batches.stream().flatMap(List::stream).noneMatch(sms -> sms.getId() == 2L));
+    }
+
+    @Test
+    void backoff_ShouldGrowExponentially_UpToMax() {
+        // When / Then
+        Duration first = outboxSendSms.backoff(1);
+        assertTrue(first.compareTo(Duration.ofSeconds(1)) >= 0 && first.compareTo(Duration.ofSeconds(2)) <= 0);
+        Duration third = outboxSendSms.backoff(3);
+        assertTrue(third.compareTo(Duration.ofSeconds(4)) >= 0 && third.compareTo(Duration.ofSeconds(8)) <= 0);
+        assertTrue(outboxSendSms.backoff(40).compareTo(Duration.ofMinutes(5)) <= 0);
+        assertTrue(outboxSendSms.backoff(40).compareTo(Duration.ofMinutes(2)) >= 0);
+    }
+}